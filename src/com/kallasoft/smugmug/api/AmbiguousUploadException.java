@@ -0,0 +1,57 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api;
+
+/**
+ * A class used to represent a network failure that occurred after an upload
+ * was completely sent to SmugMug, but before a successful reply was read.
+ * <p>
+ * In that case SmugMug may or may not have created the image, so blindly
+ * sending the upload again can create a duplicate. Handlers should first
+ * check whether the image exists (e.g. by its MD5 Sum and file name) before
+ * uploading it again.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class AmbiguousUploadException extends NetworkException {
+	private static final long serialVersionUID = -2804339917390581640L;
+
+	private String fileName;
+
+	/**
+	 * Constructs a new ambiguous upload exception for the given file.
+	 *
+	 * @param fileName
+	 *            The name of the file that was being uploaded.
+	 * @param cause
+	 *            The network failure that occurred after the upload was sent.
+	 */
+	public AmbiguousUploadException(String fileName, Throwable cause) {
+		super("The upload of [" + fileName
+				+ "] was completely sent but no valid reply was received, the image may or may not have been created",
+				cause);
+
+		this.fileName = fileName;
+	}
+
+	/**
+	 * Used to get the name of the file that was being uploaded.
+	 *
+	 * @return the name of the file that was being uploaded.
+	 */
+	public String getFileName() {
+		return fileName;
+	}
+}
@@ -0,0 +1,86 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api;
+
+/**
+ * A class used to represent an upload that was refused locally, before any
+ * data was read or sent, because the file is larger than the upload file size
+ * limit SmugMug reported for the logged in account.
+ * <p>
+ * Checking the limit up front avoids reading, hashing, encoding and sending a
+ * file only to have the SmugMug server reject it.
+ * 
+ * @author smugmug-java-api contributors
+ */
+public class FileSizeLimitException extends RuntimeException {
+	private static final long serialVersionUID = -2912034761985003127L;
+
+	private String fileName;
+
+	private long fileSize;
+
+	private long fileSizeLimit;
+
+	/**
+	 * Constructs a new file size limit exception for the given file.
+	 * 
+	 * @param fileName
+	 *            The name of the file that was refused.
+	 * @param fileSize
+	 *            The size of the file in bytes, or the number of bytes read
+	 *            before the limit was exceeded if the exact size is unknown.
+	 * @param fileSizeLimit
+	 *            The upload file size limit of the account in bytes.
+	 */
+	public FileSizeLimitException(String fileName, long fileSize,
+			long fileSizeLimit) {
+		super("The file [" + fileName + "] is " + fileSize
+				+ " bytes but the upload file size limit for this account is "
+				+ fileSizeLimit + " bytes, so SmugMug would reject it.");
+
+		this.fileName = fileName;
+		this.fileSize = fileSize;
+		this.fileSizeLimit = fileSizeLimit;
+	}
+
+	/**
+	 * Used to get the name of the file that was refused.
+	 * 
+	 * @return the name of the file that was refused.
+	 */
+	public String getFileName() {
+		return fileName;
+	}
+
+	/**
+	 * Used to get the size of the file in bytes. If the file was read from a
+	 * stream of unknown length, this is the number of bytes read before the
+	 * limit was exceeded.
+	 * 
+	 * @return the size of the file in bytes.
+	 */
+	public long getFileSize() {
+		return fileSize;
+	}
+
+	/**
+	 * Used to get the upload file size limit of the account in bytes.
+	 * 
+	 * @return the upload file size limit of the account in bytes.
+	 */
+	public long getFileSizeLimit() {
+		return fileSizeLimit;
+	}
+}
@@ -0,0 +1,57 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api;
+
+/**
+ * A class used to represent a network or server failure that occurred before
+ * the body of an upload was completely sent to SmugMug, like a server error
+ * in reply to an <code>Expect: 100-continue</code> header.
+ * <p>
+ * In that case SmugMug cannot have created the image, so the upload can be
+ * sent again without checking for a duplicate first.
+ *
+ * @author smugmug-java-api contributors
+ * @see AmbiguousUploadException
+ */
+public class UnsentUploadException extends NetworkException {
+	private static final long serialVersionUID = 5123808710270993517L;
+
+	private String fileName;
+
+	/**
+	 * Constructs a new unsent upload exception for the given file.
+	 *
+	 * @param fileName
+	 *            The name of the file that was being uploaded.
+	 * @param cause
+	 *            The failure that occurred before the upload was sent.
+	 */
+	public UnsentUploadException(String fileName, Throwable cause) {
+		super("The upload of [" + fileName
+				+ "] failed before it was completely sent, the image was not created",
+				cause);
+
+		this.fileName = fileName;
+	}
+
+	/**
+	 * Used to get the name of the file that was being uploaded.
+	 *
+	 * @return the name of the file that was being uploaded.
+	 */
+	public String getFileName() {
+		return fileName;
+	}
+}
@@ -15,13 +15,17 @@
 package com.kallasoft.smugmug.api.json;
 
 import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.NameValuePair;
+import org.apache.commons.httpclient.methods.ByteArrayRequestEntity;
 import org.apache.commons.httpclient.methods.PostMethod;
-import org.apache.commons.io.IOUtils;
+import org.apache.commons.httpclient.util.EncodingUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.kallasoft.smugmug.api.APIConstants;
 import com.kallasoft.smugmug.api.NetworkException;
+import com.kallasoft.smugmug.api.json.upload.ProgressRequestEntity;
+import com.kallasoft.smugmug.api.json.upload.UploadProgressListener;
 import com.kallasoft.smugmug.api.util.APIUtils;
 
 /**
@@ -218,6 +222,39 @@ public abstract class AbstractMethod implements Method {
 	 */
 	protected String executeImpl(String url, String[] argumentValues)
 			throws IllegalArgumentException, NetworkException {
+		return executeImpl(url, argumentValues, null);
+	}
+
+	/**
+	 * Used to perform the same communication as
+	 * {@link #executeImpl(String, String[])} while reporting the progress of
+	 * writing the HTTP POST body to the given listener.
+	 * <p>
+	 * This is mostly useful for methods that send large bodies, like the
+	 * Base64-encoded image data sent by <code>images.upload</code>.
+	 * 
+	 * @param url
+	 *            The URL of the SmugMug API to call.
+	 * @param argumentValues
+	 *            The values to pass to the API call for each of the arguments
+	 *            it takes.
+	 * @param progressListener
+	 *            The listener notified as the body of the HTTP POST is written,
+	 *            or <code>null</code> if no notifications are required.
+	 * 
+	 * @return a JSON-formatted reply from the SmugMug JSON API.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if url is null or empty.
+	 * @throws NetworkException
+	 *             if any network-based error occurs while trying to communicate
+	 *             with the SmugMug server.
+	 * 
+	 * @see #executeImpl(String, String[])
+	 */
+	protected String executeImpl(String url, String[] argumentValues,
+			UploadProgressListener progressListener)
+			throws IllegalArgumentException, NetworkException {
 		logger.debug("Executing Method {} Using Service URL {}",
 				getMethodName(), url);
 
@@ -236,11 +273,36 @@ public abstract class AbstractMethod implements Method {
 			postMethod.setRequestHeader("User-Agent", APIConstants.USER_AGENT);
 			setupPostParameters(postMethod, argumentValues);
 
+			/*
+			 * To report progress we need to own the body, so encode the
+			 * parameters exactly the way PostMethod would and send them as a
+			 * wrapped entity instead.
+			 */
+			ProgressRequestEntity progressEntity = null;
+
+			if (progressListener != null) {
+				NameValuePair[] parameters = postMethod.getParameters();
+				byte[] body = EncodingUtil.getAsciiBytes(EncodingUtil
+						.formUrlEncode(parameters, postMethod
+								.getRequestCharSet()));
+
+				progressEntity = new ProgressRequestEntity(
+						new ByteArrayRequestEntity(body,
+								PostMethod.FORM_URL_ENCODED_CONTENT_TYPE),
+						progressListener);
+
+				postMethod.setRequestBody(new NameValuePair[0]);
+				postMethod.setRequestEntity(progressEntity);
+			}
+
 			logger.trace("\tExecuting HTTP POST...");
 
 			/* Perform the communication with the server */
 			int code = APIConstants.HTTP_CLIENT.executeMethod(postMethod);
 
+			if (progressEntity != null)
+				progressEntity.responseReceived();
+
 			logger.debug("\tReceived HTTP status code {}", Integer
 					.valueOf(code));
 
@@ -249,7 +311,7 @@ public abstract class AbstractMethod implements Method {
 			 * otherwise we won't likely have a valid response from it to parse.
 			 */
 			if (code == HttpStatus.SC_OK) {
-				response = IOUtils.toString(postMethod
+				response = APIUtils.readString(postMethod
 						.getResponseBodyAsStream(), postMethod
 						.getResponseCharSet());
 
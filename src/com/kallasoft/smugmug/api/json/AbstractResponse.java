@@ -54,6 +54,24 @@ import com.kallasoft.smugmug.api.util.APIUtils;
  * @author Riyad Kalla
  */
 public abstract class AbstractResponse {
+	/**
+	 * Defines the error code SmugMug returns when the SessionID a method was
+	 * called with is unknown or has expired.
+	 */
+	public static final int ERROR_CODE_INVALID_SESSION = 3;
+
+	/**
+	 * Defines the error code ("invalid user") SmugMug returns when the item a
+	 * method was called on does not exist or is not owned by the user.
+	 */
+	public static final int ERROR_CODE_INVALID_USER = 4;
+
+	/**
+	 * Defines the error code SmugMug returns when a method that lists items
+	 * (e.g. the images of an album) has nothing to return.
+	 */
+	public static final int ERROR_CODE_EMPTY_SET = 15;
+
 	private static final Logger logger = LoggerFactory
 			.getLogger(AbstractResponse.class);
 
@@ -236,5 +254,38 @@ public abstract class AbstractResponse {
 		public String getMessage() {
 			return message;
 		}
+
+		/**
+		 * Used to determine if this error means the SessionID the method was
+		 * called with is no longer valid and the user must log in again.
+		 * 
+		 * @return <code>true</code> if the error code is
+		 *         {@link AbstractResponse#ERROR_CODE_INVALID_SESSION}.
+		 */
+		public boolean isInvalidSession() {
+			return (code.intValue() == ERROR_CODE_INVALID_SESSION);
+		}
+
+		/**
+		 * Used to determine if this error means the item the method was called
+		 * on does not exist, or is not visible to the user.
+		 * 
+		 * @return <code>true</code> if the error code is
+		 *         {@link AbstractResponse#ERROR_CODE_INVALID_USER}.
+		 */
+		public boolean isInvalidUser() {
+			return (code.intValue() == ERROR_CODE_INVALID_USER);
+		}
+
+		/**
+		 * Used to determine if this error only means there was nothing to
+		 * return, which callers listing items should treat as an empty list.
+		 * 
+		 * @return <code>true</code> if the error code is
+		 *         {@link AbstractResponse#ERROR_CODE_EMPTY_SET}.
+		 */
+		public boolean isEmptySet() {
+			return (code.intValue() == ERROR_CODE_EMPTY_SET);
+		}
 	}
 }
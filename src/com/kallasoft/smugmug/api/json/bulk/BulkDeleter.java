@@ -0,0 +1,623 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.json.bulk;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.kallasoft.smugmug.api.json.AbstractResponse;
+import com.kallasoft.smugmug.api.json.entity.Album;
+import com.kallasoft.smugmug.api.json.entity.Category;
+import com.kallasoft.smugmug.api.json.entity.Image;
+import com.kallasoft.smugmug.api.json.v1_2_0.APIVersionConstants;
+import com.kallasoft.smugmug.api.json.v1_2_0.images.Get;
+import com.kallasoft.smugmug.api.json.v1_2_0.images.Get.GetResponse;
+import com.kallasoft.smugmug.api.util.APIUtils;
+import com.kallasoft.smugmug.api.util.BatchExecutor;
+import com.kallasoft.smugmug.api.util.RateLimiter;
+
+/**
+ * Class used to delete whole trees of categories, subcategories, albums and
+ * (optionally) images, as returned by
+ * {@link com.kallasoft.smugmug.api.json.v1_2_0.users.GetTree}.
+ * <p>
+ * Deletions are planned bottom-up and run one level at a time, each level in
+ * parallel (see {@link #setParallelism(int)}) and rate limited per API Key
+ * (see {@link #setRateLimiter(RateLimiter)}):
+ * <ol>
+ * <li>images, only if {@link #setDeleteImages(boolean)} is set. SmugMug
+ * deletes the images of an album along with it, so this is only needed
+ * when every image must be deleted explicitly.</li>
+ * <li>albums</li>
+ * <li>subcategories</li>
+ * <li>categories</li>
+ * </ol>
+ * A deletion that fails with an exception is retried up to
+ * {@link #setMaxAttempts(int)} times, waiting {@link #setRetryDelay(long)}
+ * milliseconds longer before each retry. Since the failed attempt may have
+ * reached SmugMug, a retry that finds the item already gone
+ * ({@link AbstractResponse#ERROR_CODE_INVALID_USER}) counts as a success.
+ * An album SmugMug reports as empty has no images to delete. When a deletion
+ * still fails, the
+ * subcategory and category holding the item are not deleted (their rows are
+ * {@link BulkResult#STATUS_BLOCKED}) so nothing is ever deleted out from
+ * under content that is still there. Everything else carries on.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class BulkDeleter {
+	/**
+	 * Defines the default number of deletions run at once.
+	 */
+	public static final int DEFAULT_PARALLELISM = 8;
+
+	/**
+	 * Defines the default number of times a deletion is sent before giving
+	 * up.
+	 */
+	public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+	private static final Logger logger = LoggerFactory
+			.getLogger(BulkDeleter.class);
+
+	private static final int LEVEL_IMAGE = 0;
+
+	private static final int LEVEL_ALBUM = 1;
+
+	private static final int LEVEL_SUBCATEGORY = 2;
+
+	private static final int LEVEL_CATEGORY = 3;
+
+	private String url;
+
+	private String apiKey;
+
+	private String sessionID;
+
+	private int parallelism = DEFAULT_PARALLELISM;
+
+	private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+	private long retryDelay = 1000;
+
+	private boolean deleteImages;
+
+	private RateLimiter rateLimiter = new RateLimiter(
+			BulkSettingsUpdater.DEFAULT_PERMITS_PER_SECOND);
+
+	private Get getMethod = new Get();
+
+	private com.kallasoft.smugmug.api.json.v1_2_0.images.Delete imageDeleteMethod = new com.kallasoft.smugmug.api.json.v1_2_0.images.Delete();
+
+	private com.kallasoft.smugmug.api.json.v1_2_0.albums.Delete albumDeleteMethod = new com.kallasoft.smugmug.api.json.v1_2_0.albums.Delete();
+
+	private com.kallasoft.smugmug.api.json.v1_2_0.subcategories.Delete subCategoryDeleteMethod = new com.kallasoft.smugmug.api.json.v1_2_0.subcategories.Delete();
+
+	private com.kallasoft.smugmug.api.json.v1_2_0.categories.Delete categoryDeleteMethod = new com.kallasoft.smugmug.api.json.v1_2_0.categories.Delete();
+
+	/**
+	 * Construct a new deleter that talks to the secure SmugMug API server.
+	 *
+	 * @param apiKey
+	 *            The API Key to use. API keys are issued by SmugMug.
+	 * @param sessionID
+	 *            The logged in SessionID that represents the user's session.
+	 */
+	public BulkDeleter(String apiKey, String sessionID) {
+		this(APIVersionConstants.SECURE_SERVER_URL, apiKey, sessionID);
+	}
+
+	/**
+	 * Construct a new deleter.
+	 *
+	 * @param url
+	 *            The URL of the SmugMug server to communicate with.
+	 * @param apiKey
+	 *            The API Key to use. API keys are issued by SmugMug.
+	 * @param sessionID
+	 *            The logged in SessionID that represents the user's session.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if url or sessionID is <code>null</code> or empty.
+	 */
+	public BulkDeleter(String url, String apiKey, String sessionID)
+			throws IllegalArgumentException {
+		if (APIUtils.isEmpty(url))
+			throw new IllegalArgumentException("url cannot be null or empty");
+
+		if (APIUtils.isEmpty(sessionID))
+			throw new IllegalArgumentException(
+					"sessionID cannot be null or empty");
+
+		this.url = url;
+		this.apiKey = apiKey;
+		this.sessionID = sessionID;
+	}
+
+	/**
+	 * Used to delete the given top-level categories and everything in them.
+	 *
+	 * @param categories
+	 *            The categories, as returned by
+	 *            {@link com.kallasoft.smugmug.api.json.v1_2_0.users.GetTree}.
+	 *
+	 * @return the outcome of every deletion.
+	 *
+	 * @see #delete(Collection, Collection, Collection)
+	 */
+	public Report deleteCategories(Collection<Category> categories)
+			throws IllegalArgumentException, RuntimeException {
+		return delete(categories, Collections.<Category> emptyList(),
+				Collections.<Album> emptyList());
+	}
+
+	/**
+	 * Used to delete the given categories, subcategories and albums and
+	 * everything in them, bottom-up.
+	 *
+	 * @param categories
+	 *            Top-level categories to delete along with their subcategories
+	 *            and albums.
+	 * @param subCategories
+	 *            Subcategories to delete along with their albums.
+	 * @param albums
+	 *            Albums to delete.
+	 *
+	 * @return the outcome of every deletion.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if any argument is <code>null</code>.
+	 * @throws RuntimeException
+	 *             if the calling thread is interrupted.
+	 */
+	public Report delete(Collection<Category> categories,
+			Collection<Category> subCategories, Collection<Album> albums)
+			throws IllegalArgumentException, RuntimeException {
+		if (categories == null || subCategories == null || albums == null)
+			throw new IllegalArgumentException(
+					"None of categories, subCategories or albums can be null");
+
+		/* Flatten the tree, remembering the row of each item's parent */
+		Level categoryLevel = new Level(LEVEL_CATEGORY);
+		Level subCategoryLevel = new Level(LEVEL_SUBCATEGORY);
+		Level albumLevel = new Level(LEVEL_ALBUM);
+
+		for (Category category : categories) {
+			int categoryRow = categoryLevel.add(category.getID(), -1);
+
+			for (Category subCategory : nonNull(category.getSubCategoryList())) {
+				int subCategoryRow = subCategoryLevel.add(subCategory.getID(),
+						categoryRow);
+
+				for (Album album : nonNull(subCategory.getAlbumList()))
+					albumLevel.add(album.getID(), subCategoryRow);
+			}
+
+			for (Album album : nonNull(category.getAlbumList()))
+				albumLevel.add(album.getID(), -1 - categoryRow);
+		}
+
+		for (Category subCategory : subCategories) {
+			int subCategoryRow = subCategoryLevel.add(subCategory.getID(), -1);
+
+			for (Album album : nonNull(subCategory.getAlbumList()))
+				albumLevel.add(album.getID(), subCategoryRow);
+		}
+
+		for (Album album : albums)
+			albumLevel.add(album.getID(), Integer.MIN_VALUE);
+
+		try {
+			Level imageLevel = new Level(LEVEL_IMAGE);
+
+			if (deleteImages) {
+				listImages(albumLevel, imageLevel);
+				run(imageLevel);
+				block(imageLevel, albumLevel, null);
+			}
+
+			run(albumLevel);
+			block(albumLevel, subCategoryLevel, categoryLevel);
+			run(subCategoryLevel);
+			block(subCategoryLevel, categoryLevel, null);
+			run(categoryLevel);
+
+			Report report = new Report(imageLevel.finish(), albumLevel
+					.finish(), subCategoryLevel.finish(), categoryLevel.finish());
+			logger.info("Bulk delete finished: {}", report);
+
+			return report;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			RuntimeException re = new RuntimeException(e);
+			logger.error("Interrupted while deleting", re);
+			throw re;
+		}
+	}
+
+	/**
+	 * Used to list the images of every album in parallel so they can be
+	 * deleted one by one. An album whose images cannot be listed is blocked.
+	 */
+	private void listImages(final Level albumLevel, final Level imageLevel)
+			throws InterruptedException {
+		final boolean[] listFailed = new boolean[albumLevel.size()];
+
+		new BatchExecutor(parallelism).execute(BulkResult.rows(albumLevel
+				.size()), new BatchExecutor.Task<Integer>() {
+			public void execute(Integer row) throws Exception {
+				int albumRow = row.intValue();
+				rateLimiter.acquire(apiKey);
+
+				try {
+					GetResponse response = getMethod.execute(url, apiKey,
+							sessionID, Long.valueOf(albumLevel.ids[albumRow]),
+							null);
+
+					/* Error 15 (empty set) is how SmugMug reports an empty album */
+					if (response.isError()
+							&& response.getError().isEmptySet())
+						return;
+
+					if (response.isError()) {
+						listFailed[albumRow] = true;
+						return;
+					}
+
+					synchronized (imageLevel) {
+						for (Image image : response.getImageList())
+							imageLevel.add(image.getID(), albumRow);
+					}
+				} catch (RuntimeException e) {
+					listFailed[albumRow] = true;
+					throw e;
+				}
+			}
+		});
+
+		albumLevel.finish();
+
+		for (int i = 0; i < listFailed.length; i++) {
+			if (listFailed[i])
+				albumLevel.result.setBlocked(i);
+		}
+	}
+
+	private void run(final Level level) throws InterruptedException {
+		final BulkResult result = level.finish();
+
+		new BatchExecutor(parallelism).execute(BulkResult.rows(level.size()),
+				new BatchExecutor.Task<Integer>() {
+					public void execute(Integer row) throws Exception {
+						if (result.getStatus(row.intValue()) == BulkResult.STATUS_PENDING)
+							delete(level.type, level.ids[row.intValue()], row
+									.intValue(), result);
+					}
+				});
+
+		logger.debug("Deleted level {}: {}", Integer.valueOf(level.type),
+				result);
+	}
+
+	private void delete(int type, long id, int row, BulkResult result)
+			throws InterruptedException {
+		Long idValue = Long.valueOf(id);
+
+		for (int attempt = 1;; attempt++) {
+			rateLimiter.acquire(apiKey);
+
+			try {
+				AbstractResponse response;
+
+				switch (type) {
+				case LEVEL_IMAGE:
+					response = imageDeleteMethod.execute(url, apiKey,
+							sessionID, idValue);
+					break;
+				case LEVEL_ALBUM:
+					response = albumDeleteMethod.execute(url, apiKey,
+							sessionID, idValue);
+					break;
+				case LEVEL_SUBCATEGORY:
+					response = subCategoryDeleteMethod.execute(url, apiKey,
+							sessionID, idValue);
+					break;
+				default:
+					response = categoryDeleteMethod.execute(url, apiKey,
+							sessionID, idValue);
+				}
+
+				/* An earlier attempt that failed may still have deleted it */
+				if (response.isError()
+						&& !(attempt > 1 && response.getError()
+								.isInvalidUser()))
+					result.setError(row, response.getError().getCode(),
+							attempt);
+				else
+					result.setSuccess(row, attempt);
+
+				return;
+			} catch (RuntimeException e) {
+				if (attempt >= maxAttempts) {
+					logger.warn("Unable to delete " + id + " at level " + type,
+							e);
+					result.setException(row, e, attempt);
+					return;
+				}
+
+				Thread.sleep(retryDelay * attempt);
+			}
+		}
+	}
+
+	/**
+	 * Used to block the parents of every row of the given level that was not
+	 * deleted. A negative parent of <code>-1 - row</code> refers to a row of
+	 * the grandparent level directly (an album straight under a category).
+	 */
+	private static void block(Level level, Level parentLevel,
+			Level grandparentLevel) {
+		BulkResult parentResult = parentLevel.finish();
+		BulkResult grandparentResult = (grandparentLevel == null ? null
+				: grandparentLevel.finish());
+
+		for (int i = 0; i < level.size(); i++) {
+			if (level.result.isSuccess(i))
+				continue;
+
+			int parent = level.parents[i];
+
+			if (parent >= 0)
+				parentResult.setBlocked(parent);
+			else if (parent != Integer.MIN_VALUE && grandparentResult != null)
+				grandparentResult.setBlocked(-1 - parent);
+		}
+
+		/* A blocked subcategory blocks its category in turn */
+		if (grandparentResult != null) {
+			for (int i = 0; i < parentLevel.size(); i++) {
+				if (parentResult.getStatus(i) == BulkResult.STATUS_BLOCKED
+						&& parentLevel.parents[i] >= 0)
+					grandparentResult.setBlocked(parentLevel.parents[i]);
+			}
+		}
+	}
+
+	private static <T> List<T> nonNull(List<T> list) {
+		return (list == null ? Collections.<T> emptyList() : list);
+	}
+
+	/**
+	 * Used to get the maximum number of deletions run at once.
+	 *
+	 * @return the maximum number of deletions run at once.
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Used to set the maximum number of deletions run at once.
+	 *
+	 * @param parallelism
+	 *            The maximum number of deletions run at once.
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	/**
+	 * Used to set the number of times a deletion is sent before giving up.
+	 *
+	 * @param maxAttempts
+	 *            The number of attempts per deletion.
+	 */
+	public void setMaxAttempts(int maxAttempts) {
+		this.maxAttempts = maxAttempts;
+	}
+
+	/**
+	 * Used to get the time, in milliseconds, waited before the first retry.
+	 * Each following retry waits that much longer again.
+	 *
+	 * @return the retry delay in milliseconds.
+	 */
+	public long getRetryDelay() {
+		return retryDelay;
+	}
+
+	/**
+	 * Used to set the time, in milliseconds, waited before the first retry.
+	 *
+	 * @param retryDelay
+	 *            The retry delay in milliseconds.
+	 */
+	public void setRetryDelay(long retryDelay) {
+		this.retryDelay = retryDelay;
+	}
+
+	/**
+	 * Used to determine if the images of every album are deleted one by one
+	 * before the album is.
+	 *
+	 * @return <code>true</code> if every image is deleted explicitly.
+	 */
+	public boolean isDeleteImages() {
+		return deleteImages;
+	}
+
+	/**
+	 * Used to set whether the images of every album are deleted one by one
+	 * before the album is. Defaults to <code>false</code>, since deleting an
+	 * album deletes its images.
+	 *
+	 * @param deleteImages
+	 *            <code>true</code> to delete every image explicitly.
+	 */
+	public void setDeleteImages(boolean deleteImages) {
+		this.deleteImages = deleteImages;
+	}
+
+	/**
+	 * Used to get the rate limiter every call waits on.
+	 *
+	 * @return the rate limiter every call waits on.
+	 */
+	public RateLimiter getRateLimiter() {
+		return rateLimiter;
+	}
+
+	/**
+	 * Used to set the rate limiter every call waits on. Share one rate limiter
+	 * between everything that uses the same API Key.
+	 *
+	 * @param rateLimiter
+	 *            The rate limiter every call waits on.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if rateLimiter is <code>null</code>.
+	 */
+	public void setRateLimiter(RateLimiter rateLimiter)
+			throws IllegalArgumentException {
+		if (rateLimiter == null)
+			throw new IllegalArgumentException("rateLimiter cannot be null");
+
+		this.rateLimiter = rateLimiter;
+	}
+
+	/**
+	 * Class used to hold the items of one level of the tree as primitive
+	 * arrays while it is being built, and then their results.
+	 */
+	private static class Level {
+		private int type;
+
+		private long[] ids = new long[16];
+
+		private int[] parents = new int[16];
+
+		private int size;
+
+		private BulkResult result;
+
+		public Level(int type) {
+			this.type = type;
+		}
+
+		public int add(Long id, int parent) {
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size * 2);
+				parents = Arrays.copyOf(parents, size * 2);
+			}
+
+			ids[size] = id.longValue();
+			parents[size] = parent;
+
+			return size++;
+		}
+
+		public int size() {
+			return size;
+		}
+
+		/**
+		 * Used to stop adding items and create the result table, once.
+		 */
+		public BulkResult finish() {
+			if (result == null) {
+				ids = Arrays.copyOf(ids, size);
+				result = new BulkResult(ids);
+			}
+
+			return result;
+		}
+	}
+
+	/**
+	 * Class used to represent the outcome of a bulk delete, one
+	 * {@link BulkResult} per level of the tree.
+	 *
+	 * @author smugmug-java-api contributors
+	 */
+	public static class Report {
+		private BulkResult imageResult;
+
+		private BulkResult albumResult;
+
+		private BulkResult subCategoryResult;
+
+		private BulkResult categoryResult;
+
+		Report(BulkResult imageResult, BulkResult albumResult,
+				BulkResult subCategoryResult, BulkResult categoryResult) {
+			this.imageResult = imageResult;
+			this.albumResult = albumResult;
+			this.subCategoryResult = subCategoryResult;
+			this.categoryResult = categoryResult;
+		}
+
+		@Override
+		public String toString() {
+			return Report.class.getName() + "[isComplete=" + isComplete()
+					+ ", images=" + getImageResult() + ", albums="
+					+ getAlbumResult() + ", subCategories="
+					+ getSubCategoryResult() + ", categories="
+					+ getCategoryResult() + "]";
+		}
+
+		/**
+		 * Used to determine if everything in the tree was deleted.
+		 *
+		 * @return <code>true</code> if no deletion failed or was blocked.
+		 */
+		public boolean isComplete() {
+			return (imageResult.getFailureCount() == 0
+					&& albumResult.getFailureCount() == 0
+					&& subCategoryResult.getFailureCount() == 0 && categoryResult
+					.getFailureCount() == 0);
+		}
+
+		/**
+		 * Used to get the outcome of every image deletion.
+		 *
+		 * @return the image results, empty unless images were deleted one by
+		 *         one.
+		 */
+		public BulkResult getImageResult() {
+			return imageResult;
+		}
+
+		public BulkResult getAlbumResult() {
+			return albumResult;
+		}
+
+		public BulkResult getSubCategoryResult() {
+			return subCategoryResult;
+		}
+
+		public BulkResult getCategoryResult() {
+			return categoryResult;
+		}
+	}
+}
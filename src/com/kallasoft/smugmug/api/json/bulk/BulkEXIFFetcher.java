@@ -0,0 +1,470 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.json.bulk;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.kallasoft.smugmug.api.json.entity.Image;
+import com.kallasoft.smugmug.api.json.v1_2_0.APIVersionConstants;
+import com.kallasoft.smugmug.api.json.v1_2_0.images.Get;
+import com.kallasoft.smugmug.api.json.v1_2_0.images.GetEXIF;
+import com.kallasoft.smugmug.api.json.v1_2_0.images.Get.GetResponse;
+import com.kallasoft.smugmug.api.json.v1_2_0.images.GetEXIF.GetEXIFResponse;
+import com.kallasoft.smugmug.api.util.APIUtils;
+import com.kallasoft.smugmug.api.util.BatchExecutor;
+import com.kallasoft.smugmug.api.util.RateLimiter;
+
+/**
+ * Class used to fetch the EXIF data of many images, e.g. every image of an
+ * album, with {@link GetEXIF} (<code>smugmug.images.getEXIF</code>).
+ * <p>
+ * Images are fetched several at a time (see {@link #setParallelism(int)})
+ * and rate limited per API Key (see {@link #setRateLimiter(RateLimiter)}).
+ * An image listed more than once is only fetched once.
+ * <p>
+ * The EXIF data of an image never changes unless the image is replaced, so
+ * every result is remembered by ImageID together with the image's
+ * {@link Image#getLastUpdated()} date. Later fetches of the same image are
+ * served from memory until the date changes. At most
+ * {@link #getMaxCacheSize()} images are remembered; beyond that the least
+ * recently used ones are forgotten. Results are returned as an
+ * {@link EXIFTable} rather than one response object per image.
+ * <p>
+ * The string pool behind the tables is shared between fetches, but once it
+ * holds more strings than the remembered images can need it is rebuilt from
+ * just the remembered rows. Nearly unique text, such as the dates, therefore
+ * does not pile up for images that have been forgotten. Tables already
+ * returned keep the pool they were built with.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class BulkEXIFFetcher {
+	/**
+	 * Defines the default number of images fetched at once.
+	 */
+	public static final int DEFAULT_PARALLELISM = 8;
+
+	/**
+	 * Defines the default maximum number of images whose EXIF data is
+	 * remembered.
+	 */
+	public static final int DEFAULT_MAX_CACHE_SIZE = 10000;
+
+	/* Dates are nearly unique per image, the other text mostly repeats */
+	private static final int POOL_STRINGS_PER_IMAGE = 4;
+
+	private static final Logger logger = LoggerFactory
+			.getLogger(BulkEXIFFetcher.class);
+
+	private GetEXIF getEXIFMethod;
+
+	private Get getMethod = new Get();
+
+	private String url;
+
+	private String apiKey;
+
+	private String sessionID;
+
+	private int parallelism = DEFAULT_PARALLELISM;
+
+	private RateLimiter rateLimiter = new RateLimiter(
+			BulkSettingsUpdater.DEFAULT_PERMITS_PER_SECOND);
+
+	private volatile EXIFTable.StringPool stringPool = new EXIFTable.StringPool();
+
+	private volatile int maxCacheSize = DEFAULT_MAX_CACHE_SIZE;
+
+	/* Access ordered, so the eldest entry is the least recently used */
+	private Map<Long, CacheEntry> cache = Collections
+			.synchronizedMap(new LinkedHashMap<Long, CacheEntry>(16, 0.75F,
+					true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(
+						Map.Entry<Long, CacheEntry> eldest) {
+					return size() > maxCacheSize;
+				}
+			});
+
+	private AtomicLong fetchCount = new AtomicLong();
+
+	private AtomicLong cacheHitCount = new AtomicLong();
+
+	/**
+	 * Construct a new fetcher that talks to the secure SmugMug API server.
+	 *
+	 * @param getEXIFMethod
+	 *            The method used to fetch the EXIF data of every image.
+	 * @param apiKey
+	 *            The API Key to use. API keys are issued by SmugMug.
+	 * @param sessionID
+	 *            The logged in SessionID that represents the user's session.
+	 */
+	public BulkEXIFFetcher(GetEXIF getEXIFMethod, String apiKey,
+			String sessionID) {
+		this(getEXIFMethod, APIVersionConstants.SECURE_SERVER_URL, apiKey,
+				sessionID);
+	}
+
+	/**
+	 * Construct a new fetcher.
+	 *
+	 * @param getEXIFMethod
+	 *            The method used to fetch the EXIF data of every image.
+	 * @param url
+	 *            The URL of the SmugMug server to communicate with.
+	 * @param apiKey
+	 *            The API Key to use. API keys are issued by SmugMug.
+	 * @param sessionID
+	 *            The logged in SessionID that represents the user's session.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if getEXIFMethod is <code>null</code>.
+	 * @throws IllegalArgumentException
+	 *             if url or sessionID is <code>null</code> or empty.
+	 */
+	public BulkEXIFFetcher(GetEXIF getEXIFMethod, String url, String apiKey,
+			String sessionID) throws IllegalArgumentException {
+		if (getEXIFMethod == null)
+			throw new IllegalArgumentException("getEXIFMethod cannot be null");
+
+		if (APIUtils.isEmpty(url))
+			throw new IllegalArgumentException("url cannot be null or empty");
+
+		if (APIUtils.isEmpty(sessionID))
+			throw new IllegalArgumentException(
+					"sessionID cannot be null or empty");
+
+		this.getEXIFMethod = getEXIFMethod;
+		this.url = url;
+		this.apiKey = apiKey;
+		this.sessionID = sessionID;
+	}
+
+	/**
+	 * Used to fetch the EXIF data of every image of an album.
+	 *
+	 * @param albumID
+	 *            The ID of the album.
+	 * @param albumKey
+	 *            The key of the album.
+	 *
+	 * @return one row for every image of the album, or no rows if the album
+	 *         is empty.
+	 *
+	 * @throws RuntimeException
+	 *             if the images of the album cannot be listed, or the calling
+	 *             thread is interrupted.
+	 *
+	 * @see #fetch(Collection)
+	 */
+	public EXIFTable fetchAlbum(Long albumID, String albumKey)
+			throws RuntimeException {
+		/* Heavy, so every image comes with the LastUpdated date we key on */
+		GetResponse response = getMethod.execute(url, apiKey, sessionID,
+				albumID, albumKey, Boolean.TRUE);
+
+		/* An empty album is an error to SmugMug, not to us */
+		if (response.isError() && response.getError().isEmptySet())
+			return fetch(Collections.<Image> emptyList());
+
+		if (response.isError()) {
+			RuntimeException re = new RuntimeException(
+					"Unable to list the images of album " + albumID + ": "
+							+ response.getError());
+			logger.error("Unable to fetch the EXIF data of an album", re);
+			throw re;
+		}
+
+		return fetch(response.getImageList());
+	}
+
+	/**
+	 * Used to fetch the EXIF data of the given images, using remembered
+	 * results for images that have not been replaced since they were last
+	 * fetched.
+	 *
+	 * @param images
+	 *            The images, which must have IDs. Images without a
+	 *            LastUpdated date are always fetched.
+	 *
+	 * @return one row for every distinct image, in the order the images were
+	 *         given.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if images is <code>null</code>.
+	 * @throws RuntimeException
+	 *             if the calling thread is interrupted.
+	 */
+	public EXIFTable fetch(Collection<Image> images)
+			throws IllegalArgumentException, RuntimeException {
+		if (images == null)
+			throw new IllegalArgumentException("images cannot be null");
+
+		Map<Long, Image> imageMap = new LinkedHashMap<Long, Image>();
+
+		for (Image image : images) {
+			if (!imageMap.containsKey(image.getID()))
+				imageMap.put(image.getID(), image);
+		}
+
+		final List<Image> imageList = new ArrayList<Image>(imageMap.values());
+		final int[][] rows = new int[imageList.size()][];
+		long[] ids = new long[rows.length];
+
+		for (int i = 0; i < ids.length; i++)
+			ids[i] = imageList.get(i).getID().longValue();
+
+		final BulkResult result = new BulkResult(ids);
+		final EXIFTable.StringPool pool = stringPool;
+
+		try {
+			new BatchExecutor(parallelism).execute(BulkResult.rows(ids.length),
+					new BatchExecutor.Task<Integer>() {
+						public void execute(Integer row) throws Exception {
+							int index = row.intValue();
+							rows[index] = fetch(imageList.get(index), index,
+									result, pool);
+						}
+					});
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			RuntimeException re = new RuntimeException(e);
+			logger.error("Interrupted while fetching EXIF data", re);
+			throw re;
+		}
+
+		logger.debug("Fetched EXIF data: {}, {} strings pooled", result,
+				Integer.valueOf(pool.size()));
+
+		EXIFTable table = new EXIFTable(pool, rows, result);
+		rebuildPoolIfNeeded();
+
+		return table;
+	}
+
+	private int[] fetch(Image image, int row, BulkResult result,
+			EXIFTable.StringPool pool) throws InterruptedException {
+		String lastUpdated = image.getLastUpdated();
+		CacheEntry entry = cache.get(image.getID());
+
+		/* A row is only usable with the pool it was encoded with */
+		if (entry != null && lastUpdated != null
+				&& lastUpdated.equals(entry.lastUpdated) && entry.pool == pool) {
+			cacheHitCount.incrementAndGet();
+			result.setSkipped(row);
+			return entry.row;
+		}
+
+		rateLimiter.acquire(apiKey);
+
+		try {
+			GetEXIFResponse response = getEXIFMethod.execute(url, apiKey,
+					sessionID, image.getID(), image.getImageKey());
+			fetchCount.incrementAndGet();
+
+			if (response.isError()) {
+				result.setError(row, response.getError().getCode(), 1);
+				return null;
+			}
+
+			int[] values = EXIFTable.encode(response, pool);
+
+			if (lastUpdated != null)
+				cache.put(image.getID(), new CacheEntry(lastUpdated, values,
+						pool));
+
+			result.setSuccess(row, 1);
+
+			return values;
+		} catch (RuntimeException e) {
+			logger.warn("Unable to fetch the EXIF data of image "
+					+ image.getID(), e);
+			result.setException(row, e, 1);
+			return null;
+		}
+	}
+
+	/**
+	 * Used to replace the string pool with one holding only the strings of
+	 * the remembered rows, once the pool has outgrown them.
+	 */
+	private synchronized void rebuildPoolIfNeeded() {
+		EXIFTable.StringPool oldPool = stringPool;
+
+		if (oldPool.size() <= (long) maxCacheSize * POOL_STRINGS_PER_IMAGE)
+			return;
+
+		EXIFTable.StringPool newPool = new EXIFTable.StringPool();
+
+		synchronized (cache) {
+			Iterator<Map.Entry<Long, CacheEntry>> iterator = cache.entrySet()
+					.iterator();
+
+			while (iterator.hasNext()) {
+				Map.Entry<Long, CacheEntry> mapEntry = iterator.next();
+				CacheEntry entry = mapEntry.getValue();
+
+				/* Rows of an older pool were encoded by a fetch still running */
+				if (entry.pool != oldPool) {
+					iterator.remove();
+					continue;
+				}
+
+				/* Entries are replaced, not changed, as fetches read them */
+				mapEntry.setValue(new CacheEntry(entry.lastUpdated, EXIFTable
+						.recode(entry.row, oldPool, newPool), newPool));
+			}
+		}
+
+		logger.debug("Rebuilt the EXIF string pool from {} to {} strings",
+				Integer.valueOf(oldPool.size()), Integer.valueOf(newPool.size()));
+		stringPool = newPool;
+	}
+
+	/**
+	 * Used to forget the remembered EXIF data of an image, e.g. after
+	 * replacing it.
+	 *
+	 * @param imageID
+	 *            The ID of the image.
+	 */
+	public void invalidate(Long imageID) {
+		cache.remove(imageID);
+	}
+
+	/**
+	 * Used to forget all remembered EXIF data.
+	 */
+	public synchronized void clear() {
+		cache.clear();
+		stringPool = new EXIFTable.StringPool();
+	}
+
+	/**
+	 * Used to get the number of <code>smugmug.images.getEXIF</code> calls
+	 * made.
+	 *
+	 * @return the number of calls made.
+	 */
+	public long getFetchCount() {
+		return fetchCount.get();
+	}
+
+	/**
+	 * Used to get the number of images served from remembered results.
+	 *
+	 * @return the number of cache hits.
+	 */
+	public long getCacheHitCount() {
+		return cacheHitCount.get();
+	}
+
+	/**
+	 * Used to get the maximum number of images whose EXIF data is remembered.
+	 *
+	 * @return the maximum number of images remembered.
+	 */
+	public int getMaxCacheSize() {
+		return maxCacheSize;
+	}
+
+	/**
+	 * Used to set the maximum number of images whose EXIF data is remembered.
+	 * Lowering it takes effect the next time an image is remembered.
+	 *
+	 * @param maxCacheSize
+	 *            The maximum number of images remembered.
+	 */
+	public void setMaxCacheSize(int maxCacheSize) {
+		this.maxCacheSize = maxCacheSize;
+	}
+
+	/**
+	 * Used to get the maximum number of images fetched at once.
+	 *
+	 * @return the maximum number of images fetched at once.
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Used to set the maximum number of images fetched at once.
+	 *
+	 * @param parallelism
+	 *            The maximum number of images fetched at once.
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Used to get the rate limiter every call waits on.
+	 *
+	 * @return the rate limiter every call waits on.
+	 */
+	public RateLimiter getRateLimiter() {
+		return rateLimiter;
+	}
+
+	/**
+	 * Used to set the rate limiter every call waits on. Share one rate limiter
+	 * between everything that uses the same API Key.
+	 *
+	 * @param rateLimiter
+	 *            The rate limiter every call waits on.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if rateLimiter is <code>null</code>.
+	 */
+	public void setRateLimiter(RateLimiter rateLimiter)
+			throws IllegalArgumentException {
+		if (rateLimiter == null)
+			throw new IllegalArgumentException("rateLimiter cannot be null");
+
+		this.rateLimiter = rateLimiter;
+	}
+
+	/**
+	 * Class used to represent the remembered EXIF data of an image.
+	 */
+	private static class CacheEntry {
+		private String lastUpdated;
+
+		private int[] row;
+
+		private EXIFTable.StringPool pool;
+
+		public CacheEntry(String lastUpdated, int[] row,
+				EXIFTable.StringPool pool) {
+			this.lastUpdated = lastUpdated;
+			this.row = row;
+			this.pool = pool;
+		}
+	}
+}
@@ -0,0 +1,318 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.json.bulk;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+/**
+ * Class used to represent the outcome of every item of a bulk operation in a
+ * compact table.
+ * <p>
+ * Row <code>i</code> of the table describes item <code>i</code> of the
+ * batch. Rows are held in primitive arrays (the item ID, a status, the
+ * SmugMug error code and the number of attempts) rather than one object per
+ * item, so the results of a batch of tens of thousands of items take a few
+ * hundred kilobytes. Only exceptions, which should be rare, are kept as
+ * objects.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class BulkResult {
+	/**
+	 * Defines the status of a row whose item has not been processed.
+	 */
+	public static final byte STATUS_PENDING = 0;
+
+	/**
+	 * Defines the status of a row whose item succeeded.
+	 */
+	public static final byte STATUS_SUCCESS = 1;
+
+	/**
+	 * Defines the status of a row whose item SmugMug returned an error for.
+	 */
+	public static final byte STATUS_ERROR = 2;
+
+	/**
+	 * Defines the status of a row whose item failed with an exception.
+	 */
+	public static final byte STATUS_EXCEPTION = 3;
+
+	/**
+	 * Defines the status of a row whose item did not need to be processed.
+	 */
+	public static final byte STATUS_SKIPPED = 4;
+
+	/**
+	 * Defines the status of a row whose item was not processed because an item
+	 * it depends on failed.
+	 */
+	public static final byte STATUS_BLOCKED = 5;
+
+	private long[] ids;
+
+	private byte[] statuses;
+
+	private int[] errorCodes;
+
+	private byte[] attempts;
+
+	private Map<Integer, Exception> exceptionMap = Collections
+			.synchronizedMap(new HashMap<Integer, Exception>());
+
+	/**
+	 * Construct a new table with every row pending.
+	 *
+	 * @param ids
+	 *            The ID of the item (e.g. the ImageID) of every row. The
+	 *            array is kept, not copied.
+	 */
+	BulkResult(long[] ids) {
+		this.ids = ids;
+		this.statuses = new byte[ids.length];
+		this.errorCodes = new int[ids.length];
+		this.attempts = new byte[ids.length];
+	}
+
+	@Override
+	public String toString() {
+		return BulkResult.class.getName() + "[size=" + size()
+				+ ", successCount=" + getSuccessCount() + ", errorCount="
+				+ getErrorCount() + ", exceptionCount=" + getExceptionCount()
+				+ ", skippedCount=" + getSkippedCount() + ", blockedCount="
+				+ getBlockedCount() + ", retryCount="
+				+ getRetryCount() + ", errorCodeCounts=" + getErrorCodeCounts()
+				+ "]";
+	}
+
+	void setSuccess(int row, int attemptCount) {
+		set(row, STATUS_SUCCESS, 0, attemptCount);
+	}
+
+	void setError(int row, Integer errorCode, int attemptCount) {
+		set(row, STATUS_ERROR, (errorCode == null ? 0 : errorCode.intValue()),
+				attemptCount);
+	}
+
+	void setException(int row, Exception exception, int attemptCount) {
+		exceptionMap.put(Integer.valueOf(row), exception);
+		set(row, STATUS_EXCEPTION, 0, attemptCount);
+	}
+
+	void setSkipped(int row) {
+		set(row, STATUS_SKIPPED, 0, 0);
+	}
+
+	void setBlocked(int row) {
+		set(row, STATUS_BLOCKED, 0, 0);
+	}
+
+	private void set(int row, byte status, int errorCode, int attemptCount) {
+		statuses[row] = status;
+		errorCodes[row] = errorCode;
+		attempts[row] = (byte) Math.min(attemptCount, Byte.MAX_VALUE);
+	}
+
+	/**
+	 * Used to get the number of rows in the table.
+	 *
+	 * @return the number of items in the batch.
+	 */
+	public int size() {
+		return ids.length;
+	}
+
+	public long getID(int row) {
+		return ids[row];
+	}
+
+	/**
+	 * Used to get the status of a row.
+	 *
+	 * @param row
+	 *            The row.
+	 *
+	 * @return one of the <code>STATUS_</code> constants.
+	 */
+	public byte getStatus(int row) {
+		return statuses[row];
+	}
+
+	/**
+	 * Used to determine if the item of a row succeeded or did not need to be
+	 * processed.
+	 *
+	 * @param row
+	 *            The row.
+	 *
+	 * @return <code>true</code> if the item succeeded or was skipped.
+	 */
+	public boolean isSuccess(int row) {
+		return (statuses[row] == STATUS_SUCCESS || statuses[row] == STATUS_SKIPPED);
+	}
+
+	/**
+	 * Used to get the SmugMug error code of a row.
+	 *
+	 * @param row
+	 *            The row.
+	 *
+	 * @return the error code, or <code>0</code> if SmugMug did not return an
+	 *         error.
+	 */
+	public int getErrorCode(int row) {
+		return errorCodes[row];
+	}
+
+	/**
+	 * Used to get the number of times the item of a row was sent to SmugMug.
+	 *
+	 * @param row
+	 *            The row.
+	 *
+	 * @return the number of attempts.
+	 */
+	public int getAttempts(int row) {
+		return attempts[row];
+	}
+
+	/**
+	 * Used to get the exception that stopped the item of a row.
+	 *
+	 * @param row
+	 *            The row.
+	 *
+	 * @return the exception, or <code>null</code> if there was none.
+	 */
+	public Exception getException(int row) {
+		return exceptionMap.get(Integer.valueOf(row));
+	}
+
+	public int getSuccessCount() {
+		return count(STATUS_SUCCESS);
+	}
+
+	public int getErrorCount() {
+		return count(STATUS_ERROR);
+	}
+
+	public int getExceptionCount() {
+		return count(STATUS_EXCEPTION);
+	}
+
+	public int getSkippedCount() {
+		return count(STATUS_SKIPPED);
+	}
+
+	public int getBlockedCount() {
+		return count(STATUS_BLOCKED);
+	}
+
+	/**
+	 * Used to get the number of rows that neither succeeded nor were skipped.
+	 *
+	 * @return the number of failed, blocked or pending rows.
+	 */
+	public int getFailureCount() {
+		return size() - getSuccessCount() - getSkippedCount();
+	}
+
+	/**
+	 * Used to get the number of times items were sent again after a failed
+	 * attempt, over the whole batch.
+	 *
+	 * @return the number of retries.
+	 */
+	public int getRetryCount() {
+		int count = 0;
+
+		for (int i = 0; i < attempts.length; i++) {
+			if (attempts[i] > 1)
+				count += attempts[i] - 1;
+		}
+
+		return count;
+	}
+
+	/**
+	 * Used to get the number of rows that failed with each SmugMug error
+	 * code.
+	 *
+	 * @return a map of every error code returned to the number of rows it was
+	 *         returned for, sorted by error code.
+	 */
+	public Map<Integer, Integer> getErrorCodeCounts() {
+		Map<Integer, Integer> countMap = new TreeMap<Integer, Integer>();
+
+		for (int i = 0; i < statuses.length; i++) {
+			if (statuses[i] != STATUS_ERROR)
+				continue;
+
+			Integer code = Integer.valueOf(errorCodes[i]);
+			Integer count = countMap.get(code);
+			countMap.put(code, Integer.valueOf(count == null ? 1 : count
+					.intValue() + 1));
+		}
+
+		return countMap;
+	}
+
+	private int count(byte status) {
+		int count = 0;
+
+		for (int i = 0; i < statuses.length; i++) {
+			if (statuses[i] == status)
+				count++;
+		}
+
+		return count;
+	}
+
+	/**
+	 * Used to iterate over the row numbers <code>0</code> to
+	 * <code>size - 1</code> without creating a list of them, so a batch can
+	 * be run through {@link com.kallasoft.smugmug.api.util.BatchExecutor} by
+	 * row.
+	 */
+	static Iterable<Integer> rows(final int size) {
+		return new Iterable<Integer>() {
+			public Iterator<Integer> iterator() {
+				return new Iterator<Integer>() {
+					private int next;
+
+					public boolean hasNext() {
+						return next < size;
+					}
+
+					public Integer next() {
+						if (next >= size)
+							throw new NoSuchElementException();
+
+						return Integer.valueOf(next++);
+					}
+
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		};
+	}
+}
@@ -0,0 +1,380 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.json.bulk;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.kallasoft.smugmug.api.json.v1_2_0.APIVersionConstants;
+import com.kallasoft.smugmug.api.json.v1_2_0.images.ChangeSettings;
+import com.kallasoft.smugmug.api.json.v1_2_0.images.ChangeSettings.ChangeSettingsResponse;
+import com.kallasoft.smugmug.api.util.APIUtils;
+import com.kallasoft.smugmug.api.util.BatchExecutor;
+import com.kallasoft.smugmug.api.util.RateLimiter;
+
+/**
+ * Class used to apply {@link ChangeSettings}
+ * (<code>smugmug.images.changeSettings</code>) to a large number of images,
+ * e.g. to re-caption or re-keyword a whole event.
+ * <p>
+ * Changes are sent by several threads at once (see
+ * {@link #setParallelism(int)}) and calls are rate limited per API Key (see
+ * {@link #setRateLimiter(RateLimiter)}). A change that fails with an
+ * exception (e.g. a dropped connection) is sent again up to
+ * {@link #setMaxAttempts(int)} times, which is safe because applying the same
+ * settings twice has the same effect as applying them once. Errors returned
+ * by SmugMug are not retried.
+ * <p>
+ * The outcome of every change is returned in a {@link BulkResult}, row
+ * <code>i</code> describing change <code>i</code>.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class BulkSettingsUpdater {
+	/**
+	 * Defines the default number of changes sent at once.
+	 */
+	public static final int DEFAULT_PARALLELISM = 8;
+
+	/**
+	 * Defines the default number of calls per second made with one API Key.
+	 */
+	public static final double DEFAULT_PERMITS_PER_SECOND = 20;
+
+	/**
+	 * Defines the default number of times a change is sent before giving up.
+	 */
+	public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+	private static final Logger logger = LoggerFactory
+			.getLogger(BulkSettingsUpdater.class);
+
+	private ChangeSettings changeSettingsMethod;
+
+	private String url;
+
+	private String apiKey;
+
+	private String sessionID;
+
+	private int parallelism = DEFAULT_PARALLELISM;
+
+	private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+	private long retryDelay = 1000;
+
+	private RateLimiter rateLimiter = new RateLimiter(
+			DEFAULT_PERMITS_PER_SECOND);
+
+	/**
+	 * Construct a new updater that talks to the secure SmugMug API server.
+	 *
+	 * @param changeSettingsMethod
+	 *            The method used to send every change.
+	 * @param apiKey
+	 *            The API Key to use. API keys are issued by SmugMug.
+	 * @param sessionID
+	 *            The logged in SessionID that represents the user's session.
+	 */
+	public BulkSettingsUpdater(ChangeSettings changeSettingsMethod,
+			String apiKey, String sessionID) {
+		this(changeSettingsMethod, APIVersionConstants.SECURE_SERVER_URL,
+				apiKey, sessionID);
+	}
+
+	/**
+	 * Construct a new updater.
+	 *
+	 * @param changeSettingsMethod
+	 *            The method used to send every change.
+	 * @param url
+	 *            The URL of the SmugMug server to communicate with.
+	 * @param apiKey
+	 *            The API Key to use. API keys are issued by SmugMug.
+	 * @param sessionID
+	 *            The logged in SessionID that represents the user's session.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if changeSettingsMethod is <code>null</code>.
+	 * @throws IllegalArgumentException
+	 *             if url or sessionID is <code>null</code> or empty.
+	 */
+	public BulkSettingsUpdater(ChangeSettings changeSettingsMethod,
+			String url, String apiKey, String sessionID)
+			throws IllegalArgumentException {
+		if (changeSettingsMethod == null)
+			throw new IllegalArgumentException(
+					"changeSettingsMethod cannot be null");
+
+		if (APIUtils.isEmpty(url))
+			throw new IllegalArgumentException("url cannot be null or empty");
+
+		if (APIUtils.isEmpty(sessionID))
+			throw new IllegalArgumentException(
+					"sessionID cannot be null or empty");
+
+		this.changeSettingsMethod = changeSettingsMethod;
+		this.url = url;
+		this.apiKey = apiKey;
+		this.sessionID = sessionID;
+	}
+
+	/**
+	 * Used to send every change and wait for all of them to finish.
+	 *
+	 * @param changes
+	 *            The changes to send.
+	 *
+	 * @return the outcome of every change, in the order of the given
+	 *         collection.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if changes is <code>null</code>.
+	 * @throws RuntimeException
+	 *             if the calling thread is interrupted.
+	 */
+	public BulkResult execute(Collection<Change> changes)
+			throws IllegalArgumentException, RuntimeException {
+		if (changes == null)
+			throw new IllegalArgumentException("changes cannot be null");
+
+		final List<Change> changeList = new ArrayList<Change>(changes);
+		long[] ids = new long[changeList.size()];
+
+		for (int i = 0; i < ids.length; i++)
+			ids[i] = changeList.get(i).getImageID().longValue();
+
+		final BulkResult result = new BulkResult(ids);
+
+		try {
+			new BatchExecutor(parallelism).execute(BulkResult.rows(ids.length),
+					new BatchExecutor.Task<Integer>() {
+						public void execute(Integer row) throws Exception {
+							send(changeList.get(row.intValue()), row
+									.intValue(), result);
+						}
+					});
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			RuntimeException re = new RuntimeException(e);
+			logger.error("Interrupted while updating image settings", re);
+			throw re;
+		}
+
+		logger.info("Bulk settings update finished: {}", result);
+
+		return result;
+	}
+
+	private void send(Change change, int row, BulkResult result)
+			throws InterruptedException {
+		String[] argumentValues = new String[] { apiKey, sessionID,
+				APIUtils.toString(change.getImageID()),
+				APIUtils.toString(change.getAlbumID()), change.getCaption(),
+				change.getKeywords(), APIUtils.toString(change.getHidden()) };
+
+		for (int attempt = 1;; attempt++) {
+			rateLimiter.acquire(apiKey);
+
+			try {
+				ChangeSettingsResponse response = changeSettingsMethod.execute(
+						url, argumentValues);
+
+				if (response.isError())
+					result.setError(row, response.getError().getCode(),
+							attempt);
+				else
+					result.setSuccess(row, attempt);
+
+				return;
+			} catch (RuntimeException e) {
+				if (attempt >= maxAttempts) {
+					logger.warn("Unable to change the settings of image "
+							+ change.getImageID(), e);
+					result.setException(row, e, attempt);
+					return;
+				}
+
+				Thread.sleep(retryDelay * attempt);
+			}
+		}
+	}
+
+	/**
+	 * Used to get the maximum number of changes sent at once.
+	 *
+	 * @return the maximum number of changes sent at once.
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Used to set the maximum number of changes sent at once.
+	 *
+	 * @param parallelism
+	 *            The maximum number of changes sent at once.
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Used to get the number of times a change is sent before giving up.
+	 *
+	 * @return the number of attempts per change.
+	 */
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	/**
+	 * Used to set the number of times a change is sent before giving up.
+	 *
+	 * @param maxAttempts
+	 *            The number of attempts per change.
+	 */
+	public void setMaxAttempts(int maxAttempts) {
+		this.maxAttempts = maxAttempts;
+	}
+
+	/**
+	 * Used to get the time, in milliseconds, waited before the first retry.
+	 * Each following retry waits that much longer again.
+	 *
+	 * @return the retry delay in milliseconds.
+	 */
+	public long getRetryDelay() {
+		return retryDelay;
+	}
+
+	/**
+	 * Used to set the time, in milliseconds, waited before the first retry.
+	 *
+	 * @param retryDelay
+	 *            The retry delay in milliseconds.
+	 */
+	public void setRetryDelay(long retryDelay) {
+		this.retryDelay = retryDelay;
+	}
+
+	/**
+	 * Used to get the rate limiter every call waits on.
+	 *
+	 * @return the rate limiter every call waits on.
+	 */
+	public RateLimiter getRateLimiter() {
+		return rateLimiter;
+	}
+
+	/**
+	 * Used to set the rate limiter every call waits on. Share one rate limiter
+	 * between everything that uses the same API Key.
+	 *
+	 * @param rateLimiter
+	 *            The rate limiter every call waits on.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if rateLimiter is <code>null</code>.
+	 */
+	public void setRateLimiter(RateLimiter rateLimiter)
+			throws IllegalArgumentException {
+		if (rateLimiter == null)
+			throw new IllegalArgumentException("rateLimiter cannot be null");
+
+		this.rateLimiter = rateLimiter;
+	}
+
+	/**
+	 * Class used to describe the settings to change on one image. Settings
+	 * left <code>null</code> are not changed.
+	 *
+	 * @author smugmug-java-api contributors
+	 */
+	public static class Change {
+		private Long imageID;
+
+		private Long albumID;
+
+		private String caption;
+
+		private String keywords;
+
+		private Boolean hidden;
+
+		/**
+		 * Construct a new change.
+		 *
+		 * @param imageID
+		 *            The ID of the image to change.
+		 * @param albumID
+		 *            The ID of the album to move the image to.
+		 * @param caption
+		 *            A caption to assign to the image.
+		 * @param keywords
+		 *            The keywords to assign to the image.
+		 * @param hidden
+		 *            Set to <code>true</code> to hide the image or
+		 *            <code>false</code> to unhide it.
+		 *
+		 * @throws IllegalArgumentException
+		 *             if imageID is <code>null</code>.
+		 */
+		public Change(Long imageID, Long albumID, String caption,
+				String keywords, Boolean hidden)
+				throws IllegalArgumentException {
+			if (imageID == null)
+				throw new IllegalArgumentException("imageID cannot be null");
+
+			this.imageID = imageID;
+			this.albumID = albumID;
+			this.caption = caption;
+			this.keywords = keywords;
+			this.hidden = hidden;
+		}
+
+		@Override
+		public String toString() {
+			return Change.class.getName() + "[imageID=" + getImageID()
+					+ ", albumID=" + getAlbumID() + ", caption="
+					+ getCaption() + ", keywords=" + getKeywords()
+					+ ", hidden=" + getHidden() + "]";
+		}
+
+		public Long getImageID() {
+			return imageID;
+		}
+
+		public Long getAlbumID() {
+			return albumID;
+		}
+
+		public String getCaption() {
+			return caption;
+		}
+
+		public String getKeywords() {
+			return keywords;
+		}
+
+		public Boolean getHidden() {
+			return hidden;
+		}
+	}
+}
@@ -0,0 +1,271 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.json.bulk;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.kallasoft.smugmug.api.json.v1_2_0.images.GetEXIF.GetEXIFResponse;
+
+/**
+ * Class used to represent the EXIF data of many images in a compact table,
+ * one row per image.
+ * <p>
+ * Instead of one {@link GetEXIFResponse} per image, with its 29 boxed
+ * fields, every row is a single <code>int[]</code>: numeric fields are
+ * stored as they are and text fields as codes into a string pool shared by
+ * the tables of the same {@link BulkEXIFFetcher}. Most EXIF text repeats
+ * heavily (the same make, model, aperture and exposure times come up again
+ * and again), so each string is stored once. The dates do not repeat; the
+ * fetcher keeps them from piling up by rebuilding its pool from the rows it
+ * remembers once the pool outgrows them.
+ * <p>
+ * Fields are read with {@link #getString(int, Field)} or
+ * {@link #getInteger(int, Field)}; missing fields are <code>null</code>.
+ * The outcome of fetching each row is in {@link #getResult()}.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class EXIFTable {
+	/**
+	 * Defines the EXIF fields held for every image.
+	 */
+	public enum Field {
+		DATE_TIME(false), DATE_TIME_ORIGINAL(false), DATE_TIME_DIGITIZED(false), MAKE(
+				false), MODEL(false), EXPOSURE_TIME(false), APERTURE(false), FOCAL_LENGTH(
+				false), CCD_WIDTH(false), COMPRESSED_BITS_PER_PIXEL(false), EXPOSURE_BIAS_VALUE(
+				false), DIGITAL_ZOOM_RATIO(false), SUBJECT_DISTANCE(false), COLOR_SPACE(
+				false), BRIGHTNESS(false), ISO(true), FOCAL_LENGTH_IN_35MM_FILM(
+				true), FLASH(true), METERING(true), EXPOSURE_PROGRAM(true), EXPOSURE_MODE(
+				true), LIGHT_SOURCE(true), WHITE_BALANCE(true), CONTRAST(true), SATURATION(
+				true), SHARPNESS(true), SUBJECT_DISTANCE_RANGE(true), SENSING_METHOD(
+				true);
+
+		private boolean numeric;
+
+		private Field(boolean numeric) {
+			this.numeric = numeric;
+		}
+
+		/**
+		 * Used to determine if the field holds a number rather than text.
+		 *
+		 * @return <code>true</code> if the field is read with
+		 *         {@link EXIFTable#getInteger(int, Field)}.
+		 */
+		public boolean isNumeric() {
+			return numeric;
+		}
+	}
+
+	/**
+	 * Defines the value stored for a missing field, both for numbers and for
+	 * string codes.
+	 */
+	static final int NULL = Integer.MIN_VALUE;
+
+	private static final Field[] FIELDS = Field.values();
+
+	private StringPool stringPool;
+
+	private int[][] rows;
+
+	private BulkResult result;
+
+	EXIFTable(StringPool stringPool, int[][] rows, BulkResult result) {
+		this.stringPool = stringPool;
+		this.rows = rows;
+		this.result = result;
+	}
+
+	/**
+	 * Used to encode the fields of a response as a row.
+	 */
+	static int[] encode(GetEXIFResponse response, StringPool stringPool) {
+		Object[] values = { response.getDateTime(),
+				response.getDateTimeOriginal(),
+				response.getDateTimeDigitized(), response.getMake(),
+				response.getModel(), response.getExposureTime(),
+				response.getAperture(), response.getFocalLength(),
+				response.getCCDWidth(), response.getCompressedBitsPerPixel(),
+				response.getExposureBiasValue(),
+				response.getDigitalZoomRatio(), response.getSubjectDistance(),
+				response.getColorSpace(), response.getBrightness(),
+				response.getISO(), response.getFocalLengthIn35mmFilm(),
+				response.getFlash(), response.getMetering(),
+				response.getExposureProgram(), response.getExposureMode(),
+				response.getLightSource(), response.getWhiteBalance(),
+				response.getContrast(), response.getSaturation(),
+				response.getSharpness(), response.getSubjectDistanceRange(),
+				response.getSensingMethod() };
+		int[] row = new int[FIELDS.length];
+
+		for (int i = 0; i < row.length; i++) {
+			if (values[i] == null)
+				row[i] = NULL;
+			else if (FIELDS[i].isNumeric())
+				row[i] = ((Integer) values[i]).intValue();
+			else
+				row[i] = stringPool.intern((String) values[i]);
+		}
+
+		return row;
+	}
+
+	/**
+	 * Used to copy a row encoded with one pool into another pool.
+	 */
+	static int[] recode(int[] row, StringPool from, StringPool to) {
+		int[] copy = new int[row.length];
+
+		for (int i = 0; i < row.length; i++) {
+			if (row[i] == NULL || FIELDS[i].isNumeric())
+				copy[i] = row[i];
+			else
+				copy[i] = to.intern(from.get(row[i]));
+		}
+
+		return copy;
+	}
+
+	/**
+	 * Used to get the number of rows in the table.
+	 *
+	 * @return the number of images.
+	 */
+	public int size() {
+		return rows.length;
+	}
+
+	/**
+	 * Used to get the ID of the image of a row.
+	 *
+	 * @param row
+	 *            The row.
+	 *
+	 * @return the image ID.
+	 */
+	public long getImageID(int row) {
+		return result.getID(row);
+	}
+
+	/**
+	 * Used to determine if the EXIF data of a row was loaded.
+	 *
+	 * @param row
+	 *            The row.
+	 *
+	 * @return <code>true</code> if the row holds EXIF data.
+	 */
+	public boolean isLoaded(int row) {
+		return (rows[row] != null);
+	}
+
+	/**
+	 * Used to get a text field of a row.
+	 *
+	 * @param row
+	 *            The row.
+	 * @param field
+	 *            The field, which must not be numeric.
+	 *
+	 * @return the value, or <code>null</code> if it is missing.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if field is numeric.
+	 */
+	public String getString(int row, Field field)
+			throws IllegalArgumentException {
+		if (field.isNumeric())
+			throw new IllegalArgumentException(field + " is numeric");
+
+		int code = (rows[row] == null ? NULL : rows[row][field.ordinal()]);
+
+		return (code == NULL ? null : stringPool.get(code));
+	}
+
+	/**
+	 * Used to get a numeric field of a row.
+	 *
+	 * @param row
+	 *            The row.
+	 * @param field
+	 *            The field, which must be numeric.
+	 *
+	 * @return the value, or <code>null</code> if it is missing.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if field is not numeric.
+	 */
+	public Integer getInteger(int row, Field field)
+			throws IllegalArgumentException {
+		if (!field.isNumeric())
+			throw new IllegalArgumentException(field + " is not numeric");
+
+		int value = (rows[row] == null ? NULL : rows[row][field.ordinal()]);
+
+		return (value == NULL ? null : Integer.valueOf(value));
+	}
+
+	/**
+	 * Used to get the outcome of fetching every row.
+	 *
+	 * @return the result table, row <code>i</code> describing row
+	 *         <code>i</code> of this table. Rows served from the cache are
+	 *         {@link BulkResult#STATUS_SKIPPED}.
+	 */
+	public BulkResult getResult() {
+		return result;
+	}
+
+	/**
+	 * Class used to give every distinct string a small code, so repeated
+	 * strings are stored once. Codes are never reused.
+	 */
+	static class StringPool {
+		private ConcurrentMap<String, Integer> codeMap = new ConcurrentHashMap<String, Integer>();
+
+		private List<String> stringList = new ArrayList<String>();
+
+		public int intern(String value) {
+			Integer code = codeMap.get(value);
+
+			if (code != null)
+				return code.intValue();
+
+			synchronized (this) {
+				code = codeMap.get(value);
+
+				if (code == null) {
+					code = Integer.valueOf(stringList.size());
+					stringList.add(value);
+					codeMap.put(value, code);
+				}
+
+				return code.intValue();
+			}
+		}
+
+		public synchronized String get(int code) {
+			return stringList.get(code);
+		}
+
+		public int size() {
+			return codeMap.size();
+		}
+	}
+}
@@ -0,0 +1,608 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.json.bulk;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.kallasoft.smugmug.api.json.AbstractResponse;
+import com.kallasoft.smugmug.api.json.entity.Image;
+import com.kallasoft.smugmug.api.json.v1_2_0.APIVersionConstants;
+import com.kallasoft.smugmug.api.json.v1_2_0.albums.ReSort;
+import com.kallasoft.smugmug.api.json.v1_2_0.images.ChangePosition;
+import com.kallasoft.smugmug.api.json.v1_2_0.images.Get;
+import com.kallasoft.smugmug.api.json.v1_2_0.images.Get.GetResponse;
+import com.kallasoft.smugmug.api.util.APIUtils;
+import com.kallasoft.smugmug.api.util.RateLimiter;
+
+/**
+ * Class used to put the images of an album into a given order with as few
+ * calls to SmugMug as possible.
+ * <p>
+ * {@link #plan(Long, List, List)} compares the current order of the images
+ * (by {@link Image#getPosition()}) with the target order:
+ * <ul>
+ * <li>If a {@link Get} method has been set (see
+ * {@link #setGetMethod(Get)}) and the target order is exactly the album
+ * sorted by file name or caption, ascending or descending, the plan is a
+ * single {@link ReSort} (<code>smugmug.albums.reSort</code>).</li>
+ * <li>Otherwise the longest run of images that are already in the right
+ * order relative to each other (the longest increasing subsequence of their
+ * target positions) is left alone and every other image is moved with
+ * {@link ChangePosition} (<code>smugmug.images.changePosition</code>).
+ * This is the smallest number of moves that can produce the target order.</li>
+ * </ul>
+ * {@link #execute(Plan)} then makes only the planned calls. Each move
+ * depends on the ones before it, so moves are made one at a time and the
+ * plan stops at the first failure.
+ * <p>
+ * SmugMug does not document how it compares names when sorting, so it may
+ * not agree with {@link String#compareTo(String)} (e.g. it may sort
+ * "img10" after "img9"). A sort is therefore only planned when the album can
+ * be read back afterwards: after sorting, the album is loaded with
+ * <code>smugmug.images.get</code> and, if the order is not the target order,
+ * the moves needed from the order SmugMug produced are planned and made.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class ReorderPlanner {
+	private static final Logger logger = LoggerFactory
+			.getLogger(ReorderPlanner.class);
+
+	private ChangePosition changePositionMethod;
+
+	private ReSort reSortMethod;
+
+	private Get getMethod;
+
+	private String url;
+
+	private String apiKey;
+
+	private String sessionID;
+
+	private RateLimiter rateLimiter = new RateLimiter(
+			BulkSettingsUpdater.DEFAULT_PERMITS_PER_SECOND);
+
+	/**
+	 * Construct a new planner that talks to the secure SmugMug API server.
+	 *
+	 * @param changePositionMethod
+	 *            The method used to move single images.
+	 * @param reSortMethod
+	 *            The method used to sort whole albums.
+	 * @param apiKey
+	 *            The API Key to use. API keys are issued by SmugMug.
+	 * @param sessionID
+	 *            The logged in SessionID that represents the user's session.
+	 */
+	public ReorderPlanner(ChangePosition changePositionMethod,
+			ReSort reSortMethod, String apiKey, String sessionID) {
+		this(changePositionMethod, reSortMethod,
+				APIVersionConstants.SECURE_SERVER_URL, apiKey, sessionID);
+	}
+
+	/**
+	 * Construct a new planner.
+	 *
+	 * @param changePositionMethod
+	 *            The method used to move single images.
+	 * @param reSortMethod
+	 *            The method used to sort whole albums.
+	 * @param url
+	 *            The URL of the SmugMug server to communicate with.
+	 * @param apiKey
+	 *            The API Key to use. API keys are issued by SmugMug.
+	 * @param sessionID
+	 *            The logged in SessionID that represents the user's session.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if changePositionMethod or reSortMethod is
+	 *             <code>null</code>.
+	 * @throws IllegalArgumentException
+	 *             if url or sessionID is <code>null</code> or empty.
+	 */
+	public ReorderPlanner(ChangePosition changePositionMethod,
+			ReSort reSortMethod, String url, String apiKey, String sessionID)
+			throws IllegalArgumentException {
+		if (changePositionMethod == null || reSortMethod == null)
+			throw new IllegalArgumentException(
+					"Neither changePositionMethod or reSortMethod can be null");
+
+		if (APIUtils.isEmpty(url))
+			throw new IllegalArgumentException("url cannot be null or empty");
+
+		if (APIUtils.isEmpty(sessionID))
+			throw new IllegalArgumentException(
+					"sessionID cannot be null or empty");
+
+		this.changePositionMethod = changePositionMethod;
+		this.reSortMethod = reSortMethod;
+		this.url = url;
+		this.apiKey = apiKey;
+		this.sessionID = sessionID;
+	}
+
+	/**
+	 * Used to work out the calls needed to put the images of an album into
+	 * the target order. No calls are made to SmugMug.
+	 *
+	 * @param albumID
+	 *            The ID of the album.
+	 * @param imageList
+	 *            Every image of the album, as returned by
+	 *            <code>smugmug.images.get</code> (the positions must be
+	 *            loaded).
+	 * @param targetOrder
+	 *            The ID of every image of the album, in the order wanted.
+	 *
+	 * @return the plan.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if any argument is <code>null</code>, or targetOrder does
+	 *             not hold the IDs of exactly the given images.
+	 */
+	public Plan plan(Long albumID, List<Image> imageList, List<Long> targetOrder)
+			throws IllegalArgumentException {
+		return plan(albumID, imageList, targetOrder, (getMethod != null));
+	}
+
+	private Plan plan(Long albumID, List<Image> imageList,
+			List<Long> targetOrder, boolean allowReSort)
+			throws IllegalArgumentException {
+		if (albumID == null || imageList == null || targetOrder == null)
+			throw new IllegalArgumentException(
+					"None of albumID, imageList or targetOrder can be null");
+
+		int size = imageList.size();
+
+		if (targetOrder.size() != size)
+			throw new IllegalArgumentException("targetOrder holds "
+					+ targetOrder.size() + " images but the album holds "
+					+ size);
+
+		List<Image> currentList = new ArrayList<Image>(imageList);
+		Collections.sort(currentList, new Comparator<Image>() {
+			public int compare(Image image1, Image image2) {
+				return position(image1) - position(image2);
+			}
+		});
+
+		Map<Long, Integer> targetIndexMap = new HashMap<Long, Integer>(
+				size * 2);
+
+		for (int i = 0; i < size; i++)
+			targetIndexMap.put(targetOrder.get(i), Integer.valueOf(i));
+
+		/* sequence[i] is where the image now at i has to end up */
+		int[] sequence = new int[size];
+		Image[] targetImages = new Image[size];
+
+		for (int i = 0; i < size; i++) {
+			Image image = currentList.get(i);
+			Integer targetIndex = targetIndexMap.get(image.getID());
+
+			if (targetIndex == null || targetImages[targetIndex.intValue()] != null)
+				throw new IllegalArgumentException("Image " + image.getID()
+						+ " is missing from, or repeated in, targetOrder");
+
+			sequence[i] = targetIndex.intValue();
+			targetImages[sequence[i]] = image;
+		}
+
+		String[] reSort = (allowReSort ? findReSort(targetImages) : null);
+
+		if (reSort != null) {
+			boolean alreadySorted = true;
+
+			for (int i = 0; i < size && alreadySorted; i++)
+				alreadySorted = (sequence[i] == i);
+
+			Plan plan = (alreadySorted ? new Plan(albumID, new long[0],
+					new int[0]) : new Plan(albumID, reSort[0], reSort[1],
+					targetOrder));
+			logger.debug("Planned reorder of album {}: {}", albumID, plan);
+
+			return plan;
+		}
+
+		Plan plan = planMoves(albumID, currentList, sequence, targetImages);
+		logger.debug("Planned reorder of album {}: {}", albumID, plan);
+
+		return plan;
+	}
+
+	/**
+	 * Used to make the calls of the given plan, stopping at the first
+	 * failure.
+	 *
+	 * @param plan
+	 *            The plan to execute.
+	 *
+	 * @return one row per call: the album for a sort, or the image for each
+	 *         move. Rows after a failure are left pending. If a sort did not
+	 *         produce the target order, the result of the moves made
+	 *         afterwards is returned instead.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if plan is <code>null</code>, or the album read back after a
+	 *             sort no longer holds exactly the planned images.
+	 * @throws RuntimeException
+	 *             if the calling thread is interrupted.
+	 */
+	public BulkResult execute(Plan plan) throws IllegalArgumentException,
+			RuntimeException {
+		if (plan == null)
+			throw new IllegalArgumentException("plan cannot be null");
+
+		try {
+			if (plan.isReSort()) {
+				BulkResult result = new BulkResult(new long[] { plan
+						.getAlbumID().longValue() });
+
+				rateLimiter.acquire(apiKey);
+
+				if (!record(result, 0, reSortMethod.execute(url, apiKey,
+						sessionID, plan.getAlbumID(), plan.getReSortBy(), plan
+								.getReSortDirection())))
+					return result;
+
+				/* Check SmugMug sorted the names the way the plan assumed */
+				rateLimiter.acquire(apiKey);
+				GetResponse getResponse = getMethod.execute(url, apiKey,
+						sessionID, plan.getAlbumID(), null, Boolean.TRUE);
+
+				if (!record(result, 0, getResponse))
+					return result;
+
+				Plan movePlan = plan(plan.getAlbumID(), getResponse
+						.getImageList(), plan.targetOrder, false);
+
+				if (movePlan.getMoveCount() == 0)
+					return result;
+
+				logger.warn(
+						"Sorting album {} by {} did not produce the target order, making {} moves instead",
+						new Object[] { plan.getAlbumID(), plan.getReSortBy(),
+								Integer.valueOf(movePlan.getMoveCount()) });
+
+				return execute(movePlan);
+			}
+
+			BulkResult result = new BulkResult(plan.imageIDs.clone());
+
+			for (int i = 0; i < plan.getMoveCount(); i++) {
+				rateLimiter.acquire(apiKey);
+
+				if (!record(result, i, changePositionMethod.execute(url,
+						apiKey, sessionID, Long.valueOf(plan.getImageID(i)),
+						Integer.valueOf(plan.getPosition(i))))) {
+					logger.warn(
+							"Stopped reordering album {} after move {} of {} failed",
+							new Object[] { plan.getAlbumID(),
+									Integer.valueOf(i + 1),
+									Integer.valueOf(plan.getMoveCount()) });
+					break;
+				}
+			}
+
+			return result;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			RuntimeException re = new RuntimeException(e);
+			logger.error("Interrupted while reordering album "
+					+ plan.getAlbumID(), re);
+			throw re;
+		}
+	}
+
+	private boolean record(BulkResult result, int row,
+			AbstractResponse response) {
+		if (response.isError()) {
+			result.setError(row, response.getError().getCode(), 1);
+			return false;
+		}
+
+		result.setSuccess(row, 1);
+		return true;
+	}
+
+	/**
+	 * Used to determine if the target order is the album sorted by a key that
+	 * <code>smugmug.albums.reSort</code> supports. Only keys that are
+	 * distinct, ignoring case or not, are accepted, since otherwise SmugMug
+	 * could order ties differently.
+	 *
+	 * @return the "By" and "Direction" arguments, or <code>null</code> if no
+	 *         sort produces the target order.
+	 */
+	private static String[] findReSort(Image[] targetImages) {
+		String[] fileNames = new String[targetImages.length];
+		String[] captions = new String[targetImages.length];
+
+		for (int i = 0; i < targetImages.length; i++) {
+			fileNames[i] = targetImages[i].getFileName();
+			captions[i] = targetImages[i].getCaption();
+		}
+
+		if (isStrictlySorted(fileNames, 1))
+			return new String[] { ReSort.BY_FILE_NAME,
+					ReSort.DIRECTION_ASCENDING };
+
+		if (isStrictlySorted(fileNames, -1))
+			return new String[] { ReSort.BY_FILE_NAME,
+					ReSort.DIRECTION_DESCENDING };
+
+		if (isStrictlySorted(captions, 1))
+			return new String[] { ReSort.BY_CAPTION,
+					ReSort.DIRECTION_ASCENDING };
+
+		if (isStrictlySorted(captions, -1))
+			return new String[] { ReSort.BY_CAPTION,
+					ReSort.DIRECTION_DESCENDING };
+
+		return null;
+	}
+
+	private static boolean isStrictlySorted(String[] keys, int direction) {
+		for (int i = 1; i < keys.length; i++) {
+			if (keys[i - 1] == null || keys[i] == null
+					|| keys[i - 1].compareTo(keys[i]) * direction >= 0
+					|| keys[i - 1].compareToIgnoreCase(keys[i]) * direction >= 0)
+				return false;
+		}
+
+		return (keys.length > 0 && keys[0] != null);
+	}
+
+	/**
+	 * Used to plan the moves that leave the longest increasing subsequence of
+	 * the target positions in place.
+	 * <p>
+	 * The images are visited in target order. Every image that is not kept is
+	 * moved to just after the image that precedes it in the target order, so
+	 * every visited image ends up in target order relative to the others and
+	 * the kept images, already in order, never need to move.
+	 */
+	private static Plan planMoves(Long albumID, List<Image> currentList,
+			int[] sequence, Image[] targetImages) {
+		int size = sequence.length;
+		boolean[] kept = new boolean[size];
+		int[] lis = longestIncreasingSubsequence(sequence);
+
+		for (int i = 0; i < lis.length; i++)
+			kept[sequence[lis[i]]] = true;
+
+		int moveCount = size - lis.length;
+		long[] imageIDs = new long[moveCount];
+		int[] positions = new int[moveCount];
+
+		/* Simulate the album so every move gets its absolute position */
+		List<Image> album = new ArrayList<Image>(currentList);
+
+		for (int target = 0, move = 0; target < size; target++) {
+			if (kept[target])
+				continue;
+
+			Image image = targetImages[target];
+			album.remove(image);
+
+			int index = (target == 0 ? 0
+					: album.indexOf(targetImages[target - 1]) + 1);
+			album.add(index, image);
+
+			imageIDs[move] = image.getID().longValue();
+			positions[move] = index + 1;
+			move++;
+		}
+
+		return new Plan(albumID, imageIDs, positions);
+	}
+
+	/**
+	 * Used to find the longest strictly increasing subsequence of the given
+	 * values in <code>O(n log n)</code> time.
+	 *
+	 * @return the indices of the values in the subsequence, in order.
+	 */
+	static int[] longestIncreasingSubsequence(int[] values) {
+		/* tails[k] is the index ending the best subsequence of length k+1 */
+		int[] tails = new int[values.length];
+		int[] previous = new int[values.length];
+		int length = 0;
+
+		for (int i = 0; i < values.length; i++) {
+			int low = 0;
+			int high = length;
+
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+
+				if (values[tails[middle]] < values[i])
+					low = middle + 1;
+				else
+					high = middle;
+			}
+
+			previous[i] = (low > 0 ? tails[low - 1] : -1);
+			tails[low] = i;
+
+			if (low == length)
+				length++;
+		}
+
+		int[] result = new int[length];
+
+		for (int i = length - 1, index = (length > 0 ? tails[length - 1]
+				: -1); i >= 0; i--, index = previous[index])
+			result[i] = index;
+
+		return result;
+	}
+
+	private static int position(Image image) {
+		return (image.getPosition() == null ? Integer.MAX_VALUE : image
+				.getPosition().intValue());
+	}
+
+	/**
+	 * Used to get the method used to read an album back after sorting it.
+	 *
+	 * @return the method, or <code>null</code> if sorts are never planned.
+	 */
+	public Get getGetMethod() {
+		return getMethod;
+	}
+
+	/**
+	 * Used to set the method used to read an album back after sorting it.
+	 * Sorts are only planned when this is set, since otherwise a sort that
+	 * SmugMug orders differently could not be corrected.
+	 *
+	 * @param getMethod
+	 *            The method, or <code>null</code> to only plan moves.
+	 */
+	public void setGetMethod(Get getMethod) {
+		this.getMethod = getMethod;
+	}
+
+	/**
+	 * Used to get the rate limiter every call waits on.
+	 *
+	 * @return the rate limiter every call waits on.
+	 */
+	public RateLimiter getRateLimiter() {
+		return rateLimiter;
+	}
+
+	/**
+	 * Used to set the rate limiter every call waits on. Share one rate limiter
+	 * between everything that uses the same API Key.
+	 *
+	 * @param rateLimiter
+	 *            The rate limiter every call waits on.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if rateLimiter is <code>null</code>.
+	 */
+	public void setRateLimiter(RateLimiter rateLimiter)
+			throws IllegalArgumentException {
+		if (rateLimiter == null)
+			throw new IllegalArgumentException("rateLimiter cannot be null");
+
+		this.rateLimiter = rateLimiter;
+	}
+
+	/**
+	 * Class used to represent the calls needed to reorder an album: either a
+	 * single sort, or a list of moves to be made in order.
+	 *
+	 * @author smugmug-java-api contributors
+	 */
+	public static class Plan {
+		private Long albumID;
+
+		private String reSortBy;
+
+		private String reSortDirection;
+
+		private long[] imageIDs;
+
+		private int[] positions;
+
+		private List<Long> targetOrder;
+
+		Plan(Long albumID, String reSortBy, String reSortDirection,
+				List<Long> targetOrder) {
+			this.albumID = albumID;
+			this.reSortBy = reSortBy;
+			this.reSortDirection = reSortDirection;
+			this.targetOrder = new ArrayList<Long>(targetOrder);
+			this.imageIDs = new long[0];
+			this.positions = new int[0];
+		}
+
+		Plan(Long albumID, long[] imageIDs, int[] positions) {
+			this.albumID = albumID;
+			this.imageIDs = imageIDs;
+			this.positions = positions;
+		}
+
+		@Override
+		public String toString() {
+			return Plan.class.getName() + "[albumID=" + getAlbumID()
+					+ ", isReSort=" + isReSort() + ", reSortBy="
+					+ getReSortBy() + ", reSortDirection="
+					+ getReSortDirection() + ", moveCount=" + getMoveCount()
+					+ "]";
+		}
+
+		public Long getAlbumID() {
+			return albumID;
+		}
+
+		/**
+		 * Used to determine if the plan is a single sort of the album.
+		 *
+		 * @return <code>true</code> if the plan is a sort.
+		 */
+		public boolean isReSort() {
+			return (reSortBy != null);
+		}
+
+		public String getReSortBy() {
+			return reSortBy;
+		}
+
+		public String getReSortDirection() {
+			return reSortDirection;
+		}
+
+		/**
+		 * Used to get the number of images moved by the plan. A plan that is
+		 * neither a sort nor has any moves means the album is already in the
+		 * target order.
+		 *
+		 * @return the number of moves.
+		 */
+		public int getMoveCount() {
+			return imageIDs.length;
+		}
+
+		public long getImageID(int move) {
+			return imageIDs[move];
+		}
+
+		/**
+		 * Used to get the position (starting at 1) the image of a move is
+		 * moved to, given that every earlier move has been made.
+		 *
+		 * @param move
+		 *            The index of the move.
+		 *
+		 * @return the new position of the image.
+		 */
+		public int getPosition(int move) {
+			return positions[move];
+		}
+	}
+}
@@ -0,0 +1,736 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.json.bulk;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.kallasoft.smugmug.api.json.entity.AlbumTransferStats;
+import com.kallasoft.smugmug.api.json.entity.ImageTransferStats;
+import com.kallasoft.smugmug.api.json.v1_2_0.APIVersionConstants;
+import com.kallasoft.smugmug.api.json.v1_2_0.albums.GetStats;
+import com.kallasoft.smugmug.api.json.v1_2_0.albums.GetStats.GetStatsResponse;
+import com.kallasoft.smugmug.api.json.v1_2_0.users.GetTransferStats;
+import com.kallasoft.smugmug.api.json.v1_2_0.users.GetTransferStats.GetTransferStatsResponse;
+import com.kallasoft.smugmug.api.util.APIUtils;
+import com.kallasoft.smugmug.api.util.BatchExecutor;
+import com.kallasoft.smugmug.api.util.RateLimiter;
+
+/**
+ * Class used to collect the transfer statistics of an account over a range
+ * of months and add them up per album and per image.
+ * <p>
+ * One call is made per month (heavy
+ * <code>smugmug.users.getTransferStats</code>) or per album per month
+ * (heavy <code>smugmug.albums.getStats</code>). The calls are made several
+ * at a time (see {@link #setParallelism(int)}) and rate limited per API Key
+ * (see {@link #setRateLimiter(RateLimiter)}).
+ * <p>
+ * Every album and image gets one <code>long[]</code> accumulator holding
+ * every {@link Metric} for every month of the range, so merging a response
+ * is a few array additions and the result, a {@link Series}, is the same
+ * arrays. Metrics SmugMug reports as fractions (originals and videos,
+ * which are often only partially viewed) are accumulated in thousandths.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class TransferStatsAggregator {
+	/**
+	 * Defines the default number of calls made at once.
+	 */
+	public static final int DEFAULT_PARALLELISM = 6;
+
+	/**
+	 * Defines the statistics accumulated for every album and image.
+	 */
+	public enum Metric {
+		BYTES(false), TINY(false), THUMB(false), SMALL(false), MEDIUM(false), LARGE(
+				false), XLARGE(false), X2LARGE(false), X3LARGE(false), ORIGINAL(
+				true), VIDEO320(true), VIDEO640(true), VIDEO960(true), VIDEO1280(
+				true);
+
+		private boolean fractional;
+
+		private Metric(boolean fractional) {
+			this.fractional = fractional;
+		}
+
+		/**
+		 * Used to determine if the metric is accumulated in thousandths.
+		 *
+		 * @return <code>true</code> if raw values must be divided by 1000.
+		 */
+		public boolean isFractional() {
+			return fractional;
+		}
+	}
+
+	private static final Logger logger = LoggerFactory
+			.getLogger(TransferStatsAggregator.class);
+
+	private static final Metric[] METRICS = Metric.values();
+
+	private GetTransferStats getTransferStatsMethod = new GetTransferStats();
+
+	private GetStats getStatsMethod = new GetStats();
+
+	private String url;
+
+	private String apiKey;
+
+	private String sessionID;
+
+	private int parallelism = DEFAULT_PARALLELISM;
+
+	private RateLimiter rateLimiter = new RateLimiter(
+			BulkSettingsUpdater.DEFAULT_PERMITS_PER_SECOND);
+
+	/**
+	 * Construct a new aggregator that talks to the secure SmugMug API server.
+	 *
+	 * @param apiKey
+	 *            The API Key to use. API keys are issued by SmugMug.
+	 * @param sessionID
+	 *            The logged in SessionID that represents the user's session.
+	 */
+	public TransferStatsAggregator(String apiKey, String sessionID) {
+		this(APIVersionConstants.SECURE_SERVER_URL, apiKey, sessionID);
+	}
+
+	/**
+	 * Construct a new aggregator.
+	 *
+	 * @param url
+	 *            The URL of the SmugMug server to communicate with.
+	 * @param apiKey
+	 *            The API Key to use. API keys are issued by SmugMug.
+	 * @param sessionID
+	 *            The logged in SessionID that represents the user's session.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if url or sessionID is <code>null</code> or empty.
+	 */
+	public TransferStatsAggregator(String url, String apiKey, String sessionID)
+			throws IllegalArgumentException {
+		if (APIUtils.isEmpty(url))
+			throw new IllegalArgumentException("url cannot be null or empty");
+
+		if (APIUtils.isEmpty(sessionID))
+			throw new IllegalArgumentException(
+					"sessionID cannot be null or empty");
+
+		this.url = url;
+		this.apiKey = apiKey;
+		this.sessionID = sessionID;
+	}
+
+	/**
+	 * Used to collect the statistics of every album and image of the account
+	 * with one <code>smugmug.users.getTransferStats</code> call per month.
+	 *
+	 * @param startYear
+	 *            The year of the first month.
+	 * @param startMonth
+	 *            The first month (1-12).
+	 * @param endYear
+	 *            The year of the last month.
+	 * @param endMonth
+	 *            The last month (1-12), inclusive.
+	 *
+	 * @return the statistics. Row <code>i</code> of its result is the call
+	 *         for month <code>i</code>, with an ID of
+	 *         <code>year * 100 + month</code>.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the range is empty or a month is out of range.
+	 * @throws RuntimeException
+	 *             if the calling thread is interrupted.
+	 */
+	public Series aggregateAccount(int startYear, int startMonth, int endYear,
+			int endMonth) throws IllegalArgumentException, RuntimeException {
+		final int start = toMonthIndex(startYear, startMonth);
+		final int monthCount = toMonthIndex(endYear, endMonth) - start + 1;
+
+		if (monthCount < 1)
+			throw new IllegalArgumentException("The month range is empty");
+
+		long[] ids = new long[monthCount];
+
+		for (int i = 0; i < monthCount; i++)
+			ids[i] = (start + i) / 12 * 100 + (start + i) % 12 + 1;
+
+		final BulkResult result = new BulkResult(ids);
+		final Accumulator accumulator = new Accumulator(monthCount);
+
+		run(monthCount, new BatchExecutor.Task<Integer>() {
+			public void execute(Integer row) throws Exception {
+				int month = row.intValue();
+				rateLimiter.acquire(apiKey);
+
+				try {
+					GetTransferStatsResponse response = getTransferStatsMethod
+							.execute(url, apiKey, sessionID, Integer
+									.valueOf((start + month) % 12 + 1),
+									Integer.valueOf((start + month) / 12),
+									Boolean.TRUE);
+
+					if (response.isError())
+						result.setError(month, response.getError().getCode(),
+								1);
+					else {
+						for (AlbumTransferStats stats : response
+								.getAlbumTransferStatsList())
+							accumulator.add(month, stats);
+
+						result.setSuccess(month, 1);
+					}
+				} catch (RuntimeException e) {
+					logger.warn("Unable to get the transfer stats of month "
+							+ (start + month), e);
+					result.setException(month, e, 1);
+				}
+			}
+		});
+
+		return accumulator.toSeries(start, result);
+	}
+
+	/**
+	 * Used to collect the statistics of the given albums and their images
+	 * with one <code>smugmug.albums.getStats</code> call per album per
+	 * month.
+	 *
+	 * @param albumIDs
+	 *            The IDs of the albums.
+	 * @param startYear
+	 *            The year of the first month.
+	 * @param startMonth
+	 *            The first month (1-12).
+	 * @param endYear
+	 *            The year of the last month.
+	 * @param endMonth
+	 *            The last month (1-12), inclusive.
+	 *
+	 * @return the statistics. Row <code>a * months + m</code> of its result
+	 *         is the call for album <code>a</code> (in the order given) and
+	 *         month <code>m</code>, with the album's ID.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if albumIDs is <code>null</code>, the range is empty or a
+	 *             month is out of range.
+	 * @throws RuntimeException
+	 *             if the calling thread is interrupted.
+	 */
+	public Series aggregateAlbums(Collection<Long> albumIDs, int startYear,
+			int startMonth, int endYear, int endMonth)
+			throws IllegalArgumentException, RuntimeException {
+		if (albumIDs == null)
+			throw new IllegalArgumentException("albumIDs cannot be null");
+
+		final int start = toMonthIndex(startYear, startMonth);
+		final int monthCount = toMonthIndex(endYear, endMonth) - start + 1;
+
+		if (monthCount < 1)
+			throw new IllegalArgumentException("The month range is empty");
+
+		final List<Long> albumIDList = new ArrayList<Long>(albumIDs);
+		long[] ids = new long[albumIDList.size() * monthCount];
+
+		for (int i = 0; i < ids.length; i++)
+			ids[i] = albumIDList.get(i / monthCount).longValue();
+
+		final BulkResult result = new BulkResult(ids);
+		final Accumulator accumulator = new Accumulator(monthCount);
+
+		run(ids.length, new BatchExecutor.Task<Integer>() {
+			public void execute(Integer row) throws Exception {
+				int index = row.intValue();
+				int month = index % monthCount;
+				Long albumID = albumIDList.get(index / monthCount);
+				rateLimiter.acquire(apiKey);
+
+				try {
+					GetStatsResponse response = getStatsMethod.execute(url,
+							apiKey, sessionID, albumID, Integer
+									.valueOf((start + month) % 12 + 1),
+							Integer.valueOf((start + month) / 12),
+							Boolean.TRUE);
+
+					if (response.isError())
+						result.setError(index, response.getError().getCode(),
+								1);
+					else {
+						if (response.getAlbumTransferStats() != null)
+							accumulator.add(month, response
+									.getAlbumTransferStats());
+
+						result.setSuccess(index, 1);
+					}
+				} catch (RuntimeException e) {
+					logger.warn("Unable to get the stats of album " + albumID,
+							e);
+					result.setException(index, e, 1);
+				}
+			}
+		});
+
+		return accumulator.toSeries(start, result);
+	}
+
+	private void run(int size, BatchExecutor.Task<Integer> task)
+			throws RuntimeException {
+		try {
+			new BatchExecutor(parallelism).execute(BulkResult.rows(size), task);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			RuntimeException re = new RuntimeException(e);
+			logger.error("Interrupted while collecting transfer stats", re);
+			throw re;
+		}
+	}
+
+	private static int toMonthIndex(int year, int month)
+			throws IllegalArgumentException {
+		if (month < 1 || month > 12)
+			throw new IllegalArgumentException("month must be 1-12");
+
+		return year * 12 + month - 1;
+	}
+
+	private static long toLong(Integer value) {
+		return (value == null ? 0 : value.longValue());
+	}
+
+	private static long toThousandths(Float value) {
+		return (value == null ? 0 : Math.round(value.doubleValue() * 1000));
+	}
+
+	/**
+	 * Used to get the maximum number of calls made at once.
+	 *
+	 * @return the maximum number of calls made at once.
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Used to set the maximum number of calls made at once.
+	 *
+	 * @param parallelism
+	 *            The maximum number of calls made at once.
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Used to get the rate limiter every call waits on.
+	 *
+	 * @return the rate limiter every call waits on.
+	 */
+	public RateLimiter getRateLimiter() {
+		return rateLimiter;
+	}
+
+	/**
+	 * Used to set the rate limiter every call waits on. Share one rate limiter
+	 * between everything that uses the same API Key.
+	 *
+	 * @param rateLimiter
+	 *            The rate limiter every call waits on.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if rateLimiter is <code>null</code>.
+	 */
+	public void setRateLimiter(RateLimiter rateLimiter)
+			throws IllegalArgumentException {
+		if (rateLimiter == null)
+			throw new IllegalArgumentException("rateLimiter cannot be null");
+
+		this.rateLimiter = rateLimiter;
+	}
+
+	/**
+	 * Class used to add up responses as they arrive from several threads.
+	 */
+	private static class Accumulator {
+		private int monthCount;
+
+		private Map<Long, long[]> albumMap = new HashMap<Long, long[]>();
+
+		private Map<Long, long[]> imageMap = new HashMap<Long, long[]>();
+
+		private Map<Long, Long> imageAlbumMap = new HashMap<Long, Long>();
+
+		public Accumulator(int monthCount) {
+			this.monthCount = monthCount;
+		}
+
+		public synchronized void add(int month, AlbumTransferStats stats) {
+			if (stats.getID() == null)
+				return;
+
+			int offset = month * METRICS.length;
+			long[] values = get(albumMap, stats.getID());
+
+			values[offset] += toLong(stats.getBytes());
+			values[offset + 1] += toLong(stats.getTiny());
+			values[offset + 2] += toLong(stats.getThumb());
+			values[offset + 3] += toLong(stats.getSmall());
+			values[offset + 4] += toLong(stats.getMedium());
+			values[offset + 5] += toLong(stats.getLarge());
+			values[offset + 6] += toLong(stats.getXLarge());
+			values[offset + 7] += toLong(stats.getX2Large());
+			values[offset + 8] += toLong(stats.getX3Large());
+			values[offset + 9] += toThousandths(stats.getOriginal());
+			values[offset + 10] += toThousandths(stats.getVideo320());
+			values[offset + 11] += toThousandths(stats.getVideo640());
+			values[offset + 12] += toThousandths(stats.getVideo960());
+			values[offset + 13] += toThousandths(stats.getVideo1280());
+
+			for (ImageTransferStats imageStats : stats
+					.getImageTransferStatsList()) {
+				if (imageStats.getID() == null)
+					continue;
+
+				values = get(imageMap, imageStats.getID());
+				imageAlbumMap.put(imageStats.getID(), stats.getID());
+
+				values[offset] += toLong(imageStats.getBytes());
+				values[offset + 1] += toLong(imageStats.getTiny());
+				values[offset + 2] += toLong(imageStats.getThumb());
+				values[offset + 3] += toLong(imageStats.getSmall());
+				values[offset + 4] += toLong(imageStats.getMedium());
+				values[offset + 5] += toLong(imageStats.getLarge());
+				values[offset + 6] += toLong(imageStats.getXLarge());
+				values[offset + 7] += toLong(imageStats.getX2Large());
+				values[offset + 8] += toLong(imageStats.getX3Large());
+				values[offset + 9] += toThousandths(imageStats.getOriginal());
+				values[offset + 10] += toThousandths(imageStats.getVideo320());
+				values[offset + 11] += toThousandths(imageStats.getVideo640());
+				values[offset + 12] += toThousandths(imageStats.getVideo960());
+				values[offset + 13] += toThousandths(imageStats
+						.getVideo1280());
+			}
+		}
+
+		private long[] get(Map<Long, long[]> map, Long id) {
+			long[] values = map.get(id);
+
+			if (values == null) {
+				values = new long[monthCount * METRICS.length];
+				map.put(id, values);
+			}
+
+			return values;
+		}
+
+		public synchronized Series toSeries(int startMonthIndex,
+				BulkResult result) {
+			long[] albumIDs = sortedKeys(albumMap);
+			long[] imageIDs = sortedKeys(imageMap);
+			long[][] albumValues = new long[albumIDs.length][];
+			long[][] imageValues = new long[imageIDs.length][];
+			long[] imageAlbumIDs = new long[imageIDs.length];
+
+			for (int i = 0; i < albumIDs.length; i++)
+				albumValues[i] = albumMap.get(Long.valueOf(albumIDs[i]));
+
+			for (int i = 0; i < imageIDs.length; i++) {
+				Long id = Long.valueOf(imageIDs[i]);
+				imageValues[i] = imageMap.get(id);
+				imageAlbumIDs[i] = imageAlbumMap.get(id).longValue();
+			}
+
+			return new Series(startMonthIndex, monthCount, albumIDs,
+					albumValues, imageIDs, imageAlbumIDs, imageValues, result);
+		}
+
+		private static long[] sortedKeys(Map<Long, long[]> map) {
+			long[] keys = new long[map.size()];
+			int i = 0;
+
+			for (Long key : map.keySet())
+				keys[i++] = key.longValue();
+
+			Arrays.sort(keys);
+
+			return keys;
+		}
+	}
+
+	/**
+	 * Class used to represent the transfer statistics of albums and images as
+	 * a time series, one value per {@link Metric} per month.
+	 * <p>
+	 * Albums and images are addressed by index (see {@link #indexOfAlbum(long)}
+	 * and {@link #indexOfImage(long)}); their IDs are sorted so lookups are a
+	 * binary search.
+	 *
+	 * @author smugmug-java-api contributors
+	 */
+	public static class Series {
+		private int startMonthIndex;
+
+		private int monthCount;
+
+		private long[] albumIDs;
+
+		private long[][] albumValues;
+
+		private long[] imageIDs;
+
+		private long[] imageAlbumIDs;
+
+		private long[][] imageValues;
+
+		private BulkResult result;
+
+		Series(int startMonthIndex, int monthCount, long[] albumIDs,
+				long[][] albumValues, long[] imageIDs, long[] imageAlbumIDs,
+				long[][] imageValues, BulkResult result) {
+			this.startMonthIndex = startMonthIndex;
+			this.monthCount = monthCount;
+			this.albumIDs = albumIDs;
+			this.albumValues = albumValues;
+			this.imageIDs = imageIDs;
+			this.imageAlbumIDs = imageAlbumIDs;
+			this.imageValues = imageValues;
+			this.result = result;
+		}
+
+		@Override
+		public String toString() {
+			return Series.class.getName() + "[startYear=" + getYear(0)
+					+ ", startMonth=" + getMonth(0) + ", monthCount="
+					+ getMonthCount() + ", albumCount=" + getAlbumCount()
+					+ ", imageCount=" + getImageCount() + ", totalBytes="
+					+ getTotal(Metric.BYTES) + ", result=" + getResult() + "]";
+		}
+
+		public int getMonthCount() {
+			return monthCount;
+		}
+
+		/**
+		 * Used to get the year of a month of the series.
+		 *
+		 * @param month
+		 *            The index of the month, starting at 0.
+		 *
+		 * @return the year.
+		 */
+		public int getYear(int month) {
+			return (startMonthIndex + month) / 12;
+		}
+
+		/**
+		 * Used to get the calendar month (1-12) of a month of the series.
+		 *
+		 * @param month
+		 *            The index of the month, starting at 0.
+		 *
+		 * @return the calendar month.
+		 */
+		public int getMonth(int month) {
+			return (startMonthIndex + month) % 12 + 1;
+		}
+
+		public int getAlbumCount() {
+			return albumIDs.length;
+		}
+
+		public long getAlbumID(int album) {
+			return albumIDs[album];
+		}
+
+		/**
+		 * Used to find the index of an album.
+		 *
+		 * @param albumID
+		 *            The ID of the album.
+		 *
+		 * @return the index, or a negative number if the album has no
+		 *         statistics.
+		 */
+		public int indexOfAlbum(long albumID) {
+			return Arrays.binarySearch(albumIDs, albumID);
+		}
+
+		/**
+		 * Used to get the raw value of a metric of an album in one month.
+		 * Fractional metrics are in thousandths.
+		 *
+		 * @param album
+		 *            The index of the album.
+		 * @param month
+		 *            The index of the month.
+		 * @param metric
+		 *            The metric.
+		 *
+		 * @return the value.
+		 */
+		public long getAlbumValue(int album, int month, Metric metric) {
+			return albumValues[album][month * METRICS.length
+					+ metric.ordinal()];
+		}
+
+		/**
+		 * Used to get the raw total of a metric of an album over every month.
+		 * Fractional metrics are in thousandths.
+		 *
+		 * @param album
+		 *            The index of the album.
+		 * @param metric
+		 *            The metric.
+		 *
+		 * @return the total.
+		 */
+		public long getAlbumTotal(int album, Metric metric) {
+			return sum(albumValues[album], metric);
+		}
+
+		public int getImageCount() {
+			return imageIDs.length;
+		}
+
+		public long getImageID(int image) {
+			return imageIDs[image];
+		}
+
+		/**
+		 * Used to get the ID of the album an image was reported under.
+		 *
+		 * @param image
+		 *            The index of the image.
+		 *
+		 * @return the album ID.
+		 */
+		public long getImageAlbumID(int image) {
+			return imageAlbumIDs[image];
+		}
+
+		/**
+		 * Used to find the index of an image.
+		 *
+		 * @param imageID
+		 *            The ID of the image.
+		 *
+		 * @return the index, or a negative number if the image has no
+		 *         statistics.
+		 */
+		public int indexOfImage(long imageID) {
+			return Arrays.binarySearch(imageIDs, imageID);
+		}
+
+		/**
+		 * Used to get the raw value of a metric of an image in one month.
+		 * Fractional metrics are in thousandths.
+		 *
+		 * @param image
+		 *            The index of the image.
+		 * @param month
+		 *            The index of the month.
+		 * @param metric
+		 *            The metric.
+		 *
+		 * @return the value.
+		 */
+		public long getImageValue(int image, int month, Metric metric) {
+			return imageValues[image][month * METRICS.length
+					+ metric.ordinal()];
+		}
+
+		/**
+		 * Used to get the raw total of a metric of an image over every month.
+		 * Fractional metrics are in thousandths.
+		 *
+		 * @param image
+		 *            The index of the image.
+		 * @param metric
+		 *            The metric.
+		 *
+		 * @return the total.
+		 */
+		public long getImageTotal(int image, Metric metric) {
+			return sum(imageValues[image], metric);
+		}
+
+		/**
+		 * Used to get the raw value of a metric summed over every album in
+		 * one month. Fractional metrics are in thousandths.
+		 *
+		 * @param month
+		 *            The index of the month.
+		 * @param metric
+		 *            The metric.
+		 *
+		 * @return the account total for the month.
+		 */
+		public long getMonthTotal(int month, Metric metric) {
+			long total = 0;
+			int offset = month * METRICS.length + metric.ordinal();
+
+			for (int i = 0; i < albumValues.length; i++)
+				total += albumValues[i][offset];
+
+			return total;
+		}
+
+		/**
+		 * Used to get the raw value of a metric summed over every album and
+		 * month. Fractional metrics are in thousandths.
+		 *
+		 * @param metric
+		 *            The metric.
+		 *
+		 * @return the account total.
+		 */
+		public long getTotal(Metric metric) {
+			long total = 0;
+
+			for (int i = 0; i < albumValues.length; i++)
+				total += sum(albumValues[i], metric);
+
+			return total;
+		}
+
+		/**
+		 * Used to get the outcome of every call made.
+		 *
+		 * @return the result table.
+		 */
+		public BulkResult getResult() {
+			return result;
+		}
+
+		private static long sum(long[] values, Metric metric) {
+			long total = 0;
+
+			for (int i = metric.ordinal(); i < values.length; i += METRICS.length)
+				total += values[i];
+
+			return total;
+		}
+	}
+}
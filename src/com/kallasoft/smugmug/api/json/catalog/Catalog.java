@@ -0,0 +1,562 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.json.catalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.kallasoft.smugmug.api.json.entity.Album;
+import com.kallasoft.smugmug.api.json.entity.Category;
+import com.kallasoft.smugmug.api.json.v1_2_0.APIVersionConstants;
+import com.kallasoft.smugmug.api.json.v1_2_0.users.GetTree;
+import com.kallasoft.smugmug.api.json.v1_2_0.users.GetTree.GetTreeResponse;
+import com.kallasoft.smugmug.api.util.APIUtils;
+import com.kallasoft.smugmug.api.util.LongIntHashMap;
+
+/**
+ * Class used to look up the albums, categories and subcategories of an
+ * account without walking the tree returned by {@link GetTree}
+ * (<code>smugmug.users.getTree</code>) every time.
+ * <p>
+ * Every refresh indexes the tree into a new, immutable {@link Snapshot} and
+ * then swaps it in with a single write. Lookups read whichever snapshot is
+ * current without locking, and never see a half-built index. Code that makes
+ * several lookups for one request should get the snapshot once with
+ * {@link #getSnapshot()} so they all see the same tree.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class Catalog {
+	private static final Logger logger = LoggerFactory
+			.getLogger(Catalog.class);
+
+	private GetTree getTreeMethod = new GetTree();
+
+	private String url;
+
+	private String apiKey;
+
+	private String sessionID;
+
+	private boolean heavy = true;
+
+	private volatile Snapshot snapshot = new Snapshot(
+			Collections.<Category> emptyList());
+
+	/**
+	 * Construct a new, empty catalog that refreshes from the secure SmugMug
+	 * API server.
+	 *
+	 * @param apiKey
+	 *            The API Key to use. API keys are issued by SmugMug.
+	 * @param sessionID
+	 *            The logged in SessionID that represents the user's session.
+	 */
+	public Catalog(String apiKey, String sessionID) {
+		this(APIVersionConstants.SECURE_SERVER_URL, apiKey, sessionID);
+	}
+
+	/**
+	 * Construct a new, empty catalog.
+	 *
+	 * @param url
+	 *            The URL of the SmugMug server to communicate with.
+	 * @param apiKey
+	 *            The API Key to use. API keys are issued by SmugMug.
+	 * @param sessionID
+	 *            The logged in SessionID that represents the user's session.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if url or sessionID is <code>null</code> or empty.
+	 */
+	public Catalog(String url, String apiKey, String sessionID)
+			throws IllegalArgumentException {
+		if (APIUtils.isEmpty(url))
+			throw new IllegalArgumentException("url cannot be null or empty");
+
+		if (APIUtils.isEmpty(sessionID))
+			throw new IllegalArgumentException(
+					"sessionID cannot be null or empty");
+
+		this.url = url;
+		this.apiKey = apiKey;
+		this.sessionID = sessionID;
+	}
+
+	/**
+	 * Used to fetch the tree of the account and swap in a new snapshot of it.
+	 *
+	 * @return the new snapshot.
+	 *
+	 * @throws RuntimeException
+	 *             if SmugMug returns an error, in which case the current
+	 *             snapshot is kept.
+	 */
+	public synchronized Snapshot refresh() throws RuntimeException {
+		GetTreeResponse response = getTreeMethod.execute(url, apiKey,
+				sessionID, Boolean.valueOf(heavy));
+
+		if (response.isError()) {
+			RuntimeException re = new RuntimeException(
+					"Unable to get the tree: " + response.getError());
+			logger.error("Unable to refresh the catalog", re);
+			throw re;
+		}
+
+		return refresh(response.getCategoryList());
+	}
+
+	/**
+	 * Used to swap in a new snapshot of a tree that was already fetched.
+	 *
+	 * @param categoryList
+	 *            The top level categories of the tree, as returned by
+	 *            {@link GetTreeResponse#getCategoryList()}.
+	 *
+	 * @return the new snapshot.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if categoryList is <code>null</code>.
+	 */
+	public synchronized Snapshot refresh(List<Category> categoryList)
+			throws IllegalArgumentException {
+		if (categoryList == null)
+			throw new IllegalArgumentException("categoryList cannot be null");
+
+		Snapshot newSnapshot = new Snapshot(categoryList);
+		snapshot = newSnapshot;
+
+		logger.debug("Refreshed the catalog: {}", newSnapshot);
+
+		return newSnapshot;
+	}
+
+	/**
+	 * Used to get the current snapshot. The snapshot never changes; later
+	 * refreshes replace it.
+	 *
+	 * @return the current snapshot, which is empty until the first refresh.
+	 */
+	public Snapshot getSnapshot() {
+		return snapshot;
+	}
+
+	public boolean isHeavy() {
+		return heavy;
+	}
+
+	/**
+	 * Used to set whether {@link #refresh()} fetches the heavy tree, with
+	 * every property of every album, or only IDs, keys and titles.
+	 *
+	 * @param heavy
+	 *            <code>true</code> to fetch the heavy tree.
+	 */
+	public void setHeavy(boolean heavy) {
+		this.heavy = heavy;
+	}
+
+	/**
+	 * Class used to represent the indexed tree of an account at one point in
+	 * time.
+	 * <p>
+	 * Albums and categories (top level categories and subcategories together)
+	 * are numbered by row. IDs are mapped to rows with primitive
+	 * <code>long</code> hash maps. Children are stored as one array per kind,
+	 * grouped by parent, with an offset array marking where each parent's
+	 * children start. Titles are kept sorted, so a prefix lookup is a binary
+	 * search. Every lookup is constant time, or proportional to the number of
+	 * results.
+	 *
+	 * @author smugmug-java-api contributors
+	 */
+	public static class Snapshot {
+		private Album[] albums;
+
+		private String[] titles;
+
+		private int[] albumParents;
+
+		private Category[] categories;
+
+		private int[] categoryParents;
+
+		private LongIntHashMap albumIndex;
+
+		private LongIntHashMap categoryIndex;
+
+		private LongIntHashMap subCategoryIndex;
+
+		private Map<String, Integer> albumKeyIndex;
+
+		private int[] titleOrder;
+
+		private String[] sortedTitles;
+
+		private int[] albumChildStarts;
+
+		private int[] albumChildren;
+
+		private int[] categoryChildStarts;
+
+		private int[] categoryChildren;
+
+		Snapshot(List<Category> categoryList) {
+			List<Category> categoryRows = new ArrayList<Category>();
+			List<Integer> categoryParentRows = new ArrayList<Integer>();
+			List<Album> albumRows = new ArrayList<Album>();
+			List<Integer> albumParentRows = new ArrayList<Integer>();
+
+			for (Category category : categoryList)
+				add(category, -1, categoryRows, categoryParentRows, albumRows,
+						albumParentRows);
+
+			categories = categoryRows.toArray(new Category[categoryRows.size()]);
+			categoryParents = toArray(categoryParentRows);
+			albums = albumRows.toArray(new Album[albumRows.size()]);
+			albumParents = toArray(albumParentRows);
+
+			categoryIndex = new LongIntHashMap(categories.length);
+			subCategoryIndex = new LongIntHashMap(categories.length);
+
+			/* Categories and subcategories are numbered separately by SmugMug */
+			for (int i = 0; i < categories.length; i++) {
+				if (categories[i].getID() != null)
+					(categoryParents[i] < 0 ? categoryIndex : subCategoryIndex)
+							.put(categories[i].getID().longValue(), i);
+			}
+
+			albumIndex = new LongIntHashMap(albums.length);
+			albumKeyIndex = new HashMap<String, Integer>(albums.length * 2);
+			titles = new String[albums.length];
+
+			for (int i = 0; i < albums.length; i++) {
+				if (albums[i].getID() != null)
+					albumIndex.put(albums[i].getID().longValue(), i);
+
+				if (albums[i].getAlbumKey() != null)
+					albumKeyIndex.put(albums[i].getAlbumKey(), Integer
+							.valueOf(i));
+
+				titles[i] = (albums[i].getTitle() == null ? "" : albums[i]
+						.getTitle().toLowerCase(Locale.ENGLISH));
+			}
+
+			indexTitles();
+
+			albumChildStarts = new int[categories.length + 1];
+			albumChildren = group(albumParents, albumChildStarts);
+			categoryChildStarts = new int[categories.length + 1];
+			categoryChildren = group(categoryParents, categoryChildStarts);
+		}
+
+		private static void add(Category category, int parentRow,
+				List<Category> categoryRows, List<Integer> categoryParentRows,
+				List<Album> albumRows, List<Integer> albumParentRows) {
+			int row = categoryRows.size();
+			categoryRows.add(category);
+			categoryParentRows.add(Integer.valueOf(parentRow));
+
+			if (category.getAlbumList() != null) {
+				for (Album album : category.getAlbumList()) {
+					albumRows.add(album);
+					albumParentRows.add(Integer.valueOf(row));
+				}
+			}
+
+			if (category.getSubCategoryList() != null) {
+				for (Category subCategory : category.getSubCategoryList())
+					add(subCategory, row, categoryRows, categoryParentRows,
+							albumRows, albumParentRows);
+			}
+		}
+
+		private void indexTitles() {
+			Integer[] order = new Integer[albums.length];
+
+			for (int i = 0; i < order.length; i++)
+				order[i] = Integer.valueOf(i);
+
+			Arrays.sort(order, new Comparator<Integer>() {
+				public int compare(Integer a, Integer b) {
+					return titles[a.intValue()].compareTo(titles[b.intValue()]);
+				}
+			});
+
+			titleOrder = new int[order.length];
+			sortedTitles = new String[order.length];
+
+			for (int i = 0; i < order.length; i++) {
+				titleOrder[i] = order[i].intValue();
+				sortedTitles[i] = titles[titleOrder[i]];
+			}
+		}
+
+		/**
+		 * Used to group child rows by parent row with a counting sort, filling
+		 * in where each parent's children start. Rows without a parent are
+		 * left out.
+		 */
+		private static int[] group(int[] parents, int[] starts) {
+			for (int i = 0; i < parents.length; i++) {
+				if (parents[i] >= 0)
+					starts[parents[i] + 1]++;
+			}
+
+			for (int i = 1; i < starts.length; i++)
+				starts[i] += starts[i - 1];
+
+			int[] children = new int[starts[starts.length - 1]];
+			int[] next = Arrays.copyOf(starts, starts.length - 1);
+
+			for (int i = 0; i < parents.length; i++) {
+				if (parents[i] >= 0)
+					children[next[parents[i]]++] = i;
+			}
+
+			return children;
+		}
+
+		private static int[] toArray(List<Integer> list) {
+			int[] array = new int[list.size()];
+
+			for (int i = 0; i < array.length; i++)
+				array[i] = list.get(i).intValue();
+
+			return array;
+		}
+
+		@Override
+		public String toString() {
+			return Snapshot.class.getName() + "[albumCount=" + getAlbumCount()
+					+ ", categoryCount=" + categoryIndex.size()
+					+ ", subCategoryCount=" + subCategoryIndex.size() + "]";
+		}
+
+		public int getAlbumCount() {
+			return albums.length;
+		}
+
+		/**
+		 * Used to get every album of the tree, in tree order.
+		 *
+		 * @return a new list of the albums.
+		 */
+		public List<Album> getAlbumList() {
+			return new ArrayList<Album>(Arrays.asList(albums));
+		}
+
+		/**
+		 * Used to find an album by ID.
+		 *
+		 * @param albumID
+		 *            The ID of the album.
+		 *
+		 * @return the album, or <code>null</code> if there is none.
+		 */
+		public Album getAlbum(long albumID) {
+			int row = albumIndex.get(albumID);
+
+			return (row == LongIntHashMap.MISSING ? null : albums[row]);
+		}
+
+		/**
+		 * Used to find an album by AlbumKey.
+		 *
+		 * @param albumKey
+		 *            The key of the album.
+		 *
+		 * @return the album, or <code>null</code> if there is none.
+		 */
+		public Album getAlbumByKey(String albumKey) {
+			Integer row = albumKeyIndex.get(albumKey);
+
+			return (row == null ? null : albums[row.intValue()]);
+		}
+
+		/**
+		 * Used to find the albums whose title starts with the given text,
+		 * ignoring case.
+		 *
+		 * @param prefix
+		 *            The start of the title. An empty prefix matches every
+		 *            album.
+		 *
+		 * @return the albums, sorted by title.
+		 *
+		 * @throws IllegalArgumentException
+		 *             if prefix is <code>null</code>.
+		 */
+		public List<Album> findAlbumsByTitlePrefix(String prefix)
+				throws IllegalArgumentException {
+			if (prefix == null)
+				throw new IllegalArgumentException("prefix cannot be null");
+
+			String key = prefix.toLowerCase(Locale.ENGLISH);
+			int index = Arrays.binarySearch(sortedTitles, key);
+
+			/* Equal titles are not ordered, so back up to the first of them */
+			if (index < 0)
+				index = -index - 1;
+			else {
+				while (index > 0 && sortedTitles[index - 1].equals(key))
+					index--;
+			}
+
+			List<Album> albumList = new ArrayList<Album>();
+
+			for (; index < sortedTitles.length
+					&& sortedTitles[index].startsWith(key); index++)
+				albumList.add(albums[titleOrder[index]]);
+
+			return albumList;
+		}
+
+		/**
+		 * Used to find a top level category by ID.
+		 *
+		 * @param categoryID
+		 *            The ID of the category.
+		 *
+		 * @return the category, or <code>null</code> if there is none.
+		 */
+		public Category getCategory(long categoryID) {
+			int row = categoryIndex.get(categoryID);
+
+			return (row == LongIntHashMap.MISSING ? null : categories[row]);
+		}
+
+		/**
+		 * Used to find a subcategory by ID.
+		 *
+		 * @param subCategoryID
+		 *            The ID of the subcategory.
+		 *
+		 * @return the subcategory, or <code>null</code> if there is none.
+		 */
+		public Category getSubCategory(long subCategoryID) {
+			int row = subCategoryIndex.get(subCategoryID);
+
+			return (row == LongIntHashMap.MISSING ? null : categories[row]);
+		}
+
+		/**
+		 * Used to get the category or subcategory an album is directly in.
+		 *
+		 * @param albumID
+		 *            The ID of the album.
+		 *
+		 * @return the parent, or <code>null</code> if the album is not in the
+		 *         tree.
+		 */
+		public Category getParent(long albumID) {
+			int row = albumIndex.get(albumID);
+
+			return (row == LongIntHashMap.MISSING ? null
+					: categories[albumParents[row]]);
+		}
+
+		/**
+		 * Used to get the top level category an album is in, directly or
+		 * through a subcategory.
+		 *
+		 * @param albumID
+		 *            The ID of the album.
+		 *
+		 * @return the category, or <code>null</code> if the album is not in
+		 *         the tree.
+		 */
+		public Category getTopLevelCategory(long albumID) {
+			int row = albumIndex.get(albumID);
+
+			if (row == LongIntHashMap.MISSING)
+				return null;
+
+			row = albumParents[row];
+
+			while (categoryParents[row] >= 0)
+				row = categoryParents[row];
+
+			return categories[row];
+		}
+
+		/**
+		 * Used to get the albums directly in a top level category, not those
+		 * in its subcategories.
+		 *
+		 * @param categoryID
+		 *            The ID of the category.
+		 *
+		 * @return the albums, empty if there is no such category.
+		 */
+		public List<Album> getAlbumsInCategory(long categoryID) {
+			return getAlbumChildren(categoryIndex.get(categoryID));
+		}
+
+		/**
+		 * Used to get the albums in a subcategory.
+		 *
+		 * @param subCategoryID
+		 *            The ID of the subcategory.
+		 *
+		 * @return the albums, empty if there is no such subcategory.
+		 */
+		public List<Album> getAlbumsInSubCategory(long subCategoryID) {
+			return getAlbumChildren(subCategoryIndex.get(subCategoryID));
+		}
+
+		/**
+		 * Used to get the subcategories of a top level category.
+		 *
+		 * @param categoryID
+		 *            The ID of the category.
+		 *
+		 * @return the subcategories, empty if there is no such category.
+		 */
+		public List<Category> getSubCategories(long categoryID) {
+			int row = categoryIndex.get(categoryID);
+			List<Category> categoryList = new ArrayList<Category>();
+
+			if (row == LongIntHashMap.MISSING)
+				return categoryList;
+
+			for (int i = categoryChildStarts[row]; i < categoryChildStarts[row + 1]; i++)
+				categoryList.add(categories[categoryChildren[i]]);
+
+			return categoryList;
+		}
+
+		private List<Album> getAlbumChildren(int row) {
+			List<Album> albumList = new ArrayList<Album>();
+
+			if (row == LongIntHashMap.MISSING)
+				return albumList;
+
+			for (int i = albumChildStarts[row]; i < albumChildStarts[row + 1]; i++)
+				albumList.add(albums[albumChildren[i]]);
+
+			return albumList;
+		}
+	}
+}
@@ -0,0 +1,719 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.json.catalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.kallasoft.smugmug.api.json.entity.Image;
+import com.kallasoft.smugmug.api.util.LongIntHashMap;
+
+/**
+ * Class used to find geotagged images by location: inside a bounding box
+ * (e.g. a map tile), within a distance of a point, or nearest to a point.
+ * <p>
+ * Every image is stored as its ImageID and its latitude and longitude
+ * rounded to 31 bits each (about a centimeter), in primitive arrays sorted
+ * by the Z-order (Morton) code of the location. Nearby images end up next to
+ * each other, so the images in any square of a quadtree over the globe are
+ * one contiguous run of the arrays, found by binary search. Queries walk
+ * down that quadtree, taking whole squares that lie inside the query and
+ * skipping those outside it, and only test single images along the edges.
+ * <p>
+ * New images are appended unsorted and merged into the sorted arrays once
+ * they make up a sixteenth of the index, so adding images one at a time
+ * stays cheap. Altitude is not indexed. Queries may run concurrently with
+ * each other but not with changes.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class GeoIndex {
+	/**
+	 * Defines the mean radius of the earth in meters, used for distances.
+	 */
+	public static final double EARTH_RADIUS = 6371008.8;
+
+	private static final Logger logger = LoggerFactory
+			.getLogger(GeoIndex.class);
+
+	private static final int BITS = 31;
+
+	private static final double SCALE = (1L << BITS) - 1;
+
+	private static final int MIN_MERGE_SIZE = 1024;
+
+	/* Squares with this few images are scanned rather than split */
+	private static final int SCAN_SIZE = 64;
+
+	private ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private long[] codes = new long[1024];
+
+	private long[] imageIDs = new long[1024];
+
+	private int[] xs = new int[1024];
+
+	private int[] ys = new int[1024];
+
+	/* Entries [0, sortedSize) are sorted by code, the rest are not */
+	private int sortedSize;
+
+	private int size;
+
+	private BitSet deletedSet = new BitSet();
+
+	private int deletedCount;
+
+	private LongIntHashMap indexMap = new LongIntHashMap(1024);
+
+	@Override
+	public String toString() {
+		return GeoIndex.class.getName() + "[size=" + size() + "]";
+	}
+
+	/**
+	 * Used to add an image, replacing its previous location if it was added
+	 * before. Images without a latitude and longitude are ignored.
+	 *
+	 * @param image
+	 *            The image, which must have an ID.
+	 *
+	 * @return <code>true</code> if the image was added.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if image or its ID is <code>null</code>.
+	 */
+	public boolean add(Image image) throws IllegalArgumentException {
+		if (image == null || image.getID() == null)
+			throw new IllegalArgumentException(
+					"image and its ID cannot be null");
+
+		if (image.getLatitude() == null || image.getLongitude() == null)
+			return false;
+
+		lock.writeLock().lock();
+
+		try {
+			add(image.getID().longValue(), image.getLatitude().doubleValue(),
+					image.getLongitude().doubleValue());
+			mergeIfNeeded();
+
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Used to add many images at once, e.g. every image of an account.
+	 * Images without a latitude and longitude are ignored.
+	 *
+	 * @param imageList
+	 *            The images, which must have IDs.
+	 *
+	 * @return the number of images added.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if imageList is <code>null</code>.
+	 */
+	public int addAll(Collection<Image> imageList)
+			throws IllegalArgumentException {
+		if (imageList == null)
+			throw new IllegalArgumentException("imageList cannot be null");
+
+		int count = 0;
+
+		lock.writeLock().lock();
+
+		try {
+			for (Image image : imageList) {
+				if (image.getID() != null && image.getLatitude() != null
+						&& image.getLongitude() != null) {
+					add(image.getID().longValue(), image.getLatitude()
+							.doubleValue(), image.getLongitude().doubleValue());
+					count++;
+				}
+			}
+
+			merge();
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		return count;
+	}
+
+	/**
+	 * Used to remove an image.
+	 *
+	 * @param imageID
+	 *            The ID of the image.
+	 */
+	public void remove(long imageID) {
+		lock.writeLock().lock();
+
+		try {
+			int index = indexMap.get(imageID);
+
+			if (index != LongIntHashMap.MISSING && !deletedSet.get(index)) {
+				deletedSet.set(index);
+				deletedCount++;
+				mergeIfNeeded();
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void add(long imageID, double latitude, double longitude) {
+		int previous = indexMap.get(imageID);
+
+		if (previous != LongIntHashMap.MISSING && !deletedSet.get(previous)) {
+			deletedSet.set(previous);
+			deletedCount++;
+		}
+
+		if (size == codes.length) {
+			codes = Arrays.copyOf(codes, size * 2);
+			imageIDs = Arrays.copyOf(imageIDs, size * 2);
+			xs = Arrays.copyOf(xs, size * 2);
+			ys = Arrays.copyOf(ys, size * 2);
+		}
+
+		int x = toX(longitude);
+		int y = toY(latitude);
+
+		codes[size] = interleave(x, y);
+		imageIDs[size] = imageID;
+		xs[size] = x;
+		ys[size] = y;
+		indexMap.put(imageID, size);
+		size++;
+	}
+
+	private void mergeIfNeeded() {
+		int pending = size - sortedSize + deletedCount;
+
+		if (pending >= MIN_MERGE_SIZE && pending * 16 >= size)
+			merge();
+	}
+
+	/**
+	 * Used to sort the appended images into place and drop removed ones.
+	 */
+	private void merge() {
+		if (sortedSize == size && deletedCount == 0)
+			return;
+
+		int[] pending = new int[size - sortedSize];
+
+		for (int i = 0; i < pending.length; i++)
+			pending[i] = sortedSize + i;
+
+		sort(pending);
+
+		int liveSize = size - deletedCount;
+		long[] newCodes = new long[Math.max(16, liveSize + liveSize / 4)];
+		long[] newImageIDs = new long[newCodes.length];
+		int[] newXs = new int[newCodes.length];
+		int[] newYs = new int[newCodes.length];
+		int count = 0;
+		int a = 0;
+		int b = 0;
+
+		while (a < sortedSize || b < pending.length) {
+			int index;
+
+			if (b == pending.length
+					|| (a < sortedSize && codes[a] <= codes[pending[b]]))
+				index = a++;
+			else
+				index = pending[b++];
+
+			if (deletedSet.get(index))
+				continue;
+
+			newCodes[count] = codes[index];
+			newImageIDs[count] = imageIDs[index];
+			newXs[count] = xs[index];
+			newYs[count] = ys[index];
+			count++;
+		}
+
+		codes = newCodes;
+		imageIDs = newImageIDs;
+		xs = newXs;
+		ys = newYs;
+		size = count;
+		sortedSize = count;
+		deletedSet.clear();
+		deletedCount = 0;
+
+		indexMap = new LongIntHashMap(count);
+
+		for (int i = 0; i < count; i++)
+			indexMap.put(imageIDs[i], i);
+
+		logger.debug("Merged geo index, {} images", Integer.valueOf(count));
+	}
+
+	/**
+	 * Used to sort entry indexes by code with a merge sort.
+	 */
+	private void sort(int[] indexes) {
+		int[] buffer = new int[indexes.length];
+
+		for (int width = 1; width < indexes.length; width *= 2) {
+			for (int from = 0; from < indexes.length; from += width * 2) {
+				int middle = Math.min(from + width, indexes.length);
+				int to = Math.min(from + width * 2, indexes.length);
+				int a = from;
+				int b = middle;
+
+				for (int i = from; i < to; i++) {
+					if (b >= to
+							|| (a < middle && codes[indexes[a]] <= codes[indexes[b]]))
+						buffer[i] = indexes[a++];
+					else
+						buffer[i] = indexes[b++];
+				}
+			}
+
+			System.arraycopy(buffer, 0, indexes, 0, indexes.length);
+		}
+	}
+
+	/**
+	 * Used to find the images inside a bounding box. A box whose west edge is
+	 * east of its east edge crosses the 180th meridian.
+	 *
+	 * @param south
+	 *            The southern latitude.
+	 * @param west
+	 *            The western longitude.
+	 * @param north
+	 *            The northern latitude.
+	 * @param east
+	 *            The eastern longitude.
+	 *
+	 * @return the IDs of the images, in no particular order.
+	 */
+	public long[] findInBox(double south, double west, double north,
+			double east) {
+		final long[][] result = { new long[64] };
+		final int[] count = { 0 };
+
+		lock.readLock().lock();
+
+		try {
+			visitBox(south, west, north, east, new Visitor() {
+				public void visit(int index) {
+					if (count[0] == result[0].length)
+						result[0] = Arrays.copyOf(result[0], count[0] * 2);
+
+					result[0][count[0]++] = imageIDs[index];
+				}
+			});
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		return Arrays.copyOf(result[0], count[0]);
+	}
+
+	/**
+	 * Used to count the images inside a bounding box, e.g. to decide whether
+	 * to cluster a map tile, without collecting them.
+	 *
+	 * @param south
+	 *            The southern latitude.
+	 * @param west
+	 *            The western longitude.
+	 * @param north
+	 *            The northern latitude.
+	 * @param east
+	 *            The eastern longitude.
+	 *
+	 * @return the number of images.
+	 */
+	public int countInBox(double south, double west, double north, double east) {
+		final int[] count = { 0 };
+
+		lock.readLock().lock();
+
+		try {
+			visitBox(south, west, north, east, new Visitor() {
+				public void visit(int index) {
+					count[0]++;
+				}
+			});
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		return count[0];
+	}
+
+	/**
+	 * Used to find the images within a distance of a point.
+	 *
+	 * @param latitude
+	 *            The latitude of the point.
+	 * @param longitude
+	 *            The longitude of the point.
+	 * @param radius
+	 *            The distance in meters.
+	 *
+	 * @return the images, nearest first.
+	 */
+	public List<Hit> findWithin(double latitude, double longitude, double radius) {
+		lock.readLock().lock();
+
+		try {
+			List<Hit> hitList = collectWithin(latitude, longitude, radius);
+			Collections.sort(hitList, DISTANCE_COMPARATOR);
+
+			return hitList;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Used to find the images nearest to a point.
+	 *
+	 * @param latitude
+	 *            The latitude of the point.
+	 * @param longitude
+	 *            The longitude of the point.
+	 * @param k
+	 *            The number of images to find.
+	 *
+	 * @return up to k images, nearest first.
+	 */
+	public List<Hit> findNearest(double latitude, double longitude, int k) {
+		lock.readLock().lock();
+
+		try {
+			int liveSize = size - deletedCount;
+
+			if (k <= 0 || liveSize == 0)
+				return new ArrayList<Hit>();
+
+			/* Start with the circle that would hold k images if spread evenly */
+			double radius = Math.max(100, EARTH_RADIUS
+					* Math.sqrt(4.0 * Math.min(k, liveSize) / liveSize));
+			List<Hit> hitList;
+
+			/* Every image within a circle holding k is nearer than the rest */
+			while (true) {
+				hitList = collectWithin(latitude, longitude, radius);
+
+				if (hitList.size() >= k || radius >= Math.PI * EARTH_RADIUS)
+					break;
+
+				radius *= 2;
+			}
+
+			Collections.sort(hitList, DISTANCE_COMPARATOR);
+
+			return (hitList.size() > k ? new ArrayList<Hit>(hitList.subList(0,
+					k)) : hitList);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private List<Hit> collectWithin(final double latitude,
+			final double longitude, final double radius) {
+		final List<Hit> hitList = new ArrayList<Hit>();
+		double latitudeDelta = Math.toDegrees(radius / EARTH_RADIUS);
+		double south = latitude - latitudeDelta;
+		double north = latitude + latitudeDelta;
+		double west = -180;
+		double east = 180;
+
+		/* Near a pole the circle covers every longitude */
+		if (south > -90 && north < 90) {
+			double longitudeDelta = Math.toDegrees(Math.asin(Math.min(1, Math
+					.sin(radius / EARTH_RADIUS)
+					/ Math.cos(Math.toRadians(latitude)))));
+
+			if (longitudeDelta < 180) {
+				west = normalize(longitude - longitudeDelta);
+				east = normalize(longitude + longitudeDelta);
+			}
+		}
+
+		visitBox(Math.max(-90, south), west, Math.min(90, north), east,
+				new Visitor() {
+					public void visit(int index) {
+						double hitLatitude = fromY(ys[index]);
+						double hitLongitude = fromX(xs[index]);
+						double distance = distance(latitude, longitude,
+								hitLatitude, hitLongitude);
+
+						if (distance <= radius)
+							hitList.add(new Hit(imageIDs[index], hitLatitude,
+									hitLongitude, distance));
+					}
+				});
+
+		return hitList;
+	}
+
+	private void visitBox(double south, double west, double north,
+			double east, Visitor visitor) {
+		if (west > east) {
+			visitBox(south, west, north, 180, visitor);
+			visitBox(south, -180, north, east, visitor);
+			return;
+		}
+
+		int x0 = toX(west);
+		int x1 = toX(east);
+		int y0 = toY(south);
+		int y1 = toY(north);
+
+		if (x0 > x1 || y0 > y1)
+			return;
+
+		visitCell(0, 0, 0, 0, sortedSize, x0, x1, y0, y1, visitor);
+
+		for (int i = sortedSize; i < size; i++) {
+			if (!deletedSet.get(i) && xs[i] >= x0 && xs[i] <= x1
+					&& ys[i] >= y0 && ys[i] <= y1)
+				visitor.visit(i);
+		}
+	}
+
+	/**
+	 * Used to visit the sorted images in the square at the given depth of the
+	 * quadtree whose corner is (cellX, cellY), which are entries
+	 * <code>[from, to)</code>.
+	 */
+	private void visitCell(int depth, long cellX, long cellY, int from,
+			int to, int x0, int x1, int y0, int y1, Visitor visitor) {
+		if (from >= to)
+			return;
+
+		long cellSize = 1L << (BITS - depth);
+		long cellX1 = cellX + cellSize - 1;
+		long cellY1 = cellY + cellSize - 1;
+
+		if (cellX > x1 || cellX1 < x0 || cellY > y1 || cellY1 < y0)
+			return;
+
+		boolean inside = (cellX >= x0 && cellX1 <= x1 && cellY >= y0 && cellY1 <= y1);
+
+		if (inside || depth == BITS || to - from <= SCAN_SIZE) {
+			for (int i = from; i < to; i++) {
+				if (!deletedSet.get(i)
+						&& (inside || (xs[i] >= x0 && xs[i] <= x1
+								&& ys[i] >= y0 && ys[i] <= y1)))
+					visitor.visit(i);
+			}
+
+			return;
+		}
+
+		long half = cellSize / 2;
+		int start = from;
+
+		/* Children in Z-order: (x, y), (x, y + 1), (x + 1, y), (x + 1, y + 1) */
+		for (int child = 0; child < 4; child++) {
+			long childX = cellX + (child >> 1) * half;
+			long childY = cellY + (child & 1) * half;
+			int end = to;
+
+			/* The next child starts at the code of its corner */
+			if (child < 3) {
+				int next = child + 1;
+				end = lowerBound(start, to, interleave((int) (cellX + (next >> 1)
+						* half), (int) (cellY + (next & 1) * half)));
+			}
+
+			visitCell(depth + 1, childX, childY, start, end, x0, x1, y0, y1,
+					visitor);
+			start = end;
+		}
+	}
+
+	private int lowerBound(int from, int to, long code) {
+		while (from < to) {
+			int middle = (from + to) >>> 1;
+
+			if (codes[middle] < code)
+				from = middle + 1;
+			else
+				to = middle;
+		}
+
+		return from;
+	}
+
+	/**
+	 * Used to get the number of images in the index.
+	 *
+	 * @return the number of images.
+	 */
+	public int size() {
+		lock.readLock().lock();
+
+		try {
+			return size - deletedCount;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Used to get the great-circle distance between two points.
+	 *
+	 * @return the distance in meters.
+	 */
+	public static double distance(double latitude1, double longitude1,
+			double latitude2, double longitude2) {
+		double sinLatitude = Math.sin(Math.toRadians(latitude2 - latitude1) / 2);
+		double sinLongitude = Math
+				.sin(Math.toRadians(longitude2 - longitude1) / 2);
+		double h = sinLatitude
+				* sinLatitude
+				+ Math.cos(Math.toRadians(latitude1))
+				* Math.cos(Math.toRadians(latitude2)) * sinLongitude
+				* sinLongitude;
+
+		return 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(h)));
+	}
+
+	private static double normalize(double longitude) {
+		if (longitude < -180)
+			return longitude + 360;
+
+		if (longitude > 180)
+			return longitude - 360;
+
+		return longitude;
+	}
+
+	private static int toX(double longitude) {
+		return (int) Math.round((Math.max(-180, Math.min(180, longitude)) + 180)
+				/ 360 * SCALE);
+	}
+
+	private static int toY(double latitude) {
+		return (int) Math.round((Math.max(-90, Math.min(90, latitude)) + 90)
+				/ 180 * SCALE);
+	}
+
+	private static double fromX(int x) {
+		return x / SCALE * 360 - 180;
+	}
+
+	private static double fromY(int y) {
+		return y / SCALE * 180 - 90;
+	}
+
+	/**
+	 * Used to get the Z-order code of a location, x bits above y bits.
+	 */
+	private static long interleave(int x, int y) {
+		return (spread(x) << 1) | spread(y);
+	}
+
+	private static long spread(int value) {
+		long v = value & 0xFFFFFFFFL;
+		v = (v | (v << 16)) & 0x0000FFFF0000FFFFL;
+		v = (v | (v << 8)) & 0x00FF00FF00FF00FFL;
+		v = (v | (v << 4)) & 0x0F0F0F0F0F0F0F0FL;
+		v = (v | (v << 2)) & 0x3333333333333333L;
+		v = (v | (v << 1)) & 0x5555555555555555L;
+
+		return v;
+	}
+
+	private static final Comparator<Hit> DISTANCE_COMPARATOR = new Comparator<Hit>() {
+		public int compare(Hit a, Hit b) {
+			return Double.compare(a.distance, b.distance);
+		}
+	};
+
+	/**
+	 * Interface used to receive the entries a query finds.
+	 */
+	private interface Visitor {
+		public void visit(int index);
+	}
+
+	/**
+	 * Class used to represent an image found near a point.
+	 *
+	 * @author smugmug-java-api contributors
+	 */
+	public static class Hit {
+		private long imageID;
+
+		private double latitude;
+
+		private double longitude;
+
+		private double distance;
+
+		Hit(long imageID, double latitude, double longitude, double distance) {
+			this.imageID = imageID;
+			this.latitude = latitude;
+			this.longitude = longitude;
+			this.distance = distance;
+		}
+
+		@Override
+		public String toString() {
+			return Hit.class.getName() + "[imageID=" + getImageID()
+					+ ", latitude=" + getLatitude() + ", longitude="
+					+ getLongitude() + ", distance=" + getDistance() + "]";
+		}
+
+		public long getImageID() {
+			return imageID;
+		}
+
+		public double getLatitude() {
+			return latitude;
+		}
+
+		public double getLongitude() {
+			return longitude;
+		}
+
+		/**
+		 * Used to get the distance from the point searched from.
+		 *
+		 * @return the distance in meters.
+		 */
+		public double getDistance() {
+			return distance;
+		}
+	}
+}
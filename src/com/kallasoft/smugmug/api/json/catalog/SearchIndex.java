@@ -0,0 +1,896 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.json.catalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.kallasoft.smugmug.api.json.entity.Album;
+import com.kallasoft.smugmug.api.json.entity.Image;
+import com.kallasoft.smugmug.api.util.LongIntHashMap;
+
+/**
+ * Class used to search the titles, captions, keywords and file names of an
+ * account's albums and images locally, since the API offers no search.
+ * <p>
+ * The index is fed with the {@link Album} and {@link Image} entities
+ * returned by the API, e.g. a heavy <code>smugmug.images.get</code> per
+ * album, and is kept up to date by calling
+ * {@link #updateAlbum(Album, Collection)} again when an album changes; only
+ * images whose text changed are indexed again.
+ * <p>
+ * Text is split into lower case words at every character that is not a
+ * letter or digit. Each word maps to a list of the documents (albums or
+ * images) containing it, stored as variable length deltas between document
+ * numbers followed by the word's weight in the document, so most postings
+ * take two bytes. Words are kept sorted so every word of a query also
+ * matches longer words it is the start of. Results must match every word of
+ * the query and are ranked by TF-IDF, with keywords and titles counting more
+ * than captions and file names, and exact words more than prefixes. A
+ * search only reads the postings of the query's words: the documents of the
+ * rarest word are the candidates, and the postings of every other word are
+ * walked alongside them to score and narrow them down.
+ * <p>
+ * Changed and removed documents are only marked deleted; the index is
+ * rebuilt without them once they outnumber the live ones. Searches may run
+ * concurrently with each other but not with updates.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class SearchIndex {
+	/**
+	 * Defines the kinds of document in the index.
+	 */
+	public enum Kind {
+		ALBUM, IMAGE
+	}
+
+	private static final Logger logger = LoggerFactory
+			.getLogger(SearchIndex.class);
+
+	private static final int KEYWORD_WEIGHT = 3;
+
+	private static final int TITLE_WEIGHT = 3;
+
+	private static final int CAPTION_WEIGHT = 2;
+
+	private static final int TEXT_WEIGHT = 1;
+
+	private static final float PREFIX_FACTOR = 0.5f;
+
+	private static final int MIN_COMPACT_DELETED = 1024;
+
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private TreeMap<String, Postings> termMap = new TreeMap<String, Postings>();
+
+	private LongIntHashMap albumDocs = new LongIntHashMap(64);
+
+	private LongIntHashMap imageDocs = new LongIntHashMap(1024);
+
+	private long[] docIDs = new long[1024];
+
+	private long[] docAlbumIDs = new long[1024];
+
+	private long[] docHashes = new long[1024];
+
+	private BitSet imageDocSet = new BitSet();
+
+	private BitSet deletedDocSet = new BitSet();
+
+	private int docCount;
+
+	private int deletedCount;
+
+	@Override
+	public String toString() {
+		return SearchIndex.class.getName() + "[documentCount="
+				+ getDocumentCount() + ", termCount=" + getTermCount()
+				+ ", postingsBytes=" + getPostingsBytes() + "]";
+	}
+
+	/**
+	 * Used to index an album and its images, replacing what was indexed for
+	 * it before. Images that were indexed for the album but are not given
+	 * are removed; images whose text did not change are left as they are.
+	 *
+	 * @param album
+	 *            The album, which must have an ID.
+	 * @param imageList
+	 *            Every image of the album, or <code>null</code> to only index
+	 *            the album itself and leave its images as they are.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if album or its ID is <code>null</code>.
+	 */
+	public void updateAlbum(Album album, Collection<Image> imageList)
+			throws IllegalArgumentException {
+		if (album == null || album.getID() == null)
+			throw new IllegalArgumentException(
+					"album and its ID cannot be null");
+
+		long albumID = album.getID().longValue();
+
+		lock.writeLock().lock();
+
+		try {
+			String[] texts = { album.getTitle(), album.getKeywords(),
+					album.getDescription() };
+			int[] weights = { TITLE_WEIGHT, KEYWORD_WEIGHT, TEXT_WEIGHT };
+			update(albumDocs, albumID, albumID, false, texts, weights);
+
+			if (imageList == null)
+				return;
+
+			Set<Long> imageIDSet = new HashSet<Long>();
+
+			for (Image image : imageList) {
+				if (image.getID() != null) {
+					imageIDSet.add(image.getID());
+					update(albumID, image);
+				}
+			}
+
+			/* Drop images that are no longer in the album */
+			for (int doc = imageDocSet.nextSetBit(0); doc >= 0; doc = imageDocSet
+					.nextSetBit(doc + 1)) {
+				if (docAlbumIDs[doc] == albumID
+						&& !deletedDocSet.get(doc)
+						&& !imageIDSet.contains(Long.valueOf(docIDs[doc])))
+					delete(doc);
+			}
+
+			compactIfNeeded();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Used to index one image, replacing what was indexed for it before.
+	 *
+	 * @param albumID
+	 *            The ID of the album the image is in.
+	 * @param image
+	 *            The image, which must have an ID.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if image or its ID is <code>null</code>.
+	 */
+	public void updateImage(long albumID, Image image)
+			throws IllegalArgumentException {
+		if (image == null || image.getID() == null)
+			throw new IllegalArgumentException(
+					"image and its ID cannot be null");
+
+		lock.writeLock().lock();
+
+		try {
+			update(albumID, image);
+			compactIfNeeded();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void update(long albumID, Image image) {
+		String[] texts = { image.getKeywords(), image.getCaption(),
+				image.getFileName() };
+		int[] weights = { KEYWORD_WEIGHT, CAPTION_WEIGHT, TEXT_WEIGHT };
+		update(imageDocs, image.getID().longValue(), albumID, true, texts,
+				weights);
+	}
+
+	/**
+	 * Used to remove an image from the index.
+	 *
+	 * @param imageID
+	 *            The ID of the image.
+	 */
+	public void removeImage(long imageID) {
+		lock.writeLock().lock();
+
+		try {
+			int doc = imageDocs.get(imageID);
+
+			if (doc != LongIntHashMap.MISSING && !deletedDocSet.get(doc))
+				delete(doc);
+
+			compactIfNeeded();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Used to remove an album and all of its images from the index.
+	 *
+	 * @param albumID
+	 *            The ID of the album.
+	 */
+	public void removeAlbum(long albumID) {
+		lock.writeLock().lock();
+
+		try {
+			for (int doc = 0; doc < docCount; doc++) {
+				if (docAlbumIDs[doc] == albumID && !deletedDocSet.get(doc))
+					delete(doc);
+			}
+
+			compactIfNeeded();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Used to index a document unless it is indexed with the same text.
+	 */
+	private void update(LongIntHashMap docs, long id, long albumID,
+			boolean image, String[] texts, int[] weights) {
+		long hash = hash(albumID, texts);
+		int doc = docs.get(id);
+
+		if (doc != LongIntHashMap.MISSING && !deletedDocSet.get(doc)) {
+			if (docHashes[doc] == hash)
+				return;
+
+			delete(doc);
+		}
+
+		Map<String, Integer> weightMap = new HashMap<String, Integer>();
+
+		for (int i = 0; i < texts.length; i++) {
+			for (String token : tokenize(texts[i])) {
+				Integer weight = weightMap.get(token);
+				weightMap.put(token, Integer.valueOf((weight == null ? 0
+						: weight.intValue())
+						+ weights[i]));
+			}
+		}
+
+		doc = add(id, albumID, image, hash);
+		docs.put(id, doc);
+
+		for (Map.Entry<String, Integer> entry : weightMap.entrySet()) {
+			Postings postings = termMap.get(entry.getKey());
+
+			if (postings == null) {
+				postings = new Postings();
+				termMap.put(entry.getKey(), postings);
+			}
+
+			postings.add(doc, entry.getValue().intValue());
+		}
+	}
+
+	private int add(long id, long albumID, boolean image, long hash) {
+		if (docCount == docIDs.length) {
+			docIDs = Arrays.copyOf(docIDs, docCount * 2);
+			docAlbumIDs = Arrays.copyOf(docAlbumIDs, docCount * 2);
+			docHashes = Arrays.copyOf(docHashes, docCount * 2);
+		}
+
+		int doc = docCount++;
+		docIDs[doc] = id;
+		docAlbumIDs[doc] = albumID;
+		docHashes[doc] = hash;
+		imageDocSet.set(doc, image);
+
+		return doc;
+	}
+
+	private void delete(int doc) {
+		deletedDocSet.set(doc);
+		deletedCount++;
+	}
+
+	/**
+	 * Used to digest the album and texts of a document with 64 bit FNV-1a, so
+	 * an unchanged document is recognized without keeping its text.
+	 */
+	private static long hash(long albumID, String[] texts) {
+		long hash = FNV_OFFSET_BASIS;
+
+		for (int shift = 0; shift < 64; shift += 8)
+			hash = (hash ^ ((albumID >>> shift) & 0xFF)) * FNV_PRIME;
+
+		for (int i = 0; i < texts.length; i++) {
+			/* Mark where each text starts, and tell null from empty */
+			hash = (hash ^ (texts[i] == null ? 0x10000 : 0x10001)) * FNV_PRIME;
+
+			if (texts[i] == null)
+				continue;
+
+			for (int j = 0; j < texts[i].length(); j++)
+				hash = (hash ^ texts[i].charAt(j)) * FNV_PRIME;
+		}
+
+		return hash;
+	}
+
+	/**
+	 * Used to split text into distinct lower case words.
+	 */
+	static Set<String> tokenize(String text) {
+		Set<String> tokenSet = new LinkedHashSet<String>();
+
+		if (text == null)
+			return tokenSet;
+
+		String lowerText = text.toLowerCase(Locale.ENGLISH);
+		int start = -1;
+
+		for (int i = 0; i <= lowerText.length(); i++) {
+			boolean wordChar = (i < lowerText.length() && Character
+					.isLetterOrDigit(lowerText.charAt(i)));
+
+			if (wordChar && start < 0)
+				start = i;
+			else if (!wordChar && start >= 0) {
+				tokenSet.add(lowerText.substring(start, i));
+				start = -1;
+			}
+		}
+
+		return tokenSet;
+	}
+
+	/**
+	 * Used to find the albums and images matching every word of a query.
+	 *
+	 * @param query
+	 *            The words to look for. Each word also matches longer words
+	 *            it is the start of.
+	 * @param limit
+	 *            The maximum number of results.
+	 *
+	 * @return the results, best first. Empty if the query has no words.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if query is <code>null</code>.
+	 */
+	public List<Hit> search(String query, int limit)
+			throws IllegalArgumentException {
+		if (query == null)
+			throw new IllegalArgumentException("query cannot be null");
+
+		List<String> tokenList = new ArrayList<String>(tokenize(query));
+
+		if (tokenList.isEmpty() || limit <= 0)
+			return new ArrayList<Hit>();
+
+		lock.readLock().lock();
+
+		try {
+			int liveCount = docCount - deletedCount;
+			List<Word> wordList = new ArrayList<Word>(tokenList.size());
+
+			for (String token : tokenList) {
+				Word word = new Word();
+
+				for (Map.Entry<String, Postings> entry : termMap.subMap(token,
+						true, token + Character.MAX_VALUE, false).entrySet()) {
+					Postings postings = entry.getValue();
+					int termDocCount = getLiveDocCount(postings);
+
+					if (termDocCount == 0)
+						continue;
+
+					float factor = (float) Math.log(1 + (double) liveCount
+							/ termDocCount);
+
+					if (!entry.getKey().equals(token))
+						factor *= PREFIX_FACTOR;
+
+					word.add(postings, factor);
+				}
+
+				/* A word nothing contains, nothing can match every word */
+				if (word.postingsList.isEmpty())
+					return new ArrayList<Hit>();
+
+				wordList.add(word);
+			}
+
+			/* Start from the rarest word so the candidates are few */
+			Collections.sort(wordList, new Comparator<Word>() {
+				public int compare(Word a, Word b) {
+					return (a.cost < b.cost ? -1 : (a.cost == b.cost ? 0 : 1));
+				}
+			});
+
+			Candidates candidates = collect(wordList.get(0));
+
+			for (int w = 1; w < wordList.size() && candidates.size > 0; w++)
+				intersect(candidates, wordList.get(w));
+
+			List<Hit> hitList = new ArrayList<Hit>(candidates.size);
+
+			for (int c = 0; c < candidates.size; c++) {
+				int doc = candidates.docs[c];
+				hitList.add(new Hit(imageDocSet.get(doc) ? Kind.IMAGE
+						: Kind.ALBUM, docIDs[doc], docAlbumIDs[doc],
+						candidates.scores[c]));
+			}
+
+			Collections.sort(hitList, new Comparator<Hit>() {
+				public int compare(Hit a, Hit b) {
+					return Float.compare(b.score, a.score);
+				}
+			});
+
+			return (hitList.size() > limit ? new ArrayList<Hit>(hitList
+					.subList(0, limit)) : hitList);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Used to count the documents of a term that are not deleted, which is
+	 * what its IDF is computed from.
+	 */
+	private int getLiveDocCount(Postings postings) {
+		if (deletedCount == 0)
+			return postings.docCount;
+
+		int count = 0;
+		Postings.Cursor cursor = postings.cursor();
+
+		while (cursor.next()) {
+			if (!deletedDocSet.get(cursor.doc))
+				count++;
+		}
+
+		return count;
+	}
+
+	/**
+	 * Used to find the live documents matching one word of the query, with
+	 * their scores for it, in increasing document order.
+	 */
+	private Candidates collect(Word word) {
+		Candidates candidates = new Candidates(word.cost);
+
+		for (int t = 0; t < word.postingsList.size(); t++) {
+			Postings.Cursor cursor = word.postingsList.get(t).cursor();
+			float factor = word.factorList.get(t).floatValue();
+
+			while (cursor.next()) {
+				if (!deletedDocSet.get(cursor.doc))
+					candidates.add(cursor.doc, cursor.weight * factor);
+			}
+		}
+
+		/* Each term is in order, but a word matching several is not */
+		if (word.postingsList.size() > 1)
+			candidates.sortAndMerge();
+
+		return candidates;
+	}
+
+	/**
+	 * Used to add the scores of one more word of the query to the candidates
+	 * and drop the candidates it does not match. Each term's postings are
+	 * walked alongside the candidates, which are both in document order.
+	 */
+	private void intersect(Candidates candidates, Word word) {
+		BitSet matched = new BitSet(candidates.size);
+
+		for (int t = 0; t < word.postingsList.size(); t++) {
+			Postings.Cursor cursor = word.postingsList.get(t).cursor();
+			float factor = word.factorList.get(t).floatValue();
+			int c = 0;
+
+			while (c < candidates.size && cursor.next()) {
+				while (c < candidates.size && candidates.docs[c] < cursor.doc)
+					c++;
+
+				if (c < candidates.size && candidates.docs[c] == cursor.doc) {
+					candidates.scores[c] += cursor.weight * factor;
+					matched.set(c);
+				}
+			}
+		}
+
+		candidates.retain(matched);
+	}
+
+	private void compactIfNeeded() {
+		if (deletedCount >= MIN_COMPACT_DELETED
+				&& deletedCount > docCount - deletedCount)
+			compact();
+	}
+
+	/**
+	 * Used to rebuild the index without deleted documents. This happens
+	 * automatically once they outnumber the live documents.
+	 */
+	public void compact() {
+		lock.writeLock().lock();
+
+		try {
+			int[] newDocs = new int[docCount];
+			int newCount = 0;
+
+			for (int doc = 0; doc < docCount; doc++) {
+				if (deletedDocSet.get(doc)) {
+					newDocs[doc] = -1;
+					continue;
+				}
+
+				newDocs[doc] = newCount;
+				docIDs[newCount] = docIDs[doc];
+				docAlbumIDs[newCount] = docAlbumIDs[doc];
+				docHashes[newCount] = docHashes[doc];
+				imageDocSet.set(newCount, imageDocSet.get(doc));
+				newCount++;
+			}
+
+			imageDocSet.clear(newCount, Math.max(newCount, docCount));
+			logger.debug("Compacting search index from {} to {} documents",
+					Integer.valueOf(docCount), Integer.valueOf(newCount));
+
+			albumDocs = new LongIntHashMap(albumDocs.size());
+			imageDocs = new LongIntHashMap(imageDocs.size());
+
+			for (int doc = 0; doc < newCount; doc++)
+				(imageDocSet.get(doc) ? imageDocs : albumDocs).put(docIDs[doc],
+						doc);
+
+			TreeMap<String, Postings> newTermMap = new TreeMap<String, Postings>();
+
+			for (Map.Entry<String, Postings> entry : termMap.entrySet()) {
+				Postings postings = entry.getValue().remap(newDocs);
+
+				if (postings.docCount > 0)
+					newTermMap.put(entry.getKey(), postings);
+			}
+
+			termMap = newTermMap;
+			docCount = newCount;
+			deletedCount = 0;
+			deletedDocSet.clear();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Used to get the number of albums and images in the index.
+	 *
+	 * @return the number of live documents.
+	 */
+	public int getDocumentCount() {
+		lock.readLock().lock();
+
+		try {
+			return docCount - deletedCount;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Used to get the number of distinct words in the index.
+	 *
+	 * @return the number of words.
+	 */
+	public int getTermCount() {
+		lock.readLock().lock();
+
+		try {
+			return termMap.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Used to get the size of every postings list together.
+	 *
+	 * @return the number of bytes used by postings.
+	 */
+	public long getPostingsBytes() {
+		lock.readLock().lock();
+
+		try {
+			long bytes = 0;
+
+			for (Postings postings : termMap.values())
+				bytes += postings.length;
+
+			return bytes;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Class used to represent the documents containing one word, as variable
+	 * length pairs of (document number delta, weight). Documents are always
+	 * appended in increasing order, so deltas are positive.
+	 */
+	private static class Postings {
+		private byte[] data = new byte[4];
+
+		private int length;
+
+		private int lastDoc = -1;
+
+		private int docCount;
+
+		public void add(int doc, int weight) {
+			if (data.length - length < 10)
+				data = Arrays.copyOf(data, Math.max(data.length * 2,
+						length + 10));
+
+			write(doc - lastDoc);
+			write(weight);
+			lastDoc = doc;
+			docCount++;
+		}
+
+		private void write(int value) {
+			while ((value & ~0x7F) != 0) {
+				data[length++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+
+			data[length++] = (byte) value;
+		}
+
+		/**
+		 * Used to copy the postings with documents renumbered, dropping those
+		 * mapped to <code>-1</code>.
+		 */
+		public Postings remap(int[] newDocs) {
+			Postings postings = new Postings();
+			Cursor cursor = cursor();
+
+			while (cursor.next()) {
+				if (newDocs[cursor.doc] >= 0)
+					postings.add(newDocs[cursor.doc], cursor.weight);
+			}
+
+			postings.data = Arrays.copyOf(postings.data, postings.length);
+
+			return postings;
+		}
+
+		public Cursor cursor() {
+			return new Cursor(this);
+		}
+
+		/**
+		 * Class used to read the documents of a postings list in order. Each
+		 * search uses its own, so searches can run concurrently.
+		 */
+		private static class Cursor {
+			private byte[] data;
+
+			private int length;
+
+			private int offset;
+
+			private int doc = -1;
+
+			private int weight;
+
+			public Cursor(Postings postings) {
+				this.data = postings.data;
+				this.length = postings.length;
+			}
+
+			/**
+			 * Used to move to the next document.
+			 *
+			 * @return <code>false</code> if there are no more documents.
+			 */
+			public boolean next() {
+				if (offset >= length)
+					return false;
+
+				doc += read();
+				weight = read();
+
+				return true;
+			}
+
+			private int read() {
+				int value = 0;
+
+				for (int shift = 0;; shift += 7) {
+					byte b = data[offset++];
+					value |= (b & 0x7F) << shift;
+
+					if (b >= 0)
+						return value;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Class used to represent the terms one word of a query matches, with
+	 * their IDF factors.
+	 */
+	private static class Word {
+		private List<Postings> postingsList = new ArrayList<Postings>();
+
+		private List<Float> factorList = new ArrayList<Float>();
+
+		/* Number of postings to read, a bound on the documents matched */
+		private int cost;
+
+		public void add(Postings postings, float factor) {
+			postingsList.add(postings);
+			factorList.add(Float.valueOf(factor));
+			cost += postings.docCount;
+		}
+	}
+
+	/**
+	 * Class used to hold the documents still matching a query and their
+	 * scores, sized by the postings of the rarest word rather than the whole
+	 * index.
+	 */
+	private static class Candidates {
+		private int[] docs;
+
+		private float[] scores;
+
+		private int size;
+
+		public Candidates(int capacity) {
+			docs = new int[Math.max(1, capacity)];
+			scores = new float[docs.length];
+		}
+
+		public void add(int doc, float score) {
+			docs[size] = doc;
+			scores[size] = score;
+			size++;
+		}
+
+		/**
+		 * Used to put the documents in order, adding up the scores of a
+		 * document listed more than once.
+		 */
+		public void sortAndMerge() {
+			long[] keys = new long[size];
+
+			for (int i = 0; i < size; i++)
+				keys[i] = ((long) docs[i] << 32) | i;
+
+			Arrays.sort(keys);
+
+			int[] sortedDocs = new int[size];
+			float[] sortedScores = new float[size];
+			int sortedSize = 0;
+
+			for (int i = 0; i < size; i++) {
+				int doc = (int) (keys[i] >>> 32);
+				float score = scores[(int) keys[i]];
+
+				if (sortedSize > 0 && sortedDocs[sortedSize - 1] == doc)
+					sortedScores[sortedSize - 1] += score;
+				else {
+					sortedDocs[sortedSize] = doc;
+					sortedScores[sortedSize] = score;
+					sortedSize++;
+				}
+			}
+
+			docs = sortedDocs;
+			scores = sortedScores;
+			size = sortedSize;
+		}
+
+		/**
+		 * Used to drop every candidate not in the given set, keeping the rest
+		 * in order.
+		 */
+		public void retain(BitSet matched) {
+			int newSize = 0;
+
+			for (int c = matched.nextSetBit(0); c >= 0; c = matched
+					.nextSetBit(c + 1)) {
+				docs[newSize] = docs[c];
+				scores[newSize] = scores[c];
+				newSize++;
+			}
+
+			size = newSize;
+		}
+	}
+
+	/**
+	 * Class used to represent an album or image matching a search.
+	 *
+	 * @author smugmug-java-api contributors
+	 */
+	public static class Hit {
+		private Kind kind;
+
+		private long id;
+
+		private long albumID;
+
+		private float score;
+
+		Hit(Kind kind, long id, long albumID, float score) {
+			this.kind = kind;
+			this.id = id;
+			this.albumID = albumID;
+			this.score = score;
+		}
+
+		@Override
+		public String toString() {
+			return Hit.class.getName() + "[kind=" + getKind() + ", id="
+					+ getID() + ", albumID=" + getAlbumID() + ", score="
+					+ getScore() + "]";
+		}
+
+		public Kind getKind() {
+			return kind;
+		}
+
+		/**
+		 * Used to get the ID of the album or image.
+		 *
+		 * @return the AlbumID or ImageID, depending on {@link #getKind()}.
+		 */
+		public long getID() {
+			return id;
+		}
+
+		/**
+		 * Used to get the ID of the album the result is in, or is.
+		 *
+		 * @return the AlbumID.
+		 */
+		public long getAlbumID() {
+			return albumID;
+		}
+
+		public float getScore() {
+			return score;
+		}
+	}
+}
@@ -0,0 +1,406 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.json.catalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import com.kallasoft.smugmug.api.json.entity.Album;
+import com.kallasoft.smugmug.api.json.entity.Category;
+import com.kallasoft.smugmug.api.json.v1_2_0.users.GetTree.GetTreeResponse;
+import com.kallasoft.smugmug.api.util.LongIntHashMap;
+
+/**
+ * Class used to find what changed between two trees of the same account, as
+ * returned by {@link GetTreeResponse#getCategoryList()} at different times.
+ * <p>
+ * Albums, categories and subcategories are matched by ID, so the trees may
+ * be in any order. Each tree is flattened once and the older one indexed by
+ * ID in a primitive hash map, so comparing two trees takes time proportional
+ * to their size. An item can be reported as moved (its parent changed),
+ * renamed (its title or name changed) and changed (anything else) at the
+ * same time.
+ * <p>
+ * Albums are considered changed when their LastUpdated dates differ. Albums
+ * without a LastUpdated date on both sides (e.g. from a tree that is not
+ * heavy) are compared by their key, description, keywords, position and
+ * image count instead.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class TreeDiff {
+	/**
+	 * Defines the flag of an item that is only in the newer tree.
+	 */
+	public static final int ADDED = 1;
+
+	/**
+	 * Defines the flag of an item that is only in the older tree.
+	 */
+	public static final int REMOVED = 2;
+
+	/**
+	 * Defines the flag of an item whose parent changed.
+	 */
+	public static final int MOVED = 4;
+
+	/**
+	 * Defines the flag of an item whose title or name changed.
+	 */
+	public static final int RENAMED = 8;
+
+	/**
+	 * Defines the flag of an item with any other change.
+	 */
+	public static final int CHANGED = 16;
+
+	/* Parent of a top level category */
+	private static final long NO_PARENT = Long.MIN_VALUE;
+
+	private List<Change<Album>> albumChangeList = new ArrayList<Change<Album>>();
+
+	private List<Change<Category>> categoryChangeList = new ArrayList<Change<Category>>();
+
+	private List<Change<Category>> subCategoryChangeList = new ArrayList<Change<Category>>();
+
+	/**
+	 * Construct a new diff of two trees.
+	 *
+	 * @param beforeList
+	 *            The top level categories of the older tree.
+	 * @param afterList
+	 *            The top level categories of the newer tree.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if beforeList or afterList is <code>null</code>.
+	 */
+	public TreeDiff(List<Category> beforeList, List<Category> afterList)
+			throws IllegalArgumentException {
+		if (beforeList == null)
+			throw new IllegalArgumentException("beforeList cannot be null");
+
+		if (afterList == null)
+			throw new IllegalArgumentException("afterList cannot be null");
+
+		Tree before = new Tree(beforeList);
+		Tree after = new Tree(afterList);
+
+		compareCategories(before.categories, after.categories,
+				categoryChangeList);
+		compareCategories(before.subCategories, after.subCategories,
+				subCategoryChangeList);
+		compareAlbums(before.albums, after.albums);
+	}
+
+	@Override
+	public String toString() {
+		return TreeDiff.class.getName() + "[albumChangeCount="
+				+ albumChangeList.size() + ", categoryChangeCount="
+				+ categoryChangeList.size() + ", subCategoryChangeCount="
+				+ subCategoryChangeList.size() + "]";
+	}
+
+	private static void compareCategories(Items<Category> before,
+			Items<Category> after, List<Change<Category>> changeList) {
+		LongIntHashMap beforeIndex = before.index();
+		BitSet matched = new BitSet(before.size);
+
+		for (int i = 0; i < after.size; i++) {
+			Category afterCategory = after.items.get(i);
+			int row = beforeIndex.get(after.ids[i]);
+
+			if (row == LongIntHashMap.MISSING) {
+				changeList.add(new Change<Category>(after.ids[i], ADDED, null,
+						afterCategory));
+				continue;
+			}
+
+			matched.set(row);
+
+			Category beforeCategory = before.items.get(row);
+			int flags = 0;
+
+			if (before.parentIDs[row] != after.parentIDs[i])
+				flags |= MOVED;
+
+			if (!equals(beforeCategory.getName(), afterCategory.getName()))
+				flags |= RENAMED;
+
+			if (flags != 0)
+				changeList.add(new Change<Category>(after.ids[i], flags,
+						beforeCategory, afterCategory));
+		}
+
+		for (int row = matched.nextClearBit(0); row < before.size; row = matched
+				.nextClearBit(row + 1))
+			changeList.add(new Change<Category>(before.ids[row], REMOVED,
+					before.items.get(row), null));
+	}
+
+	private void compareAlbums(Items<Album> before, Items<Album> after) {
+		LongIntHashMap beforeIndex = before.index();
+		BitSet matched = new BitSet(before.size);
+
+		for (int i = 0; i < after.size; i++) {
+			Album afterAlbum = after.items.get(i);
+			int row = beforeIndex.get(after.ids[i]);
+
+			if (row == LongIntHashMap.MISSING) {
+				albumChangeList.add(new Change<Album>(after.ids[i], ADDED,
+						null, afterAlbum));
+				continue;
+			}
+
+			matched.set(row);
+
+			Album beforeAlbum = before.items.get(row);
+			int flags = 0;
+
+			if (before.parentIDs[row] != after.parentIDs[i]
+					|| before.inSubCategory.get(row) != after.inSubCategory
+							.get(i))
+				flags |= MOVED;
+
+			if (!equals(beforeAlbum.getTitle(), afterAlbum.getTitle()))
+				flags |= RENAMED;
+
+			if (isChanged(beforeAlbum, afterAlbum))
+				flags |= CHANGED;
+
+			if (flags != 0)
+				albumChangeList.add(new Change<Album>(after.ids[i], flags,
+						beforeAlbum, afterAlbum));
+		}
+
+		for (int row = matched.nextClearBit(0); row < before.size; row = matched
+				.nextClearBit(row + 1))
+			albumChangeList.add(new Change<Album>(before.ids[row], REMOVED,
+					before.items.get(row), null));
+	}
+
+	private static boolean isChanged(Album before, Album after) {
+		if (before.getLastUpdated() != null || after.getLastUpdated() != null)
+			return !equals(before.getLastUpdated(), after.getLastUpdated());
+
+		return !equals(before.getAlbumKey(), after.getAlbumKey())
+				|| !equals(before.getDescription(), after.getDescription())
+				|| !equals(before.getKeywords(), after.getKeywords())
+				|| !equals(before.getPosition(), after.getPosition())
+				|| !equals(before.getImageCount(), after.getImageCount());
+	}
+
+	private static boolean equals(Object a, Object b) {
+		return (a == null ? b == null : a.equals(b));
+	}
+
+	/**
+	 * Used to determine if the trees are the same.
+	 *
+	 * @return <code>true</code> if nothing changed.
+	 */
+	public boolean isEmpty() {
+		return albumChangeList.isEmpty() && categoryChangeList.isEmpty()
+				&& subCategoryChangeList.isEmpty();
+	}
+
+	/**
+	 * Used to get the albums that changed: those in the newer tree first, in
+	 * tree order, then the removed ones.
+	 *
+	 * @return the album changes.
+	 */
+	public List<Change<Album>> getAlbumChangeList() {
+		return albumChangeList;
+	}
+
+	/**
+	 * Used to get the top level categories that changed.
+	 *
+	 * @return the category changes.
+	 */
+	public List<Change<Category>> getCategoryChangeList() {
+		return categoryChangeList;
+	}
+
+	/**
+	 * Used to get the subcategories that changed. A subcategory is moved when
+	 * its parent category changed.
+	 *
+	 * @return the subcategory changes.
+	 */
+	public List<Change<Category>> getSubCategoryChangeList() {
+		return subCategoryChangeList;
+	}
+
+	/**
+	 * Class used to represent one flattened tree.
+	 */
+	private static class Tree {
+		private Items<Category> categories = new Items<Category>();
+
+		private Items<Category> subCategories = new Items<Category>();
+
+		private Items<Album> albums = new Items<Album>();
+
+		public Tree(List<Category> categoryList) {
+			for (Category category : categoryList)
+				add(category, NO_PARENT, false);
+		}
+
+		private void add(Category category, long parentID, boolean sub) {
+			if (category.getID() == null)
+				return;
+
+			long id = category.getID().longValue();
+			(sub ? subCategories : categories).add(id, category, parentID,
+					false);
+
+			if (category.getAlbumList() != null) {
+				for (Album album : category.getAlbumList()) {
+					if (album.getID() != null)
+						albums.add(album.getID().longValue(), album, id, sub);
+				}
+			}
+
+			if (category.getSubCategoryList() != null) {
+				for (Category subCategory : category.getSubCategoryList())
+					add(subCategory, id, true);
+			}
+		}
+	}
+
+	/**
+	 * Class used to hold items of one kind with their IDs and parent IDs in
+	 * primitive arrays.
+	 */
+	private static class Items<T> {
+		private List<T> items = new ArrayList<T>();
+
+		private long[] ids = new long[16];
+
+		private long[] parentIDs = new long[16];
+
+		private BitSet inSubCategory = new BitSet();
+
+		private int size;
+
+		public void add(long id, T item, long parentID, boolean sub) {
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size * 2);
+				parentIDs = Arrays.copyOf(parentIDs, size * 2);
+			}
+
+			items.add(item);
+			ids[size] = id;
+			parentIDs[size] = parentID;
+			inSubCategory.set(size, sub);
+			size++;
+		}
+
+		public LongIntHashMap index() {
+			LongIntHashMap index = new LongIntHashMap(size);
+
+			for (int i = 0; i < size; i++)
+				index.put(ids[i], i);
+
+			return index;
+		}
+	}
+
+	/**
+	 * Class used to represent an album, category or subcategory that changed.
+	 *
+	 * @author smugmug-java-api contributors
+	 */
+	public static class Change<T> {
+		private long id;
+
+		private int flags;
+
+		private T before;
+
+		private T after;
+
+		Change(long id, int flags, T before, T after) {
+			this.id = id;
+			this.flags = flags;
+			this.before = before;
+			this.after = after;
+		}
+
+		@Override
+		public String toString() {
+			return Change.class.getName() + "[id=" + getID() + ", added="
+					+ isAdded() + ", removed=" + isRemoved() + ", moved="
+					+ isMoved() + ", renamed=" + isRenamed() + ", changed="
+					+ isChanged() + "]";
+		}
+
+		public long getID() {
+			return id;
+		}
+
+		/**
+		 * Used to get every kind of change that applies.
+		 *
+		 * @return a combination of {@link TreeDiff#ADDED},
+		 *         {@link TreeDiff#REMOVED}, {@link TreeDiff#MOVED},
+		 *         {@link TreeDiff#RENAMED} and {@link TreeDiff#CHANGED}.
+		 */
+		public int getFlags() {
+			return flags;
+		}
+
+		public boolean isAdded() {
+			return (flags & ADDED) != 0;
+		}
+
+		public boolean isRemoved() {
+			return (flags & REMOVED) != 0;
+		}
+
+		public boolean isMoved() {
+			return (flags & MOVED) != 0;
+		}
+
+		public boolean isRenamed() {
+			return (flags & RENAMED) != 0;
+		}
+
+		public boolean isChanged() {
+			return (flags & CHANGED) != 0;
+		}
+
+		/**
+		 * Used to get the item as it was in the older tree.
+		 *
+		 * @return the item, or <code>null</code> if it was added.
+		 */
+		public T getBefore() {
+			return before;
+		}
+
+		/**
+		 * Used to get the item as it is in the newer tree.
+		 *
+		 * @return the item, or <code>null</code> if it was removed.
+		 */
+		public T getAfter() {
+			return after;
+		}
+	}
+}
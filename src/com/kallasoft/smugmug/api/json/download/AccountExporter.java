@@ -0,0 +1,728 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.json.download;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.URI;
+import org.apache.commons.httpclient.methods.GetMethod;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.kallasoft.smugmug.api.APIConstants;
+import com.kallasoft.smugmug.api.NetworkException;
+import com.kallasoft.smugmug.api.json.entity.Album;
+import com.kallasoft.smugmug.api.json.entity.Category;
+import com.kallasoft.smugmug.api.json.entity.Image;
+import com.kallasoft.smugmug.api.json.v1_2_0.APIVersionConstants;
+import com.kallasoft.smugmug.api.json.v1_2_0.images.Get;
+import com.kallasoft.smugmug.api.json.v1_2_0.images.GetURLs;
+import com.kallasoft.smugmug.api.json.v1_2_0.images.Get.GetResponse;
+import com.kallasoft.smugmug.api.json.v1_2_0.images.GetURLs.GetURLsResponse;
+import com.kallasoft.smugmug.api.json.v1_2_0.users.GetTree;
+import com.kallasoft.smugmug.api.json.v1_2_0.users.GetTree.GetTreeResponse;
+import com.kallasoft.smugmug.api.util.APIUtils;
+import com.kallasoft.smugmug.api.util.BufferPool;
+import com.kallasoft.smugmug.api.util.MD5HashService;
+
+/**
+ * Class used to export the original of every image in an account to a local
+ * directory, downloading only what is new or changed since the last export.
+ * <p>
+ * The account is crawled with a {@link ForkJoinPool}: the tree from
+ * <code>smugmug.users.getTree</code> is split into one task per category,
+ * subcategory and album, and every album's images are listed with a heavy
+ * <code>smugmug.images.get</code> call. <code>smugmug.images.getURLs</code>
+ * is only called for images whose original URL was not included. Originals
+ * are downloaded by a separate pool of threads as soon as they are found,
+ * with at most {@link #setConnectionsPerHost(int)} downloads from any one
+ * host at a time.
+ * <p>
+ * Files are written to
+ * <code>&lt;directory&gt;/&lt;category&gt;/[&lt;subcategory&gt;/]&lt;album title&gt; (&lt;album ID&gt;)/&lt;file name&gt;</code>.
+ * Every download is hashed while it is streamed to a temporary file and only
+ * moved into place if it matches {@link Image#getMD5Sum()}. Files already on
+ * disk are hashed with an {@link MD5HashService} and skipped if their MD5 Sum
+ * matches. Unless another service is set, the hashes are kept in
+ * {@link #HASH_CACHE_FILE_NAME} in the export directory, so a later export
+ * only reads the files that changed since.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class AccountExporter {
+	/**
+	 * Defines the default number of threads crawling the account.
+	 */
+	public static final int DEFAULT_CRAWL_THREADS = 8;
+
+	/**
+	 * Defines the default number of threads downloading originals.
+	 */
+	public static final int DEFAULT_DOWNLOAD_THREADS = 8;
+
+	/**
+	 * Defines the default number of downloads from one host at a time.
+	 */
+	public static final int DEFAULT_CONNECTIONS_PER_HOST = 4;
+
+	/**
+	 * Defines the name of the file in the export directory that the hashes
+	 * of exported files are kept in between exports.
+	 */
+	public static final String HASH_CACHE_FILE_NAME = ".md5-cache";
+
+	private static final Logger logger = LoggerFactory
+			.getLogger(AccountExporter.class);
+
+	private String apiURL;
+
+	private String apiKey;
+
+	private String sessionID;
+
+	private Path directory;
+
+	private MD5HashService hashService;
+
+	private int crawlThreads = DEFAULT_CRAWL_THREADS;
+
+	private int downloadThreads = DEFAULT_DOWNLOAD_THREADS;
+
+	private int connectionsPerHost = DEFAULT_CONNECTIONS_PER_HOST;
+
+	private GetTree getTreeMethod = new GetTree();
+
+	private Get getMethod = new Get();
+
+	private GetURLs getURLsMethod = new GetURLs();
+
+	private ExecutorService downloadExecutor;
+
+	private Semaphore downloadPermits;
+
+	private ConcurrentMap<String, Semaphore> hostPermitMap = new ConcurrentHashMap<String, Semaphore>();
+
+	private AtomicLong downloadedCount = new AtomicLong();
+
+	private AtomicLong downloadedBytes = new AtomicLong();
+
+	private AtomicLong skippedCount = new AtomicLong();
+
+	private List<String> failureList = Collections
+			.synchronizedList(new ArrayList<String>());
+
+	/**
+	 * Construct a new exporter that talks to the secure SmugMug API server.
+	 *
+	 * @param apiKey
+	 *            The API Key to use. API keys are issued by SmugMug.
+	 * @param sessionID
+	 *            The logged in SessionID of the account to export.
+	 * @param directory
+	 *            The directory the account is exported to.
+	 */
+	public AccountExporter(String apiKey, String sessionID, Path directory) {
+		this(APIVersionConstants.SECURE_SERVER_URL, apiKey, sessionID,
+				directory);
+	}
+
+	/**
+	 * Construct a new exporter.
+	 *
+	 * @param apiURL
+	 *            The URL of the SmugMug server to communicate with.
+	 * @param apiKey
+	 *            The API Key to use. API keys are issued by SmugMug.
+	 * @param sessionID
+	 *            The logged in SessionID of the account to export.
+	 * @param directory
+	 *            The directory the account is exported to.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if apiURL or sessionID is <code>null</code> or empty.
+	 * @throws IllegalArgumentException
+	 *             if directory is <code>null</code>.
+	 */
+	public AccountExporter(String apiURL, String apiKey, String sessionID,
+			Path directory) throws IllegalArgumentException {
+		if (APIUtils.isEmpty(apiURL))
+			throw new IllegalArgumentException(
+					"apiURL cannot be null or empty");
+
+		if (APIUtils.isEmpty(sessionID))
+			throw new IllegalArgumentException(
+					"sessionID cannot be null or empty");
+
+		if (directory == null)
+			throw new IllegalArgumentException("directory cannot be null");
+
+		this.apiURL = apiURL;
+		this.apiKey = apiKey;
+		this.sessionID = sessionID;
+		this.directory = directory;
+	}
+
+	/**
+	 * Used to export the whole account and wait for every download to
+	 * finish. Failures of single albums or images are logged, recorded in
+	 * {@link #getFailureList()} and do not stop the export.
+	 *
+	 * @throws RuntimeException
+	 *             if the account tree cannot be loaded, or the calling thread
+	 *             is interrupted.
+	 */
+	public void export() throws RuntimeException {
+		GetTreeResponse treeResponse = getTreeMethod.execute(apiURL, apiKey,
+				sessionID, Boolean.FALSE);
+
+		if (treeResponse.isError()) {
+			RuntimeException re = new RuntimeException(
+					"Unable to load the account tree: "
+							+ treeResponse.getError());
+			logger.error("Unable to export the account", re);
+			throw re;
+		}
+
+		downloadedCount.set(0);
+		downloadedBytes.set(0);
+		skippedCount.set(0);
+		failureList.clear();
+
+		MD5HashService createdHashService = null;
+
+		if (hashService == null) {
+			try {
+				Files.createDirectories(directory);
+			} catch (IOException e) {
+				RuntimeException re = new RuntimeException(e);
+				logger.error("Unable to create " + directory, re);
+				throw re;
+			}
+
+			createdHashService = new MD5HashService(directory
+					.resolve(HASH_CACHE_FILE_NAME), crawlThreads);
+			hashService = createdHashService;
+		}
+
+		try {
+			exportTree(treeResponse);
+		} finally {
+			/* A service we created is ours to stop, which also saves it */
+			if (createdHashService != null) {
+				hashService = null;
+				createdHashService.shutdown();
+			}
+		}
+
+		logger.info(
+				"Export complete: {} downloaded, {} unchanged, {} failed",
+				new Object[] { Long.valueOf(downloadedCount.get()),
+						Long.valueOf(skippedCount.get()),
+						Integer.valueOf(failureList.size()) });
+	}
+
+	private void exportTree(GetTreeResponse treeResponse)
+			throws RuntimeException {
+		/* Crawl and download threads can all be talking to SmugMug at once */
+		APIUtils.ensureConnectionCapacity(crawlThreads + downloadThreads);
+
+		ForkJoinPool crawlPool = new ForkJoinPool(crawlThreads);
+		downloadExecutor = Executors.newFixedThreadPool(downloadThreads);
+		downloadPermits = new Semaphore(downloadThreads * 4);
+
+		try {
+			List<CrawlAction> actionList = new ArrayList<CrawlAction>();
+
+			for (Category category : treeResponse.getCategoryList())
+				actionList.add(new CategoryAction(category, directory));
+
+			crawlPool.invoke(new ListAction(actionList));
+
+			downloadExecutor.shutdown();
+			downloadExecutor.awaitTermination(Long.MAX_VALUE,
+					TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			RuntimeException re = new RuntimeException(e);
+			logger.error("The export was interrupted", re);
+			throw re;
+		} finally {
+			crawlPool.shutdownNow();
+			downloadExecutor.shutdownNow();
+		}
+
+		/* Persist the hashes of the new downloads for the next export */
+		hashService.save();
+	}
+
+	private void crawlAlbum(Album album, Path albumDirectory) {
+		GetResponse response = getMethod.execute(apiURL, apiKey, sessionID,
+				album.getID(), album.getAlbumKey(), Boolean.TRUE);
+
+		/* Error 15 (empty set) is how SmugMug reports an empty album */
+		if (response.isError() && response.getError().isEmptySet())
+			return;
+
+		if (response.isError()) {
+			fail("Album " + album.getID() + ": " + response.getError());
+			return;
+		}
+
+		List<Image> imageList = new ArrayList<Image>(response.getImageList());
+
+		/* Sort so the names given to duplicate file names are stable */
+		Collections.sort(imageList, new Comparator<Image>() {
+			public int compare(Image image1, Image image2) {
+				return Long.valueOf(id(image1)).compareTo(
+						Long.valueOf(id(image2)));
+			}
+		});
+
+		Map<String, Image> nameMap = new HashMap<String, Image>();
+
+		for (Image image : imageList) {
+			String fileName = sanitize(image.getFileName() == null ? image
+					.getID()
+					+ "." + String.valueOf(image.getFormat()).toLowerCase()
+					: image.getFileName());
+
+			if (nameMap.containsKey(fileName))
+				fileName = image.getID() + "_" + fileName;
+
+			nameMap.put(fileName, image);
+			scheduleDownload(image, albumDirectory.resolve(fileName));
+		}
+	}
+
+	private void scheduleDownload(final Image image, final Path file) {
+		try {
+			/*
+			 * Keep the crawl from racing too far ahead of the downloads. This
+			 * runs on a crawl worker, so let the pool know it may block.
+			 */
+			ForkJoinPool.managedBlock(new PermitBlocker(downloadPermits));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+
+		downloadExecutor.execute(new Runnable() {
+			public void run() {
+				try {
+					exportImage(image, file);
+				} catch (Exception e) {
+					logger.warn("Unable to export image " + image.getID(), e);
+					fail("Image " + image.getID() + ": " + e);
+				} finally {
+					downloadPermits.release();
+				}
+			}
+		});
+	}
+
+	private void exportImage(Image image, Path file) throws IOException,
+			InterruptedException {
+		String md5Sum = image.getMD5Sum();
+
+		if (md5Sum != null && Files.exists(file)
+				&& md5Sum.equalsIgnoreCase(hashService.hash(file))) {
+			skippedCount.incrementAndGet();
+			return;
+		}
+
+		String originalURL = image.getOriginalURL();
+
+		if (originalURL == null) {
+			GetURLsResponse urlsResponse = getURLsMethod.execute(apiURL,
+					apiKey, sessionID, image.getID(), image.getImageKey());
+
+			if (urlsResponse.isError()) {
+				fail("Image " + image.getID() + ": " + urlsResponse.getError());
+				return;
+			}
+
+			originalURL = urlsResponse.getOriginalURL();
+		}
+
+		if (originalURL == null) {
+			fail("Image " + image.getID() + ": no original URL available");
+			return;
+		}
+
+		Semaphore hostPermits = getHostPermits(new URI(originalURL, true)
+				.getHost());
+		hostPermits.acquire();
+
+		try {
+			download(image, originalURL, file);
+		} finally {
+			hostPermits.release();
+		}
+	}
+
+	private void download(Image image, String originalURL, Path file)
+			throws IOException {
+		Files.createDirectories(file.getParent());
+
+		Path tempFile = file.resolveSibling(file.getFileName() + ".part");
+		GetMethod getMethod = new GetMethod(originalURL);
+		getMethod.setRequestHeader("User-Agent", APIConstants.USER_AGENT);
+		byte[] buffer = BufferPool.getDefault().acquire();
+		OutputStream out = null;
+
+		try {
+			int code = APIConstants.HTTP_CLIENT.executeMethod(getMethod);
+
+			if (code != HttpStatus.SC_OK)
+				throw new NetworkException("An HTTP status code of [" + code
+						+ "] was returned downloading " + originalURL);
+
+			MessageDigest digest = DigestUtils.getMd5Digest();
+			InputStream in = getMethod.getResponseBodyAsStream();
+			out = Files.newOutputStream(tempFile);
+			long length = 0;
+
+			/* Hash while streaming so the file is never read back */
+			for (int count; (count = in.read(buffer)) != -1; length += count) {
+				digest.update(buffer, 0, count);
+				out.write(buffer, 0, count);
+			}
+
+			out.close();
+			out = null;
+
+			String md5Sum = Hex.encodeHexString(digest.digest());
+
+			if (image.getMD5Sum() != null
+					&& !image.getMD5Sum().equalsIgnoreCase(md5Sum)) {
+				Files.deleteIfExists(tempFile);
+				fail("Image " + image.getID() + ": MD5 Sum mismatch, expected "
+						+ image.getMD5Sum() + " but downloaded " + md5Sum);
+				return;
+			}
+
+			Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+
+			downloadedCount.incrementAndGet();
+			downloadedBytes.addAndGet(length);
+		} finally {
+			IOUtils.closeQuietly(out);
+			BufferPool.getDefault().release(buffer);
+			getMethod.releaseConnection();
+		}
+	}
+
+	private Semaphore getHostPermits(String host) {
+		Semaphore permits = hostPermitMap.get(host);
+
+		if (permits == null) {
+			Semaphore newPermits = new Semaphore(connectionsPerHost);
+			permits = hostPermitMap.putIfAbsent(host, newPermits);
+
+			if (permits == null)
+				permits = newPermits;
+		}
+
+		return permits;
+	}
+
+	private void fail(String reason) {
+		logger.warn("Export failure: {}", reason);
+		failureList.add(reason);
+	}
+
+	private static long id(Image image) {
+		return (image.getID() == null ? 0 : image.getID().longValue());
+	}
+
+	/**
+	 * Used to turn a SmugMug title into a safe file or directory name.
+	 */
+	private static String sanitize(String name) {
+		if (APIUtils.isEmpty(name))
+			return "_";
+
+		String sanitized = name.replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_")
+				.trim();
+
+		/* Names made only of dots would walk up the directory tree */
+		return (sanitized.length() == 0 || sanitized.matches("\\.+") ? "_"
+				: sanitized);
+	}
+
+	/**
+	 * Used to get the number of images downloaded by the last export.
+	 *
+	 * @return the number of images downloaded.
+	 */
+	public long getDownloadedCount() {
+		return downloadedCount.get();
+	}
+
+	/**
+	 * Used to get the number of bytes downloaded by the last export.
+	 *
+	 * @return the number of bytes downloaded.
+	 */
+	public long getDownloadedBytes() {
+		return downloadedBytes.get();
+	}
+
+	/**
+	 * Used to get the number of images skipped by the last export because an
+	 * identical file was already on disk.
+	 *
+	 * @return the number of images skipped.
+	 */
+	public long getSkippedCount() {
+		return skippedCount.get();
+	}
+
+	/**
+	 * Used to get a description of every album or image that could not be
+	 * exported by the last export.
+	 *
+	 * @return the list of failures.
+	 */
+	public List<String> getFailureList() {
+		return failureList;
+	}
+
+	/**
+	 * Used to get the service used to hash files already on disk.
+	 *
+	 * @return the hash service, or <code>null</code> if {@link #export()}
+	 *         creates one for each export, cached in
+	 *         {@link #HASH_CACHE_FILE_NAME}.
+	 */
+	public MD5HashService getHashService() {
+		return hashService;
+	}
+
+	/**
+	 * Used to set the service used to hash files already on disk. Use a
+	 * service with a persistent cache file to avoid hashing every file of
+	 * the export on every run. A service set here is not shut down by the
+	 * exporter.
+	 *
+	 * @param hashService
+	 *            The hash service.
+	 */
+	public void setHashService(MD5HashService hashService) {
+		this.hashService = hashService;
+	}
+
+	/**
+	 * Used to get the number of threads crawling categories and albums.
+	 *
+	 * @return the number of crawl threads.
+	 */
+	public int getCrawlThreads() {
+		return crawlThreads;
+	}
+
+	/**
+	 * Used to set the number of threads crawling categories and albums.
+	 *
+	 * @param crawlThreads
+	 *            The number of crawl threads.
+	 */
+	public void setCrawlThreads(int crawlThreads) {
+		this.crawlThreads = crawlThreads;
+	}
+
+	/**
+	 * Used to get the number of threads downloading originals.
+	 *
+	 * @return the number of download threads.
+	 */
+	public int getDownloadThreads() {
+		return downloadThreads;
+	}
+
+	/**
+	 * Used to set the number of threads downloading originals.
+	 *
+	 * @param downloadThreads
+	 *            The number of download threads.
+	 */
+	public void setDownloadThreads(int downloadThreads) {
+		this.downloadThreads = downloadThreads;
+	}
+
+	/**
+	 * Used to get the largest number of originals downloaded from one host at
+	 * a time.
+	 *
+	 * @return the number of downloads allowed per host.
+	 */
+	public int getConnectionsPerHost() {
+		return connectionsPerHost;
+	}
+
+	/**
+	 * Used to set the largest number of originals downloaded from one host at
+	 * a time.
+	 *
+	 * @param connectionsPerHost
+	 *            The number of downloads allowed per host.
+	 */
+	public void setConnectionsPerHost(int connectionsPerHost) {
+		this.connectionsPerHost = connectionsPerHost;
+	}
+
+	/**
+	 * Class used to acquire a permit from a {@link Semaphore} inside a
+	 * {@link ForkJoinPool} worker, so the pool can start another worker while
+	 * this one waits instead of running with one thread fewer.
+	 */
+	private static class PermitBlocker implements ForkJoinPool.ManagedBlocker {
+		private Semaphore permits;
+
+		private boolean acquired = false;
+
+		public PermitBlocker(Semaphore permits) {
+			this.permits = permits;
+		}
+
+		public boolean block() throws InterruptedException {
+			if (!acquired) {
+				permits.acquire();
+				acquired = true;
+			}
+
+			return true;
+		}
+
+		public boolean isReleasable() {
+			if (!acquired)
+				acquired = permits.tryAcquire();
+
+			return acquired;
+		}
+	}
+
+	/**
+	 * Class used as the base of every crawl task.
+	 */
+	private abstract static class CrawlAction extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+	}
+
+	/**
+	 * Class used to run a list of crawl tasks in parallel.
+	 */
+	private static class ListAction extends CrawlAction {
+		private static final long serialVersionUID = 1L;
+
+		private List<CrawlAction> actionList;
+
+		public ListAction(List<CrawlAction> actionList) {
+			this.actionList = actionList;
+		}
+
+		@Override
+		protected void compute() {
+			invokeAll(actionList);
+		}
+	}
+
+	/**
+	 * Class used to crawl a category or subcategory, forking one task for
+	 * each of its subcategories and albums.
+	 */
+	private class CategoryAction extends CrawlAction {
+		private static final long serialVersionUID = 1L;
+
+		private Category category;
+
+		private Path parentDirectory;
+
+		public CategoryAction(Category category, Path parentDirectory) {
+			this.category = category;
+			this.parentDirectory = parentDirectory;
+		}
+
+		@Override
+		protected void compute() {
+			Path categoryDirectory = parentDirectory.resolve(sanitize(category
+					.getName()));
+			List<CrawlAction> actionList = new ArrayList<CrawlAction>();
+
+			for (Category subCategory : category.getSubCategoryList())
+				actionList.add(new CategoryAction(subCategory,
+						categoryDirectory));
+
+			for (Album album : category.getAlbumList())
+				actionList.add(new AlbumAction(album, categoryDirectory));
+
+			invokeAll(actionList);
+		}
+	}
+
+	/**
+	 * Class used to crawl the images of an album.
+	 */
+	private class AlbumAction extends CrawlAction {
+		private static final long serialVersionUID = 1L;
+
+		private Album album;
+
+		private Path parentDirectory;
+
+		public AlbumAction(Album album, Path parentDirectory) {
+			this.album = album;
+			this.parentDirectory = parentDirectory;
+		}
+
+		@Override
+		protected void compute() {
+			try {
+				crawlAlbum(album, parentDirectory.resolve(sanitize(album
+						.getTitle())
+						+ " (" + album.getID() + ")"));
+			} catch (RuntimeException e) {
+				logger.warn("Unable to crawl album " + album.getID(), e);
+				fail("Album " + album.getID() + ": " + e);
+			}
+		}
+	}
+}
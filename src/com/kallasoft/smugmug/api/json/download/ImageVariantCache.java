@@ -0,0 +1,674 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.json.download;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.methods.GetMethod;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.kallasoft.smugmug.api.APIConstants;
+import com.kallasoft.smugmug.api.NetworkException;
+import com.kallasoft.smugmug.api.json.entity.Image;
+import com.kallasoft.smugmug.api.util.APIUtils;
+
+/**
+ * Class used to cache the bytes of the resized variants of images (e.g.
+ * {@link Image#getThumbURL()}) for code that serves them on to its own
+ * clients, and to fetch the variants a client is likely to ask for next
+ * before it does.
+ * <p>
+ * The cache has two tiers:
+ * <ul>
+ * <li>a memory tier holding at most {@link #setMaxMemoryBytes(long)} bytes,
+ * evicting the least recently used variant when it is full.</li>
+ * <li>an optional disk tier in a directory, holding at most
+ * {@link #setMaxDiskBytes(long)} bytes and evicting the least recently used
+ * files when it is full. Files survive restarts of the cache.</li>
+ * </ul>
+ * A variant found in neither tier is fetched once, however many threads ask
+ * for it at the same time. Hits and misses of {@link #get(String)} are
+ * counted for both tiers; background prefetches are counted separately so
+ * they do not skew the hit rate.
+ * <p>
+ * {@link #prefetch(List, int, int, Variant...)} queues a range of images
+ * (typically the next page of an <code>smugmug.images.get</code> result) to
+ * be fetched by a small pool of background threads started by
+ * {@link #start()}. When the prefetch queue is full the oldest request is
+ * dropped, since a client that has moved on no longer needs it.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class ImageVariantCache {
+	/**
+	 * Defines the default size limit of the memory tier, 64MB.
+	 */
+	public static final long DEFAULT_MAX_MEMORY_BYTES = 64 * 1024 * 1024;
+
+	/**
+	 * Defines the default size limit of the disk tier, 1GB.
+	 */
+	public static final long DEFAULT_MAX_DISK_BYTES = 1024 * 1024 * 1024;
+
+	/**
+	 * Defines the resized variants of an image that can be prefetched.
+	 */
+	public enum Variant {
+		TINY, THUMB, SMALL, MEDIUM, LARGE, XLARGE;
+
+		/**
+		 * Used to get the URL of this variant of the given image.
+		 *
+		 * @param image
+		 *            The image.
+		 *
+		 * @return the URL, or <code>null</code> if the image was loaded
+		 *         without it.
+		 */
+		public String getURL(Image image) {
+			switch (this) {
+			case TINY:
+				return image.getTinyURL();
+			case THUMB:
+				return image.getThumbURL();
+			case SMALL:
+				return image.getSmallURL();
+			case MEDIUM:
+				return image.getMediumURL();
+			case LARGE:
+				return image.getLargeURL();
+			default:
+				return image.getXLargeURL();
+			}
+		}
+	}
+
+	private static final Logger logger = LoggerFactory
+			.getLogger(ImageVariantCache.class);
+
+	private Path diskDirectory;
+
+	private long maxMemoryBytes = DEFAULT_MAX_MEMORY_BYTES;
+
+	private long maxDiskBytes = DEFAULT_MAX_DISK_BYTES;
+
+	private int prefetchThreads = 4;
+
+	private int prefetchQueueDepth = 256;
+
+	private LinkedHashMap<String, byte[]> memoryMap = new LinkedHashMap<String, byte[]>(
+			256, 0.75f, true);
+
+	private long memoryBytes;
+
+	private AtomicLong diskBytes = new AtomicLong(-1);
+
+	private AtomicBoolean trimming = new AtomicBoolean();
+
+	private ConcurrentMap<String, FutureTask<byte[]>> fetchMap = new ConcurrentHashMap<String, FutureTask<byte[]>>();
+
+	private ThreadPoolExecutor prefetchExecutor;
+
+	private AtomicLong memoryHitCount = new AtomicLong();
+
+	private AtomicLong memoryMissCount = new AtomicLong();
+
+	private AtomicLong diskHitCount = new AtomicLong();
+
+	private AtomicLong diskMissCount = new AtomicLong();
+
+	private AtomicLong fetchCount = new AtomicLong();
+
+	private AtomicLong prefetchCount = new AtomicLong();
+
+	/**
+	 * Construct a new cache with only a memory tier.
+	 */
+	public ImageVariantCache() {
+		this(null);
+	}
+
+	/**
+	 * Construct a new cache.
+	 *
+	 * @param diskDirectory
+	 *            The directory of the disk tier, or <code>null</code> for no
+	 *            disk tier.
+	 */
+	public ImageVariantCache(Path diskDirectory) {
+		this.diskDirectory = diskDirectory;
+	}
+
+	/**
+	 * Used to start the prefetch threads.
+	 *
+	 * @throws IllegalStateException
+	 *             if the cache is already started.
+	 */
+	public synchronized void start() throws IllegalStateException {
+		if (prefetchExecutor != null)
+			throw new IllegalStateException("The cache is already started");
+
+		APIUtils.ensureConnectionCapacity(prefetchThreads);
+
+		prefetchExecutor = new ThreadPoolExecutor(prefetchThreads,
+				prefetchThreads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(prefetchQueueDepth),
+				new ThreadPoolExecutor.DiscardOldestPolicy());
+	}
+
+	/**
+	 * Used to stop the prefetch threads, dropping queued prefetches. The
+	 * cached variants remain available.
+	 */
+	public synchronized void stop() {
+		if (prefetchExecutor == null)
+			return;
+
+		prefetchExecutor.shutdownNow();
+		prefetchExecutor = null;
+	}
+
+	/**
+	 * Used to get the bytes of the given variant, fetching it if it is not
+	 * cached.
+	 *
+	 * @param url
+	 *            The URL of the variant, e.g. {@link Image#getThumbURL()}.
+	 *
+	 * @return the bytes of the variant. The array is shared with the cache
+	 *         and must not be modified.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if url is <code>null</code> or empty.
+	 * @throws RuntimeException
+	 *             if the variant is not cached and cannot be fetched.
+	 */
+	public byte[] get(String url) throws IllegalArgumentException,
+			RuntimeException {
+		if (APIUtils.isEmpty(url))
+			throw new IllegalArgumentException("url cannot be null or empty");
+
+		return get(url, false);
+	}
+
+	/**
+	 * Used to get the bytes of the given variant, loading it if it is not in
+	 * memory. Prefetches only count toward {@link #getPrefetchCount()}.
+	 */
+	private byte[] get(String url, final boolean prefetch)
+			throws RuntimeException {
+		byte[] data = getFromMemory(url);
+
+		if (data != null) {
+			if (!prefetch)
+				memoryHitCount.incrementAndGet();
+
+			return data;
+		}
+
+		if (prefetch)
+			prefetchCount.incrementAndGet();
+		else
+			memoryMissCount.incrementAndGet();
+
+		FutureTask<byte[]> task = fetchMap.get(url);
+
+		if (task == null) {
+			final String finalURL = url;
+			FutureTask<byte[]> newTask = new FutureTask<byte[]>(
+					new Callable<byte[]>() {
+						public byte[] call() throws Exception {
+							return load(finalURL, prefetch);
+						}
+					});
+			task = fetchMap.putIfAbsent(url, newTask);
+
+			/* Only the thread that registered the load runs it */
+			if (task == null) {
+				task = newTask;
+
+				try {
+					task.run();
+				} finally {
+					fetchMap.remove(url, task);
+				}
+			}
+		}
+
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			RuntimeException re = new RuntimeException(e);
+			logger.error("Interrupted waiting for " + url, re);
+			throw re;
+		} catch (ExecutionException e) {
+			RuntimeException re = (e.getCause() instanceof RuntimeException ? (RuntimeException) e
+					.getCause()
+					: new RuntimeException(e.getCause()));
+			logger.error("Unable to load " + url, re);
+			throw re;
+		}
+	}
+
+	/**
+	 * Used to queue the given variants of a range of images to be fetched in
+	 * the background, e.g. the images of the page after the one being
+	 * rendered. Variants already in memory are not queued.
+	 *
+	 * @param imageList
+	 *            The images, as returned by <code>smugmug.images.get</code>.
+	 * @param fromIndex
+	 *            The index of the first image to prefetch, inclusive.
+	 * @param toIndex
+	 *            The index of the last image to prefetch, exclusive. Indices
+	 *            past the end of the list are ignored.
+	 * @param variants
+	 *            The variants to prefetch.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if imageList is <code>null</code>.
+	 * @throws IllegalStateException
+	 *             if the cache has not been started.
+	 */
+	public void prefetch(List<Image> imageList, int fromIndex, int toIndex,
+			Variant... variants) throws IllegalArgumentException,
+			IllegalStateException {
+		if (imageList == null)
+			throw new IllegalArgumentException("imageList cannot be null");
+
+		ThreadPoolExecutor executor = prefetchExecutor;
+
+		if (executor == null)
+			throw new IllegalStateException("The cache has not been started");
+
+		int end = Math.min(toIndex, imageList.size());
+
+		for (int i = Math.max(0, fromIndex); i < end; i++) {
+			Image image = imageList.get(i);
+
+			for (Variant variant : variants) {
+				final String url = variant.getURL(image);
+
+				if (url == null || getFromMemory(url) != null)
+					continue;
+
+				executor.execute(new Runnable() {
+					public void run() {
+						try {
+							get(url, true);
+						} catch (RuntimeException e) {
+							logger.debug("Unable to prefetch " + url, e);
+						}
+					}
+				});
+			}
+		}
+	}
+
+	private byte[] load(String url, boolean prefetch) throws IOException {
+		Path file = getDiskFile(url);
+
+		if (file != null) {
+			byte[] data = readFromDisk(file);
+
+			if (data != null) {
+				if (!prefetch)
+					diskHitCount.incrementAndGet();
+
+				putInMemory(url, data);
+				return data;
+			}
+
+			if (!prefetch)
+				diskMissCount.incrementAndGet();
+		}
+
+		byte[] data = fetch(url);
+		putInMemory(url, data);
+
+		if (file != null)
+			writeToDisk(file, data);
+
+		return data;
+	}
+
+	private byte[] fetch(String url) throws IOException {
+		GetMethod getMethod = new GetMethod(url);
+		getMethod.setRequestHeader("User-Agent", APIConstants.USER_AGENT);
+
+		try {
+			int code = APIConstants.HTTP_CLIENT.executeMethod(getMethod);
+
+			if (code != HttpStatus.SC_OK)
+				throw new NetworkException("An HTTP status code of [" + code
+						+ "] was returned fetching " + url);
+
+			fetchCount.incrementAndGet();
+
+			return APIUtils.readStream(getMethod.getResponseBodyAsStream());
+		} finally {
+			getMethod.releaseConnection();
+		}
+	}
+
+	private synchronized byte[] getFromMemory(String url) {
+		return memoryMap.get(url);
+	}
+
+	private synchronized void putInMemory(String url, byte[] data) {
+		if (data.length > maxMemoryBytes)
+			return;
+
+		byte[] previous = memoryMap.put(url, data);
+
+		if (previous != null)
+			memoryBytes -= previous.length;
+
+		memoryBytes += data.length;
+
+		/* Access order puts the least recently used variants first */
+		Iterator<byte[]> iterator = memoryMap.values().iterator();
+
+		while (memoryBytes > maxMemoryBytes && iterator.hasNext()) {
+			memoryBytes -= iterator.next().length;
+			iterator.remove();
+		}
+	}
+
+	private Path getDiskFile(String url) {
+		return (diskDirectory == null ? null : diskDirectory.resolve(DigestUtils
+				.md5Hex(url)));
+	}
+
+	private byte[] readFromDisk(Path file) {
+		try {
+			byte[] data = Files.readAllBytes(file);
+
+			/* The modification time doubles as the last access time */
+			Files.setLastModifiedTime(file, FileTime.fromMillis(System
+					.currentTimeMillis()));
+
+			return data;
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private void writeToDisk(Path file, byte[] data) {
+		Path tempFile = file.resolveSibling(file.getFileName() + ".tmp"
+				+ Thread.currentThread().getId());
+
+		try {
+			Files.createDirectories(diskDirectory);
+
+			if (diskBytes.get() < 0)
+				trimDisk();
+
+			Files.write(tempFile, data);
+			Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+
+			if (diskBytes.addAndGet(data.length) > maxDiskBytes)
+				trimDisk();
+		} catch (IOException e) {
+			logger.warn("Unable to write " + file + " to the disk cache", e);
+
+			try {
+				Files.deleteIfExists(tempFile);
+			} catch (IOException ignored) {
+			}
+		}
+	}
+
+	/**
+	 * Used to measure the disk tier and delete the least recently used files
+	 * until it is back under 90% of its limit, so it is not trimmed again on
+	 * every write. Only one thread trims at a time; the others carry on
+	 * without waiting, and the memory tier is never locked while trimming.
+	 */
+	private void trimDisk() throws IOException {
+		if (!trimming.compareAndSet(false, true))
+			return;
+
+		try {
+			trimDiskImpl();
+		} finally {
+			trimming.set(false);
+		}
+	}
+
+	private void trimDiskImpl() throws IOException {
+		List<Path> fileList = new ArrayList<Path>();
+		final Map<Path, BasicFileAttributes> attributeMap = new HashMap<Path, BasicFileAttributes>();
+		long total = 0;
+		DirectoryStream<Path> stream = Files.newDirectoryStream(diskDirectory);
+
+		try {
+			for (Path file : stream) {
+				/* Other threads' writes in progress are not ours to delete */
+				if (file.getFileName().toString().contains(".tmp"))
+					continue;
+
+				BasicFileAttributes attributes = Files.readAttributes(file,
+						BasicFileAttributes.class);
+
+				if (!attributes.isRegularFile())
+					continue;
+
+				fileList.add(file);
+				attributeMap.put(file, attributes);
+				total += attributes.size();
+			}
+		} finally {
+			stream.close();
+		}
+
+		if (total > maxDiskBytes) {
+			Collections.sort(fileList, new Comparator<Path>() {
+				public int compare(Path file1, Path file2) {
+					return attributeMap.get(file1).lastModifiedTime()
+							.compareTo(attributeMap.get(file2).lastModifiedTime());
+				}
+			});
+
+			long target = maxDiskBytes / 10 * 9;
+
+			for (int i = 0; i < fileList.size() && total > target; i++) {
+				if (Files.deleteIfExists(fileList.get(i)))
+					total -= attributeMap.get(fileList.get(i)).size();
+			}
+		}
+
+		diskBytes.set(total);
+	}
+
+	/**
+	 * Used to get the number of bytes held by the memory tier.
+	 *
+	 * @return the size of the memory tier in bytes.
+	 */
+	public synchronized long getMemoryBytes() {
+		return memoryBytes;
+	}
+
+	/**
+	 * Used to get the largest number of bytes held by the memory tier.
+	 *
+	 * @return the size limit of the memory tier in bytes.
+	 */
+	public long getMaxMemoryBytes() {
+		return maxMemoryBytes;
+	}
+
+	/**
+	 * Used to set the largest number of bytes held by the memory tier.
+	 *
+	 * @param maxMemoryBytes
+	 *            The size limit of the memory tier in bytes.
+	 */
+	public synchronized void setMaxMemoryBytes(long maxMemoryBytes) {
+		this.maxMemoryBytes = maxMemoryBytes;
+	}
+
+	/**
+	 * Used to get the largest number of bytes held by the disk tier.
+	 *
+	 * @return the size limit of the disk tier in bytes.
+	 */
+	public long getMaxDiskBytes() {
+		return maxDiskBytes;
+	}
+
+	/**
+	 * Used to set the largest number of bytes held by the disk tier.
+	 *
+	 * @param maxDiskBytes
+	 *            The size limit of the disk tier in bytes.
+	 */
+	public void setMaxDiskBytes(long maxDiskBytes) {
+		this.maxDiskBytes = maxDiskBytes;
+	}
+
+	/**
+	 * Used to get the number of threads fetching variants in the background.
+	 *
+	 * @return the number of prefetch threads.
+	 */
+	public int getPrefetchThreads() {
+		return prefetchThreads;
+	}
+
+	/**
+	 * Used to set the number of threads fetching variants in the background.
+	 * Takes effect on the next call to {@link #start()}.
+	 *
+	 * @param prefetchThreads
+	 *            The number of prefetch threads.
+	 */
+	public void setPrefetchThreads(int prefetchThreads) {
+		this.prefetchThreads = prefetchThreads;
+	}
+
+	/**
+	 * Used to get the number of prefetches that can wait for a thread before
+	 * the oldest is dropped.
+	 *
+	 * @return the depth of the prefetch queue.
+	 */
+	public int getPrefetchQueueDepth() {
+		return prefetchQueueDepth;
+	}
+
+	/**
+	 * Used to set the number of prefetches that can wait for a thread before
+	 * the oldest is dropped. Takes effect on the next call to
+	 * {@link #start()}.
+	 *
+	 * @param prefetchQueueDepth
+	 *            The depth of the prefetch queue.
+	 */
+	public void setPrefetchQueueDepth(int prefetchQueueDepth) {
+		this.prefetchQueueDepth = prefetchQueueDepth;
+	}
+
+	/**
+	 * Used to get the number of calls to {@link #get(String)} answered from
+	 * the memory tier.
+	 *
+	 * @return the number of memory hits.
+	 */
+	public long getMemoryHitCount() {
+		return memoryHitCount.get();
+	}
+
+	/**
+	 * Used to get the number of calls to {@link #get(String)} that did not
+	 * find the variant in the memory tier.
+	 *
+	 * @return the number of memory misses.
+	 */
+	public long getMemoryMissCount() {
+		return memoryMissCount.get();
+	}
+
+	/**
+	 * Used to get the number of memory misses of {@link #get(String)}
+	 * answered from the disk tier.
+	 *
+	 * @return the number of disk hits.
+	 */
+	public long getDiskHitCount() {
+		return diskHitCount.get();
+	}
+
+	/**
+	 * Used to get the number of memory misses of {@link #get(String)} that
+	 * did not find the variant in the disk tier either.
+	 *
+	 * @return the number of disk misses.
+	 */
+	public long getDiskMissCount() {
+		return diskMissCount.get();
+	}
+
+	/**
+	 * Used to get the number of variants fetched from SmugMug because neither
+	 * tier held them, by {@link #get(String)} or a prefetch.
+	 *
+	 * @return the number of fetches.
+	 */
+	public long getFetchCount() {
+		return fetchCount.get();
+	}
+
+	/**
+	 * Used to get the number of prefetches that had to load a variant from
+	 * the disk tier or SmugMug because it was not in memory.
+	 *
+	 * @return the number of prefetch loads.
+	 */
+	public long getPrefetchCount() {
+		return prefetchCount.get();
+	}
+}
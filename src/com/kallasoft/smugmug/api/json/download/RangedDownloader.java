@@ -0,0 +1,555 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.json.download;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.codec.DecoderException;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.httpclient.Header;
+import org.apache.commons.httpclient.HttpMethodBase;
+import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.methods.GetMethod;
+import org.apache.commons.httpclient.methods.HeadMethod;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.kallasoft.smugmug.api.APIConstants;
+import com.kallasoft.smugmug.api.NetworkException;
+import com.kallasoft.smugmug.api.json.entity.Image;
+import com.kallasoft.smugmug.api.util.APIUtils;
+import com.kallasoft.smugmug.api.util.BufferPool;
+
+/**
+ * Class used to download large files, such as the originals and videos
+ * referenced by the URL properties of {@link Image}, over several HTTP
+ * connections at once.
+ * <p>
+ * If the server accepts <code>Range</code> requests and the file is at
+ * least two chunks long, the file is split into chunks of
+ * {@link #setChunkSize(long)} bytes that are fetched in parallel and written
+ * straight to their position in a <code>.part</code> file with
+ * {@link FileChannel#write(ByteBuffer, long)}. Otherwise the file is fetched
+ * over a single connection.
+ * <p>
+ * The chunks that have been completely written are recorded in a
+ * <code>.part.state</code> sidecar file, so a download that is interrupted
+ * (or whose chunks fail) can be called again and only fetches the missing
+ * chunks. The state is discarded if the length, <code>ETag</code> or
+ * <code>Last-Modified</code> date of the file on the server has changed, or
+ * if the <code>.part</code> file is missing or not the length of the whole
+ * file. A download is never resumed if the server sends neither an
+ * <code>ETag</code> nor a <code>Last-Modified</code> date, since a changed
+ * file could not be told apart.
+ * <p>
+ * Once every chunk is present the MD5 Sum of the file is checked (if one is
+ * known) before it is moved into place.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class RangedDownloader {
+	/**
+	 * Defines the default size, in bytes, of each chunk requested.
+	 */
+	public static final long DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+	/**
+	 * Defines the default number of chunks of one file fetched at a time.
+	 */
+	public static final int DEFAULT_CONNECTIONS = 4;
+
+	/**
+	 * Defines the default number of times a chunk is requested before the
+	 * download fails.
+	 */
+	public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+	private static final Logger logger = LoggerFactory
+			.getLogger(RangedDownloader.class);
+
+	private static final Charset STATE_CHARSET = Charset.forName("UTF-8");
+
+	private long chunkSize = DEFAULT_CHUNK_SIZE;
+
+	private int connections = DEFAULT_CONNECTIONS;
+
+	private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+	/**
+	 * Used to download the original of the given image and check it against
+	 * the image's MD5 Sum.
+	 *
+	 * @param image
+	 *            The image to download, loaded with its original URL (e.g.
+	 *            by a heavy <code>smugmug.images.get</code>).
+	 * @param file
+	 *            The file to write the original to.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if image is <code>null</code> or has no original URL.
+	 *
+	 * @see #download(String, Path, String)
+	 */
+	public void downloadOriginal(Image image, Path file)
+			throws IllegalArgumentException, RuntimeException {
+		if (image == null)
+			throw new IllegalArgumentException("image cannot be null");
+
+		if (APIUtils.isEmpty(image.getOriginalURL()))
+			throw new IllegalArgumentException("image " + image.getID()
+					+ " has no original URL");
+
+		download(image.getOriginalURL(), file, image.getMD5Sum());
+	}
+
+	/**
+	 * Used to download the given URL to the given file, resuming a previous
+	 * attempt if one was interrupted.
+	 *
+	 * @param url
+	 *            The URL to download, e.g. {@link Image#getOriginalURL()} or
+	 *            {@link Image#getVideo1280URL()}.
+	 * @param file
+	 *            The file to write the download to. It is only created once
+	 *            the whole file has been downloaded and checked.
+	 * @param md5Sum
+	 *            The expected MD5 Sum of the file, or <code>null</code> to
+	 *            skip the check. {@link Image#getMD5Sum()} is the sum of the
+	 *            original only, not of the video or resized variants.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if url is <code>null</code> or empty, or file is
+	 *             <code>null</code>.
+	 * @throws RuntimeException
+	 *             if the download fails, is interrupted or does not match the
+	 *             MD5 Sum. Chunks already written are kept for the next call
+	 *             unless the MD5 Sum did not match.
+	 */
+	public void download(String url, Path file, String md5Sum)
+			throws IllegalArgumentException, RuntimeException {
+		if (APIUtils.isEmpty(url))
+			throw new IllegalArgumentException("url cannot be null or empty");
+
+		if (file == null)
+			throw new IllegalArgumentException("file cannot be null");
+
+		Path partFile = file.resolveSibling(file.getFileName() + ".part");
+		Path stateFile = file.resolveSibling(file.getFileName()
+				+ ".part.state");
+
+		try {
+			Files.createDirectories(file.toAbsolutePath().getParent());
+
+			DownloadState state = createState(url, partFile, stateFile);
+
+			if (state == null) {
+				Files.deleteIfExists(stateFile);
+				downloadSingle(url, partFile);
+			} else
+				downloadChunks(url, partFile, stateFile, state);
+
+			if (md5Sum != null) {
+				String actualMD5Sum = APIUtils.calculateMD5Sum(partFile);
+
+				if (!md5Sum.equalsIgnoreCase(actualMD5Sum)) {
+					/* A bad chunk cannot be found, so the next call starts over */
+					Files.deleteIfExists(partFile);
+					Files.deleteIfExists(stateFile);
+
+					throw new IOException("MD5 Sum mismatch downloading " + url
+							+ ", expected " + md5Sum + " but got "
+							+ actualMD5Sum);
+				}
+			}
+
+			Files.move(partFile, file, StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			Files.deleteIfExists(stateFile);
+		} catch (IOException e) {
+			RuntimeException re = new RuntimeException(e);
+			logger.error("Unable to download " + url, re);
+			throw re;
+		}
+	}
+
+	/**
+	 * Used to ask the server for the length and validators of the file and
+	 * load the matching state from a previous attempt.
+	 *
+	 * @return the state of a chunked download, or <code>null</code> if the
+	 *         file should be fetched over a single connection.
+	 */
+	private DownloadState createState(String url, Path partFile,
+			Path stateFile) throws IOException {
+		HeadMethod headMethod = new HeadMethod(url);
+		headMethod.setRequestHeader("User-Agent", APIConstants.USER_AGENT);
+
+		try {
+			int code = APIConstants.HTTP_CLIENT.executeMethod(headMethod);
+
+			if (code != HttpStatus.SC_OK)
+				return null;
+
+			Header acceptRanges = headMethod.getResponseHeader("Accept-Ranges");
+			Header contentLength = headMethod
+					.getResponseHeader("Content-Length");
+
+			if (acceptRanges == null
+					|| !"bytes".equalsIgnoreCase(acceptRanges.getValue())
+					|| contentLength == null)
+				return null;
+
+			long length = Long.parseLong(contentLength.getValue().trim());
+
+			if (length < chunkSize * 2)
+				return null;
+
+			Header validator = headMethod.getResponseHeader("ETag");
+
+			if (validator == null)
+				validator = headMethod.getResponseHeader("Last-Modified");
+
+			DownloadState state = new DownloadState(length,
+					(validator == null ? "" : validator.getValue()), chunkSize);
+			/* Without a validator a changed file would be resumed into a mix */
+			DownloadState previousState = (state.validator.length() == 0 ? null
+					: loadState(stateFile));
+
+			/* Completed chunks are only trusted if they are still on disk */
+			if (previousState != null && previousState.length == state.length
+					&& previousState.validator.equals(state.validator)
+					&& previousState.chunkSize == state.chunkSize
+					&& Files.exists(partFile)
+					&& Files.size(partFile) == state.length) {
+				logger.info("Resuming {} with {} of {} chunks complete", url,
+						Integer.valueOf(previousState.completed.cardinality()),
+						Integer.valueOf(previousState.getChunkCount()));
+				return previousState;
+			}
+
+			return state;
+		} catch (NumberFormatException e) {
+			return null;
+		} finally {
+			headMethod.releaseConnection();
+		}
+	}
+
+	private void downloadSingle(String url, Path partFile) throws IOException {
+		FileChannel channel = FileChannel.open(partFile,
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+
+		try {
+			fetch(url, channel, 0, -1);
+		} finally {
+			IOUtils.closeQuietly(channel);
+		}
+	}
+
+	private void downloadChunks(final String url, Path partFile,
+			Path stateFile, final DownloadState state) throws IOException {
+		final FileChannel channel = FileChannel.open(partFile,
+				StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		int chunkCount = state.getChunkCount();
+		int threads = Math.min(connections, chunkCount
+				- state.completed.cardinality());
+		ExecutorService executor = null;
+
+		try {
+			/* Drop anything left over from a longer, stale download */
+			channel.truncate(state.length);
+
+			if (threads <= 0)
+				return;
+
+			APIUtils.ensureConnectionCapacity(threads);
+			executor = Executors.newFixedThreadPool(threads);
+
+			List<Future<Void>> futureList = new ArrayList<Future<Void>>();
+
+			for (int i = 0; i < chunkCount; i++) {
+				if (state.completed.get(i))
+					continue;
+
+				final int chunk = i;
+				final Path finalStateFile = stateFile;
+
+				futureList.add(executor.submit(new Callable<Void>() {
+					public Void call() throws Exception {
+						long start = chunk * state.chunkSize;
+						long end = Math.min(start + state.chunkSize,
+								state.length) - 1;
+
+						fetchChunk(url, channel, start, end);
+
+						/* Only record chunks that are safely on disk */
+						channel.force(false);
+						state.complete(chunk, finalStateFile);
+
+						return null;
+					}
+				}));
+			}
+
+			IOException failure = null;
+
+			/* Wait for every chunk so the state records all that finished */
+			for (Future<Void> future : futureList) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					if (failure == null)
+						failure = new IOException(e.getCause());
+				}
+			}
+
+			if (failure != null)
+				throw failure;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted downloading " + url, e);
+		} finally {
+			if (executor != null)
+				executor.shutdownNow();
+
+			IOUtils.closeQuietly(channel);
+		}
+	}
+
+	private void fetchChunk(String url, FileChannel channel, long start,
+			long end) throws IOException {
+		for (int attempt = 1;; attempt++) {
+			try {
+				fetch(url, channel, start, end);
+				return;
+			} catch (IOException e) {
+				if (attempt >= maxAttempts)
+					throw e;
+
+				logger.warn("Attempt {} to fetch bytes {}-{} of {} failed",
+						new Object[] { Integer.valueOf(attempt),
+								Long.valueOf(start), Long.valueOf(end), url });
+			}
+		}
+	}
+
+	/**
+	 * Used to fetch the given byte range of the URL, or the whole URL if end
+	 * is negative, and write it to the same position of the channel.
+	 */
+	private void fetch(String url, FileChannel channel, long start, long end)
+			throws IOException {
+		HttpMethodBase getMethod = new GetMethod(url);
+		getMethod.setRequestHeader("User-Agent", APIConstants.USER_AGENT);
+
+		if (end >= 0)
+			getMethod.setRequestHeader("Range", "bytes=" + start + "-" + end);
+
+		byte[] buffer = BufferPool.getDefault().acquire();
+
+		try {
+			int code = APIConstants.HTTP_CLIENT.executeMethod(getMethod);
+			int expectedCode = (end >= 0 ? HttpStatus.SC_PARTIAL_CONTENT
+					: HttpStatus.SC_OK);
+
+			if (code != expectedCode)
+				throw new NetworkException("An HTTP status code of [" + code
+						+ "] was returned fetching " + url);
+
+			InputStream in = getMethod.getResponseBodyAsStream();
+			long position = start;
+
+			for (int count; (count = in.read(buffer)) != -1;) {
+				ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, count);
+
+				while (byteBuffer.hasRemaining())
+					position += channel.write(byteBuffer, position);
+			}
+
+			if (end >= 0 && position != end + 1)
+				throw new IOException("Expected bytes " + start + "-" + end
+						+ " of " + url + " but received " + (position - start));
+		} catch (NetworkException e) {
+			throw new IOException(e.getMessage(), e);
+		} finally {
+			BufferPool.getDefault().release(buffer);
+			getMethod.releaseConnection();
+		}
+	}
+
+	/**
+	 * Used to load the state file, the first line of which holds the length,
+	 * chunk size and validator of the file separated by tabs and the second
+	 * the completed chunks as a hex-encoded {@link BitSet}.
+	 *
+	 * @return the state, or <code>null</code> if there is none or it cannot
+	 *         be read.
+	 */
+	private DownloadState loadState(Path stateFile) {
+		if (!Files.exists(stateFile))
+			return null;
+
+		BufferedReader reader = null;
+
+		try {
+			reader = Files.newBufferedReader(stateFile, STATE_CHARSET);
+			String[] values = reader.readLine().split("\t", 3);
+			String completed = reader.readLine();
+
+			DownloadState state = new DownloadState(Long.parseLong(values[0]),
+					values[2], Long.parseLong(values[1]));
+
+			if (completed != null)
+				state.completed = BitSet.valueOf(Hex.decodeHex(completed
+						.toCharArray()));
+
+			return state;
+		} catch (IOException e) {
+			logger.warn("Unable to read " + stateFile + ", starting over", e);
+		} catch (DecoderException e) {
+			logger.warn("Unable to read " + stateFile + ", starting over", e);
+		} catch (RuntimeException e) {
+			logger.warn("Unable to read " + stateFile + ", starting over", e);
+		} finally {
+			IOUtils.closeQuietly(reader);
+		}
+
+		return null;
+	}
+
+	/**
+	 * Used to get the size, in bytes, of each chunk requested.
+	 *
+	 * @return the chunk size in bytes.
+	 */
+	public long getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * Used to set the size, in bytes, of each chunk requested. Files shorter
+	 * than two chunks are fetched over a single connection. Changing the
+	 * chunk size discards the state of interrupted downloads.
+	 *
+	 * @param chunkSize
+	 *            The chunk size in bytes.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if chunkSize is not positive.
+	 */
+	public void setChunkSize(long chunkSize) throws IllegalArgumentException {
+		if (chunkSize <= 0)
+			throw new IllegalArgumentException("chunkSize must be > 0");
+
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Used to get the number of chunks of one file fetched at a time.
+	 *
+	 * @return the number of connections per download.
+	 */
+	public int getConnections() {
+		return connections;
+	}
+
+	/**
+	 * Used to set the number of chunks of one file fetched at a time.
+	 *
+	 * @param connections
+	 *            The number of connections per download.
+	 */
+	public void setConnections(int connections) {
+		this.connections = connections;
+	}
+
+	/**
+	 * Used to get the number of times a chunk is requested before the
+	 * download fails.
+	 *
+	 * @return the number of attempts per chunk.
+	 */
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	/**
+	 * Used to set the number of times a chunk is requested before the
+	 * download fails.
+	 *
+	 * @param maxAttempts
+	 *            The number of attempts per chunk.
+	 */
+	public void setMaxAttempts(int maxAttempts) {
+		this.maxAttempts = maxAttempts;
+	}
+
+	/**
+	 * Class used to represent the progress of a chunked download.
+	 */
+	private static class DownloadState {
+		private long length;
+
+		private String validator;
+
+		private long chunkSize;
+
+		private BitSet completed = new BitSet();
+
+		public DownloadState(long length, String validator, long chunkSize) {
+			this.length = length;
+			this.validator = validator;
+			this.chunkSize = chunkSize;
+		}
+
+		public int getChunkCount() {
+			return (int) ((length + chunkSize - 1) / chunkSize);
+		}
+
+		/**
+		 * Used to mark a chunk complete and rewrite the state file. The file
+		 * is replaced atomically so an interruption never corrupts it.
+		 */
+		public synchronized void complete(int chunk, Path stateFile)
+				throws IOException {
+			completed.set(chunk);
+
+			APIUtils.writeLinesAtomically(stateFile, Arrays.asList(length
+					+ "\t" + chunkSize + "\t" + validator, Hex
+					.encodeHexString(completed.toByteArray())), STATE_CHARSET);
+		}
+	}
+}
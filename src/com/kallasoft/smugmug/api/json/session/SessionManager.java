@@ -0,0 +1,518 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.json.session;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.kallasoft.smugmug.api.json.AbstractResponse;
+import com.kallasoft.smugmug.api.json.v1_2_0.APIVersionConstants;
+import com.kallasoft.smugmug.api.json.v1_2_0.login.WithHash;
+import com.kallasoft.smugmug.api.json.v1_2_0.login.WithPassword;
+import com.kallasoft.smugmug.api.json.v1_2_0.login.WithHash.WithHashResponse;
+import com.kallasoft.smugmug.api.json.v1_2_0.login.WithPassword.WithPasswordResponse;
+import com.kallasoft.smugmug.api.json.v1_2_0.logout.Logout;
+import com.kallasoft.smugmug.api.json.v1_2_0.logout.Logout.LogoutResponse;
+import com.kallasoft.smugmug.api.util.APIUtils;
+
+/**
+ * Class used to hold the session of one account and share it between every
+ * thread that calls SmugMug on behalf of that account.
+ * <p>
+ * The first call to {@link #getSessionID()} logs in. Calls made through
+ * {@link #execute(Call)} that fail with an invalid session error (see
+ * {@link AbstractResponse.Error#isInvalidSession()}) cause the manager to log
+ * in again and the call to be made again with the new session. However many
+ * threads see the session expire at the same time, only one of them logs in;
+ * the others wait for it and use the session it got.
+ * <p>
+ * An account logged into with its email address and password is logged into
+ * again with the UserID and password hash SmugMug returned, so the password
+ * is only sent once.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class SessionManager {
+	private static final Logger logger = LoggerFactory
+			.getLogger(SessionManager.class);
+
+	private WithHash withHashMethod = new WithHash();
+
+	private WithPassword withPasswordMethod = new WithPassword();
+
+	private Logout logoutMethod = new Logout();
+
+	private String url;
+
+	private String apiKey;
+
+	private String emailAddress;
+
+	private String password;
+
+	private Long userID;
+
+	private String passwordHash;
+
+	private String nickName;
+
+	private Object loginLock = new Object();
+
+	private volatile String sessionID;
+
+	private volatile long loginTime;
+
+	private volatile int generation;
+
+	private RuntimeException lastLoginException;
+
+	private AtomicLong loginCount = new AtomicLong();
+
+	private AtomicLong replayCount = new AtomicLong();
+
+	/**
+	 * Construct a new manager that logs into the secure SmugMug API server with
+	 * a UserID and password hash.
+	 *
+	 * @param apiKey
+	 *            The API Key to use. API keys are issued by SmugMug.
+	 * @param userID
+	 *            The ID of the user.
+	 * @param passwordHash
+	 *            The password hash of the user.
+	 */
+	public SessionManager(String apiKey, Long userID, String passwordHash) {
+		this(APIVersionConstants.SECURE_SERVER_URL, apiKey, userID,
+				passwordHash);
+	}
+
+	/**
+	 * Construct a new manager that logs in with a UserID and password hash.
+	 *
+	 * @param url
+	 *            The URL of the SmugMug server to communicate with.
+	 * @param apiKey
+	 *            The API Key to use. API keys are issued by SmugMug.
+	 * @param userID
+	 *            The ID of the user.
+	 * @param passwordHash
+	 *            The password hash of the user.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if url or passwordHash is <code>null</code> or empty.
+	 * @throws IllegalArgumentException
+	 *             if userID is <code>null</code>.
+	 */
+	public SessionManager(String url, String apiKey, Long userID,
+			String passwordHash) throws IllegalArgumentException {
+		if (APIUtils.isEmpty(url))
+			throw new IllegalArgumentException("url cannot be null or empty");
+
+		if (userID == null)
+			throw new IllegalArgumentException("userID cannot be null");
+
+		if (APIUtils.isEmpty(passwordHash))
+			throw new IllegalArgumentException(
+					"passwordHash cannot be null or empty");
+
+		this.url = url;
+		this.apiKey = apiKey;
+		this.userID = userID;
+		this.passwordHash = passwordHash;
+	}
+
+	/**
+	 * Construct a new manager that logs into the secure SmugMug API server with
+	 * an email address and password.
+	 *
+	 * @param apiKey
+	 *            The API Key to use. API keys are issued by SmugMug.
+	 * @param emailAddress
+	 *            The email address (login) of the user.
+	 * @param password
+	 *            The password of the user.
+	 */
+	public SessionManager(String apiKey, String emailAddress, String password) {
+		this(APIVersionConstants.SECURE_SERVER_URL, apiKey, emailAddress,
+				password);
+	}
+
+	/**
+	 * Construct a new manager that logs in with an email address and
+	 * password.
+	 *
+	 * @param url
+	 *            The URL of the SmugMug server to communicate with.
+	 * @param apiKey
+	 *            The API Key to use. API keys are issued by SmugMug.
+	 * @param emailAddress
+	 *            The email address (login) of the user.
+	 * @param password
+	 *            The password of the user.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if url, emailAddress or password is <code>null</code> or
+	 *             empty.
+	 */
+	public SessionManager(String url, String apiKey, String emailAddress,
+			String password) throws IllegalArgumentException {
+		if (APIUtils.isEmpty(url))
+			throw new IllegalArgumentException("url cannot be null or empty");
+
+		if (APIUtils.isEmpty(emailAddress))
+			throw new IllegalArgumentException(
+					"emailAddress cannot be null or empty");
+
+		if (APIUtils.isEmpty(password))
+			throw new IllegalArgumentException(
+					"password cannot be null or empty");
+
+		this.url = url;
+		this.apiKey = apiKey;
+		this.emailAddress = emailAddress;
+		this.password = password;
+	}
+
+	@Override
+	public String toString() {
+		return SessionManager.class.getName() + "[userID=" + getUserID()
+				+ ", nickName=" + getNickName() + ", loggedIn=" + isLoggedIn()
+				+ ", loginCount=" + getLoginCount() + ", replayCount="
+				+ getReplayCount() + "]";
+	}
+
+	/**
+	 * Used to get the current session, logging in if there is none.
+	 *
+	 * @return the SessionID.
+	 *
+	 * @throws RuntimeException
+	 *             if logging in fails.
+	 */
+	public String getSessionID() throws RuntimeException {
+		String current = sessionID;
+
+		if (current != null)
+			return current;
+
+		return renew(null);
+	}
+
+	/**
+	 * Used to replace a session SmugMug no longer accepts.
+	 * <p>
+	 * If the session has already been replaced since
+	 * <code>staleSessionID</code> was handed out, the replacement is returned
+	 * without logging in again. Threads that arrive while another thread is
+	 * logging in wait for it, and share its session or its failure.
+	 *
+	 * @param staleSessionID
+	 *            The SessionID that was rejected, or <code>null</code> to only
+	 *            log in if there is no session.
+	 *
+	 * @return the new SessionID.
+	 *
+	 * @throws RuntimeException
+	 *             if logging in fails.
+	 */
+	public String renew(String staleSessionID) throws RuntimeException {
+		int observedGeneration = generation;
+
+		synchronized (loginLock) {
+			/*
+			 * Someone else logged in while we waited, share the outcome. A
+			 * logout also moves the generation on but leaves no outcome, so
+			 * log in ourselves then.
+			 */
+			if (generation != observedGeneration) {
+				if (lastLoginException != null)
+					throw lastLoginException;
+
+				if (sessionID != null)
+					return sessionID;
+			}
+
+			if (sessionID != null && !sessionID.equals(staleSessionID))
+				return sessionID;
+
+			generation++;
+
+			try {
+				sessionID = login();
+				loginTime = System.currentTimeMillis();
+				lastLoginException = null;
+			} catch (RuntimeException e) {
+				sessionID = null;
+				lastLoginException = e;
+				throw e;
+			}
+
+			return sessionID;
+		}
+	}
+
+	/**
+	 * Used to replace the current session with a new one before SmugMug
+	 * expires it, then log out the replaced session. Does nothing if there is
+	 * no session.
+	 * <p>
+	 * Calls still in flight with the replaced session may be rejected; those
+	 * made through {@link #execute(Call)} are made again with the new session.
+	 *
+	 * @throws RuntimeException
+	 *             if logging in fails.
+	 */
+	public void refresh() throws RuntimeException {
+		String current = sessionID;
+
+		if (current == null)
+			return;
+
+		String replacement = renew(current);
+
+		/* The old session is no longer handed out, end it */
+		if (replacement != null && !replacement.equals(current))
+			logout(current);
+	}
+
+	private String login() throws RuntimeException {
+		loginCount.incrementAndGet();
+		AbstractResponse response;
+		String newSessionID;
+
+		if (passwordHash == null) {
+			logger.debug("Logging in {} with password", emailAddress);
+
+			WithPasswordResponse passwordResponse = withPasswordMethod
+					.execute(url, apiKey, emailAddress, password);
+			response = passwordResponse;
+			newSessionID = passwordResponse.getSessionID();
+
+			if (!passwordResponse.isError()) {
+				/* Log in with the hash from now on */
+				userID = passwordResponse.getUserID();
+				passwordHash = passwordResponse.getPasswordHash();
+				nickName = passwordResponse.getNickName();
+				password = null;
+			}
+		} else {
+			logger.debug("Logging in {} with hash", userID);
+
+			WithHashResponse hashResponse = withHashMethod.execute(url, apiKey,
+					userID, passwordHash);
+			response = hashResponse;
+			newSessionID = hashResponse.getSessionID();
+
+			if (!hashResponse.isError())
+				nickName = hashResponse.getNickName();
+		}
+
+		if (response.isError() || APIUtils.isEmpty(newSessionID)) {
+			RuntimeException re = new RuntimeException("Unable to log in "
+					+ (userID == null ? emailAddress : userID) + ": "
+					+ response.getError());
+			logger.error("Login failed", re);
+			throw re;
+		}
+
+		return newSessionID;
+	}
+
+	/**
+	 * Used to make a call with the current session and, if SmugMug rejects the
+	 * session, log in again and make the call once more.
+	 * <p>
+	 * Only use this method for calls that are safe to make twice (reads, or
+	 * changes that set rather than add). A rejected session means SmugMug did
+	 * nothing, but the call will be sent again.
+	 *
+	 * @param call
+	 *            The call to make.
+	 *
+	 * @return the response of the last attempt.
+	 *
+	 * @throws RuntimeException
+	 *             if logging in fails.
+	 */
+	public <R extends AbstractResponse> R execute(Call<R> call)
+			throws RuntimeException {
+		String currentSessionID = getSessionID();
+		R response = call.execute(currentSessionID);
+
+		if (isInvalidSession(response)) {
+			logger.debug("Session of {} rejected, replaying the call", userID);
+			replayCount.incrementAndGet();
+			response = call.execute(renew(currentSessionID));
+		}
+
+		return response;
+	}
+
+	/**
+	 * Used to make a call with the current session, logging in again if
+	 * SmugMug rejects the session but without making the call again.
+	 *
+	 * @param call
+	 *            The call to make.
+	 *
+	 * @return the response, which is an invalid session error if the session
+	 *         had to be replaced.
+	 *
+	 * @throws RuntimeException
+	 *             if logging in fails.
+	 */
+	public <R extends AbstractResponse> R executeOnce(Call<R> call)
+			throws RuntimeException {
+		String currentSessionID = getSessionID();
+		R response = call.execute(currentSessionID);
+
+		if (isInvalidSession(response))
+			renew(currentSessionID);
+
+		return response;
+	}
+
+	private static boolean isInvalidSession(AbstractResponse response) {
+		return (response != null && response.isError() && response.getError()
+				.isInvalidSession());
+	}
+
+	/**
+	 * Used to end the current session, if there is one. The next call logs in
+	 * again.
+	 */
+	public void logout() {
+		synchronized (loginLock) {
+			if (sessionID == null)
+				return;
+
+			logout(sessionID);
+			sessionID = null;
+			generation++;
+			lastLoginException = null;
+		}
+	}
+
+	private void logout(String oldSessionID) {
+		try {
+			LogoutResponse response = logoutMethod.execute(url, apiKey,
+					oldSessionID);
+
+			if (response.isError())
+				logger.warn("Unable to log out {}: {}", userID, response
+						.getError());
+		} catch (RuntimeException e) {
+			logger.warn("Unable to log out " + userID, e);
+		}
+	}
+
+	/**
+	 * Used to determine if the manager holds a session.
+	 *
+	 * @return <code>true</code> if there is a session.
+	 */
+	public boolean isLoggedIn() {
+		return (sessionID != null);
+	}
+
+	/**
+	 * Used to get the time the current session was obtained.
+	 *
+	 * @return the time in milliseconds, or <code>0</code> if the manager
+	 *         never logged in.
+	 */
+	public long getLoginTime() {
+		return loginTime;
+	}
+
+	/**
+	 * Used to get the ID of the user, which is only known before the first
+	 * login if the manager was given it.
+	 *
+	 * @return the UserID, or <code>null</code> if it is not known yet.
+	 */
+	public Long getUserID() {
+		synchronized (loginLock) {
+			return userID;
+		}
+	}
+
+	/**
+	 * Used to get the nick name of the user, which is known after the first
+	 * login.
+	 *
+	 * @return the nick name, or <code>null</code> if it is not known yet.
+	 */
+	public String getNickName() {
+		synchronized (loginLock) {
+			return nickName;
+		}
+	}
+
+	public String getURL() {
+		return url;
+	}
+
+	public String getAPIKey() {
+		return apiKey;
+	}
+
+	/**
+	 * Used to get the number of times the manager logged in.
+	 *
+	 * @return the number of logins, successful or not.
+	 */
+	public long getLoginCount() {
+		return loginCount.get();
+	}
+
+	/**
+	 * Used to get the number of calls made again after their session was
+	 * rejected.
+	 *
+	 * @return the number of replayed calls.
+	 */
+	public long getReplayCount() {
+		return replayCount.get();
+	}
+
+	/**
+	 * Interface used to describe a call made with whatever session the
+	 * {@link SessionManager} currently holds, e.g.
+	 *
+	 * <pre>
+	 * GetResponse response = manager.execute(new Call&lt;GetResponse&gt;() {
+	 * 	public GetResponse execute(String sessionID) {
+	 * 		return getMethod.execute(url, apiKey, sessionID);
+	 * 	}
+	 * });
+	 * </pre>
+	 *
+	 * @author smugmug-java-api contributors
+	 */
+	public interface Call<R extends AbstractResponse> {
+		/**
+		 * Used to make the call.
+		 *
+		 * @param sessionID
+		 *            The SessionID to make the call with.
+		 *
+		 * @return the response.
+		 */
+		public R execute(String sessionID);
+	}
+}
@@ -0,0 +1,576 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.json.session;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.kallasoft.smugmug.api.json.AbstractResponse;
+import com.kallasoft.smugmug.api.json.v1_2_0.APIVersionConstants;
+import com.kallasoft.smugmug.api.util.APIUtils;
+
+/**
+ * Class used to hold the sessions of many accounts (tenants) managed by one
+ * service.
+ * <p>
+ * Accounts are registered once with their UserID, nick name and password
+ * hash, which costs a few strings, and are logged in the first time a call
+ * is made for them. Each account gets a {@link SessionManager}, so expired
+ * sessions are replaced transparently and only once.
+ * <p>
+ * The number of accounts logged in at the same time is bounded (see
+ * {@link #setMaxSessions(int)}); when it is exceeded the least recently used
+ * idle account is logged out. The number of calls made at once for one
+ * account is bounded too (see {@link #setMaxCallsPerTenant(int)}), so one
+ * busy account cannot take every connection. The shared HTTP client is given
+ * enough connections for all accounts together (see
+ * {@link #setMaxConnections(int)}).
+ * <p>
+ * Once {@link #start()} is called, a background thread logs accounts in
+ * again shortly before their session would expire (see
+ * {@link #setSessionLifetime(long)}), so calls for busy accounts never wait
+ * on a login. The replaced session is logged out.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class SessionPool {
+	/**
+	 * Defines the default number of accounts logged in at the same time.
+	 */
+	public static final int DEFAULT_MAX_SESSIONS = 256;
+
+	/**
+	 * Defines the default number of calls made at once for one account.
+	 */
+	public static final int DEFAULT_MAX_CALLS_PER_TENANT = 4;
+
+	/**
+	 * Defines the default number of connections the shared HTTP client allows
+	 * for all accounts together.
+	 */
+	public static final int DEFAULT_MAX_CONNECTIONS = 64;
+
+	/**
+	 * Defines the default time in milliseconds a session is assumed to last.
+	 */
+	public static final long DEFAULT_SESSION_LIFETIME = TimeUnit.HOURS
+			.toMillis(6);
+
+	/**
+	 * Defines the default time in milliseconds before a session's assumed
+	 * expiry at which it is replaced.
+	 */
+	public static final long DEFAULT_REFRESH_MARGIN = TimeUnit.MINUTES
+			.toMillis(15);
+
+	private static final Logger logger = LoggerFactory
+			.getLogger(SessionPool.class);
+
+	private static final AtomicInteger poolCount = new AtomicInteger();
+
+	private String url;
+
+	private String apiKey;
+
+	private int maxSessions = DEFAULT_MAX_SESSIONS;
+
+	private int maxCallsPerTenant = DEFAULT_MAX_CALLS_PER_TENANT;
+
+	private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+
+	private long sessionLifetime = DEFAULT_SESSION_LIFETIME;
+
+	private long refreshMargin = DEFAULT_REFRESH_MARGIN;
+
+	private ConcurrentMap<Long, Tenant> userIDMap = new ConcurrentHashMap<Long, Tenant>();
+
+	private ConcurrentMap<String, Tenant> nickNameMap = new ConcurrentHashMap<String, Tenant>();
+
+	/* Access ordered, so the eldest entry is the least recently used */
+	private LinkedHashMap<Long, Tenant> activeMap = new LinkedHashMap<Long, Tenant>(
+			16, 0.75f, true);
+
+	private ScheduledExecutorService refreshExecutor;
+
+	private AtomicLong evictionCount = new AtomicLong();
+
+	private AtomicLong refreshCount = new AtomicLong();
+
+	/**
+	 * Construct a new pool that logs into the secure SmugMug API server.
+	 *
+	 * @param apiKey
+	 *            The API Key to use. API keys are issued by SmugMug.
+	 */
+	public SessionPool(String apiKey) {
+		this(APIVersionConstants.SECURE_SERVER_URL, apiKey);
+	}
+
+	/**
+	 * Construct a new pool.
+	 *
+	 * @param url
+	 *            The URL of the SmugMug server to communicate with.
+	 * @param apiKey
+	 *            The API Key to use. API keys are issued by SmugMug.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if url is <code>null</code> or empty.
+	 */
+	public SessionPool(String url, String apiKey)
+			throws IllegalArgumentException {
+		if (APIUtils.isEmpty(url))
+			throw new IllegalArgumentException("url cannot be null or empty");
+
+		this.url = url;
+		this.apiKey = apiKey;
+
+		/* Every call goes to the one server, so both limits must allow it */
+		APIUtils.ensureConnectionCapacity(maxConnections, maxConnections);
+	}
+
+	@Override
+	public String toString() {
+		return SessionPool.class.getName() + "[tenantCount="
+				+ getTenantCount() + ", activeCount=" + getActiveCount()
+				+ ", evictionCount=" + getEvictionCount() + ", refreshCount="
+				+ getRefreshCount() + "]";
+	}
+
+	/**
+	 * Used to register an account. Registering an account again replaces its
+	 * password hash the next time it logs in.
+	 *
+	 * @param userID
+	 *            The ID of the user.
+	 * @param nickName
+	 *            The nick name of the user, or <code>null</code> if calls are
+	 *            only made by UserID.
+	 * @param passwordHash
+	 *            The password hash of the user.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if userID is <code>null</code>.
+	 * @throws IllegalArgumentException
+	 *             if passwordHash is <code>null</code> or empty.
+	 */
+	public void register(Long userID, String nickName, String passwordHash)
+			throws IllegalArgumentException {
+		Tenant tenant = new Tenant(new SessionManager(url, apiKey, userID,
+				passwordHash), maxCallsPerTenant);
+		Tenant previous = userIDMap.put(userID, tenant);
+
+		if (previous != null)
+			unregister(previous);
+
+		if (nickName != null)
+			nickNameMap.put(nickName, tenant);
+	}
+
+	/**
+	 * Used to remove an account, logging it out if it is logged in.
+	 *
+	 * @param userID
+	 *            The ID of the user.
+	 */
+	public void unregister(Long userID) {
+		Tenant tenant = userIDMap.remove(userID);
+
+		if (tenant != null)
+			unregister(tenant);
+	}
+
+	private void unregister(Tenant tenant) {
+		nickNameMap.values().remove(tenant);
+
+		synchronized (activeMap) {
+			if (activeMap.get(tenant.userID) == tenant)
+				activeMap.remove(tenant.userID);
+		}
+
+		tenant.manager.logout();
+	}
+
+	/**
+	 * Used to make a call for the account with the given UserID.
+	 *
+	 * @param userID
+	 *            The ID of the user.
+	 * @param call
+	 *            The call to make, which must be safe to make twice (see
+	 *            {@link SessionManager#execute(SessionManager.Call)}).
+	 *
+	 * @return the response.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the account is not registered.
+	 * @throws RuntimeException
+	 *             if logging in fails, or the calling thread is interrupted
+	 *             while waiting for its turn.
+	 */
+	public <R extends AbstractResponse> R execute(Long userID,
+			SessionManager.Call<R> call) throws IllegalArgumentException,
+			RuntimeException {
+		return execute(userIDMap.get(userID), userID, call);
+	}
+
+	/**
+	 * Used to make a call for the account with the given nick name.
+	 *
+	 * @param nickName
+	 *            The nick name of the user.
+	 * @param call
+	 *            The call to make, which must be safe to make twice (see
+	 *            {@link SessionManager#execute(SessionManager.Call)}).
+	 *
+	 * @return the response.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the account is not registered.
+	 * @throws RuntimeException
+	 *             if logging in fails, or the calling thread is interrupted
+	 *             while waiting for its turn.
+	 */
+	public <R extends AbstractResponse> R execute(String nickName,
+			SessionManager.Call<R> call) throws IllegalArgumentException,
+			RuntimeException {
+		return execute(nickNameMap.get(nickName), nickName, call);
+	}
+
+	private <R extends AbstractResponse> R execute(Tenant tenant, Object key,
+			SessionManager.Call<R> call) throws IllegalArgumentException,
+			RuntimeException {
+		if (tenant == null)
+			throw new IllegalArgumentException("No account is registered as "
+					+ key);
+
+		try {
+			tenant.permits.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			RuntimeException re = new RuntimeException(e);
+			logger.error("Interrupted while waiting to call SmugMug for "
+					+ key, re);
+			throw re;
+		}
+
+		tenant.activeCalls.incrementAndGet();
+
+		try {
+			touch(tenant);
+			return tenant.manager.execute(call);
+		} finally {
+			tenant.activeCalls.decrementAndGet();
+			tenant.permits.release();
+		}
+	}
+
+	/**
+	 * Used to mark an account as the most recently used and log out the least
+	 * recently used idle accounts if too many are logged in.
+	 */
+	private void touch(Tenant tenant) {
+		List<Tenant> evictedList = null;
+
+		synchronized (activeMap) {
+			activeMap.put(tenant.userID, tenant);
+
+			Iterator<Tenant> iterator = activeMap.values().iterator();
+
+			while (activeMap.size() > maxSessions && iterator.hasNext()) {
+				Tenant eldest = iterator.next();
+
+				/* Accounts with calls in flight would only log in again */
+				if (eldest == tenant || eldest.activeCalls.get() > 0)
+					continue;
+
+				iterator.remove();
+
+				if (evictedList == null)
+					evictedList = new ArrayList<Tenant>();
+
+				evictedList.add(eldest);
+			}
+		}
+
+		if (evictedList == null)
+			return;
+
+		/* Log out outside the lock, it is a network call */
+		for (Tenant evicted : evictedList) {
+			logger.debug("Logging out least recently used account {}",
+					evicted.userID);
+			evictionCount.incrementAndGet();
+			evicted.manager.logout();
+		}
+	}
+
+	/**
+	 * Used to start the background thread that replaces sessions before they
+	 * expire.
+	 *
+	 * @throws IllegalStateException
+	 *             if the pool is already started.
+	 */
+	public synchronized void start() throws IllegalStateException {
+		if (refreshExecutor != null)
+			throw new IllegalStateException("The pool is already started");
+
+		final String threadName = "SessionPool-" + poolCount.incrementAndGet();
+
+		refreshExecutor = Executors
+				.newSingleThreadScheduledExecutor(new ThreadFactory() {
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, threadName);
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+
+		/* Check often enough that no session outlives its margin */
+		long period = Math.max(1000, refreshMargin / 4);
+
+		refreshExecutor.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				refreshExpiring();
+			}
+		}, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Used to stop the background thread. Sessions stay logged in.
+	 */
+	public synchronized void stop() {
+		if (refreshExecutor == null)
+			return;
+
+		refreshExecutor.shutdownNow();
+		refreshExecutor = null;
+	}
+
+	/**
+	 * Used to stop the background thread and log out every account.
+	 */
+	public void close() {
+		stop();
+
+		List<Tenant> activeList;
+
+		synchronized (activeMap) {
+			activeList = new ArrayList<Tenant>(activeMap.values());
+			activeMap.clear();
+		}
+
+		for (Tenant tenant : activeList)
+			tenant.manager.logout();
+	}
+
+	private void refreshExpiring() {
+		long deadline = System.currentTimeMillis() - sessionLifetime
+				+ refreshMargin;
+		List<Tenant> expiringList = new ArrayList<Tenant>();
+
+		synchronized (activeMap) {
+			/* Iterating the values does not change the access order */
+			for (Tenant tenant : activeMap.values()) {
+				if (tenant.manager.isLoggedIn()
+						&& tenant.manager.getLoginTime() <= deadline)
+					expiringList.add(tenant);
+			}
+		}
+
+		for (Tenant tenant : expiringList) {
+			if (Thread.currentThread().isInterrupted())
+				return;
+
+			try {
+				tenant.manager.refresh();
+				refreshCount.incrementAndGet();
+			} catch (RuntimeException e) {
+				/* The next call for the account will try again */
+				logger.warn("Unable to refresh the session of "
+						+ tenant.userID, e);
+			}
+		}
+	}
+
+	/**
+	 * Used to get the session manager of an account, e.g. to hand its
+	 * SessionID to code that does not go through the pool. Calls made that
+	 * way do not count against the account's limit.
+	 *
+	 * @param userID
+	 *            The ID of the user.
+	 *
+	 * @return the session manager, or <code>null</code> if the account is not
+	 *         registered.
+	 */
+	public SessionManager getSessionManager(Long userID) {
+		Tenant tenant = userIDMap.get(userID);
+
+		return (tenant == null ? null : tenant.manager);
+	}
+
+	/**
+	 * Used to get the number of registered accounts.
+	 *
+	 * @return the number of accounts.
+	 */
+	public int getTenantCount() {
+		return userIDMap.size();
+	}
+
+	/**
+	 * Used to get the number of accounts logged in through the pool.
+	 *
+	 * @return the number of accounts with a session.
+	 */
+	public int getActiveCount() {
+		synchronized (activeMap) {
+			return activeMap.size();
+		}
+	}
+
+	/**
+	 * Used to get the number of accounts logged out to make room for others.
+	 *
+	 * @return the number of evictions.
+	 */
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+
+	/**
+	 * Used to get the number of sessions replaced by the background thread.
+	 *
+	 * @return the number of refreshes.
+	 */
+	public long getRefreshCount() {
+		return refreshCount.get();
+	}
+
+	public int getMaxSessions() {
+		return maxSessions;
+	}
+
+	/**
+	 * Used to set the number of accounts logged in at the same time. Accounts
+	 * with calls in flight are never logged out, so the bound can be exceeded
+	 * briefly.
+	 *
+	 * @param maxSessions
+	 *            The number of accounts logged in at the same time.
+	 */
+	public void setMaxSessions(int maxSessions) {
+		this.maxSessions = maxSessions;
+	}
+
+	public int getMaxCallsPerTenant() {
+		return maxCallsPerTenant;
+	}
+
+	/**
+	 * Used to set the number of calls made at once for one account. The
+	 * shared HTTP client is given enough connections for one account to reach
+	 * its limit. Takes effect for accounts registered afterwards.
+	 *
+	 * @param maxCallsPerTenant
+	 *            The number of calls made at once for one account.
+	 */
+	public void setMaxCallsPerTenant(int maxCallsPerTenant) {
+		this.maxCallsPerTenant = maxCallsPerTenant;
+	}
+
+	public int getMaxConnections() {
+		return maxConnections;
+	}
+
+	/**
+	 * Used to set the number of connections the shared HTTP client allows for
+	 * all accounts together, both to the SmugMug server and in total. The
+	 * client's limits are raised right away but never lowered.
+	 *
+	 * @param maxConnections
+	 *            The number of connections for all accounts together.
+	 */
+	public void setMaxConnections(int maxConnections) {
+		this.maxConnections = maxConnections;
+		APIUtils.ensureConnectionCapacity(maxConnections, maxConnections);
+	}
+
+	public long getSessionLifetime() {
+		return sessionLifetime;
+	}
+
+	/**
+	 * Used to set how long a session is assumed to last after logging in.
+	 * Takes effect on the next check of the background thread.
+	 *
+	 * @param sessionLifetime
+	 *            The lifetime in milliseconds.
+	 */
+	public void setSessionLifetime(long sessionLifetime) {
+		this.sessionLifetime = sessionLifetime;
+	}
+
+	public long getRefreshMargin() {
+		return refreshMargin;
+	}
+
+	/**
+	 * Used to set how long before its assumed expiry a session is replaced.
+	 * Takes effect on the next call to {@link #start()}.
+	 *
+	 * @param refreshMargin
+	 *            The margin in milliseconds.
+	 */
+	public void setRefreshMargin(long refreshMargin) {
+		this.refreshMargin = refreshMargin;
+	}
+
+	/**
+	 * Class used to represent a registered account.
+	 */
+	private static class Tenant {
+		private Long userID;
+
+		private SessionManager manager;
+
+		private Semaphore permits;
+
+		private AtomicInteger activeCalls = new AtomicInteger();
+
+		public Tenant(SessionManager manager, int maxCalls) {
+			this.userID = manager.getUserID();
+			this.manager = manager;
+			this.permits = new Semaphore(Math.max(1, maxCalls), true);
+			APIUtils.ensureConnectionCapacity(maxCalls);
+		}
+	}
+}
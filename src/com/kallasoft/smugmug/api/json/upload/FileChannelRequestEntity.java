@@ -0,0 +1,118 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.json.upload;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.commons.httpclient.methods.RequestEntity;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Class used to send the contents of a file as the body of a request using
+ * {@link FileChannel#transferTo(long, long, WritableByteChannel)}, without
+ * ever loading the file into a <code>byte[]</code>.
+ * <p>
+ * This is <b>not</b> a zero-copy (<code>sendfile</code>) transfer.
+ * <code>HttpClient</code> only exposes the connection as an
+ * {@link OutputStream}, so the target of <code>transferTo</code> is the
+ * stream wrapped by {@link Channels#newChannel(OutputStream)}, and the JDK
+ * copies the file through a user-space buffer into that stream. The bytes are
+ * copied about as many times as on the <code>byte[]</code> upload path; the
+ * benefit is that the memory used by an upload stays constant no matter how
+ * large the file is, which matters for multi-gigabyte videos.
+ * <p>
+ * The <code>UploadBodyBenchmark</code> under <code>test</code> can be used to
+ * compare the two paths.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class FileChannelRequestEntity implements RequestEntity {
+	private Path file;
+
+	private long length;
+
+	/**
+	 * Construct a new entity that sends the contents of the given file.
+	 *
+	 * @param file
+	 *            The file whose contents will be sent.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if file is <code>null</code>.
+	 * @throws RuntimeException
+	 *             if the size of the file cannot be read.
+	 */
+	public FileChannelRequestEntity(Path file) throws IllegalArgumentException,
+			RuntimeException {
+		if (file == null)
+			throw new IllegalArgumentException("file cannot be null");
+
+		try {
+			this.file = file;
+			this.length = Files.size(file);
+		} catch (IOException e) {
+			throw new RuntimeException("Unable to read the size of " + file, e);
+		}
+	}
+
+	public boolean isRepeatable() {
+		return true;
+	}
+
+	public long getContentLength() {
+		return length;
+	}
+
+	public String getContentType() {
+		return null;
+	}
+
+	public void writeRequest(OutputStream out) throws IOException {
+		FileChannel channel = null;
+
+		try {
+			channel = FileChannel.open(file, StandardOpenOption.READ);
+
+			/*
+			 * Do not close the target channel, that would close the connection
+			 * stream owned by HttpClient.
+			 */
+			WritableByteChannel target = Channels.newChannel(out);
+			long position = 0;
+
+			while (position < length) {
+				long transferred = channel.transferTo(position, length
+						- position, target);
+
+				if (transferred <= 0)
+					throw new IOException("The file " + file
+							+ " was truncated while it was being sent, only "
+							+ position + " of " + length
+							+ " bytes were available");
+
+				position += transferred;
+			}
+		} finally {
+			IOUtils.closeQuietly(channel);
+		}
+	}
+}
@@ -0,0 +1,953 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.json.upload;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.kallasoft.smugmug.api.json.session.SessionManager;
+import com.kallasoft.smugmug.api.json.v1_2_0.images.UploadHTTPPut;
+import com.kallasoft.smugmug.api.json.v1_2_0.images.UploadHTTPPut.UploadHTTPPutResponse;
+import com.kallasoft.smugmug.api.util.APIUtils;
+
+/**
+ * Class used to keep a set of local folders in sync with the SmugMug albums
+ * they map onto, uploading new or changed files with {@link UploadHTTPPut}.
+ * <p>
+ * Each folder is registered with a {@link WatchService} so new and modified
+ * files are detected as they appear instead of by rescanning every folder.
+ * Detected files are held in a pending set until their size and modification
+ * time have been stable for the quiet period (see
+ * {@link #setQuietPeriod(long)}), which keeps partially written files from
+ * being uploaded. Stable files are then compared against a local index of the
+ * size and modification time of every file already uploaded and only
+ * uploaded if they are new or have changed. The index also remembers the
+ * ImageID each file was uploaded as, so a changed file replaces its image
+ * instead of creating a second one. If that image no longer exists on
+ * SmugMug the file is uploaded to its album as a new image. Files that are
+ * deleted are dropped from the index.
+ * <p>
+ * A service that runs for a long time should be given a
+ * {@link SessionManager} rather than a SessionID, so that uploads log in
+ * again when the session expires instead of failing from then on.
+ * <p>
+ * A failed upload is put back in the pending set and retried after
+ * {@link #setRetryDelay(long)} milliseconds, waiting that much longer again
+ * before each following retry, until it has been tried
+ * {@link #setMaxAttempts(int)} times. Files that still fail are tried again
+ * when they change or their folder is rescanned.
+ * <p>
+ * If the watch service overflows and events are lost, only the affected
+ * folder is rescanned, reading the attributes of each file once and comparing
+ * them against the index. Because most file systems do not deliver watch
+ * events for changes made by other NFS clients, a periodic rescan can also be
+ * enabled with {@link #setRescanInterval(long)}.
+ * <p>
+ * The index is kept in memory and written to the given index file (if any)
+ * periodically, so restarting the service does not upload everything again.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class FolderSyncService {
+	/**
+	 * Defines the default time, in milliseconds, a file's size and
+	 * modification time must remain unchanged before it is uploaded.
+	 */
+	public static final long DEFAULT_QUIET_PERIOD = 5000;
+
+	/**
+	 * Defines the default number of threads used to upload files.
+	 */
+	public static final int DEFAULT_UPLOAD_THREADS = 2;
+
+	/**
+	 * Defines the default number of times a file is uploaded before giving up
+	 * until it changes again.
+	 */
+	public static final int DEFAULT_MAX_ATTEMPTS = 5;
+
+	/**
+	 * Defines the default time, in milliseconds, waited before the first
+	 * retry of a failed upload.
+	 */
+	public static final long DEFAULT_RETRY_DELAY = 30000;
+
+	private static final Logger logger = LoggerFactory
+			.getLogger(FolderSyncService.class);
+
+	private static final Charset INDEX_CHARSET = Charset.forName("UTF-8");
+
+	private UploadHTTPPut uploadMethod;
+
+	private String url;
+
+	private String sessionID;
+
+	private SessionManager sessionManager;
+
+	private Path indexFile;
+
+	private long quietPeriod = DEFAULT_QUIET_PERIOD;
+
+	private long rescanInterval = 0;
+
+	private int uploadThreads = DEFAULT_UPLOAD_THREADS;
+
+	private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+	private long retryDelay = DEFAULT_RETRY_DELAY;
+
+	private Map<Path, Long> folderMap = new ConcurrentHashMap<Path, Long>();
+
+	private Map<Path, FileState> index = new ConcurrentHashMap<Path, FileState>();
+
+	private ConcurrentMap<Path, PendingFile> pendingMap = new ConcurrentHashMap<Path, PendingFile>();
+
+	private Map<Path, Boolean> inFlightMap = new ConcurrentHashMap<Path, Boolean>();
+
+	private volatile boolean indexDirty = false;
+
+	private AtomicLong uploadedCount = new AtomicLong();
+
+	private AtomicLong failedCount = new AtomicLong();
+
+	private WatchService watchService;
+
+	private Thread watchThread;
+
+	private ScheduledExecutorService scheduler;
+
+	private ExecutorService uploadExecutor;
+
+	/**
+	 * Construct a new sync service that uploads with the given method.
+	 *
+	 * @param uploadMethod
+	 *            The method used to upload files.
+	 * @param url
+	 *            The URL of the SmugMug binary upload server.
+	 * @param sessionID
+	 *            The logged in SessionID that represents the user's session.
+	 * @param indexFile
+	 *            The file the local state index is loaded from and saved to,
+	 *            or <code>null</code> to keep the index in memory only.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if uploadMethod is <code>null</code>.
+	 * @throws IllegalArgumentException
+	 *             if url or sessionID is <code>null</code> or empty.
+	 */
+	public FolderSyncService(UploadHTTPPut uploadMethod, String url,
+			String sessionID, Path indexFile) throws IllegalArgumentException {
+		if (uploadMethod == null)
+			throw new IllegalArgumentException("uploadMethod cannot be null");
+
+		if (APIUtils.isEmpty(url))
+			throw new IllegalArgumentException("url cannot be null or empty");
+
+		if (APIUtils.isEmpty(sessionID))
+			throw new IllegalArgumentException(
+					"sessionID cannot be null or empty");
+
+		this.uploadMethod = uploadMethod;
+		this.url = url;
+		this.sessionID = sessionID;
+		this.indexFile = indexFile;
+	}
+
+	/**
+	 * Construct a new sync service that uploads with the given method, using
+	 * whatever session the given manager holds and logging in again when
+	 * SmugMug rejects it.
+	 *
+	 * @param uploadMethod
+	 *            The method used to upload files.
+	 * @param url
+	 *            The URL of the SmugMug binary upload server.
+	 * @param sessionManager
+	 *            The manager of the session of the account uploaded to.
+	 * @param indexFile
+	 *            The file the local state index is loaded from and saved to,
+	 *            or <code>null</code> to keep the index in memory only.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if uploadMethod or sessionManager is <code>null</code>.
+	 * @throws IllegalArgumentException
+	 *             if url is <code>null</code> or empty.
+	 */
+	public FolderSyncService(UploadHTTPPut uploadMethod, String url,
+			SessionManager sessionManager, Path indexFile)
+			throws IllegalArgumentException {
+		if (uploadMethod == null)
+			throw new IllegalArgumentException("uploadMethod cannot be null");
+		if (sessionManager == null)
+			throw new IllegalArgumentException("sessionManager cannot be null");
+
+		if (APIUtils.isEmpty(url))
+			throw new IllegalArgumentException("url cannot be null or empty");
+
+		this.uploadMethod = uploadMethod;
+		this.url = url;
+		this.sessionManager = sessionManager;
+		this.indexFile = indexFile;
+	}
+
+	/**
+	 * Used to map a local folder onto the album its files are uploaded to.
+	 * <p>
+	 * Folders can be added before or after the service is started. Files
+	 * already in the folder that are not in the index are picked up by the
+	 * initial scan of the folder.
+	 *
+	 * @param folder
+	 *            The folder to watch.
+	 * @param albumID
+	 *            The ID of the album files from the folder are uploaded to.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if folder or albumID is <code>null</code>.
+	 * @throws RuntimeException
+	 *             if the folder cannot be registered with the watch service.
+	 */
+	public synchronized void addFolder(Path folder, Long albumID)
+			throws IllegalArgumentException, RuntimeException {
+		if (folder == null || albumID == null)
+			throw new IllegalArgumentException(
+					"Neither folder [" + folder + "] or albumID [" + albumID
+							+ "] can be null");
+
+		folder = folder.toAbsolutePath().normalize();
+		folderMap.put(folder, albumID);
+
+		if (watchService != null) {
+			register(folder);
+			scheduleRescan(folder);
+		}
+	}
+
+	/**
+	 * Used to start watching all the mapped folders and uploading files.
+	 * <p>
+	 * The index is loaded from the index file, if one was given, and every
+	 * mapped folder is scanned once so files added while the service was
+	 * stopped are uploaded.
+	 *
+	 * @throws IllegalStateException
+	 *             if the service is already started.
+	 * @throws RuntimeException
+	 *             if the watch service cannot be created or the index cannot
+	 *             be loaded.
+	 */
+	public synchronized void start() throws IllegalStateException,
+			RuntimeException {
+		if (watchService != null)
+			throw new IllegalStateException("The service is already started");
+
+		loadIndex();
+
+		try {
+			watchService = FileSystems.getDefault().newWatchService();
+		} catch (IOException e) {
+			RuntimeException re = new RuntimeException(
+					"Unable to create the WatchService", e);
+			logger.error("Unable to create the WatchService", re);
+			throw re;
+		}
+
+		uploadExecutor = Executors.newFixedThreadPool(uploadThreads);
+		scheduler = Executors.newSingleThreadScheduledExecutor();
+
+		for (Path folder : folderMap.keySet()) {
+			register(folder);
+			scheduleRescan(folder);
+		}
+
+		/* Check pending files a few times per quiet period */
+		long checkInterval = Math.max(100, quietPeriod / 4);
+		scheduler.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				checkPendingFiles();
+				saveIndexIfDirty();
+			}
+		}, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+
+		if (rescanInterval > 0) {
+			scheduler.scheduleWithFixedDelay(new Runnable() {
+				public void run() {
+					for (Path folder : folderMap.keySet())
+						rescan(folder);
+				}
+			}, rescanInterval, rescanInterval, TimeUnit.MILLISECONDS);
+		}
+
+		watchThread = new Thread(new Runnable() {
+			public void run() {
+				processEvents();
+			}
+		}, "FolderSyncService-watcher");
+		watchThread.setDaemon(true);
+		watchThread.start();
+
+		logger.debug("Started watching {} folders", Integer.valueOf(folderMap
+				.size()));
+	}
+
+	/**
+	 * Used to stop watching folders, wait for in-flight uploads to finish and
+	 * save the index.
+	 */
+	public synchronized void stop() {
+		if (watchService == null)
+			return;
+
+		try {
+			watchService.close();
+		} catch (IOException e) {
+			logger.warn("Unable to close the WatchService", e);
+		}
+
+		scheduler.shutdownNow();
+		uploadExecutor.shutdown();
+
+		try {
+			uploadExecutor.awaitTermination(Long.MAX_VALUE,
+					TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		watchService = null;
+		saveIndexIfDirty();
+	}
+
+	/**
+	 * Used to get the number of files uploaded since the service was created.
+	 *
+	 * @return the number of files uploaded since the service was created.
+	 */
+	public long getUploadedCount() {
+		return uploadedCount.get();
+	}
+
+	/**
+	 * Used to get the number of uploads that failed since the service was
+	 * created, counting every failed attempt.
+	 *
+	 * @return the number of uploads that failed.
+	 */
+	public long getFailedCount() {
+		return failedCount.get();
+	}
+
+	/**
+	 * Used to get the number of files waiting for their quiet period to end.
+	 *
+	 * @return the number of files waiting for their quiet period to end.
+	 */
+	public int getPendingCount() {
+		return pendingMap.size();
+	}
+
+	/**
+	 * Used to get the time, in milliseconds, a file must remain unchanged
+	 * before it is uploaded.
+	 *
+	 * @return the quiet period in milliseconds.
+	 */
+	public long getQuietPeriod() {
+		return quietPeriod;
+	}
+
+	/**
+	 * Used to set the time, in milliseconds, a file's size and modification
+	 * time must remain unchanged before it is uploaded. This must be set
+	 * before the service is started.
+	 *
+	 * @param quietPeriod
+	 *            The quiet period in milliseconds.
+	 */
+	public void setQuietPeriod(long quietPeriod) {
+		this.quietPeriod = quietPeriod;
+	}
+
+	/**
+	 * Used to get the interval, in milliseconds, between full rescans of every
+	 * folder.
+	 *
+	 * @return the rescan interval in milliseconds, or <code>0</code> if
+	 *         periodic rescans are disabled.
+	 */
+	public long getRescanInterval() {
+		return rescanInterval;
+	}
+
+	/**
+	 * Used to set the interval, in milliseconds, between full rescans of every
+	 * folder. This must be set before the service is started.
+	 * <p>
+	 * Rescans are only needed when files can change without the local
+	 * {@link WatchService} seeing it, like on NFS mounts written to by other
+	 * machines.
+	 *
+	 * @param rescanInterval
+	 *            The rescan interval in milliseconds, or <code>0</code> to
+	 *            disable periodic rescans.
+	 */
+	public void setRescanInterval(long rescanInterval) {
+		this.rescanInterval = rescanInterval;
+	}
+
+	/**
+	 * Used to get the number of threads used to upload files.
+	 *
+	 * @return the number of threads used to upload files.
+	 */
+	public int getUploadThreads() {
+		return uploadThreads;
+	}
+
+	/**
+	 * Used to set the number of threads used to upload files. This must be
+	 * set before the service is started.
+	 *
+	 * @param uploadThreads
+	 *            The number of threads used to upload files.
+	 */
+	public void setUploadThreads(int uploadThreads) {
+		this.uploadThreads = uploadThreads;
+	}
+
+	/**
+	 * Used to get the number of times a file is uploaded before giving up
+	 * until it changes again.
+	 *
+	 * @return the number of attempts per file.
+	 */
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	/**
+	 * Used to set the number of times a file is uploaded before giving up
+	 * until it changes again.
+	 *
+	 * @param maxAttempts
+	 *            The number of attempts per file.
+	 */
+	public void setMaxAttempts(int maxAttempts) {
+		this.maxAttempts = maxAttempts;
+	}
+
+	/**
+	 * Used to get the time, in milliseconds, waited before the first retry of
+	 * a failed upload. Each following retry waits that much longer again.
+	 *
+	 * @return the retry delay in milliseconds.
+	 */
+	public long getRetryDelay() {
+		return retryDelay;
+	}
+
+	/**
+	 * Used to set the time, in milliseconds, waited before the first retry of
+	 * a failed upload.
+	 *
+	 * @param retryDelay
+	 *            The retry delay in milliseconds.
+	 */
+	public void setRetryDelay(long retryDelay) {
+		this.retryDelay = retryDelay;
+	}
+
+	private void register(Path folder) throws RuntimeException {
+		try {
+			folder.register(watchService,
+					StandardWatchEventKinds.ENTRY_CREATE,
+					StandardWatchEventKinds.ENTRY_MODIFY,
+					StandardWatchEventKinds.ENTRY_DELETE);
+		} catch (IOException e) {
+			RuntimeException re = new RuntimeException(
+					"Unable to watch folder " + folder, e);
+			logger.error("Unable to watch folder", re);
+			throw re;
+		}
+	}
+
+	private void scheduleRescan(final Path folder) {
+		scheduler.execute(new Runnable() {
+			public void run() {
+				rescan(folder);
+			}
+		});
+	}
+
+	/**
+	 * Used to drain the watch service, adding every created or modified file
+	 * to the pending set, forgetting deleted files and rescanning any folder
+	 * whose events overflowed.
+	 */
+	private void processEvents() {
+		while (true) {
+			WatchKey key = null;
+
+			try {
+				key = watchService.take();
+			} catch (InterruptedException e) {
+				return;
+			} catch (ClosedWatchServiceException e) {
+				return;
+			}
+
+			Path folder = (Path) key.watchable();
+
+			for (WatchEvent<?> event : key.pollEvents()) {
+				if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+					logger.warn(
+							"Watch events overflowed for folder {}, rescanning",
+							folder);
+					scheduleRescan(folder);
+				} else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE)
+					fileDeleted(folder.resolve((Path) event.context()));
+				else
+					fileChanged(folder.resolve((Path) event.context()));
+			}
+
+			key.reset();
+		}
+	}
+
+	/**
+	 * Used to add the given file to the pending set, or restart its quiet
+	 * period if it is already pending.
+	 */
+	private void fileChanged(Path file) {
+		Long albumID = folderMap.get(file.getParent());
+
+		if (albumID == null)
+			return;
+
+		PendingFile pendingFile = pendingMap.get(file);
+
+		if (pendingFile == null)
+			pendingMap.put(file, new PendingFile(albumID, null, System
+					.currentTimeMillis()));
+		else
+			pendingFile.lastChangeTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * Used to drop the given file from the pending set and the index.
+	 */
+	private void fileDeleted(Path file) {
+		pendingMap.remove(file);
+
+		if (index.remove(file) != null)
+			indexDirty = true;
+	}
+
+	/**
+	 * Used to compare every regular file in the folder against the index,
+	 * adding new or changed files to the pending set and dropping index
+	 * entries of files that no longer exist.
+	 */
+	private void rescan(Path folder) {
+		Long albumID = folderMap.get(folder);
+
+		if (albumID == null)
+			return;
+
+		DirectoryStream<Path> stream = null;
+		Set<Path> fileSet = new HashSet<Path>();
+		int changed = 0;
+		int removed = 0;
+
+		try {
+			stream = Files.newDirectoryStream(folder);
+
+			for (Path file : stream) {
+				BasicFileAttributes attributes = readAttributes(file);
+
+				if (attributes == null || !attributes.isRegularFile())
+					continue;
+
+				fileSet.add(file);
+				FileState state = new FileState(attributes.size(), attributes
+						.lastModifiedTime().toMillis(), null);
+
+				if (!state.equals(index.get(file))
+						&& !pendingMap.containsKey(file)) {
+					pendingMap.put(file, new PendingFile(albumID, state,
+							System.currentTimeMillis()));
+					changed++;
+				}
+			}
+		} catch (IOException e) {
+			logger.error("Unable to rescan folder " + folder, e);
+			return;
+		} finally {
+			IOUtils.closeQuietly(stream);
+		}
+
+		for (Iterator<Path> i = index.keySet().iterator(); i.hasNext();) {
+			Path file = i.next();
+
+			if (folder.equals(file.getParent()) && !fileSet.contains(file)
+					&& !inFlightMap.containsKey(file)) {
+				i.remove();
+				removed++;
+			}
+		}
+
+		if (removed > 0)
+			indexDirty = true;
+
+		logger.debug(
+				"Rescanned folder {}, {} new or changed files, {} removed",
+				new Object[] { folder, Integer.valueOf(changed),
+						Integer.valueOf(removed) });
+	}
+
+	/**
+	 * Used to upload every pending file whose size and modification time has
+	 * not changed for the quiet period and whose retry delay, if it failed
+	 * before, has passed.
+	 */
+	private void checkPendingFiles() {
+		long now = System.currentTimeMillis();
+
+		for (Iterator<Map.Entry<Path, PendingFile>> i = pendingMap.entrySet()
+				.iterator(); i.hasNext();) {
+			Map.Entry<Path, PendingFile> entry = i.next();
+			Path file = entry.getKey();
+			PendingFile pendingFile = entry.getValue();
+			BasicFileAttributes attributes = readAttributes(file);
+
+			/* The file was deleted or replaced by something else */
+			if (attributes == null || !attributes.isRegularFile()) {
+				i.remove();
+
+				if (attributes == null && index.remove(file) != null)
+					indexDirty = true;
+
+				continue;
+			}
+
+			FileState state = new FileState(attributes.size(), attributes
+					.lastModifiedTime().toMillis(), null);
+
+			if (!state.equals(pendingFile.state)) {
+				/* Still being written, restart the quiet period */
+				pendingFile.state = state;
+				pendingFile.lastChangeTime = now;
+				pendingFile.attempts = 0;
+				pendingFile.retryTime = 0;
+			} else if (now - pendingFile.lastChangeTime >= quietPeriod
+					&& now >= pendingFile.retryTime
+					&& !inFlightMap.containsKey(file)) {
+				i.remove();
+
+				if (!state.equals(index.get(file)))
+					submitUpload(file, pendingFile, state);
+			}
+		}
+	}
+
+	private void submitUpload(final Path file, final PendingFile pendingFile,
+			final FileState state) {
+		inFlightMap.put(file, Boolean.TRUE);
+
+		uploadExecutor.execute(new Runnable() {
+			public void run() {
+				try {
+					if (!upload(file, pendingFile.albumID, state))
+						retry(file, pendingFile);
+				} finally {
+					inFlightMap.remove(file);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Used to upload the file, replacing the image it was last uploaded as if
+	 * the index knows it, and record the resulting ImageID in the index.
+	 *
+	 * @return <code>true</code> if the upload succeeded.
+	 */
+	private boolean upload(Path file, Long albumID, FileState state) {
+		FileState previousState = index.get(file);
+		Long imageID = (previousState == null ? null
+				: previousState.imageID);
+
+		try {
+			UploadHTTPPutResponse response = send(file, albumID, imageID);
+
+			/* The image may have been deleted on SmugMug since */
+			if (response.isError() && imageID != null) {
+				logger.warn("Unable to replace image {} with {} ({}), "
+						+ "uploading it as a new image", new Object[] {
+						imageID, file, response.getError() });
+
+				/* Forget the ImageID so retries do not try to replace it */
+				index.put(file, new FileState(previousState.size,
+						previousState.lastModified, null));
+				indexDirty = true;
+
+				response = send(file, albumID, null);
+			}
+
+			if (response.isError()) {
+				failedCount.incrementAndGet();
+				logger.error("Unable to upload {}: {}", file, response
+						.getError());
+				return false;
+			}
+
+			index.put(file, new FileState(state.size, state.lastModified,
+					response.getImageID()));
+			indexDirty = true;
+			uploadedCount.incrementAndGet();
+			logger.debug("Uploaded {} as image {}", file, response
+					.getImageID());
+			return true;
+		} catch (Exception e) {
+			failedCount.incrementAndGet();
+			logger.error("Unable to upload " + file, e);
+			return false;
+		}
+	}
+
+	/**
+	 * Used to send the file either to the album or as a replacement of the
+	 * image, since only one of AlbumID or ImageID can be sent.
+	 */
+	private UploadHTTPPutResponse send(final Path file, Long albumID,
+			final Long imageID) {
+		final Long targetAlbumID = (imageID == null ? albumID : null);
+
+		if (sessionManager == null)
+			return uploadMethod.execute(url, sessionID, targetAlbumID,
+					imageID, file);
+
+		/* A rejected session means nothing was uploaded, so send it again */
+		return sessionManager
+				.execute(new SessionManager.Call<UploadHTTPPutResponse>() {
+					public UploadHTTPPutResponse execute(String sessionID) {
+						return uploadMethod.execute(url, sessionID,
+								targetAlbumID, imageID, file);
+					}
+				});
+	}
+
+	/**
+	 * Used to put a failed file back in the pending set to be retried after
+	 * its retry delay, unless it has been tried too many times or was changed
+	 * (and so queued again) in the meantime.
+	 */
+	private void retry(Path file, PendingFile pendingFile) {
+		pendingFile.attempts++;
+
+		if (pendingFile.attempts >= maxAttempts) {
+			logger.warn(
+					"Giving up on {} after {} attempts until it changes again",
+					file, Integer.valueOf(pendingFile.attempts));
+			return;
+		}
+
+		pendingFile.retryTime = System.currentTimeMillis() + retryDelay
+				* pendingFile.attempts;
+		pendingMap.putIfAbsent(file, pendingFile);
+	}
+
+	private static BasicFileAttributes readAttributes(Path file) {
+		try {
+			return Files.readAttributes(file, BasicFileAttributes.class);
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			logger.warn("Unable to read the attributes of " + file, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Used to load the index from the index file. Each line is the size,
+	 * modification time, ImageID (empty if unknown) and absolute path of an
+	 * uploaded file, separated by tabs. Lines without an ImageID column,
+	 * written by older versions, are also read.
+	 */
+	private void loadIndex() throws RuntimeException {
+		if (indexFile == null || !Files.exists(indexFile))
+			return;
+
+		BufferedReader reader = null;
+
+		try {
+			reader = Files.newBufferedReader(indexFile, INDEX_CHARSET);
+			String line = null;
+
+			while ((line = reader.readLine()) != null) {
+				String[] values = line.split("\t", 4);
+
+				if (values.length < 3)
+					continue;
+
+				long size = Long.parseLong(values[0]);
+				long lastModified = Long.parseLong(values[1]);
+
+				/* Paths are absolute, so a numeric third column is an ID */
+				if (values.length == 4 && isImageIDColumn(values[2]))
+					index.put(Paths.get(values[3]), new FileState(size,
+							lastModified, (values[2].length() == 0 ? null
+									: Long.valueOf(values[2]))));
+				else
+					index.put(Paths.get(line.split("\t", 3)[2]),
+							new FileState(size, lastModified, null));
+			}
+
+			logger.debug("Loaded {} entries from index {}", Integer
+					.valueOf(index.size()), indexFile);
+		} catch (Exception e) {
+			RuntimeException re = new RuntimeException(
+					"Unable to load the index file " + indexFile, e);
+			logger.error("Unable to load the index file", re);
+			throw re;
+		} finally {
+			IOUtils.closeQuietly(reader);
+		}
+	}
+
+	private static boolean isImageIDColumn(String value) {
+		for (int i = 0; i < value.length(); i++) {
+			if (!Character.isDigit(value.charAt(i)))
+				return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Used to write the index with
+	 * {@link APIUtils#writeLinesAtomically(Path, Iterable, Charset)}, so a
+	 * crash never leaves a partially written index behind.
+	 */
+	private synchronized void saveIndexIfDirty() {
+		if (indexFile == null || !indexDirty)
+			return;
+
+		indexDirty = false;
+		List<String> lineList = new ArrayList<String>(index.size());
+
+		for (Map.Entry<Path, FileState> entry : index.entrySet()) {
+			FileState state = entry.getValue();
+
+			lineList.add(state.size + "\t" + state.lastModified + "\t"
+					+ (state.imageID == null ? "" : state.imageID.toString())
+					+ "\t" + entry.getKey());
+		}
+
+		try {
+			APIUtils.writeLinesAtomically(indexFile, lineList, INDEX_CHARSET);
+		} catch (IOException e) {
+			indexDirty = true;
+			logger.error("Unable to save the index file " + indexFile, e);
+		}
+	}
+
+	/**
+	 * Class used to represent the size and modification time of a file, and
+	 * the ImageID it was uploaded as if known. Only the size and modification
+	 * time are compared.
+	 */
+	private static class FileState {
+		private long size;
+
+		private long lastModified;
+
+		private Long imageID;
+
+		public FileState(long size, long lastModified, Long imageID) {
+			this.size = size;
+			this.lastModified = lastModified;
+			this.imageID = imageID;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (!(object instanceof FileState))
+				return false;
+
+			FileState state = (FileState) object;
+			return (size == state.size && lastModified == state.lastModified);
+		}
+
+		@Override
+		public int hashCode() {
+			return (int) (size ^ lastModified);
+		}
+	}
+
+	/**
+	 * Class used to represent a file waiting for its quiet period to end, or
+	 * for the retry delay after a failed upload.
+	 */
+	private static class PendingFile {
+		private Long albumID;
+
+		private volatile FileState state;
+
+		private volatile long lastChangeTime;
+
+		private volatile int attempts;
+
+		private volatile long retryTime;
+
+		public PendingFile(Long albumID, FileState state, long lastChangeTime) {
+			this.albumID = albumID;
+			this.state = state;
+			this.lastChangeTime = lastChangeTime;
+		}
+	}
+}
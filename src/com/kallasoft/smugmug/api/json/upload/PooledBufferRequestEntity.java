@@ -0,0 +1,69 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.json.upload;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.commons.httpclient.methods.RequestEntity;
+
+import com.kallasoft.smugmug.api.util.PooledBuffer;
+
+/**
+ * Class used to send the data held by a {@link PooledBuffer} as the body of
+ * an HTTP request, writing each pooled buffer directly instead of first
+ * copying the data into one array.
+ * <p>
+ * The entity does not release the buffer; the caller must do that once the
+ * request has completed.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class PooledBufferRequestEntity implements RequestEntity {
+	private PooledBuffer buffer;
+
+	/**
+	 * Construct a new entity that sends the data held by the given buffer.
+	 *
+	 * @param buffer
+	 *            The buffer holding the data to send.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if buffer is <code>null</code>.
+	 */
+	public PooledBufferRequestEntity(PooledBuffer buffer)
+			throws IllegalArgumentException {
+		if (buffer == null)
+			throw new IllegalArgumentException("buffer cannot be null");
+
+		this.buffer = buffer;
+	}
+
+	public boolean isRepeatable() {
+		return true;
+	}
+
+	public long getContentLength() {
+		return buffer.size();
+	}
+
+	public String getContentType() {
+		return null;
+	}
+
+	public void writeRequest(OutputStream out) throws IOException {
+		buffer.writeTo(out);
+	}
+}
@@ -0,0 +1,232 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.json.upload;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.commons.httpclient.methods.RequestEntity;
+
+/**
+ * Class used to wrap an existing {@link RequestEntity} and report the progress
+ * of writing it to the server to an {@link UploadProgressListener}.
+ * <p>
+ * The body is written on a single thread by <code>HttpClient</code>, so all
+ * of the bookkeeping is done with plain fields and no locking. Large writes
+ * are split into {@link #CHUNK_SIZE} slices so progress is visible even when
+ * the wrapped entity writes its entire body in one call, and notifications
+ * are coalesced so the listener is called at most once per sample interval.
+ * <p>
+ * Once the server replies, the caller executing the request should call
+ * {@link #responseReceived()} so the time to first byte and server processing
+ * time can be reported to the listener.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class ProgressRequestEntity implements RequestEntity {
+	/**
+	 * Defines the default minimum time, in milliseconds, between two progress
+	 * notifications.
+	 */
+	public static final long DEFAULT_SAMPLE_INTERVAL = 250;
+
+	/**
+	 * Defines the largest slice, in bytes, that is written to the underlying
+	 * stream between two progress checks.
+	 */
+	public static final int CHUNK_SIZE = 64 * 1024;
+
+	private static final long NANOS_PER_MILLI = 1000000L;
+
+	private static final long NANOS_PER_SECOND = 1000000000L;
+
+	private RequestEntity requestEntity;
+
+	private UploadProgressListener listener;
+
+	private long sampleIntervalNanos;
+
+	private long bytesWritten;
+
+	private long startTime = -1;
+
+	private long bodyCompletedTime = -1;
+
+	private long lastSampleTime;
+
+	private long lastSampleBytes;
+
+	/**
+	 * Construct a new entity that reports progress to the given listener using
+	 * the {@link #DEFAULT_SAMPLE_INTERVAL}.
+	 *
+	 * @param requestEntity
+	 *            The entity whose bytes will actually be written.
+	 * @param listener
+	 *            The listener that will be notified of progress.
+	 */
+	public ProgressRequestEntity(RequestEntity requestEntity,
+			UploadProgressListener listener) {
+		this(requestEntity, listener, DEFAULT_SAMPLE_INTERVAL);
+	}
+
+	/**
+	 * Construct a new entity that reports progress to the given listener.
+	 *
+	 * @param requestEntity
+	 *            The entity whose bytes will actually be written.
+	 * @param listener
+	 *            The listener that will be notified of progress.
+	 * @param sampleInterval
+	 *            The minimum time, in milliseconds, between two progress
+	 *            notifications.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if requestEntity or listener is <code>null</code>.
+	 * @throws IllegalArgumentException
+	 *             if sampleInterval is &lt; 0.
+	 */
+	public ProgressRequestEntity(RequestEntity requestEntity,
+			UploadProgressListener listener, long sampleInterval)
+			throws IllegalArgumentException {
+		if (requestEntity == null)
+			throw new IllegalArgumentException("requestEntity cannot be null");
+
+		if (listener == null)
+			throw new IllegalArgumentException("listener cannot be null");
+
+		if (sampleInterval < 0)
+			throw new IllegalArgumentException("sampleInterval must be >= 0");
+
+		this.requestEntity = requestEntity;
+		this.listener = listener;
+		this.sampleIntervalNanos = sampleInterval * NANOS_PER_MILLI;
+	}
+
+	public boolean isRepeatable() {
+		return requestEntity.isRepeatable();
+	}
+
+	public long getContentLength() {
+		return requestEntity.getContentLength();
+	}
+
+	public String getContentType() {
+		return requestEntity.getContentType();
+	}
+
+	public void writeRequest(OutputStream out) throws IOException {
+		/* Reset everything in case HttpClient is retrying the request */
+		startTime = System.nanoTime();
+		lastSampleTime = startTime;
+		lastSampleBytes = 0;
+		bytesWritten = 0;
+		bodyCompletedTime = -1;
+
+		requestEntity.writeRequest(new ProgressOutputStream(out));
+
+		bodyCompletedTime = System.nanoTime();
+		listener.progressUpdated(createSnapshot(bodyCompletedTime, -1, -1));
+	}
+
+	/**
+	 * Used to notify this entity that the server has started replying to the
+	 * request, which reports the final snapshot including the time to first
+	 * byte and server processing time to the listener.
+	 * <p>
+	 * This method does nothing if the body was never written.
+	 */
+	public void responseReceived() {
+		if (startTime < 0)
+			return;
+
+		long now = System.nanoTime();
+		long completedTime = (bodyCompletedTime < 0 ? now : bodyCompletedTime);
+
+		listener.uploadCompleted(createSnapshot(completedTime,
+				(now - startTime) / NANOS_PER_MILLI, (now - completedTime)
+						/ NANOS_PER_MILLI));
+	}
+
+	/**
+	 * Used to get the number of bytes of the body written so far.
+	 *
+	 * @return the number of bytes of the body written so far.
+	 */
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	/**
+	 * Used to record that <code>length</code> more bytes were written, and
+	 * notify the listener if the sample interval has elapsed.
+	 */
+	private void bytesWritten(int length) {
+		bytesWritten += length;
+		long now = System.nanoTime();
+
+		if (now - lastSampleTime >= sampleIntervalNanos)
+			listener.progressUpdated(createSnapshot(now, -1, -1));
+	}
+
+	private UploadProgress createSnapshot(long now, long timeToFirstByte,
+			long serverProcessingTime) {
+		long elapsed = now - startTime;
+		long window = now - lastSampleTime;
+
+		long instantaneous = (window > 0 ? ((bytesWritten - lastSampleBytes) * NANOS_PER_SECOND)
+				/ window
+				: 0);
+		long average = (elapsed > 0 ? (bytesWritten * NANOS_PER_SECOND)
+				/ elapsed : 0);
+
+		lastSampleTime = now;
+		lastSampleBytes = bytesWritten;
+
+		return new UploadProgress(bytesWritten, getContentLength(), elapsed
+				/ NANOS_PER_MILLI, instantaneous, average, timeToFirstByte,
+				serverProcessingTime);
+	}
+
+	/**
+	 * Stream used to count the bytes written through it, splitting large
+	 * writes into {@link ProgressRequestEntity#CHUNK_SIZE} slices.
+	 */
+	private class ProgressOutputStream extends FilterOutputStream {
+		public ProgressOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			bytesWritten(1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			while (len > 0) {
+				int chunk = Math.min(len, CHUNK_SIZE);
+
+				out.write(b, off, chunk);
+				bytesWritten(chunk);
+
+				off += chunk;
+				len -= chunk;
+			}
+		}
+	}
+}
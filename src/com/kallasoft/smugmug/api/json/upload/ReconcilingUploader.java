@@ -0,0 +1,366 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.json.upload;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.kallasoft.smugmug.api.AmbiguousUploadException;
+import com.kallasoft.smugmug.api.NetworkException;
+import com.kallasoft.smugmug.api.UnsentUploadException;
+import com.kallasoft.smugmug.api.json.entity.Image;
+import com.kallasoft.smugmug.api.json.v1_2_0.APIVersionConstants;
+import com.kallasoft.smugmug.api.json.v1_2_0.images.Get;
+import com.kallasoft.smugmug.api.json.v1_2_0.images.UploadHTTPPut;
+import com.kallasoft.smugmug.api.json.v1_2_0.images.Get.GetResponse;
+import com.kallasoft.smugmug.api.json.v1_2_0.images.UploadHTTPPut.UploadHTTPPutResponse;
+import com.kallasoft.smugmug.api.util.APIUtils;
+
+/**
+ * Class used to upload files with {@link UploadHTTPPut} and retry them
+ * without creating duplicates.
+ * <p>
+ * When an upload fails with an {@link AmbiguousUploadException} the file was
+ * completely sent, so SmugMug may already have created the image. Before
+ * sending the file again this class looks the image up in the target album
+ * with {@link Get} (<code>smugmug.images.get</code>), matching on both the
+ * MD5 Sum and the file name. The file is only sent again if no matching
+ * image is found; otherwise the existing image is returned as if the upload
+ * had succeeded.
+ * <p>
+ * When an upload fails with an {@link UnsentUploadException} the body never
+ * reached SmugMug, so the file is sent again without checking the album.
+ * Other failures (e.g. SmugMug rejected the upload) are not retried and are
+ * thrown to the caller unchanged.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class ReconcilingUploader {
+	/**
+	 * Defines the default number of times a file is sent before giving up.
+	 */
+	public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+	/**
+	 * Defines the default time, in milliseconds, waited after an ambiguous
+	 * failure before the album is checked, giving SmugMug time to finish
+	 * processing an upload that did arrive.
+	 */
+	public static final long DEFAULT_RETRY_DELAY = 5000;
+
+	private static final Logger logger = LoggerFactory
+			.getLogger(ReconcilingUploader.class);
+
+	private UploadHTTPPut uploadMethod;
+
+	private Get getMethod;
+
+	private String apiURL;
+
+	private String apiKey;
+
+	private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+	private long retryDelay = DEFAULT_RETRY_DELAY;
+
+	/**
+	 * Construct a new uploader that checks albums using the secure SmugMug API
+	 * server.
+	 *
+	 * @param uploadMethod
+	 *            The method used to send files.
+	 * @param getMethod
+	 *            The method used to look up the images of an album.
+	 * @param apiKey
+	 *            The API Key used to look up the images of an album.
+	 */
+	public ReconcilingUploader(UploadHTTPPut uploadMethod, Get getMethod,
+			String apiKey) {
+		this(uploadMethod, getMethod, APIVersionConstants.SECURE_SERVER_URL,
+				apiKey);
+	}
+
+	/**
+	 * Construct a new uploader.
+	 *
+	 * @param uploadMethod
+	 *            The method used to send files.
+	 * @param getMethod
+	 *            The method used to look up the images of an album.
+	 * @param apiURL
+	 *            The URL of the SmugMug server the images are looked up on.
+	 * @param apiKey
+	 *            The API Key used to look up the images of an album.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if uploadMethod or getMethod is <code>null</code>.
+	 * @throws IllegalArgumentException
+	 *             if apiURL is <code>null</code> or empty.
+	 */
+	public ReconcilingUploader(UploadHTTPPut uploadMethod, Get getMethod,
+			String apiURL, String apiKey) throws IllegalArgumentException {
+		if (uploadMethod == null || getMethod == null)
+			throw new IllegalArgumentException(
+					"Neither uploadMethod or getMethod can be null");
+
+		if (APIUtils.isEmpty(apiURL))
+			throw new IllegalArgumentException(
+					"apiURL cannot be null or empty");
+
+		this.uploadMethod = uploadMethod;
+		this.getMethod = getMethod;
+		this.apiURL = apiURL;
+		this.apiKey = apiKey;
+	}
+
+	/**
+	 * Used to upload the given file into the given album.
+	 *
+	 * @param url
+	 *            The URL of the SmugMug binary upload server.
+	 * @param sessionID
+	 *            The logged in SessionID that represents the user's session.
+	 * @param albumID
+	 *            The ID of the album to upload the image into.
+	 * @param file
+	 *            The file to upload.
+	 *
+	 * @return the response of the upload, or a response describing the image
+	 *         that already existed in the album.
+	 *
+	 * @see #upload(String, String, Long, Path, String, String, Double, Double,
+	 *      Double)
+	 */
+	public UploadHTTPPutResponse upload(String url, String sessionID,
+			Long albumID, Path file) {
+		return upload(url, sessionID, albumID, file, null, null, null, null,
+				null);
+	}
+
+	/**
+	 * Used to upload the given file into the given album, retrying ambiguous
+	 * failures only when the image is not already in the album.
+	 *
+	 * @param url
+	 *            The URL of the SmugMug binary upload server.
+	 * @param sessionID
+	 *            The logged in SessionID that represents the user's session.
+	 * @param albumID
+	 *            The ID of the album to upload the image into.
+	 * @param file
+	 *            The file to upload.
+	 * @param caption
+	 *            A caption for the image.
+	 * @param keywords
+	 *            The keywords assigned to the image.
+	 * @param latitude
+	 *            The latitude used to geocode the image.
+	 * @param longitude
+	 *            The longitude used to geocode the image.
+	 * @param altitude
+	 *            The altitude (in meters) used to geocode the image.
+	 *
+	 * @return the response of the upload, or a response describing the image
+	 *         that already existed in the album.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if albumID or file is <code>null</code>.
+	 * @throws AmbiguousUploadException
+	 *             if every attempt failed ambiguously and the image was never
+	 *             found in the album.
+	 * @throws UnsentUploadException
+	 *             if the last attempt failed before the file was sent.
+	 * @throws RuntimeException
+	 *             if the file cannot be read, the album cannot be checked or
+	 *             the upload fails for any other reason.
+	 */
+	public UploadHTTPPutResponse upload(String url, String sessionID,
+			Long albumID, Path file, String caption, String keywords,
+			Double latitude, Double longitude, Double altitude)
+			throws IllegalArgumentException, AmbiguousUploadException,
+			RuntimeException {
+		if (albumID == null)
+			throw new IllegalArgumentException("albumID cannot be null");
+
+		if (file == null)
+			throw new IllegalArgumentException("file cannot be null");
+
+		String fileName = file.getFileName().toString();
+		long fileSize;
+
+		try {
+			fileSize = Files.size(file);
+		} catch (IOException e) {
+			RuntimeException re = new RuntimeException(e);
+			logger.error("Unable to read the size of " + file, re);
+			throw re;
+		}
+
+		UploadLimits uploadLimits = uploadMethod.getUploadLimits();
+
+		if (uploadLimits != null)
+			uploadLimits.check(fileName, fileSize);
+
+		/* Hash once, the same sum is sent and matched on every attempt */
+		String md5Sum = APIUtils.calculateMD5Sum(file);
+
+		String[] httpHeaderValues = uploadMethod.prepareUploadArgumentValues(
+				fileSize, md5Sum, sessionID, albumID, null, fileName, caption,
+				keywords, latitude, longitude, altitude);
+		uploadMethod.fillGeotagHeaders(file, httpHeaderValues);
+
+		for (int attempt = 1;; attempt++) {
+			try {
+				return uploadMethod.execute(url, httpHeaderValues.clone(),
+						file);
+			} catch (AmbiguousUploadException e) {
+				logger.warn("Attempt {} to upload {} failed ambiguously",
+						Integer.valueOf(attempt), file);
+
+				sleep(e);
+
+				Image image = findImage(sessionID, albumID, fileName, md5Sum);
+
+				if (image != null) {
+					logger.info(
+							"{} was already uploaded as image {}, not sending it again",
+							file, image.getID());
+					return createResponse(image);
+				}
+
+				if (attempt >= maxAttempts)
+					throw e;
+			} catch (UnsentUploadException e) {
+				logger.warn("Attempt {} to upload {} failed before it was sent",
+						Integer.valueOf(attempt), file);
+
+				if (attempt >= maxAttempts)
+					throw e;
+
+				sleep(e);
+			}
+		}
+	}
+
+	/**
+	 * Used to find the image in the given album with the given file name and
+	 * MD5 Sum.
+	 *
+	 * @return the matching image, or <code>null</code> if there is none.
+	 */
+	protected Image findImage(String sessionID, Long albumID,
+			String fileName, String md5Sum) throws RuntimeException {
+		GetResponse response = getMethod.execute(apiURL, apiKey, sessionID,
+				albumID, null, Boolean.TRUE);
+
+		/* An empty album means the image was not created */
+		if (response.isError() && response.getError().isEmptySet())
+			return null;
+
+		/* Not knowing is not the same as absent, a resend could duplicate */
+		if (response.isError()) {
+			RuntimeException re = new RuntimeException(
+					"Unable to check album " + albumID
+							+ " for an existing upload: "
+							+ response.getError());
+			logger.error("Unable to reconcile an ambiguous upload", re);
+			throw re;
+		}
+
+		for (Image image : response.getImageList()) {
+			if (md5Sum.equalsIgnoreCase(image.getMD5Sum())
+					&& fileName.equals(image.getFileName()))
+				return image;
+		}
+
+		return null;
+	}
+
+	private UploadHTTPPutResponse createResponse(Image image)
+			throws RuntimeException {
+		try {
+			JSONObject imageObject = new JSONObject();
+			imageObject.put("id", image.getID());
+			imageObject.put("Key", image.getImageKey());
+
+			JSONObject responseObject = new JSONObject();
+			responseObject.put("stat", "ok");
+			responseObject.put("method", "smugmug.images.upload");
+			responseObject.put("Image", imageObject);
+
+			return uploadMethod.new UploadHTTPPutResponse(responseObject
+					.toString());
+		} catch (JSONException e) {
+			RuntimeException re = new RuntimeException(e);
+			logger.error("Unable to create the upload response", re);
+			throw re;
+		}
+	}
+
+	private void sleep(NetworkException cause) throws NetworkException {
+		try {
+			Thread.sleep(retryDelay);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw cause;
+		}
+	}
+
+	/**
+	 * Used to get the number of times a file is sent before giving up.
+	 *
+	 * @return the number of times a file is sent before giving up.
+	 */
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	/**
+	 * Used to set the number of times a file is sent before giving up.
+	 *
+	 * @param maxAttempts
+	 *            The number of times a file is sent before giving up.
+	 */
+	public void setMaxAttempts(int maxAttempts) {
+		this.maxAttempts = maxAttempts;
+	}
+
+	/**
+	 * Used to get the time, in milliseconds, waited after a failure before
+	 * the album is checked or the file is sent again.
+	 *
+	 * @return the retry delay in milliseconds.
+	 */
+	public long getRetryDelay() {
+		return retryDelay;
+	}
+
+	/**
+	 * Used to set the time, in milliseconds, waited after a failure before
+	 * the album is checked or the file is sent again.
+	 *
+	 * @param retryDelay
+	 *            The retry delay in milliseconds.
+	 */
+	public void setRetryDelay(long retryDelay) {
+		this.retryDelay = retryDelay;
+	}
+}
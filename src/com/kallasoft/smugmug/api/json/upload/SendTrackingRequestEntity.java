@@ -0,0 +1,83 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.json.upload;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.commons.httpclient.methods.RequestEntity;
+
+/**
+ * Class used to wrap a {@link RequestEntity} and remember whether its body
+ * was completely written.
+ * <p>
+ * <code>HttpMethod.isRequestSent()</code> is already <code>true</code> once
+ * the headers are written, so it cannot tell a request whose body was never
+ * sent (e.g. because the server answered an
+ * <code>Expect: 100-continue</code> with an error) from one whose body was.
+ * This entity can, because <code>HttpClient</code> only calls
+ * {@link #writeRequest(OutputStream)} once it has decided to send the body.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class SendTrackingRequestEntity implements RequestEntity {
+	private RequestEntity requestEntity;
+
+	private volatile boolean bodySent = false;
+
+	/**
+	 * Construct a new entity that tracks the given entity.
+	 *
+	 * @param requestEntity
+	 *            The entity whose body is sent.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if requestEntity is <code>null</code>.
+	 */
+	public SendTrackingRequestEntity(RequestEntity requestEntity)
+			throws IllegalArgumentException {
+		if (requestEntity == null)
+			throw new IllegalArgumentException("requestEntity cannot be null");
+
+		this.requestEntity = requestEntity;
+	}
+
+	public boolean isRepeatable() {
+		return requestEntity.isRepeatable();
+	}
+
+	public long getContentLength() {
+		return requestEntity.getContentLength();
+	}
+
+	public String getContentType() {
+		return requestEntity.getContentType();
+	}
+
+	public void writeRequest(OutputStream out) throws IOException {
+		requestEntity.writeRequest(out);
+		bodySent = true;
+	}
+
+	/**
+	 * Used to determine if the whole body was written to the connection.
+	 *
+	 * @return <code>true</code> if the body was completely written at least
+	 *         once.
+	 */
+	public boolean isBodySent() {
+		return bodySent;
+	}
+}
@@ -0,0 +1,794 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.json.upload;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.kallasoft.smugmug.api.json.AbstractResponse.Error;
+import com.kallasoft.smugmug.api.json.v1_2_0.APIVersionConstants;
+import com.kallasoft.smugmug.api.json.v1_2_0.images.UploadFromURL;
+import com.kallasoft.smugmug.api.json.v1_2_0.images.UploadFromURL.UploadFromURLResponse;
+import com.kallasoft.smugmug.api.util.APIUtils;
+import com.kallasoft.smugmug.api.util.BatchExecutor;
+import com.kallasoft.smugmug.api.util.RateLimiter;
+
+/**
+ * Class used to submit a large batch of images to SmugMug with
+ * {@link UploadFromURL}, letting SmugMug fetch every image itself.
+ * <p>
+ * Items are submitted by several threads at once (see
+ * {@link #setParallelism(int)}) and calls are rate limited per API Key (see
+ * {@link #setRateLimiter(RateLimiter)}). Every item gets a {@link Result}
+ * carrying either the ID of the new image, the SmugMug error or the exception
+ * that stopped it.
+ * <p>
+ * Results are handed to the {@link ResultListener} (if any) as soon as each
+ * item finishes and are otherwise only counted, so a batch of millions of
+ * items does not hold millions of results in memory. Use
+ * {@link #setCollectResults(boolean)} to also keep them in the returned
+ * {@link Summary}.
+ * <p>
+ * If a progress file is set, every successful item is appended to it as soon
+ * as SmugMug accepts it. Running the same batch again with the same progress
+ * file skips those items, so a long migration can be stopped and restarted
+ * without creating duplicates.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class UploadFromURLBatch {
+	/**
+	 * Defines the default number of items submitted at once.
+	 */
+	public static final int DEFAULT_PARALLELISM = 4;
+
+	/**
+	 * Defines the default number of calls per second made with one API Key.
+	 */
+	public static final double DEFAULT_PERMITS_PER_SECOND = 10;
+
+	private static final Logger logger = LoggerFactory
+			.getLogger(UploadFromURLBatch.class);
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private UploadFromURL uploadMethod;
+
+	private String url;
+
+	private String apiKey;
+
+	private String sessionID;
+
+	private int parallelism = DEFAULT_PARALLELISM;
+
+	private RateLimiter rateLimiter = new RateLimiter(
+			DEFAULT_PERMITS_PER_SECOND);
+
+	private Path progressFile;
+
+	private ResultListener resultListener;
+
+	private boolean collectResults = false;
+
+	/**
+	 * Construct a new batch that submits to the Text-based SmugMug Upload
+	 * server.
+	 *
+	 * @param uploadMethod
+	 *            The method used to submit every item.
+	 * @param apiKey
+	 *            The API Key to use. API keys are issued by SmugMug.
+	 * @param sessionID
+	 *            The logged in SessionID that represents the user's session.
+	 */
+	public UploadFromURLBatch(UploadFromURL uploadMethod, String apiKey,
+			String sessionID) {
+		this(uploadMethod, APIVersionConstants.TEXT_UPLOAD_SERVER_URL, apiKey,
+				sessionID);
+	}
+
+	/**
+	 * Construct a new batch.
+	 *
+	 * @param uploadMethod
+	 *            The method used to submit every item.
+	 * @param url
+	 *            The URL of the SmugMug server to communicate with.
+	 * @param apiKey
+	 *            The API Key to use. API keys are issued by SmugMug.
+	 * @param sessionID
+	 *            The logged in SessionID that represents the user's session.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if uploadMethod is <code>null</code>.
+	 * @throws IllegalArgumentException
+	 *             if url or sessionID is <code>null</code> or empty.
+	 */
+	public UploadFromURLBatch(UploadFromURL uploadMethod, String url,
+			String apiKey, String sessionID) throws IllegalArgumentException {
+		if (uploadMethod == null)
+			throw new IllegalArgumentException("uploadMethod cannot be null");
+
+		if (APIUtils.isEmpty(url))
+			throw new IllegalArgumentException("url cannot be null or empty");
+
+		if (APIUtils.isEmpty(sessionID))
+			throw new IllegalArgumentException(
+					"sessionID cannot be null or empty");
+
+		this.uploadMethod = uploadMethod;
+		this.url = url;
+		this.apiKey = apiKey;
+		this.sessionID = sessionID;
+	}
+
+	/**
+	 * Used to submit every item of the batch and wait for all of them to
+	 * finish.
+	 * <p>
+	 * The items are read from the given {@link Iterable} only as threads
+	 * become free, so very large batches can be streamed from a file or a
+	 * database cursor.
+	 *
+	 * @param items
+	 *            The items to submit.
+	 *
+	 * @return the number of items that succeeded, were skipped or failed,
+	 *         and every result if results are collected.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if items is <code>null</code>.
+	 * @throws RuntimeException
+	 *             if the progress file cannot be read or written, or the
+	 *             calling thread is interrupted.
+	 */
+	public Summary execute(Iterable<Item> items)
+			throws IllegalArgumentException, RuntimeException {
+		if (items == null)
+			throw new IllegalArgumentException("items cannot be null");
+
+		final Set<String> completedSet = readProgress();
+		final Summary summary = new Summary(collectResults);
+		final ResultListener listener = resultListener;
+		BufferedWriter writer = null;
+
+		try {
+			if (progressFile != null)
+				writer = Files.newBufferedWriter(progressFile, UTF_8,
+						StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+			final BufferedWriter progressWriter = writer;
+
+			new BatchExecutor(parallelism).execute(items,
+					new BatchExecutor.Task<Item>() {
+						public void execute(Item item) throws Exception {
+							Result result = null;
+
+							if (completedSet.contains(item.getProgressKey()))
+								result = new Result(item, true, null, null,
+										null);
+							else
+								result = submit(item, progressWriter);
+
+							summary.add(result);
+
+							if (listener != null)
+								listener.resultReceived(result);
+						}
+					});
+		} catch (Exception e) {
+			RuntimeException re = new RuntimeException(e);
+			logger.error("Unable to complete the UploadFromURL batch", re);
+			throw re;
+		} finally {
+			IOUtils.closeQuietly(writer);
+		}
+
+		return summary;
+	}
+
+	private Result submit(Item item, BufferedWriter progressWriter) {
+		UploadFromURLResponse response = null;
+
+		try {
+			rateLimiter.acquire(apiKey);
+		} catch (InterruptedException e) {
+			/* The batch is being cancelled, leave the flag for the pool */
+			Thread.currentThread().interrupt();
+			return new Result(item, false, null, null, e);
+		}
+
+		try {
+			response = uploadMethod.execute(url, apiKey, sessionID, item
+					.getAlbumID(), item.getImageURL(), item.getByteCount(),
+					item.getMD5Sum(), item.getCaption(), item.getKeywords(),
+					item.getLatitude(), item.getLongitude(), item
+							.getAltitude());
+		} catch (RuntimeException e) {
+			logger.warn("Unable to submit " + item, e);
+			return new Result(item, false, null, null, e);
+		}
+
+		if (response.isError())
+			return new Result(item, false, null, response.getError(), null);
+
+		if (progressWriter != null) {
+			try {
+				synchronized (progressWriter) {
+					progressWriter.write(response.getImageID() + "\t"
+							+ item.getProgressKey());
+					progressWriter.newLine();
+					progressWriter.flush();
+				}
+			} catch (IOException e) {
+				/* The image exists, so still report it as uploaded */
+				logger.error("Unable to record the progress of " + item, e);
+			}
+		}
+
+		return new Result(item, false, response, null, null);
+	}
+
+	private Set<String> readProgress() throws RuntimeException {
+		Set<String> completedSet = new HashSet<String>();
+
+		if (progressFile == null || !Files.exists(progressFile))
+			return completedSet;
+
+		BufferedReader reader = null;
+
+		try {
+			reader = Files.newBufferedReader(progressFile, UTF_8);
+
+			for (String line = reader.readLine(); line != null; line = reader
+					.readLine()) {
+				int index = line.indexOf('\t');
+
+				/* Skip a partially written last line */
+				if (index > 0 && line.indexOf('\t', index + 1) > 0)
+					completedSet.add(line.substring(index + 1));
+			}
+		} catch (IOException e) {
+			RuntimeException re = new RuntimeException(e);
+			logger.error("Unable to read the progress file " + progressFile,
+					re);
+			throw re;
+		} finally {
+			IOUtils.closeQuietly(reader);
+		}
+
+		logger.info("Resuming batch, {} items were already submitted", Integer
+				.valueOf(completedSet.size()));
+
+		return completedSet;
+	}
+
+	/**
+	 * Used to get the maximum number of items submitted at once.
+	 *
+	 * @return the maximum number of items submitted at once.
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Used to set the maximum number of items submitted at once.
+	 *
+	 * @param parallelism
+	 *            The maximum number of items submitted at once.
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Used to get the rate limiter every call waits on.
+	 *
+	 * @return the rate limiter every call waits on.
+	 */
+	public RateLimiter getRateLimiter() {
+		return rateLimiter;
+	}
+
+	/**
+	 * Used to set the rate limiter every call waits on. Share one rate limiter
+	 * between all the batches that use the same API Key.
+	 *
+	 * @param rateLimiter
+	 *            The rate limiter every call waits on.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if rateLimiter is <code>null</code>.
+	 */
+	public void setRateLimiter(RateLimiter rateLimiter)
+			throws IllegalArgumentException {
+		if (rateLimiter == null)
+			throw new IllegalArgumentException("rateLimiter cannot be null");
+
+		this.rateLimiter = rateLimiter;
+	}
+
+	/**
+	 * Used to get the listener every result is handed to.
+	 *
+	 * @return the listener, or <code>null</code> if there is none.
+	 */
+	public ResultListener getResultListener() {
+		return resultListener;
+	}
+
+	/**
+	 * Used to set the listener every result is handed to as soon as its item
+	 * finishes.
+	 *
+	 * @param resultListener
+	 *            The listener, or <code>null</code> to only count results.
+	 */
+	public void setResultListener(ResultListener resultListener) {
+		this.resultListener = resultListener;
+	}
+
+	/**
+	 * Used to determine if every result is kept in the returned
+	 * {@link Summary}.
+	 *
+	 * @return <code>true</code> if results are collected.
+	 */
+	public boolean isCollectResults() {
+		return collectResults;
+	}
+
+	/**
+	 * Used to set whether every result is kept in the returned
+	 * {@link Summary}. This is off by default because it keeps one result per
+	 * item in memory until the batch finishes.
+	 *
+	 * @param collectResults
+	 *            <code>true</code> to collect results.
+	 */
+	public void setCollectResults(boolean collectResults) {
+		this.collectResults = collectResults;
+	}
+
+	/**
+	 * Used to get the file the progress of the batch is recorded in.
+	 *
+	 * @return the progress file, or <code>null</code> if progress is not
+	 *         recorded.
+	 */
+	public Path getProgressFile() {
+		return progressFile;
+	}
+
+	/**
+	 * Used to set the file the progress of the batch is recorded in and
+	 * resumed from.
+	 *
+	 * @param progressFile
+	 *            The progress file, or <code>null</code> to not record
+	 *            progress.
+	 */
+	public void setProgressFile(Path progressFile) {
+		this.progressFile = progressFile;
+	}
+
+	/**
+	 * Class used to describe one image to be fetched by SmugMug. Only the
+	 * image URL and album ID are required.
+	 *
+	 * @author smugmug-java-api contributors
+	 */
+	public static class Item {
+		private String imageURL;
+
+		private Long albumID;
+
+		private Integer byteCount;
+
+		private String md5Sum;
+
+		private String caption;
+
+		private String keywords;
+
+		private Double latitude;
+
+		private Double longitude;
+
+		private Double altitude;
+
+		/**
+		 * Construct a new item.
+		 *
+		 * @param imageURL
+		 *            The complete URL to the image to upload.
+		 * @param albumID
+		 *            The ID of the album to upload the image into.
+		 *
+		 * @throws IllegalArgumentException
+		 *             if imageURL is <code>null</code> or empty.
+		 * @throws IllegalArgumentException
+		 *             if albumID is <code>null</code>.
+		 */
+		public Item(String imageURL, Long albumID)
+				throws IllegalArgumentException {
+			this(imageURL, albumID, null, null, null, null, null, null, null);
+		}
+
+		/**
+		 * Construct a new item.
+		 *
+		 * @param imageURL
+		 *            The complete URL to the image to upload.
+		 * @param albumID
+		 *            The ID of the album to upload the image into.
+		 * @param byteCount
+		 *            The byte count for the image (if known).
+		 * @param md5Sum
+		 *            The MD5 Sum of the image (if known).
+		 * @param caption
+		 *            A caption for the image.
+		 * @param keywords
+		 *            The keywords assigned to the image.
+		 * @param latitude
+		 *            The latitude used to geocode the image.
+		 * @param longitude
+		 *            The longitude used to geocode the image.
+		 * @param altitude
+		 *            The altitude (in meters) used to geocode the image.
+		 *
+		 * @throws IllegalArgumentException
+		 *             if imageURL is <code>null</code> or empty.
+		 * @throws IllegalArgumentException
+		 *             if albumID is <code>null</code>.
+		 */
+		public Item(String imageURL, Long albumID, Integer byteCount,
+				String md5Sum, String caption, String keywords,
+				Double latitude, Double longitude, Double altitude)
+				throws IllegalArgumentException {
+			if (APIUtils.isEmpty(imageURL))
+				throw new IllegalArgumentException(
+						"imageURL cannot be null or empty");
+
+			if (albumID == null)
+				throw new IllegalArgumentException("albumID cannot be null");
+
+			this.imageURL = imageURL;
+			this.albumID = albumID;
+			this.byteCount = byteCount;
+			this.md5Sum = md5Sum;
+			this.caption = caption;
+			this.keywords = keywords;
+			this.latitude = latitude;
+			this.longitude = longitude;
+			this.altitude = altitude;
+		}
+
+		@Override
+		public String toString() {
+			return Item.class.getName() + "[imageURL=" + getImageURL()
+					+ ", albumID=" + getAlbumID() + "]";
+		}
+
+		/**
+		 * Used to get the key this item is recorded under in the progress
+		 * file.
+		 */
+		String getProgressKey() {
+			return albumID + "\t" + imageURL;
+		}
+
+		/**
+		 * Used to get the complete URL SmugMug fetches the image from.
+		 *
+		 * @return the URL of the image.
+		 */
+		public String getImageURL() {
+			return imageURL;
+		}
+
+		/**
+		 * Used to get the ID of the album the image is uploaded into.
+		 *
+		 * @return the ID of the album.
+		 */
+		public Long getAlbumID() {
+			return albumID;
+		}
+
+		/**
+		 * Used to get the byte count of the image.
+		 *
+		 * @return the byte count, or <code>null</code> if it is not known.
+		 */
+		public Integer getByteCount() {
+			return byteCount;
+		}
+
+		/**
+		 * Used to get the MD5 Sum of the image.
+		 *
+		 * @return the MD5 Sum, or <code>null</code> if it is not known.
+		 */
+		public String getMD5Sum() {
+			return md5Sum;
+		}
+
+		/**
+		 * Used to get the caption for the image.
+		 *
+		 * @return the caption, or <code>null</code> if there is none.
+		 */
+		public String getCaption() {
+			return caption;
+		}
+
+		/**
+		 * Used to get the keywords assigned to the image.
+		 *
+		 * @return the keywords, or <code>null</code> if there are none.
+		 */
+		public String getKeywords() {
+			return keywords;
+		}
+
+		/**
+		 * Used to get the latitude used to geocode the image.
+		 *
+		 * @return the latitude, or <code>null</code> if there is none.
+		 */
+		public Double getLatitude() {
+			return latitude;
+		}
+
+		/**
+		 * Used to get the longitude used to geocode the image.
+		 *
+		 * @return the longitude, or <code>null</code> if there is none.
+		 */
+		public Double getLongitude() {
+			return longitude;
+		}
+
+		/**
+		 * Used to get the altitude (in meters) used to geocode the image.
+		 *
+		 * @return the altitude, or <code>null</code> if there is none.
+		 */
+		public Double getAltitude() {
+			return altitude;
+		}
+	}
+
+	/**
+	 * Class used to represent the outcome of submitting one {@link Item}.
+	 *
+	 * @author smugmug-java-api contributors
+	 */
+	public static class Result {
+		private Item item;
+
+		private boolean skipped;
+
+		private UploadFromURLResponse response;
+
+		private Error error;
+
+		private Exception exception;
+
+		Result(Item item, boolean skipped, UploadFromURLResponse response,
+				Error error, Exception exception) {
+			this.item = item;
+			this.skipped = skipped;
+			this.response = response;
+			this.error = error;
+			this.exception = exception;
+		}
+
+		@Override
+		public String toString() {
+			return Result.class.getName() + "[item=" + getItem()
+					+ ", isSuccess=" + isSuccess() + ", isSkipped="
+					+ isSkipped() + ", imageID=" + getImageID() + ", error="
+					+ getError() + ", exception=" + getException() + "]";
+		}
+
+		/**
+		 * Used to determine if the item was accepted by SmugMug, either now or
+		 * in an earlier run recorded in the progress file.
+		 *
+		 * @return <code>true</code> if the item was accepted.
+		 */
+		public boolean isSuccess() {
+			return (skipped || response != null);
+		}
+
+		/**
+		 * Used to determine if the item was skipped because the progress file
+		 * shows it was already submitted.
+		 *
+		 * @return <code>true</code> if the item was skipped.
+		 */
+		public boolean isSkipped() {
+			return skipped;
+		}
+
+		/**
+		 * Used to get the item this is the result of.
+		 *
+		 * @return the item this is the result of.
+		 */
+		public Item getItem() {
+			return item;
+		}
+
+		/**
+		 * Used to get the ID of the new image.
+		 *
+		 * @return the ID of the new image, or <code>null</code> if the item
+		 *         failed or was skipped.
+		 */
+		public Long getImageID() {
+			return (response == null ? null : response.getImageID());
+		}
+
+		/**
+		 * Used to get the response SmugMug returned for the item.
+		 *
+		 * @return the response, or <code>null</code> if the item failed or
+		 *         was skipped.
+		 */
+		public UploadFromURLResponse getResponse() {
+			return response;
+		}
+
+		/**
+		 * Used to get the error SmugMug returned for the item.
+		 *
+		 * @return the error, or <code>null</code> if SmugMug did not return
+		 *         one.
+		 */
+		public Error getError() {
+			return error;
+		}
+
+		/**
+		 * Used to get the exception that kept the item from being submitted.
+		 * An {@link InterruptedException} means the batch was cancelled
+		 * before the item was sent.
+		 *
+		 * @return the exception, or <code>null</code> if there was none.
+		 */
+		public Exception getException() {
+			return exception;
+		}
+	}
+
+	/**
+	 * Class used to count the results of a batch and, if results are
+	 * collected, hold every one of them.
+	 *
+	 * @author smugmug-java-api contributors
+	 */
+	public static class Summary {
+		private AtomicLong successCount = new AtomicLong();
+
+		private AtomicLong skippedCount = new AtomicLong();
+
+		private AtomicLong failedCount = new AtomicLong();
+
+		private List<Result> resultList;
+
+		Summary(boolean collectResults) {
+			if (collectResults)
+				resultList = Collections
+						.synchronizedList(new ArrayList<Result>());
+		}
+
+		void add(Result result) {
+			if (result.isSkipped())
+				skippedCount.incrementAndGet();
+			else if (result.isSuccess())
+				successCount.incrementAndGet();
+			else
+				failedCount.incrementAndGet();
+
+			if (resultList != null)
+				resultList.add(result);
+		}
+
+		@Override
+		public String toString() {
+			return Summary.class.getName() + "[successCount="
+					+ getSuccessCount() + ", skippedCount="
+					+ getSkippedCount() + ", failedCount=" + getFailedCount()
+					+ "]";
+		}
+
+		/**
+		 * Used to get the number of items accepted by SmugMug in this run.
+		 *
+		 * @return the number of items accepted in this run.
+		 */
+		public long getSuccessCount() {
+			return successCount.get();
+		}
+
+		/**
+		 * Used to get the number of items skipped because the progress file
+		 * shows they were already submitted.
+		 *
+		 * @return the number of items skipped.
+		 */
+		public long getSkippedCount() {
+			return skippedCount.get();
+		}
+
+		/**
+		 * Used to get the number of items that failed with an error or an
+		 * exception.
+		 *
+		 * @return the number of items that failed.
+		 */
+		public long getFailedCount() {
+			return failedCount.get();
+		}
+
+		/**
+		 * Used to get every result, in the order the items finished.
+		 *
+		 * @return the results, or <code>null</code> if results were not
+		 *         collected.
+		 *
+		 * @see UploadFromURLBatch#setCollectResults(boolean)
+		 */
+		public List<Result> getResultList() {
+			return resultList;
+		}
+	}
+
+	/**
+	 * Interface used to receive the result of every item as soon as it
+	 * finishes. Implementations are called from several threads at once.
+	 *
+	 * @author smugmug-java-api contributors
+	 */
+	public interface ResultListener {
+		/**
+		 * Called once for every item of the batch.
+		 *
+		 * @param result
+		 *            The result of the item.
+		 */
+		public void resultReceived(Result result);
+	}
+}
@@ -0,0 +1,204 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.json.upload;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.kallasoft.smugmug.api.FileSizeLimitException;
+import com.kallasoft.smugmug.api.json.v1_2_0.login.WithHash.WithHashResponse;
+import com.kallasoft.smugmug.api.json.v1_2_0.login.WithPassword.WithPasswordResponse;
+
+/**
+ * Class used to carry the upload limits SmugMug reports for an account when
+ * it logs in (the FileSizeLimit and AccountType values) into the upload
+ * methods, so files that would be rejected can be refused before any I/O is
+ * done.
+ * <p>
+ * Instances are immutable and can be shared by every upload made with the same
+ * session. A <code>null</code> file size limit means the limit is unknown and
+ * every file is allowed.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class UploadLimits {
+	private static final Logger logger = LoggerFactory
+			.getLogger(UploadLimits.class);
+
+	private Long fileSizeLimit;
+
+	private String accountType;
+
+	/**
+	 * Construct a new set of upload limits.
+	 *
+	 * @param fileSizeLimit
+	 *            The upload file size limit of the account in bytes, or
+	 *            <code>null</code> if unknown.
+	 * @param accountType
+	 *            The account type (e.g. Pro), or <code>null</code> if
+	 *            unknown.
+	 */
+	public UploadLimits(Long fileSizeLimit, String accountType) {
+		this.fileSizeLimit = fileSizeLimit;
+		this.accountType = accountType;
+	}
+
+	/**
+	 * Used to create the upload limits reported by a
+	 * <code>smugmug.login.withPassword</code> call.
+	 *
+	 * @param response
+	 *            The response from the login call.
+	 *
+	 * @return the upload limits for the logged in account.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if response is <code>null</code>.
+	 */
+	public static UploadLimits fromLogin(WithPasswordResponse response)
+			throws IllegalArgumentException {
+		if (response == null)
+			throw new IllegalArgumentException("response cannot be null");
+
+		return new UploadLimits(toLong(response.getFileSizeLimit()), response
+				.getAccountType());
+	}
+
+	/**
+	 * Used to create the upload limits reported by a
+	 * <code>smugmug.login.withHash</code> call.
+	 *
+	 * @param response
+	 *            The response from the login call.
+	 *
+	 * @return the upload limits for the logged in account.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if response is <code>null</code>.
+	 */
+	public static UploadLimits fromLogin(WithHashResponse response)
+			throws IllegalArgumentException {
+		if (response == null)
+			throw new IllegalArgumentException("response cannot be null");
+
+		return new UploadLimits(toLong(response.getFileSizeLimit()), response
+				.getAccountType());
+	}
+
+	@Override
+	public String toString() {
+		return UploadLimits.class.getName() + "[fileSizeLimit="
+				+ getFileSizeLimit() + ", accountType=" + getAccountType()
+				+ "]";
+	}
+
+	/**
+	 * Used to get the upload file size limit of the account in bytes.
+	 *
+	 * @return the upload file size limit in bytes, or <code>null</code> if
+	 *         unknown.
+	 */
+	public Long getFileSizeLimit() {
+		return fileSizeLimit;
+	}
+
+	/**
+	 * Used to get the account type (e.g. Pro) of the account.
+	 *
+	 * @return the account type, or <code>null</code> if unknown.
+	 */
+	public String getAccountType() {
+		return accountType;
+	}
+
+	/**
+	 * Used to determine if a file of the given size can be uploaded.
+	 *
+	 * @param fileSize
+	 *            The size of the file in bytes.
+	 *
+	 * @return <code>true</code> if the file is within the limit or the limit
+	 *         is unknown, otherwise <code>false</code>.
+	 */
+	public boolean isAllowed(long fileSize) {
+		return (fileSizeLimit == null || fileSize <= fileSizeLimit.longValue());
+	}
+
+	/**
+	 * Used to refuse a file of the given size if it exceeds the limit.
+	 *
+	 * @param fileName
+	 *            The name of the file, used in the exception message.
+	 * @param fileSize
+	 *            The size of the file in bytes.
+	 *
+	 * @throws FileSizeLimitException
+	 *             if the file exceeds the limit.
+	 */
+	public void check(String fileName, long fileSize)
+			throws FileSizeLimitException {
+		if (!isAllowed(fileSize)) {
+			FileSizeLimitException e = new FileSizeLimitException(fileName,
+					fileSize, fileSizeLimit.longValue());
+			logger.warn("Refusing to upload file", e);
+			throw e;
+		}
+	}
+
+	/**
+	 * Used to split a batch of files into the ones that can be uploaded and
+	 * the ones that would be rejected, reading only the size of each file.
+	 * <p>
+	 * Files whose size cannot be read are treated as rejected.
+	 *
+	 * @param files
+	 *            The files to check.
+	 * @param accepted
+	 *            The list the files within the limit are added to.
+	 * @param rejected
+	 *            The list the files exceeding the limit are added to.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if any argument is <code>null</code>.
+	 */
+	public void partition(Iterable<Path> files, List<Path> accepted,
+			List<Path> rejected) throws IllegalArgumentException {
+		if (files == null || accepted == null || rejected == null)
+			throw new IllegalArgumentException(
+					"Neither files, accepted or rejected can be null");
+
+		for (Path file : files) {
+			try {
+				if (isAllowed(Files.size(file)))
+					accepted.add(file);
+				else
+					rejected.add(file);
+			} catch (IOException e) {
+				logger.warn("Unable to read the size of " + file, e);
+				rejected.add(file);
+			}
+		}
+	}
+
+	private static Long toLong(Integer value) {
+		return (value == null ? null : Long.valueOf(value.longValue()));
+	}
+}
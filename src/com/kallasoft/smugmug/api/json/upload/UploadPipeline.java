@@ -0,0 +1,494 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.json.upload;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.kallasoft.smugmug.api.json.v1_2_0.images.UploadHTTPPut;
+import com.kallasoft.smugmug.api.json.v1_2_0.images.UploadHTTPPut.UploadHTTPPutResponse;
+import com.kallasoft.smugmug.api.util.APIUtils;
+import com.kallasoft.smugmug.api.util.PooledBuffer;
+
+/**
+ * Class used to upload many files with {@link UploadHTTPPut} while keeping
+ * the disk, the CPU and the network busy at the same time.
+ * <p>
+ * Each upload passes through three stages, each with its own pool of threads:
+ * <ol>
+ * <li><em>read</em>: the file is read into pooled buffers (see
+ * {@link PooledBuffer}).</li>
+ * <li><em>hash</em>: the MD5 Sum of the data is calculated. This stage
+ * defaults to one thread per available processor.</li>
+ * <li><em>send</em>: the data is sent to SmugMug over a pooled connection.</li>
+ * </ol>
+ * The stages are joined by bounded queues. When a queue is full the stage
+ * feeding it waits, so a slow network throttles reading instead of filling
+ * the heap with files waiting to be sent. The thread count and queue depth of
+ * every stage can be tuned with the setters before {@link #start()} is
+ * called.
+ * <p>
+ * Files that fail in any stage complete their {@link Future} with the
+ * exception that caused the failure; the pipeline itself keeps running.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class UploadPipeline {
+	private static final Logger logger = LoggerFactory
+			.getLogger(UploadPipeline.class);
+
+	private UploadHTTPPut uploadMethod;
+
+	private String url;
+
+	private String sessionID;
+
+	private int readerThreads = 2;
+
+	private int hasherThreads = Runtime.getRuntime().availableProcessors();
+
+	private int senderThreads = 4;
+
+	private int readQueueDepth = 64;
+
+	private int hashQueueDepth = 16;
+
+	private int sendQueueDepth = 16;
+
+	private ThreadPoolExecutor readStage;
+
+	private ThreadPoolExecutor hashStage;
+
+	private ThreadPoolExecutor sendStage;
+
+	/**
+	 * Construct a new pipeline that uploads with the given method.
+	 *
+	 * @param uploadMethod
+	 *            The method used to send files.
+	 * @param url
+	 *            The URL of the SmugMug binary upload server.
+	 * @param sessionID
+	 *            The logged in SessionID that represents the user's session.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if uploadMethod is <code>null</code>.
+	 * @throws IllegalArgumentException
+	 *             if url or sessionID is <code>null</code> or empty.
+	 */
+	public UploadPipeline(UploadHTTPPut uploadMethod, String url,
+			String sessionID) throws IllegalArgumentException {
+		if (uploadMethod == null)
+			throw new IllegalArgumentException("uploadMethod cannot be null");
+
+		if (APIUtils.isEmpty(url))
+			throw new IllegalArgumentException("url cannot be null or empty");
+
+		if (APIUtils.isEmpty(sessionID))
+			throw new IllegalArgumentException(
+					"sessionID cannot be null or empty");
+
+		this.uploadMethod = uploadMethod;
+		this.url = url;
+		this.sessionID = sessionID;
+	}
+
+	/**
+	 * Used to create the thread pools and queues for every stage.
+	 *
+	 * @throws IllegalStateException
+	 *             if the pipeline is already started.
+	 */
+	public synchronized void start() throws IllegalStateException {
+		if (readStage != null)
+			throw new IllegalStateException("The pipeline is already started");
+
+		/* The send stage is pointless if it cannot get enough connections */
+		APIUtils.ensureConnectionCapacity(senderThreads);
+
+		readStage = createStage(readerThreads, readQueueDepth);
+		hashStage = createStage(hasherThreads, hashQueueDepth);
+		sendStage = createStage(senderThreads, sendQueueDepth);
+
+		logger.debug(
+				"Started upload pipeline with {} reader, {} hasher and {} sender threads",
+				new Object[] { Integer.valueOf(readerThreads),
+						Integer.valueOf(hasherThreads),
+						Integer.valueOf(senderThreads) });
+	}
+
+	/**
+	 * Used to wait for every submitted file to finish uploading and then stop
+	 * all the stage threads.
+	 */
+	public synchronized void stop() {
+		if (readStage == null)
+			return;
+
+		try {
+			/* Drain the stages in order, each feeds the next one */
+			shutdownStage(readStage);
+			shutdownStage(hashStage);
+			shutdownStage(sendStage);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		readStage = null;
+		hashStage = null;
+		sendStage = null;
+	}
+
+	/**
+	 * Used to queue the given file for upload into the given album.
+	 *
+	 * @param file
+	 *            The file to upload.
+	 * @param albumID
+	 *            The ID of the album to upload the file into.
+	 *
+	 * @return a {@link Future} that completes with the upload response.
+	 *
+	 * @see #submit(Path, Long, Long, String, String, Double, Double, Double)
+	 */
+	public Future<UploadHTTPPutResponse> submit(Path file, Long albumID) {
+		return submit(file, albumID, null, null, null, null, null, null);
+	}
+
+	/**
+	 * Used to queue the given file for upload. This method blocks while the
+	 * read stage's queue is full.
+	 *
+	 * @param file
+	 *            The file to upload.
+	 * @param albumID
+	 *            The ID of the album to upload the image into. Only albumID or
+	 *            imageID can be specified, but not both.
+	 * @param imageID
+	 *            The ID of the image to replace. Only albumID or imageID can be
+	 *            specified, but not both.
+	 * @param caption
+	 *            A caption for the image.
+	 * @param keywords
+	 *            The keywords assigned to the image.
+	 * @param latitude
+	 *            The latitude used to geocode the image.
+	 * @param longitude
+	 *            The longitude used to geocode the image.
+	 * @param altitude
+	 *            The altitude (in meters) used to geocode the image.
+	 *
+	 * @return a {@link Future} that completes with the upload response.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if file is <code>null</code>.
+	 * @throws IllegalStateException
+	 *             if the pipeline has not been started.
+	 */
+	public Future<UploadHTTPPutResponse> submit(Path file, Long albumID,
+			Long imageID, String caption, String keywords, Double latitude,
+			Double longitude, Double altitude) throws IllegalArgumentException,
+			IllegalStateException {
+		if (file == null)
+			throw new IllegalArgumentException("file cannot be null");
+
+		ThreadPoolExecutor stage = readStage;
+
+		if (stage == null)
+			throw new IllegalStateException("The pipeline has not been started");
+
+		/* The length and MD5 Sum are filled in once the file is hashed */
+		String[] httpHeaderValues = uploadMethod.prepareUploadArgumentValues(
+				0, null, sessionID, albumID, imageID, file.getFileName()
+						.toString(), caption, keywords, latitude, longitude,
+				altitude);
+
+		final PipelineUpload upload = new PipelineUpload(file, httpHeaderValues);
+
+		stage.execute(new Runnable() {
+			public void run() {
+				read(upload);
+			}
+		});
+
+		return upload.future;
+	}
+
+	private void read(final PipelineUpload upload) {
+		try {
+			UploadLimits uploadLimits = uploadMethod.getUploadLimits();
+
+			if (uploadLimits != null)
+				uploadLimits.check(upload.httpHeaderValues[7], Files
+						.size(upload.file));
+
+			InputStream inputStream = Files.newInputStream(upload.file);
+
+			try {
+				upload.imageData = new PooledBuffer();
+				upload.imageData.readFrom(inputStream, Long.MAX_VALUE);
+			} finally {
+				IOUtils.closeQuietly(inputStream);
+			}
+
+			uploadMethod.fillGeotagHeaders(upload.file,
+					upload.httpHeaderValues);
+		} catch (Throwable t) {
+			upload.fail(t);
+			return;
+		}
+
+		hashStage.execute(new Runnable() {
+			public void run() {
+				hash(upload);
+			}
+		});
+	}
+
+	private void hash(PipelineUpload upload) {
+		try {
+			upload.httpHeaderValues[0] = Long
+					.toString(upload.imageData.size());
+			upload.httpHeaderValues[1] = APIUtils
+					.calculateMD5Sum(upload.imageData);
+		} catch (Throwable t) {
+			upload.fail(t);
+			return;
+		}
+
+		sendStage.execute(upload.future);
+	}
+
+	/**
+	 * Used to get the number of threads reading files.
+	 *
+	 * @return the number of threads reading files.
+	 */
+	public int getReaderThreads() {
+		return readerThreads;
+	}
+
+	/**
+	 * Used to set the number of threads reading files.
+	 *
+	 * @param readerThreads
+	 *            The number of threads reading files.
+	 */
+	public void setReaderThreads(int readerThreads) {
+		this.readerThreads = readerThreads;
+	}
+
+	/**
+	 * Used to get the number of threads calculating MD5 Sums.
+	 *
+	 * @return the number of threads calculating MD5 Sums.
+	 */
+	public int getHasherThreads() {
+		return hasherThreads;
+	}
+
+	/**
+	 * Used to set the number of threads calculating MD5 Sums.
+	 *
+	 * @param hasherThreads
+	 *            The number of threads calculating MD5 Sums.
+	 */
+	public void setHasherThreads(int hasherThreads) {
+		this.hasherThreads = hasherThreads;
+	}
+
+	/**
+	 * Used to get the number of threads sending files to SmugMug.
+	 *
+	 * @return the number of threads sending files to SmugMug.
+	 */
+	public int getSenderThreads() {
+		return senderThreads;
+	}
+
+	/**
+	 * Used to set the number of threads sending files to SmugMug. This is also
+	 * the number of concurrent connections that will be used.
+	 *
+	 * @param senderThreads
+	 *            The number of threads sending files to SmugMug.
+	 */
+	public void setSenderThreads(int senderThreads) {
+		this.senderThreads = senderThreads;
+	}
+
+	/**
+	 * Used to get the number of files that can wait to be read.
+	 *
+	 * @return the number of files that can wait to be read.
+	 */
+	public int getReadQueueDepth() {
+		return readQueueDepth;
+	}
+
+	/**
+	 * Used to set the number of files that can wait to be read before
+	 * {@link #submit(Path, Long)} blocks.
+	 *
+	 * @param readQueueDepth
+	 *            The number of files that can wait to be read.
+	 */
+	public void setReadQueueDepth(int readQueueDepth) {
+		this.readQueueDepth = readQueueDepth;
+	}
+
+	/**
+	 * Used to get the number of files, already in memory, that can wait to be
+	 * hashed.
+	 *
+	 * @return the number of files that can wait to be hashed.
+	 */
+	public int getHashQueueDepth() {
+		return hashQueueDepth;
+	}
+
+	/**
+	 * Used to set the number of files, already in memory, that can wait to be
+	 * hashed before the read stage blocks.
+	 *
+	 * @param hashQueueDepth
+	 *            The number of files that can wait to be hashed.
+	 */
+	public void setHashQueueDepth(int hashQueueDepth) {
+		this.hashQueueDepth = hashQueueDepth;
+	}
+
+	/**
+	 * Used to get the number of files, already in memory and hashed, that can
+	 * wait to be sent.
+	 *
+	 * @return the number of files that can wait to be sent.
+	 */
+	public int getSendQueueDepth() {
+		return sendQueueDepth;
+	}
+
+	/**
+	 * Used to set the number of files, already in memory and hashed, that can
+	 * wait to be sent before the hash stage blocks. Together with
+	 * {@link #setHashQueueDepth(int)} this bounds the memory used by files
+	 * waiting in the pipeline.
+	 *
+	 * @param sendQueueDepth
+	 *            The number of files that can wait to be sent.
+	 */
+	public void setSendQueueDepth(int sendQueueDepth) {
+		this.sendQueueDepth = sendQueueDepth;
+	}
+
+	private static ThreadPoolExecutor createStage(int threads, int queueDepth) {
+		return new ThreadPoolExecutor(threads, threads, 0,
+				TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(
+						queueDepth), BLOCKING_POLICY);
+	}
+
+	private static void shutdownStage(ThreadPoolExecutor stage)
+			throws InterruptedException {
+		stage.shutdown();
+		stage.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Policy used to make a stage wait for room in the next stage's queue
+	 * instead of rejecting the work.
+	 */
+	private static final RejectedExecutionHandler BLOCKING_POLICY = new RejectedExecutionHandler() {
+		public void rejectedExecution(Runnable runnable,
+				ThreadPoolExecutor executor) {
+			if (executor.isShutdown())
+				throw new RejectedExecutionException(
+						"The upload pipeline has been stopped");
+
+			try {
+				executor.getQueue().put(runnable);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RejectedExecutionException(e);
+			}
+		}
+	};
+
+	/**
+	 * Class used to carry one file through the stages of the pipeline. The
+	 * send stage runs the {@link #future} itself, which performs the upload.
+	 */
+	private class PipelineUpload implements Callable<UploadHTTPPutResponse> {
+		private Path file;
+
+		private String[] httpHeaderValues;
+
+		private PooledBuffer imageData;
+
+		private Throwable failure;
+
+		private FutureTask<UploadHTTPPutResponse> future = new FutureTask<UploadHTTPPutResponse>(
+				this);
+
+		public PipelineUpload(Path file, String[] httpHeaderValues) {
+			this.file = file;
+			this.httpHeaderValues = httpHeaderValues;
+		}
+
+		public UploadHTTPPutResponse call() throws Exception {
+			if (failure instanceof Exception)
+				throw (Exception) failure;
+			else if (failure != null)
+				throw new RuntimeException(failure);
+
+			try {
+				return uploadMethod.execute(url, httpHeaderValues, imageData);
+			} finally {
+				/* Hand the buffers back as soon as the data has been sent */
+				release();
+			}
+		}
+
+		/**
+		 * Used to complete the future with the given failure from the stage
+		 * thread that hit it.
+		 */
+		public void fail(Throwable t) {
+			logger.error("Unable to upload " + file, t);
+			failure = t;
+			release();
+			future.run();
+		}
+
+		private void release() {
+			if (imageData != null)
+				imageData.release();
+
+			imageData = null;
+		}
+	}
+}
@@ -0,0 +1,178 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.json.upload;
+
+/**
+ * Class used to represent an immutable snapshot of the progress of an upload
+ * request, as reported to an {@link UploadProgressListener}.
+ * <p>
+ * All time values are reported in milliseconds and all throughput values in
+ * bytes per second. Values that are not known yet are reported as
+ * <code>-1</code>.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class UploadProgress {
+	private long bytesWritten;
+
+	private long totalBytes;
+
+	private long elapsedTime;
+
+	private long instantaneousThroughput;
+
+	private long averageThroughput;
+
+	private long timeToFirstByte;
+
+	private long serverProcessingTime;
+
+	/**
+	 * Construct a new progress snapshot with the given values.
+	 *
+	 * @param bytesWritten
+	 *            The number of bytes of the request body written so far.
+	 * @param totalBytes
+	 *            The total length of the request body, or <code>-1</code> if
+	 *            unknown.
+	 * @param elapsedTime
+	 *            The time, in milliseconds, since the request body started to
+	 *            be written.
+	 * @param instantaneousThroughput
+	 *            The throughput, in bytes per second, measured since the
+	 *            previous snapshot.
+	 * @param averageThroughput
+	 *            The throughput, in bytes per second, measured since the
+	 *            request body started to be written.
+	 * @param timeToFirstByte
+	 *            The time, in milliseconds, from the start of the request body
+	 *            until the first byte of the response was received, or
+	 *            <code>-1</code> if no response has been received yet.
+	 * @param serverProcessingTime
+	 *            The time, in milliseconds, from the last byte of the request
+	 *            body being written until the first byte of the response was
+	 *            received, or <code>-1</code> if no response has been
+	 *            received yet.
+	 */
+	public UploadProgress(long bytesWritten, long totalBytes, long elapsedTime,
+			long instantaneousThroughput, long averageThroughput,
+			long timeToFirstByte, long serverProcessingTime) {
+		this.bytesWritten = bytesWritten;
+		this.totalBytes = totalBytes;
+		this.elapsedTime = elapsedTime;
+		this.instantaneousThroughput = instantaneousThroughput;
+		this.averageThroughput = averageThroughput;
+		this.timeToFirstByte = timeToFirstByte;
+		this.serverProcessingTime = serverProcessingTime;
+	}
+
+	@Override
+	public String toString() {
+		return UploadProgress.class.getName() + "[bytesWritten="
+				+ getBytesWritten() + ", totalBytes=" + getTotalBytes()
+				+ ", elapsedTime=" + getElapsedTime()
+				+ ", instantaneousThroughput=" + getInstantaneousThroughput()
+				+ ", averageThroughput=" + getAverageThroughput()
+				+ ", timeToFirstByte=" + getTimeToFirstByte()
+				+ ", serverProcessingTime=" + getServerProcessingTime() + "]";
+	}
+
+	/**
+	 * Used to get the number of bytes of the request body written so far.
+	 *
+	 * @return the number of bytes of the request body written so far.
+	 */
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	/**
+	 * Used to get the total length of the request body.
+	 *
+	 * @return the total length of the request body, or <code>-1</code> if
+	 *         unknown.
+	 */
+	public long getTotalBytes() {
+		return totalBytes;
+	}
+
+	/**
+	 * Used to get the time, in milliseconds, since the request body started to
+	 * be written.
+	 *
+	 * @return the time, in milliseconds, since the request body started to be
+	 *         written.
+	 */
+	public long getElapsedTime() {
+		return elapsedTime;
+	}
+
+	/**
+	 * Used to get the throughput, in bytes per second, measured since the
+	 * previous snapshot was taken.
+	 *
+	 * @return the throughput, in bytes per second, measured since the previous
+	 *         snapshot was taken.
+	 */
+	public long getInstantaneousThroughput() {
+		return instantaneousThroughput;
+	}
+
+	/**
+	 * Used to get the throughput, in bytes per second, measured since the
+	 * request body started to be written.
+	 *
+	 * @return the throughput, in bytes per second, measured since the request
+	 *         body started to be written.
+	 */
+	public long getAverageThroughput() {
+		return averageThroughput;
+	}
+
+	/**
+	 * Used to get the time, in milliseconds, from the start of the request
+	 * body until the first byte of the response was received.
+	 *
+	 * @return the time to first byte in milliseconds, or <code>-1</code> if
+	 *         no response has been received yet.
+	 */
+	public long getTimeToFirstByte() {
+		return timeToFirstByte;
+	}
+
+	/**
+	 * Used to get the time, in milliseconds, the server spent between
+	 * receiving the last byte of the request body and replying.
+	 *
+	 * @return the server processing time in milliseconds, or <code>-1</code>
+	 *         if no response has been received yet.
+	 */
+	public long getServerProcessingTime() {
+		return serverProcessingTime;
+	}
+
+	/**
+	 * Used to get the percentage of the request body that has been written.
+	 *
+	 * @return the percentage (0-100) of the request body that has been
+	 *         written, or <code>-1</code> if the total length is unknown.
+	 */
+	public int getPercentComplete() {
+		if (totalBytes <= 0)
+			return -1;
+
+		return (int) ((bytesWritten * 100) / totalBytes);
+	}
+}
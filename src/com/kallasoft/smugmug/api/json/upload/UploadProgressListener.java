@@ -0,0 +1,49 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.json.upload;
+
+/**
+ * Interface used to receive progress notifications while the body of an upload
+ * request is being sent to the SmugMug server.
+ * <p>
+ * Notifications are coalesced by {@link ProgressRequestEntity} so
+ * {@link #progressUpdated(UploadProgress)} is called at most once per sample
+ * interval no matter how many buffers are written. Both methods are called on
+ * the thread performing the upload, so implementations should return quickly
+ * and hand the {@link UploadProgress} snapshot off to another thread if they
+ * need to do any real work with it.
+ *
+ * @author smugmug-java-api contributors
+ */
+public interface UploadProgressListener {
+	/**
+	 * Called periodically while the request body is being written to the
+	 * server.
+	 *
+	 * @param progress
+	 *            An immutable snapshot of the upload progress so far.
+	 */
+	public void progressUpdated(UploadProgress progress);
+
+	/**
+	 * Called once after the entire request body has been written and the
+	 * server has started to reply. The given snapshot includes the time to
+	 * first byte and server processing time values.
+	 *
+	 * @param progress
+	 *            An immutable snapshot of the completed upload.
+	 */
+	public void uploadCompleted(UploadProgress progress);
+}
@@ -21,9 +21,12 @@ import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.kallasoft.smugmug.api.FileSizeLimitException;
 import com.kallasoft.smugmug.api.json.AbstractMethod;
 import com.kallasoft.smugmug.api.json.AbstractResponse;
 import com.kallasoft.smugmug.api.json.RuntimeJSONException;
+import com.kallasoft.smugmug.api.json.upload.UploadLimits;
+import com.kallasoft.smugmug.api.json.upload.UploadProgressListener;
 import com.kallasoft.smugmug.api.json.util.JSONUtils;
 import com.kallasoft.smugmug.api.json.v1_2_0.APIVersionConstants;
 import com.kallasoft.smugmug.api.util.APIUtils;
@@ -82,6 +85,10 @@ public class Upload extends AbstractMethod {
 
 	private static final Logger logger = LoggerFactory.getLogger(Upload.class);
 
+	private UploadProgressListener uploadProgressListener;
+
+	private UploadLimits uploadLimits;
+
 	/**
 	 * Construct a new method instance that can be executed.
 	 */
@@ -140,7 +147,63 @@ public class Upload extends AbstractMethod {
 		 * The arguments should be passed through immediately, as-is, to
 		 * super.executeImpl.
 		 */
-		return new UploadResponse(executeImpl(url, argumentValues));
+		return new UploadResponse(executeImpl(url, argumentValues,
+				getUploadProgressListener()));
+	}
+
+	/**
+	 * Used to get the listener notified of the progress of uploads executed by
+	 * this method instance.
+	 * 
+	 * @return the listener notified of upload progress, or <code>null</code>
+	 *         if none has been set.
+	 */
+	public UploadProgressListener getUploadProgressListener() {
+		return uploadProgressListener;
+	}
+
+	/**
+	 * Used to set the listener notified of the progress of uploads executed by
+	 * this method instance.
+	 * <p>
+	 * Progress is reported from the thread executing the upload, so if this
+	 * method instance is shared between threads the listener must be
+	 * thread-safe.
+	 * 
+	 * @param uploadProgressListener
+	 *            The listener notified of upload progress, or
+	 *            <code>null</code> to stop reporting progress.
+	 */
+	public void setUploadProgressListener(
+			UploadProgressListener uploadProgressListener) {
+		this.uploadProgressListener = uploadProgressListener;
+	}
+
+	/**
+	 * Used to get the limits of the logged in account that uploads executed
+	 * by this method instance are checked against.
+	 * 
+	 * @return the upload limits, or <code>null</code> if uploads are not
+	 *         checked.
+	 */
+	public UploadLimits getUploadLimits() {
+		return uploadLimits;
+	}
+
+	/**
+	 * Used to set the limits of the logged in account that uploads executed
+	 * by this method instance are checked against, usually created with
+	 * {@link UploadLimits#fromLogin(com.kallasoft.smugmug.api.json.v1_2_0.login.WithPassword.WithPasswordResponse)}.
+	 * <p>
+	 * Files that exceed the account's FileSizeLimit are refused with a
+	 * {@link FileSizeLimitException} before they are read, hashed, Base64-encoded or sent.
+	 * 
+	 * @param uploadLimits
+	 *            The upload limits, or <code>null</code> to stop checking
+	 *            uploads.
+	 */
+	public void setUploadLimits(UploadLimits uploadLimits) {
+		this.uploadLimits = uploadLimits;
 	}
 
 	/**
@@ -306,7 +369,10 @@ public class Upload extends AbstractMethod {
 		 * Perform all the image data processing steps. Any of these can throw
 		 * an exception that will kick back out to the caller to catch.
 		 */
-		byte[] imageData = APIUtils.readStream(inputStream);
+		byte[] imageData = (uploadLimits == null
+				|| uploadLimits.getFileSizeLimit() == null ? APIUtils
+				.readStream(inputStream) : APIUtils.readStream(inputStream,
+				uploadLimits.getFileSizeLimit().longValue(), fileName));
 		String encodedData = APIUtils.base64Encode(imageData);
 		String md5Sum = APIUtils.calculateMD5Sum(imageData);
 
@@ -28,27 +28,42 @@
  */
 package com.kallasoft.smugmug.api.json.v1_2_0.images;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 
 import org.apache.commons.httpclient.HttpStatus;
 import org.apache.commons.httpclient.URIException;
 import org.apache.commons.httpclient.methods.ByteArrayRequestEntity;
 import org.apache.commons.httpclient.methods.PutMethod;
+import org.apache.commons.httpclient.methods.RequestEntity;
+import org.apache.commons.httpclient.params.HttpMethodParams;
 import org.apache.commons.httpclient.util.URIUtil;
-import org.apache.commons.io.IOUtils;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.kallasoft.smugmug.api.APIConstants;
+import com.kallasoft.smugmug.api.AmbiguousUploadException;
+import com.kallasoft.smugmug.api.FileSizeLimitException;
 import com.kallasoft.smugmug.api.NetworkException;
+import com.kallasoft.smugmug.api.UnsentUploadException;
 import com.kallasoft.smugmug.api.json.AbstractMethod;
 import com.kallasoft.smugmug.api.json.AbstractResponse;
 import com.kallasoft.smugmug.api.json.RuntimeJSONException;
+import com.kallasoft.smugmug.api.json.upload.FileChannelRequestEntity;
+import com.kallasoft.smugmug.api.json.upload.PooledBufferRequestEntity;
+import com.kallasoft.smugmug.api.json.upload.ProgressRequestEntity;
+import com.kallasoft.smugmug.api.json.upload.SendTrackingRequestEntity;
+import com.kallasoft.smugmug.api.json.upload.UploadLimits;
+import com.kallasoft.smugmug.api.json.upload.UploadProgressListener;
 import com.kallasoft.smugmug.api.json.util.JSONUtils;
 import com.kallasoft.smugmug.api.json.v1_2_0.APIVersionConstants;
 import com.kallasoft.smugmug.api.util.APIUtils;
+import com.kallasoft.smugmug.api.util.EXIFData;
+import com.kallasoft.smugmug.api.util.EXIFReader;
+import com.kallasoft.smugmug.api.util.PooledBuffer;
 
 /**
  * This method will upload a file to the specified album (identified by
@@ -111,6 +126,14 @@ public class UploadHTTPPut extends AbstractMethod {
 	private static final Logger logger = LoggerFactory
 			.getLogger(UploadHTTPPut.class);
 
+	private UploadProgressListener uploadProgressListener;
+
+	private boolean expectContinue = true;
+
+	private UploadLimits uploadLimits;
+
+	private boolean geotagFromEXIF = true;
+
 	/**
 	 * Construct a new method instance that can be executed.
 	 */
@@ -132,6 +155,229 @@ public class UploadHTTPPut extends AbstractMethod {
 		super(methodName, arguments);
 	}
 
+	/**
+	 * Used to get the listener notified of the progress of uploads executed by
+	 * this method instance.
+	 * 
+	 * @return the listener notified of upload progress, or <code>null</code>
+	 *         if none has been set.
+	 */
+	public UploadProgressListener getUploadProgressListener() {
+		return uploadProgressListener;
+	}
+
+	/**
+	 * Used to set the listener notified of the progress of uploads executed by
+	 * this method instance.
+	 * <p>
+	 * Progress is reported from the thread executing the upload, so if this
+	 * method instance is shared between threads the listener must be
+	 * thread-safe.
+	 * 
+	 * @param uploadProgressListener
+	 *            The listener notified of upload progress, or
+	 *            <code>null</code> to stop reporting progress.
+	 */
+	public void setUploadProgressListener(
+			UploadProgressListener uploadProgressListener) {
+		this.uploadProgressListener = uploadProgressListener;
+	}
+
+	/**
+	 * Used to determine if uploads executed by this method instance send an
+	 * <code>Expect: 100-continue</code> header.
+	 * 
+	 * @return <code>true</code> if the header is sent, otherwise
+	 *         <code>false</code>.
+	 * 
+	 * @see #setExpectContinue(boolean)
+	 */
+	public boolean isExpectContinue() {
+		return expectContinue;
+	}
+
+	/**
+	 * Used to set if uploads executed by this method instance send an
+	 * <code>Expect: 100-continue</code> header, which is the default.
+	 * <p>
+	 * With the header, only the HTTP headers (X-Smug-SessionID,
+	 * X-Smug-AlbumID, etc.) are sent at first and the image data is only sent
+	 * once the server replies with <code>100 Continue</code>. If the server
+	 * rejects the upload instead (e.g. an expired session or invalid album)
+	 * its reply is returned right away without ever transferring the image
+	 * data. If the server ignores the header and does not reply within a few
+	 * seconds, <code>HttpClient</code> sends the image data anyway.
+	 * 
+	 * @param expectContinue
+	 *            <code>true</code> to send the header, <code>false</code> to
+	 *            always send the image data immediately.
+	 */
+	public void setExpectContinue(boolean expectContinue) {
+		this.expectContinue = expectContinue;
+	}
+
+	/**
+	 * Used to get the limits of the logged in account that uploads executed
+	 * by this method instance are checked against.
+	 * 
+	 * @return the upload limits, or <code>null</code> if uploads are not
+	 *         checked.
+	 */
+	public UploadLimits getUploadLimits() {
+		return uploadLimits;
+	}
+
+	/**
+	 * Used to set the limits of the logged in account that uploads executed
+	 * by this method instance are checked against, usually created with
+	 * {@link UploadLimits#fromLogin(com.kallasoft.smugmug.api.json.v1_2_0.login.WithPassword.WithPasswordResponse)}.
+	 * <p>
+	 * Files that exceed the account's FileSizeLimit are refused with a
+	 * {@link FileSizeLimitException} before they are read, hashed or sent.
+	 * 
+	 * @param uploadLimits
+	 *            The upload limits, or <code>null</code> to stop checking
+	 *            uploads.
+	 */
+	public void setUploadLimits(UploadLimits uploadLimits) {
+		this.uploadLimits = uploadLimits;
+	}
+
+	/**
+	 * Used to determine if uploads of files executed by this method instance
+	 * are geocoded from the GPS data in the file's EXIF header.
+	 * 
+	 * @return <code>true</code> if uploads are geocoded from EXIF data,
+	 *         otherwise <code>false</code>.
+	 * 
+	 * @see #setGeotagFromEXIF(boolean)
+	 */
+	public boolean isGeotagFromEXIF() {
+		return geotagFromEXIF;
+	}
+
+	/**
+	 * Used to set if uploads of files executed by this method instance are
+	 * geocoded from the GPS data in the file's EXIF header, which is the
+	 * default.
+	 * <p>
+	 * The EXIF header is read locally with {@link EXIFReader}, so the
+	 * X-Smug-Latitude, X-Smug-Longitude and X-Smug-Altitude headers can be
+	 * sent with the upload instead of being set afterwards. Values passed in
+	 * by the caller are never overridden.
+	 * 
+	 * @param geotagFromEXIF
+	 *            <code>true</code> to geocode uploads from EXIF data,
+	 *            <code>false</code> to only use the values passed in.
+	 */
+	public void setGeotagFromEXIF(boolean geotagFromEXIF) {
+		this.geotagFromEXIF = geotagFromEXIF;
+	}
+
+	/**
+	 * Used to fill the X-Smug-Latitude, X-Smug-Longitude and X-Smug-Altitude
+	 * header values (httpHeaderValues[10] to [12]) from the GPS data in the
+	 * EXIF header of the given file.
+	 * <p>
+	 * Nothing is done if {@link #isGeotagFromEXIF()} is <code>false</code>,
+	 * if any of the three values is already set, or if the file has no GPS
+	 * data. A file whose EXIF header cannot be read is uploaded without
+	 * geocoding.
+	 * 
+	 * @param file
+	 *            The file being uploaded.
+	 * @param httpHeaderValues
+	 *            The HTTP header values that will be sent along with the
+	 *            upload, see {@link #HTTP_HEADERS}.
+	 */
+	public void fillGeotagHeaders(Path file, String[] httpHeaderValues) {
+		if (!geotagFromEXIF || httpHeaderValues[10] != null
+				|| httpHeaderValues[11] != null || httpHeaderValues[12] != null)
+			return;
+
+		EXIFData exifData = null;
+
+		try {
+			exifData = EXIFReader.read(file);
+		} catch (RuntimeException e) {
+			logger.warn("Unable to read the EXIF data of {}, it will not be "
+					+ "geocoded", file);
+			return;
+		}
+
+		if (exifData == null || !exifData.hasGeotag())
+			return;
+
+		httpHeaderValues[10] = APIUtils.toString(exifData.getLatitude());
+		httpHeaderValues[11] = APIUtils.toString(exifData.getLongitude());
+		httpHeaderValues[12] = APIUtils.toString(exifData.getAltitude());
+	}
+
+	/**
+	 * Used to read the image data from the given stream into pooled buffers,
+	 * refusing to read past the account's file size limit if
+	 * {@link #getUploadLimits()} has one.
+	 * <p>
+	 * The caller must call {@link PooledBuffer#release()} on the returned
+	 * buffer once the upload has completed.
+	 * 
+	 * @param inputStream
+	 *            The stream to read the image data from.
+	 * @param fileName
+	 *            The name of the file being uploaded.
+	 * 
+	 * @return the image data.
+	 * 
+	 * @throws FileSizeLimitException
+	 *             if the stream is larger than the account's file size limit.
+	 * @throws RuntimeException
+	 *             if the stream cannot be read.
+	 */
+	protected PooledBuffer readImageData(InputStream inputStream,
+			String fileName) throws FileSizeLimitException, RuntimeException {
+		Long fileSizeLimit = (uploadLimits == null ? null : uploadLimits
+				.getFileSizeLimit());
+		PooledBuffer imageData = new PooledBuffer();
+		boolean success = false;
+
+		try {
+			/* Read one byte past the limit so an oversized stream is caught */
+			imageData.readFrom(inputStream, (fileSizeLimit == null ? Long.MAX_VALUE
+					: fileSizeLimit.longValue() + 1));
+			checkFileSizeLimit(fileName, imageData.size());
+			success = true;
+		} catch (IOException e) {
+			RuntimeException re = new RuntimeException(e);
+			logger.error(
+					"An error occured while trying to load the stream data",
+					re);
+			throw re;
+		} finally {
+			if (!success)
+				imageData.release();
+		}
+
+		return imageData;
+	}
+
+	/**
+	 * Used to refuse an upload of the given size if it exceeds the account's
+	 * file size limit. Does nothing if no {@link UploadLimits} have been set.
+	 * 
+	 * @param fileName
+	 *            The name of the file being uploaded.
+	 * @param fileSize
+	 *            The size of the file in bytes.
+	 * 
+	 * @throws FileSizeLimitException
+	 *             if the file is larger than the account's file size limit.
+	 */
+	protected void checkFileSizeLimit(String fileName, long fileSize)
+			throws FileSizeLimitException {
+		if (uploadLimits != null)
+			uploadLimits.check(fileName, fileSize);
+	}
+
 	/**
 	 * Unimplemented method, throws {@link UnsupportedOperationException}.
 	 * <p>
@@ -221,22 +467,108 @@ public class UploadHTTPPut extends AbstractMethod {
 	public UploadHTTPPutResponse execute(String url, String[] httpHeaderValues,
 			byte[] imageData) throws IllegalArgumentException,
 			NetworkException, RuntimeException {
+		normalizeHTTPHeaderValues(url, httpHeaderValues);
+
+		return new UploadHTTPPutResponse(executeUploadImpl(url,
+				httpHeaderValues, imageData));
+	}
+
+	/**
+	 * Used to perform a Binary-only upload using HTTP PUT, sending the
+	 * contents of the given file as the body without loading it into memory.
+	 * <p>
+	 * This behaves exactly like {@link #execute(String, String[], byte[])}
+	 * except the body is streamed from the file by a
+	 * {@link FileChannelRequestEntity}, which makes it the preferred way to
+	 * upload large files like videos.
+	 * 
+	 * @param url
+	 *            The URL of the SmugMug server to communicate with. This
+	 *            usually must be equal to the the SmugMug Upload URL, otherwise
+	 *            the image will not be processed.
+	 * @param httpHeaderValues
+	 *            The HTTP header values that will be sent along with this
+	 *            upload, see {@link #HTTP_HEADERS}.
+	 * @param file
+	 *            The file whose contents will be uploaded.
+	 * 
+	 * @return the response that includes an ID for the image after it's upload
+	 *         completes.
+	 * 
+	 * @see #execute(String, String[], byte[])
+	 * @see #HTTP_HEADERS
+	 */
+	public UploadHTTPPutResponse execute(String url, String[] httpHeaderValues,
+			Path file) throws IllegalArgumentException, NetworkException,
+			RuntimeException {
+		if (file == null)
+			throw new IllegalArgumentException("file cannot be null");
+
+		normalizeHTTPHeaderValues(url, httpHeaderValues);
+
+		return new UploadHTTPPutResponse(executeUploadImpl(url,
+				httpHeaderValues, new FileChannelRequestEntity(file)));
+	}
+
+	/**
+	 * Used to perform a Binary-only upload using HTTP PUT, sending the data
+	 * held by the given pooled buffer as the body.
+	 * <p>
+	 * This behaves exactly like {@link #execute(String, String[], byte[])}
+	 * except each pooled buffer is written directly by a
+	 * {@link PooledBufferRequestEntity}, so the image data never has to be
+	 * copied into one array. The buffer is not released by this method.
+	 * 
+	 * @param url
+	 *            The URL of the SmugMug server to communicate with. This
+	 *            usually must be equal to the the SmugMug Upload URL, otherwise
+	 *            the image will not be processed.
+	 * @param httpHeaderValues
+	 *            The HTTP header values that will be sent along with this
+	 *            upload, see {@link #HTTP_HEADERS}.
+	 * @param imageData
+	 *            The buffer holding the image data that will be uploaded.
+	 * 
+	 * @return the response that includes an ID for the image after it's upload
+	 *         completes.
+	 * 
+	 * @see #execute(String, String[], byte[])
+	 * @see #HTTP_HEADERS
+	 */
+	public UploadHTTPPutResponse execute(String url, String[] httpHeaderValues,
+			PooledBuffer imageData) throws IllegalArgumentException,
+			NetworkException, RuntimeException {
+		if (imageData == null)
+			throw new IllegalArgumentException("imageData cannot be null");
+
+		normalizeHTTPHeaderValues(url, httpHeaderValues);
+
+		return new UploadHTTPPutResponse(executeUploadImpl(url,
+				httpHeaderValues, new PooledBufferRequestEntity(imageData)));
+	}
+
+	/**
+	 * Used to correct the X-Smug-Version and X-Smug-ResponseType header values
+	 * in place, logging a warning if they (or the url) are not what this
+	 * implementation requires.
+	 * <p>
+	 * These values have to be forcibly set by every execute method that takes
+	 * a <code>String[]</code> of header values, because those methods never
+	 * make a call to prepare the headers.
+	 * 
+	 * @param url
+	 *            The URL of the SmugMug server the upload will be sent to.
+	 * @param httpHeaderValues
+	 *            The HTTP header values that will be corrected.
+	 */
+	protected void normalizeHTTPHeaderValues(String url,
+			String[] httpHeaderValues) {
 		if (!APIVersionConstants.BINARY_UPLOAD_SERVER_URL.equals(url))
 			logger
 					.warn(
 							"url [{}] should normally be equal to the Binary SmugMug Upload Server URL (defined by APIVersionConstants.BINARY_UPLOAD_SERVER_URL), otherwise the uploaded image won't be processed.",
 							url);
 
-		/*
-		 * These values have to be forcibly set here and not only down in
-		 * prepareUploadArgumentValues, because this method never makes a call
-		 * to prepare the headers, and it's feasible to think that this method
-		 * could get called with invalid values set for X-Smug-Version and
-		 * X-Smug-ResponseType, so they need to be corrected right here in this
-		 * method. We also log a warning to provide feedback to the caller if
-		 * that is the case.
-		 */
-
 		/* This class is written to support the 1.2.0 JSON API, so set it */
 		if (!"1.2.0".equals(httpHeaderValues[3])) {
 			logger
@@ -251,9 +583,6 @@ public class UploadHTTPPut extends AbstractMethod {
 
 			httpHeaderValues[4] = "JSON";
 		}
-
-		return new UploadHTTPPutResponse(executeUploadImpl(url,
-				httpHeaderValues, imageData));
 	}
 
 	/**
@@ -373,12 +702,110 @@ public class UploadHTTPPut extends AbstractMethod {
 		 * Load the image data here, because we need to pass it to prepare AND
 		 * pass it to the upload method.
 		 */
-		byte[] imageData = APIUtils.readStream(inputStream);
+		PooledBuffer imageData = readImageData(inputStream, fileName);
+
+		try {
+			/* Delegate to the main execute method after preparing the arguments */
+			return execute(url, prepareUploadArgumentValues(imageData.size(),
+					APIUtils.calculateMD5Sum(imageData), sessionID, albumID,
+					imageID, fileName, caption, keywords, latitude, longitude,
+					altitude), imageData);
+		} finally {
+			imageData.release();
+		}
+	}
+
+	/**
+	 * Convenience method that delegates to
+	 * {@link #execute(String, String, Long, Long, Path, String, String, Double, Double, Double)}.
+	 * 
+	 * @param url
+	 *            The URL of the SmugMug server to communicate with.
+	 * @param sessionID
+	 *            The logged in SessionID that represents the user's session.
+	 * @param albumID
+	 *            The ID of the album to upload the image into. Only albumID or
+	 *            imageID can be specified, but not both.
+	 * @param imageID
+	 *            The ID of the image to replace. Only albumID or imageID can be
+	 *            specified, but not both.
+	 * @param file
+	 *            The file to upload to SmugMug.
+	 * 
+	 * @return the response that includes an ID for the image after it's upload
+	 *         completes.
+	 * 
+	 * @see #execute(String, String[], Path)
+	 */
+	public UploadHTTPPutResponse execute(String url, String sessionID,
+			Long albumID, Long imageID, Path file) {
+		return execute(url, sessionID, albumID, imageID, file, null, null,
+				null, null, null);
+	}
+
+	/**
+	 * Convenience method used to upload the given file without loading it into
+	 * memory, before calling {@link #execute(String, String[], Path)}.
+	 * <p>
+	 * The "Content-Length" header is set from the size of the file and the
+	 * "Content-MD5" header is calculated by memory-mapping the file with
+	 * {@link APIUtils#calculateMD5Sum(Path)}. The "X-Smug-FileName" header is
+	 * set to the name of the file.
+	 * 
+	 * @param url
+	 *            The URL of the SmugMug server to communicate with.
+	 * @param sessionID
+	 *            The logged in SessionID that represents the user's session.
+	 * @param albumID
+	 *            The ID of the album to upload the image into. Only albumID or
+	 *            imageID can be specified, but not both.
+	 * @param imageID
+	 *            The ID of the image to replace. Only albumID or imageID can be
+	 *            specified, but not both.
+	 * @param file
+	 *            The file to upload to SmugMug.
+	 * @param caption
+	 *            A caption for the image.
+	 * @param keywords
+	 *            The keywords assigned to the image.
+	 * @param latitude
+	 *            The latitude used to geocode the image.
+	 * @param longitude
+	 *            The longitude used to geocode the image.
+	 * @param altitude
+	 *            The altitude (in meters) used to geocode the image.
+	 * 
+	 * @return the response that includes an ID for the image after it's upload
+	 *         completes.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if file is <code>null</code>
+	 * @throws RuntimeException
+	 *             if the file could not be read.
+	 * 
+	 * @see #execute(String, String[], Path)
+	 */
+	public UploadHTTPPutResponse execute(String url, String sessionID,
+			Long albumID, Long imageID, Path file, String caption,
+			String keywords, Double latitude, Double longitude, Double altitude)
+			throws IllegalArgumentException, RuntimeException {
+		if (file == null)
+			throw new IllegalArgumentException("file cannot be null");
 
-		/* Delegate to the main execute method after preparing the arguments */
-		return execute(url, prepareUploadArgumentValues(imageData, sessionID,
+		String fileName = file.getFileName().toString();
+		FileChannelRequestEntity requestEntity = new FileChannelRequestEntity(
+				file);
+
+		/* Refuse oversized files before spending any time hashing them */
+		checkFileSizeLimit(fileName, requestEntity.getContentLength());
+
+		String[] httpHeaderValues = prepareUploadArgumentValues(requestEntity
+				.getContentLength(), APIUtils.calculateMD5Sum(file), sessionID,
 				albumID, imageID, fileName, caption, keywords, latitude,
-				longitude, altitude), imageData);
+				longitude, altitude);
+		fillGeotagHeaders(file, httpHeaderValues);
+
+		return execute(url, httpHeaderValues, file);
 	}
 
 	/**
@@ -435,11 +862,55 @@ public class UploadHTTPPut extends AbstractMethod {
 		if (imageData == null)
 			throw new IllegalArgumentException("imageData cannot be null");
 
+		return prepareUploadArgumentValues(imageData.length, APIUtils
+				.calculateMD5Sum(imageData), sessionID, albumID, imageID,
+				fileName, caption, keywords, latitude, longitude, altitude);
+	}
+
+	/**
+	 * Used to prepare all the arguments exactly like
+	 * {@link #prepareUploadArgumentValues(byte[], String, Long, Long, String, String, String, Double, Double, Double)}
+	 * when the length and MD5 Sum of the image are already known, so the image
+	 * data never has to be loaded into memory.
+	 * <p>
+	 * This is public so callers that manage the upload body themselves (e.g.
+	 * {@link com.kallasoft.smugmug.api.json.upload.UploadPipeline}) can build
+	 * the header values the same way this class does before calling
+	 * {@link #execute(String, String[], Path)} or one of its overloads.
+	 * 
+	 * @param contentLength
+	 *            The length of the image data in bytes.
+	 * @param md5Sum
+	 *            The MD5 Sum of the image data.
+	 * @param sessionID
+	 *            The logged in SessionID that represents the user's session.
+	 * @param albumID
+	 *            The ID of the album to upload the image into.
+	 * @param imageID
+	 *            The ID of the image to replace.
+	 * @param fileName
+	 *            The name of the file being uploaded.
+	 * @param caption
+	 *            A caption for the image.
+	 * @param keywords
+	 *            The keywords assigned to the image.
+	 * @param latitude
+	 *            The latitude used to geocode the image.
+	 * @param longitude
+	 *            The longitude used to geocode the image.
+	 * @param altitude
+	 *            The altitude (in meters) used to geocode the image.
+	 * 
+	 * @return the prepared HTTP header values.
+	 */
+	public String[] prepareUploadArgumentValues(long contentLength,
+			String md5Sum, String sessionID, Long albumID, Long imageID,
+			String fileName, String caption, String keywords, Double latitude,
+			Double longitude, Double altitude) {
 		String[] httpHeaderValues = new String[HTTP_HEADERS.length];
-		String md5Sum = APIUtils.calculateMD5Sum(imageData);
 
 		/* Setup all the header values for the known values so far */
-		httpHeaderValues[0] = Integer.toString(imageData.length);
+		httpHeaderValues[0] = Long.toString(contentLength);
 		httpHeaderValues[1] = md5Sum;
 		httpHeaderValues[2] = sessionID;
 
@@ -605,6 +1076,43 @@ public class UploadHTTPPut extends AbstractMethod {
 	protected String executeUploadImpl(String url, String[] httpHeaderValues,
 			byte[] imageData) throws IllegalArgumentException,
 			NetworkException, RuntimeException {
+		return executeUploadImpl(url, httpHeaderValues,
+				new ByteArrayRequestEntity(imageData));
+	}
+
+	/**
+	 * Used to perform the Binary-only upload exactly like
+	 * {@link #executeUploadImpl(String, String[], byte[])} but sending the
+	 * body from the given {@link RequestEntity}, which allows sub-classes to
+	 * send image data that is not held in memory as a <code>byte[]</code>.
+	 * <p>
+	 * If an {@link UploadProgressListener} has been set on this method, the
+	 * entity is wrapped so the progress of writing it is reported.
+	 * 
+	 * @param url
+	 *            The URL of the SmugMug server to communicate with.
+	 * @param httpHeaderValues
+	 *            The HTTP header values that will be sent along with this
+	 *            upload, see {@link #HTTP_HEADERS}.
+	 * @param requestEntity
+	 *            The entity that writes the image data as the body of the PUT.
+	 * 
+	 * @return a JSON-formatted reply from the SmugMug JSON API.
+	 * 
+	 * @throws AmbiguousUploadException
+	 *             if the body was completely sent but the reply could not be
+	 *             read or was a server error, so the image may or may not
+	 *             have been created.
+	 * @throws UnsentUploadException
+	 *             if the connection failed or the server replied with an
+	 *             error before the body was completely sent, so the image was
+	 *             not created and the upload can simply be sent again.
+	 *
+	 * @see #executeUploadImpl(String, String[], byte[])
+	 */
+	protected String executeUploadImpl(String url, String[] httpHeaderValues,
+			RequestEntity requestEntity) throws IllegalArgumentException,
+			NetworkException, RuntimeException {
 		logger.debug("Executing {} Using Service URL {}", getMethodName(), url);
 
 		if (APIUtils.isEmpty(url))
@@ -627,6 +1135,8 @@ public class UploadHTTPPut extends AbstractMethod {
 			throw new IllegalArgumentException(
 					"X-Smug-FileName (httpHeaderValues[7]) header value cannot be null or empty, it must be the file name of the image being uploaded (e.g. SmugMug.jpg)");
 
+		checkFileSizeLimit(fileName, requestEntity.getContentLength());
+
 		try {
 			encodedFileName = URIUtil.encode(fileName, null);
 		} catch (URIException e) {
@@ -638,6 +1148,9 @@ public class UploadHTTPPut extends AbstractMethod {
 
 		String response = null;
 		PutMethod putMethod = null;
+		SendTrackingRequestEntity trackingEntity = new SendTrackingRequestEntity(
+				requestEntity);
+		int code = -1;
 
 		try {
 			/* SmugMug upload format is (Upload URI)/(File Name) */
@@ -647,13 +1160,32 @@ public class UploadHTTPPut extends AbstractMethod {
 			putMethod.setRequestHeader("User-Agent", APIConstants.USER_AGENT);
 			setupHTTPHeaders(putMethod, httpHeaderValues);
 
+			/*
+			 * Let the server reject the headers before the image data is sent.
+			 * HttpClient falls back to sending the body if no interim reply
+			 * arrives, so servers that ignore the header still work.
+			 */
+			putMethod.getParams().setBooleanParameter(
+					HttpMethodParams.USE_EXPECT_CONTINUE, isExpectContinue());
+
 			logger.trace("\tExecuting HTTP PUT...");
 
 			/* Set the body of the PUT to the byte data from the image */
-			putMethod.setRequestEntity(new ByteArrayRequestEntity(imageData));
+			ProgressRequestEntity progressEntity = null;
+			UploadProgressListener progressListener = getUploadProgressListener();
+
+			if (progressListener != null) {
+				progressEntity = new ProgressRequestEntity(trackingEntity,
+						progressListener);
+				putMethod.setRequestEntity(progressEntity);
+			} else
+				putMethod.setRequestEntity(trackingEntity);
 
 			/* Perform the communication with the server */
-			int code = APIConstants.HTTP_CLIENT.executeMethod(putMethod);
+			code = APIConstants.HTTP_CLIENT.executeMethod(putMethod);
+
+			if (progressEntity != null)
+				progressEntity.responseReceived();
 
 			logger.debug("\tReceived HTTP status code {}", Integer
 					.valueOf(code));
@@ -664,9 +1196,9 @@ public class UploadHTTPPut extends AbstractMethod {
 			 */
 			if (code == HttpStatus.SC_OK) {
 				/* Read the response from the server */
-				response = IOUtils.toString(
-						putMethod.getResponseBodyAsStream(), putMethod
-								.getResponseCharSet());
+				response = APIUtils.readString(putMethod
+						.getResponseBodyAsStream(), putMethod
+						.getResponseCharSet());
 
 				logger.debug("\tRead response, was {} bytes long", Integer
 						.valueOf(response.length()));
@@ -679,6 +1211,29 @@ public class UploadHTTPPut extends AbstractMethod {
 				throw ne;
 			}
 		} catch (Exception e) {
+			boolean transientFailure = (e instanceof IOException
+					|| code >= 500 || code == HttpStatus.SC_EXPECTATION_FAILED);
+
+			/*
+			 * Once the whole body is sent, an I/O failure or a server-side
+			 * error no longer tells us whether the image was created. If the
+			 * body was never written (e.g. the server answered Expect:
+			 * 100-continue with an error) the image cannot exist.
+			 */
+			if (transientFailure && trackingEntity.isBodySent()) {
+				AmbiguousUploadException aue = new AmbiguousUploadException(
+						fileName, e);
+				logger.error("An ambiguous network error occured", aue);
+				throw aue;
+			} else if (transientFailure) {
+				UnsentUploadException uue = new UnsentUploadException(
+						fileName, e);
+				logger.error(
+						"A network error occured before the upload was sent",
+						uue);
+				throw uue;
+			}
+
 			RuntimeException ne = new RuntimeException(e);
 			logger
 					.error(
@@ -69,7 +69,8 @@ public class Upload extends com.kallasoft.smugmug.api.json.v1_2_0.images.Upload
 		 * The arguments should be passed through immediately, as-is, to
 		 * super.executeImpl.
 		 */
-		return new UploadResponse(executeImpl(url, argumentValues));
+		return new UploadResponse(executeImpl(url, argumentValues,
+				getUploadProgressListener()));
 	}
 
 	@Override
@@ -29,14 +29,18 @@
 package com.kallasoft.smugmug.api.json.v1_2_1.images;
 
 import java.io.InputStream;
+import java.nio.file.Path;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.kallasoft.smugmug.api.NetworkException;
 import com.kallasoft.smugmug.api.json.AbstractResponse;
+import com.kallasoft.smugmug.api.json.upload.FileChannelRequestEntity;
+import com.kallasoft.smugmug.api.json.upload.PooledBufferRequestEntity;
 import com.kallasoft.smugmug.api.json.v1_2_1.APIVersionConstants;
 import com.kallasoft.smugmug.api.util.APIUtils;
+import com.kallasoft.smugmug.api.util.PooledBuffer;
 
 /**
  * This class is a convenience class extending the base
@@ -138,12 +142,74 @@ public class UploadHTTPPut extends
 		 * Load the image data here, because we need to pass it to prepare AND
 		 * pass it to the upload method.
 		 */
-		byte[] imageData = APIUtils.readStream(inputStream);
+		PooledBuffer imageData = readImageData(inputStream, fileName);
+
+		try {
+			/* Delegate to the main execute method after preparing the arguments */
+			return execute(url, prepareUploadArgumentValues(imageData.size(),
+					APIUtils.calculateMD5Sum(imageData), sessionID, albumID,
+					imageID, fileName, caption, keywords, latitude, longitude,
+					altitude), imageData);
+		} finally {
+			imageData.release();
+		}
+	}
+
+	@Override
+	public UploadHTTPPutResponse execute(String url, String[] httpHeaderValues,
+			PooledBuffer imageData) throws IllegalArgumentException,
+			NetworkException, RuntimeException {
+		if (imageData == null)
+			throw new IllegalArgumentException("imageData cannot be null");
+
+		normalizeHTTPHeaderValues(url, httpHeaderValues);
+
+		return new UploadHTTPPutResponse(executeUploadImpl(url,
+				httpHeaderValues, new PooledBufferRequestEntity(imageData)));
+	}
+
+	@Override
+	public UploadHTTPPutResponse execute(String url, String[] httpHeaderValues,
+			Path file) throws IllegalArgumentException, NetworkException,
+			RuntimeException {
+		if (file == null)
+			throw new IllegalArgumentException("file cannot be null");
+
+		normalizeHTTPHeaderValues(url, httpHeaderValues);
 
-		/* Delegate to the main execute method after preparing the arguments */
-		return execute(url, prepareUploadArgumentValues(imageData, sessionID,
+		return new UploadHTTPPutResponse(executeUploadImpl(url,
+				httpHeaderValues, new FileChannelRequestEntity(file)));
+	}
+
+	@Override
+	public UploadHTTPPutResponse execute(String url, String sessionID,
+			Long albumID, Long imageID, Path file) {
+		return execute(url, sessionID, albumID, imageID, file, null, null,
+				null, null, null);
+	}
+
+	@Override
+	public UploadHTTPPutResponse execute(String url, String sessionID,
+			Long albumID, Long imageID, Path file, String caption,
+			String keywords, Double latitude, Double longitude, Double altitude)
+			throws IllegalArgumentException, RuntimeException {
+		if (file == null)
+			throw new IllegalArgumentException("file cannot be null");
+
+		String fileName = file.getFileName().toString();
+		FileChannelRequestEntity requestEntity = new FileChannelRequestEntity(
+				file);
+
+		/* Refuse oversized files before spending any time hashing them */
+		checkFileSizeLimit(fileName, requestEntity.getContentLength());
+
+		String[] httpHeaderValues = prepareUploadArgumentValues(requestEntity
+				.getContentLength(), APIUtils.calculateMD5Sum(file), sessionID,
 				albumID, imageID, fileName, caption, keywords, latitude,
-				longitude, altitude), imageData);
+				longitude, altitude);
+		fillGeotagHeaders(file, httpHeaderValues);
+
+		return execute(url, httpHeaderValues, file);
 	}
 
 	/**
@@ -14,14 +14,29 @@
  */
 package com.kallasoft.smugmug.api.util;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
 
 import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.kallasoft.smugmug.api.APIConstants;
+import com.kallasoft.smugmug.api.FileSizeLimitException;
 import com.kallasoft.smugmug.api.json.Method;
 
 /**
@@ -31,9 +46,71 @@ import com.kallasoft.smugmug.api.json.Method;
  * @author Riyad Kalla
  */
 public class APIUtils {
+	/**
+	 * Defines the largest region of a file, in bytes, that is memory-mapped at
+	 * once by {@link #calculateMD5Sum(Path)}.
+	 */
+	public static final long MAPPED_REGION_SIZE = 64 * 1024 * 1024;
+
 	private static final Logger logger = LoggerFactory
 			.getLogger(APIUtils.class);
 
+	/**
+	 * Used to make sure the connection manager of
+	 * {@link APIConstants#HTTP_CLIENT} allows at least the given number of
+	 * concurrent connections to a single host, and that its total connection
+	 * limit is large enough to match.
+	 * <p>
+	 * <code>HttpClient</code> defaults to 2 connections per host, so any code
+	 * that talks to SmugMug from more threads than that should call this
+	 * method first, otherwise the extra threads simply wait for a free
+	 * connection. The limits are only ever raised, never lowered.
+	 * 
+	 * @param connectionsPerHost
+	 *            The number of concurrent connections to a single host that
+	 *            are required.
+	 */
+	public static void ensureConnectionCapacity(int connectionsPerHost) {
+		ensureConnectionCapacity(connectionsPerHost, connectionsPerHost);
+	}
+
+	/**
+	 * Used to make sure the connection manager of
+	 * {@link APIConstants#HTTP_CLIENT} allows at least the given number of
+	 * concurrent connections to a single host and at least the given number
+	 * of concurrent connections in total.
+	 * <p>
+	 * Code that shares the client between many independent users of it, each
+	 * bounded on its own, should give the total it expects all of them to
+	 * need together. The limits are only ever raised, never lowered.
+	 * 
+	 * @param connectionsPerHost
+	 *            The number of concurrent connections to a single host that
+	 *            are required.
+	 * @param totalConnections
+	 *            The number of concurrent connections to all hosts that are
+	 *            required. Values below <code>connectionsPerHost</code> are
+	 *            treated as <code>connectionsPerHost</code>.
+	 */
+	public static synchronized void ensureConnectionCapacity(
+			int connectionsPerHost, int totalConnections) {
+		HttpConnectionManagerParams params = APIConstants.HTTP_CLIENT
+				.getHttpConnectionManager().getParams();
+		totalConnections = Math.max(totalConnections, connectionsPerHost);
+
+		if (params.getDefaultMaxConnectionsPerHost() < connectionsPerHost) {
+			logger.debug("Raising the connections per host limit to {}",
+					Integer.valueOf(connectionsPerHost));
+			params.setDefaultMaxConnectionsPerHost(connectionsPerHost);
+		}
+
+		if (params.getMaxTotalConnections() < totalConnections) {
+			logger.debug("Raising the total connections limit to {}",
+					Integer.valueOf(totalConnections));
+			params.setMaxTotalConnections(totalConnections);
+		}
+	}
+
 	/**
 	 * Convenience method used to test if a <code>String</code> is empty. A
 	 * <code>String</code> is considered empty if it is <code>null</code>,
@@ -119,8 +196,12 @@ public class APIUtils {
 		byte[] data = null;
 		logger.debug("Attempting to read in image data from given stream...");
 
+		/* Read into pooled buffers so only the result array is allocated */
+		PooledBuffer buffer = new PooledBuffer();
+
 		try {
-			data = IOUtils.toByteArray(inputStream);
+			buffer.readFrom(inputStream, Long.MAX_VALUE);
+			data = buffer.toByteArray();
 			logger.debug("Successfully loaded stream data, length: {}", Integer
 					.toString(data.length));
 		} catch (Exception e) {
@@ -130,6 +211,85 @@ public class APIUtils {
 							"An error occured while trying to load the stream data",
 							re);
 			throw re;
+		} finally {
+			buffer.release();
+		}
+
+		return data;
+	}
+
+	/**
+	 * Used to read the data from the given stream and decode it as text,
+	 * reading through pooled buffers (see {@link PooledBuffer}) instead of a
+	 * growing array.
+	 * <p>
+	 * This method does not close the given stream when reading is done; the
+	 * caller should do that.
+	 * 
+	 * @param inputStream
+	 *            The stream whose bytes will be decoded.
+	 * @param charsetName
+	 *            The name of the charset the text is encoded in.
+	 * 
+	 * @return the text read from the stream.
+	 * 
+	 * @throws IOException
+	 *             if the stream cannot be read or the charset is not
+	 *             supported.
+	 */
+	public static String readString(InputStream inputStream, String charsetName)
+			throws IOException {
+		PooledBuffer buffer = new PooledBuffer();
+
+		try {
+			buffer.readFrom(inputStream, Long.MAX_VALUE);
+			return buffer.toString(charsetName);
+		} finally {
+			buffer.release();
+		}
+	}
+
+	/**
+	 * Used to read the data from the given stream into a <code>byte[]</code>,
+	 * refusing to read more than <code>maxLength</code> bytes.
+	 * <p>
+	 * At most <code>maxLength + 1</code> bytes are ever read, so a stream that
+	 * is too large fails as soon as the limit is crossed instead of after it
+	 * has been loaded into memory in its entirety.
+	 * <p>
+	 * This method does not close the given stream when reading is done; the
+	 * caller should do that.
+	 * 
+	 * @param inputStream
+	 *            The stream whose bytes will be returned as an array.
+	 * @param maxLength
+	 *            The largest number of bytes the stream may contain.
+	 * @param fileName
+	 *            The name of the file the stream was opened on, used in the
+	 *            exception message.
+	 * 
+	 * @return a byte array that contains the data from the given stream.
+	 * 
+	 * @throws FileSizeLimitException
+	 *             if the stream contains more than <code>maxLength</code>
+	 *             bytes.
+	 * @throws RuntimeException
+	 *             if an error occurs while trying to read the bytes from the
+	 *             stream.
+	 */
+	public static byte[] readStream(InputStream inputStream, long maxLength,
+			String fileName) throws FileSizeLimitException, RuntimeException {
+		BoundedInputStream boundedStream = new BoundedInputStream(
+				inputStream, maxLength + 1);
+		boundedStream.setPropagateClose(false);
+
+		byte[] data = readStream(boundedStream);
+
+		if (data.length > maxLength) {
+			FileSizeLimitException e = new FileSizeLimitException(fileName,
+					data.length, maxLength);
+			logger.warn("Refusing to read the rest of the stream", e);
+			throw e;
 		}
 
 		return data;
@@ -199,4 +359,127 @@ public class APIUtils {
 
 		return md5Sum;
 	}
+
+	/**
+	 * Used to calculate the MD5 Sum for the data held by the given buffer,
+	 * without copying it into one array.
+	 * 
+	 * @param data
+	 *            The buffer who's MD5 Sum will be calculated.
+	 * 
+	 * @return a <code>String</code> representing the MD5 Sum for the contents
+	 *         of the given buffer.
+	 */
+	public static String calculateMD5Sum(PooledBuffer data) {
+		MessageDigest digest = DigestUtils.getMd5Digest();
+		data.update(digest);
+
+		String md5Sum = Hex.encodeHexString(digest.digest());
+		logger.debug("Successfully calculated the image MD5 Sum: {}", md5Sum);
+
+		return md5Sum;
+	}
+
+	/**
+	 * Used to calculate the MD5 Sum for the contents of the given file.
+	 * <p>
+	 * Unlike {@link #calculateMD5Sum(byte[])} the file is never loaded into a
+	 * <code>byte[]</code>; it is memory-mapped in regions of at most
+	 * {@link #MAPPED_REGION_SIZE} bytes and each region is fed to the digest
+	 * directly, so files of any size can be hashed in constant heap space.
+	 * 
+	 * @param file
+	 *            The file who's MD5 Sum will be calculated.
+	 * 
+	 * @return a <code>String</code> representing the MD5 Sum for the contents
+	 *         of the given file.
+	 * 
+	 * @throws RuntimeException
+	 *             if an error occurs while trying to read the file or
+	 *             calculate the MD5 Sum for it.
+	 */
+	public static String calculateMD5Sum(Path file) throws RuntimeException {
+		String md5Sum = null;
+		FileChannel channel = null;
+		logger.debug("Attempting to calculate an MD5 Sum for the file {}...",
+				file);
+
+		try {
+			MessageDigest digest = DigestUtils.getMd5Digest();
+			channel = FileChannel.open(file, StandardOpenOption.READ);
+
+			for (long position = 0, size = channel.size(); position < size; position += MAPPED_REGION_SIZE) {
+				MappedByteBuffer region = channel.map(
+						FileChannel.MapMode.READ_ONLY, position, Math.min(
+								MAPPED_REGION_SIZE, size - position));
+				digest.update(region);
+			}
+
+			md5Sum = Hex.encodeHexString(digest.digest());
+			logger.debug("Successfully calculated the file MD5 Sum: {}",
+					md5Sum);
+		} catch (Exception e) {
+			RuntimeException re = new RuntimeException(e);
+			logger.warn(
+					"An error occured while trying to calculate the MD5 Sum for the file "
+							+ file, re);
+			throw re;
+		} finally {
+			IOUtils.closeQuietly(channel);
+		}
+
+		return md5Sum;
+	}
+
+	/**
+	 * Used to replace the contents of the given file with the given lines.
+	 * <p>
+	 * The lines are written to a temporary file next to it that is then moved
+	 * over the file, so a crash never leaves a partially written file behind.
+	 * The temporary file is deleted if anything goes wrong.
+	 * 
+	 * @param file
+	 *            The file to replace.
+	 * @param lines
+	 *            The lines to write, each followed by a line separator.
+	 * @param charset
+	 *            The charset the lines are encoded with.
+	 * 
+	 * @throws IOException
+	 *             if the temporary file cannot be written or moved.
+	 */
+	public static void writeLinesAtomically(Path file, Iterable<String> lines,
+			Charset charset) throws IOException {
+		Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+		BufferedWriter writer = null;
+		boolean moved = false;
+
+		try {
+			writer = Files.newBufferedWriter(tempFile, charset);
+
+			for (String line : lines) {
+				writer.write(line);
+				writer.newLine();
+			}
+
+			writer.close();
+			writer = null;
+
+			Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			moved = true;
+		} finally {
+			IOUtils.closeQuietly(writer);
+
+			/* Never mask the original failure */
+			if (!moved) {
+				try {
+					Files.deleteIfExists(tempFile);
+				} catch (IOException e) {
+					logger.warn("Unable to delete the temporary file "
+							+ tempFile, e);
+				}
+			}
+		}
+	}
 }
@@ -0,0 +1,145 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.util;
+
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Class used to run one task for every item of a (possibly very large) batch
+ * with a bounded number of items in flight at once.
+ * <p>
+ * Items are pulled from the batch only as threads become free, so a batch of
+ * hundreds of thousands of items can be streamed from an {@link Iterable}
+ * without loading it all into memory. The
+ * {@link APIUtils#ensureConnectionCapacity(int)} limit is raised to the
+ * parallelism so every thread gets its own connection to SmugMug.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class BatchExecutor {
+	private static final Logger logger = LoggerFactory
+			.getLogger(BatchExecutor.class);
+
+	private int parallelism;
+
+	/**
+	 * Construct a new batch executor.
+	 *
+	 * @param parallelism
+	 *            The maximum number of items processed at once.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if parallelism is less than 1.
+	 */
+	public BatchExecutor(int parallelism) throws IllegalArgumentException {
+		if (parallelism < 1)
+			throw new IllegalArgumentException(
+					"parallelism must be greater than 0");
+
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Used to run the given task for every item and wait for all of them to
+	 * finish. Exceptions thrown by the task are logged and do not stop the
+	 * batch; tasks that need to report failures should record them
+	 * themselves.
+	 *
+	 * @param items
+	 *            The items to process.
+	 * @param task
+	 *            The task run for every item.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if items or task is <code>null</code>.
+	 * @throws InterruptedException
+	 *             if the calling thread is interrupted while waiting, in which
+	 *             case the running tasks are interrupted as well.
+	 */
+	public <T> void execute(Iterable<T> items, final Task<? super T> task)
+			throws IllegalArgumentException, InterruptedException {
+		if (items == null || task == null)
+			throw new IllegalArgumentException(
+					"Neither items or task can be null");
+
+		APIUtils.ensureConnectionCapacity(parallelism);
+
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+		final Semaphore permits = new Semaphore(parallelism);
+
+		try {
+			for (Iterator<T> iterator = items.iterator(); iterator.hasNext();) {
+				final T item = iterator.next();
+
+				/* Only pull the next item once a thread is free for it */
+				permits.acquire();
+
+				executor.execute(new Runnable() {
+					public void run() {
+						try {
+							task.execute(item);
+						} catch (Throwable t) {
+							logger.error("Unable to process batch item "
+									+ item, t);
+						} finally {
+							permits.release();
+						}
+					}
+				});
+			}
+
+			executor.shutdown();
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} finally {
+			if (!executor.isTerminated())
+				executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Used to get the maximum number of items processed at once.
+	 *
+	 * @return the maximum number of items processed at once.
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Interface used to define the work done for every item of a batch.
+	 * Implementations are called from several threads at once.
+	 *
+	 * @author smugmug-java-api contributors
+	 */
+	public interface Task<T> {
+		/**
+		 * Used to process one item of the batch.
+		 *
+		 * @param item
+		 *            The item to process.
+		 *
+		 * @throws Exception
+		 *             if the item could not be processed.
+		 */
+		public void execute(T item) throws Exception;
+	}
+}
@@ -0,0 +1,170 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class used to hand out and take back fixed-size <code>byte[]</code>
+ * buffers, so code that reads or writes large amounts of data reuses the
+ * same buffers instead of allocating new arrays on every call.
+ * <p>
+ * Each thread keeps one returned buffer for itself, which makes the common
+ * case of a thread borrowing and returning a single buffer free of any
+ * contention. Other returned buffers go into a shared pool that holds at
+ * most <code>maxPooledBuffers</code>; buffers returned to a full pool are
+ * simply left for the garbage collector.
+ * <p>
+ * The buffers are small enough (see {@link #DEFAULT_BUFFER_SIZE}) to never
+ * be treated as humongous objects by G1, even when many of them are chained
+ * together to hold a multi-megabyte image (see {@link PooledBuffer}).
+ *
+ * @author smugmug-java-api contributors
+ */
+public class BufferPool {
+	/**
+	 * Defines the default size, in bytes, of every buffer.
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Defines the default number of buffers held by the shared pool.
+	 */
+	public static final int DEFAULT_MAX_POOLED_BUFFERS = 512;
+
+	private static final BufferPool DEFAULT = new BufferPool(
+			DEFAULT_BUFFER_SIZE, DEFAULT_MAX_POOLED_BUFFERS);
+
+	private int bufferSize;
+
+	private int maxPooledBuffers;
+
+	private Queue<byte[]> pool = new ConcurrentLinkedQueue<byte[]>();
+
+	private AtomicInteger pooledCount = new AtomicInteger();
+
+	private AtomicLong allocatedCount = new AtomicLong();
+
+	private ThreadLocal<byte[]> localBuffer = new ThreadLocal<byte[]>();
+
+	/**
+	 * Construct a new buffer pool.
+	 *
+	 * @param bufferSize
+	 *            The size, in bytes, of every buffer.
+	 * @param maxPooledBuffers
+	 *            The largest number of buffers held by the shared pool.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if bufferSize is less than 1.
+	 */
+	public BufferPool(int bufferSize, int maxPooledBuffers)
+			throws IllegalArgumentException {
+		if (bufferSize < 1)
+			throw new IllegalArgumentException(
+					"bufferSize must be greater than 0");
+
+		this.bufferSize = bufferSize;
+		this.maxPooledBuffers = maxPooledBuffers;
+	}
+
+	/**
+	 * Used to get the pool shared by the whole API.
+	 *
+	 * @return the pool shared by the whole API.
+	 */
+	public static BufferPool getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Used to borrow a buffer from the pool, allocating a new one only if the
+	 * pool is empty. The contents of the buffer are undefined.
+	 *
+	 * @return a buffer of {@link #getBufferSize()} bytes.
+	 */
+	public byte[] acquire() {
+		byte[] buffer = localBuffer.get();
+
+		if (buffer != null) {
+			localBuffer.set(null);
+			return buffer;
+		}
+
+		buffer = pool.poll();
+
+		if (buffer != null) {
+			pooledCount.decrementAndGet();
+			return buffer;
+		}
+
+		allocatedCount.incrementAndGet();
+		return new byte[bufferSize];
+	}
+
+	/**
+	 * Used to return a buffer to the pool. The buffer must not be used by the
+	 * caller afterwards.
+	 *
+	 * @param buffer
+	 *            The buffer to return. Buffers that are <code>null</code> or
+	 *            were not created by this pool are ignored.
+	 */
+	public void release(byte[] buffer) {
+		if (buffer == null || buffer.length != bufferSize)
+			return;
+
+		if (localBuffer.get() == null) {
+			localBuffer.set(buffer);
+			return;
+		}
+
+		if (pooledCount.incrementAndGet() <= maxPooledBuffers)
+			pool.offer(buffer);
+		else
+			pooledCount.decrementAndGet();
+	}
+
+	/**
+	 * Used to get the size, in bytes, of every buffer.
+	 *
+	 * @return the size of every buffer.
+	 */
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	/**
+	 * Used to get the number of buffers currently held by the shared pool.
+	 *
+	 * @return the number of buffers in the shared pool.
+	 */
+	public int getPooledCount() {
+		return pooledCount.get();
+	}
+
+	/**
+	 * Used to get the total number of buffers this pool has had to allocate.
+	 * In steady state this number should stop growing.
+	 *
+	 * @return the number of buffers allocated.
+	 */
+	public long getAllocatedCount() {
+		return allocatedCount.get();
+	}
+}
@@ -0,0 +1,557 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.util;
+
+/**
+ * Class used to represent the EXIF data read from a local image file by
+ * {@link EXIFReader}.
+ * <p>
+ * The properties match those of
+ * {@link com.kallasoft.smugmug.api.json.v1_2_0.images.GetEXIF.GetEXIFResponse}
+ * so code can work with EXIF data before an image is uploaded the same way it
+ * does after, plus the GPS position of the image. Properties that are not
+ * present in the file are <code>null</code>.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class EXIFData {
+	private String dateTime;
+
+	private String dateTimeOriginal;
+
+	private String dateTimeDigitized;
+
+	private String make;
+
+	private String model;
+
+	private String exposureTime;
+
+	private String aperture;
+
+	private Integer iso;
+
+	private String focalLength;
+
+	private Integer focalLengthIn35mmFilm;
+
+	private String ccdWidth;
+
+	private String compressedBitsPerPixel;
+
+	private Integer flash;
+
+	private Integer metering;
+
+	private Integer exposureProgram;
+
+	private String exposureBiasValue;
+
+	private Integer exposureMode;
+
+	private Integer lightSource;
+
+	private Integer whiteBalance;
+
+	private String digitalZoomRatio;
+
+	private Integer contrast;
+
+	private Integer saturation;
+
+	private Integer sharpness;
+
+	private String subjectDistance;
+
+	private Integer subjectDistanceRange;
+
+	private Integer sensingMethod;
+
+	private String colorSpace;
+
+	private String brightness;
+
+	private Double latitude;
+
+	private Double longitude;
+
+	private Double altitude;
+
+	@Override
+	public String toString() {
+		return EXIFData.class.getName() + "[dateTime=" + getDateTime()
+				+ ", dateTimeOriginal=" + getDateTimeOriginal()
+				+ ", dateTimeDigitized=" + getDateTimeDigitized() + ", make="
+				+ getMake() + ", model=" + getModel() + ", exposureTime="
+				+ getExposureTime() + ", aperture=" + getAperture() + ", iso="
+				+ getISO() + ", focalLength=" + getFocalLength()
+				+ ", focalLengthIn35mmFilm=" + getFocalLengthIn35mmFilm()
+				+ ", ccdWidth=" + getCCDWidth() + ", compressedBitsPerPixel="
+				+ getCompressedBitsPerPixel() + ", flash=" + getFlash()
+				+ ", metering=" + getMetering() + ", exposureProgram="
+				+ getExposureProgram() + ", exposureBiasValue="
+				+ getExposureBiasValue() + ", exposureMode="
+				+ getExposureMode() + ", lightSource=" + getLightSource()
+				+ ", whiteBalance=" + getWhiteBalance()
+				+ ", digitalZoomRatio=" + getDigitalZoomRatio()
+				+ ", contrast=" + getContrast() + ", saturation="
+				+ getSaturation() + ", sharpness=" + getSharpness()
+				+ ", subjectDistance=" + getSubjectDistance()
+				+ ", subjectDistanceRange=" + getSubjectDistanceRange()
+				+ ", sensingMethod=" + getSensingMethod() + ", colorSpace="
+				+ getColorSpace() + ", brightness=" + getBrightness()
+				+ ", latitude=" + getLatitude() + ", longitude="
+				+ getLongitude() + ", altitude=" + getAltitude() + "]";
+	}
+
+	/**
+	 * Used to determine if the image has a GPS position.
+	 *
+	 * @return <code>true</code> if both the latitude and longitude are
+	 *         known.
+	 */
+	public boolean hasGeotag() {
+		return (latitude != null && longitude != null);
+	}
+
+	/**
+	 * Used to get the timestamp from the image's EXIF data.
+	 *
+	 * @return the timestamp from the image's EXIF data, or <code>null</code> if
+	 *         it is not in the file.
+	 */
+	public String getDateTime() {
+		return dateTime;
+	}
+
+	/**
+	 * Used to get the original timestamp from the image's EXIF data.
+	 *
+	 * @return the original timestamp from the image's EXIF data, or
+	 *         <code>null</code> if it is not in the file.
+	 */
+	public String getDateTimeOriginal() {
+		return dateTimeOriginal;
+	}
+
+	/**
+	 * Used to get the original digitization timestamp from the image's EXIF
+	 * data.
+	 *
+	 * @return the original digitization timestamp from the image's EXIF data,
+	 *         or <code>null</code> if it is not in the file.
+	 */
+	public String getDateTimeDigitized() {
+		return dateTimeDigitized;
+	}
+
+	/**
+	 * Used to get the make of the camera that took the image.
+	 *
+	 * @return the make of the camera that took the image, or <code>null</code>
+	 *         if it is not in the file.
+	 */
+	public String getMake() {
+		return make;
+	}
+
+	/**
+	 * Used to get the model of the camera that took the image.
+	 *
+	 * @return the model of the camera that took the image, or <code>null</code>
+	 *         if it is not in the file.
+	 */
+	public String getModel() {
+		return model;
+	}
+
+	/**
+	 * Used to get the exposure time that was set when the image was taken.
+	 *
+	 * @return the exposure time that was set when the image was taken, or
+	 *         <code>null</code> if it is not in the file.
+	 */
+	public String getExposureTime() {
+		return exposureTime;
+	}
+
+	/**
+	 * Used to get the aperture that was set when the image was taken.
+	 *
+	 * @return the aperture that was set when the image was taken, or
+	 *         <code>null</code> if it is not in the file.
+	 */
+	public String getAperture() {
+		return aperture;
+	}
+
+	/**
+	 * Used to get the ISO that was set when the image was taken.
+	 *
+	 * @return the ISO that was set when the image was taken, or
+	 *         <code>null</code> if it is not in the file.
+	 */
+	public Integer getISO() {
+		return iso;
+	}
+
+	/**
+	 * Used to get the focal length that was set when the image was taken.
+	 *
+	 * @return the focal length that was set when the image was taken, or
+	 *         <code>null</code> if it is not in the file.
+	 */
+	public String getFocalLength() {
+		return focalLength;
+	}
+
+	/**
+	 * Used to get the focal length converted to a 35mm standard.
+	 *
+	 * @return the focal length converted to a 35mm standard, or
+	 *         <code>null</code> if it is not in the file.
+	 */
+	public Integer getFocalLengthIn35mmFilm() {
+		return focalLengthIn35mmFilm;
+	}
+
+	/**
+	 * Used to get the CCD width of the camera that took the picture. This is
+	 * calculated by SmugMug and is never present in a local file.
+	 *
+	 * @return <code>null</code>.
+	 */
+	public String getCCDWidth() {
+		return ccdWidth;
+	}
+
+	/**
+	 * Used to get the compressed bits per pixel for the image.
+	 *
+	 * @return the compressed bits per pixel for the image, or <code>null</code>
+	 *         if it is not in the file.
+	 */
+	public String getCompressedBitsPerPixel() {
+		return compressedBitsPerPixel;
+	}
+
+	/**
+	 * Used to get the flash setting when the image was taken.
+	 *
+	 * @return the flash setting when the image was taken, or <code>null</code>
+	 *         if it is not in the file.
+	 */
+	public Integer getFlash() {
+		return flash;
+	}
+
+	/**
+	 * Used to get the metering used when the image was taken.
+	 *
+	 * @return the metering used when the image was taken, or <code>null</code>
+	 *         if it is not in the file.
+	 */
+	public Integer getMetering() {
+		return metering;
+	}
+
+	/**
+	 * Used to get the exposure program used by the camera when the image was
+	 * taken.
+	 *
+	 * @return the exposure program used by the camera when the image was taken,
+	 *         or <code>null</code> if it is not in the file.
+	 */
+	public Integer getExposureProgram() {
+		return exposureProgram;
+	}
+
+	/**
+	 * Used to get the exposure bias value.
+	 *
+	 * @return the exposure bias value, or <code>null</code> if it is not in the
+	 *         file.
+	 */
+	public String getExposureBiasValue() {
+		return exposureBiasValue;
+	}
+
+	/**
+	 * Used to get the exposure mode.
+	 *
+	 * @return the exposure mode, or <code>null</code> if it is not in the file.
+	 */
+	public Integer getExposureMode() {
+		return exposureMode;
+	}
+
+	/**
+	 * Used to get the light source when the picture was taken.
+	 *
+	 * @return the light source when the picture was taken, or <code>null</code>
+	 *         if it is not in the file.
+	 */
+	public Integer getLightSource() {
+		return lightSource;
+	}
+
+	/**
+	 * Used to get the white balance.
+	 *
+	 * @return the white balance, or <code>null</code> if it is not in the file.
+	 */
+	public Integer getWhiteBalance() {
+		return whiteBalance;
+	}
+
+	/**
+	 * Used to get the digital zoom ratio for the image.
+	 *
+	 * @return the digital zoom ratio for the image, or <code>null</code> if it
+	 *         is not in the file.
+	 */
+	public String getDigitalZoomRatio() {
+		return digitalZoomRatio;
+	}
+
+	/**
+	 * Used to get the contrast of the image.
+	 *
+	 * @return the contrast of the image, or <code>null</code> if it is not in
+	 *         the file.
+	 */
+	public Integer getContrast() {
+		return contrast;
+	}
+
+	/**
+	 * Used to get the saturation of the image.
+	 *
+	 * @return the saturation of the image, or <code>null</code> if it is not in
+	 *         the file.
+	 */
+	public Integer getSaturation() {
+		return saturation;
+	}
+
+	/**
+	 * Used to get the sharpness.
+	 *
+	 * @return the sharpness, or <code>null</code> if it is not in the file.
+	 */
+	public Integer getSharpness() {
+		return sharpness;
+	}
+
+	/**
+	 * Used to get the focused subject distance as reported by the camera.
+	 *
+	 * @return the focused subject distance as reported by the camera, or
+	 *         <code>null</code> if it is not in the file.
+	 */
+	public String getSubjectDistance() {
+		return subjectDistance;
+	}
+
+	/**
+	 * Used to get the range of distance for the focused subject.
+	 *
+	 * @return the range of distance for the focused subject, or
+	 *         <code>null</code> if it is not in the file.
+	 */
+	public Integer getSubjectDistanceRange() {
+		return subjectDistanceRange;
+	}
+
+	/**
+	 * Used to get the sensing method.
+	 *
+	 * @return the sensing method, or <code>null</code> if it is not in the
+	 *         file.
+	 */
+	public Integer getSensingMethod() {
+		return sensingMethod;
+	}
+
+	/**
+	 * Used to get the colorspace for the image.
+	 *
+	 * @return the colorspace for the image, or <code>null</code> if it is not
+	 *         in the file.
+	 */
+	public String getColorSpace() {
+		return colorSpace;
+	}
+
+	/**
+	 * Used to get the brightness for the image.
+	 *
+	 * @return the brightness for the image, or <code>null</code> if it is not
+	 *         in the file.
+	 */
+	public String getBrightness() {
+		return brightness;
+	}
+
+	/**
+	 * Used to get the latitude the image was taken at, in decimal degrees
+	 * (negative is south).
+	 *
+	 * @return the latitude, or <code>null</code> if unknown.
+	 */
+	public Double getLatitude() {
+		return latitude;
+	}
+
+	/**
+	 * Used to get the longitude the image was taken at, in decimal degrees
+	 * (negative is west).
+	 *
+	 * @return the longitude, or <code>null</code> if unknown.
+	 */
+	public Double getLongitude() {
+		return longitude;
+	}
+
+	/**
+	 * Used to get the altitude the image was taken at, in meters (negative is
+	 * below sea level).
+	 *
+	 * @return the altitude, or <code>null</code> if unknown.
+	 */
+	public Double getAltitude() {
+		return altitude;
+	}
+
+	void setDateTime(String dateTime) {
+		this.dateTime = dateTime;
+	}
+
+	void setDateTimeOriginal(String dateTimeOriginal) {
+		this.dateTimeOriginal = dateTimeOriginal;
+	}
+
+	void setDateTimeDigitized(String dateTimeDigitized) {
+		this.dateTimeDigitized = dateTimeDigitized;
+	}
+
+	void setMake(String make) {
+		this.make = make;
+	}
+
+	void setModel(String model) {
+		this.model = model;
+	}
+
+	void setExposureTime(String exposureTime) {
+		this.exposureTime = exposureTime;
+	}
+
+	void setAperture(String aperture) {
+		this.aperture = aperture;
+	}
+
+	void setISO(Integer iso) {
+		this.iso = iso;
+	}
+
+	void setFocalLength(String focalLength) {
+		this.focalLength = focalLength;
+	}
+
+	void setFocalLengthIn35mmFilm(Integer focalLengthIn35mmFilm) {
+		this.focalLengthIn35mmFilm = focalLengthIn35mmFilm;
+	}
+
+	void setCompressedBitsPerPixel(String compressedBitsPerPixel) {
+		this.compressedBitsPerPixel = compressedBitsPerPixel;
+	}
+
+	void setFlash(Integer flash) {
+		this.flash = flash;
+	}
+
+	void setMetering(Integer metering) {
+		this.metering = metering;
+	}
+
+	void setExposureProgram(Integer exposureProgram) {
+		this.exposureProgram = exposureProgram;
+	}
+
+	void setExposureBiasValue(String exposureBiasValue) {
+		this.exposureBiasValue = exposureBiasValue;
+	}
+
+	void setExposureMode(Integer exposureMode) {
+		this.exposureMode = exposureMode;
+	}
+
+	void setLightSource(Integer lightSource) {
+		this.lightSource = lightSource;
+	}
+
+	void setWhiteBalance(Integer whiteBalance) {
+		this.whiteBalance = whiteBalance;
+	}
+
+	void setDigitalZoomRatio(String digitalZoomRatio) {
+		this.digitalZoomRatio = digitalZoomRatio;
+	}
+
+	void setContrast(Integer contrast) {
+		this.contrast = contrast;
+	}
+
+	void setSaturation(Integer saturation) {
+		this.saturation = saturation;
+	}
+
+	void setSharpness(Integer sharpness) {
+		this.sharpness = sharpness;
+	}
+
+	void setSubjectDistance(String subjectDistance) {
+		this.subjectDistance = subjectDistance;
+	}
+
+	void setSubjectDistanceRange(Integer subjectDistanceRange) {
+		this.subjectDistanceRange = subjectDistanceRange;
+	}
+
+	void setSensingMethod(Integer sensingMethod) {
+		this.sensingMethod = sensingMethod;
+	}
+
+	void setColorSpace(String colorSpace) {
+		this.colorSpace = colorSpace;
+	}
+
+	void setBrightness(String brightness) {
+		this.brightness = brightness;
+	}
+
+	void setLatitude(Double latitude) {
+		this.latitude = latitude;
+	}
+
+	void setLongitude(Double longitude) {
+		this.longitude = longitude;
+	}
+
+	void setAltitude(Double altitude) {
+		this.altitude = altitude;
+	}
+}
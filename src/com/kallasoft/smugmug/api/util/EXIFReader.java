@@ -0,0 +1,521 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Class used to read the EXIF data (including the GPS position) of a local
+ * JPEG or TIFF file without an image library and without calling
+ * <code>smugmug.images.getEXIF</code> after the upload.
+ * <p>
+ * The file is memory-mapped and only the EXIF header is parsed; for a JPEG
+ * the reader stops at the first scan, so the pages holding the compressed
+ * image are never read from disk.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class EXIFReader {
+	private static final Logger logger = LoggerFactory
+			.getLogger(EXIFReader.class);
+
+	/* TIFF field types */
+	private static final int TYPE_BYTE = 1;
+
+	private static final int TYPE_ASCII = 2;
+
+	private static final int TYPE_SHORT = 3;
+
+	private static final int TYPE_LONG = 4;
+
+	private static final int TYPE_RATIONAL = 5;
+
+	private static final int TYPE_SLONG = 9;
+
+	private static final int TYPE_SRATIONAL = 10;
+
+	private static final int[] TYPE_SIZES = { 0, 1, 1, 2, 4, 8, 1, 1, 2, 4,
+			8, 4, 8 };
+
+	/* IFD0 tags */
+	private static final int TAG_MAKE = 0x010F;
+
+	private static final int TAG_MODEL = 0x0110;
+
+	private static final int TAG_DATE_TIME = 0x0132;
+
+	private static final int TAG_EXIF_IFD = 0x8769;
+
+	private static final int TAG_GPS_IFD = 0x8825;
+
+	/* GPS IFD tags */
+	private static final int TAG_GPS_LATITUDE_REF = 0x0001;
+
+	private static final int TAG_GPS_LATITUDE = 0x0002;
+
+	private static final int TAG_GPS_LONGITUDE_REF = 0x0003;
+
+	private static final int TAG_GPS_LONGITUDE = 0x0004;
+
+	private static final int TAG_GPS_ALTITUDE_REF = 0x0005;
+
+	private static final int TAG_GPS_ALTITUDE = 0x0006;
+
+	/**
+	 * Used to read the EXIF data of the given JPEG or TIFF file.
+	 *
+	 * @param file
+	 *            The file to read.
+	 *
+	 * @return the EXIF data, or <code>null</code> if the file is not a JPEG
+	 *         or TIFF or has no EXIF header.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if file is <code>null</code>.
+	 * @throws RuntimeException
+	 *             if the file cannot be read.
+	 */
+	public static EXIFData read(Path file) throws IllegalArgumentException,
+			RuntimeException {
+		if (file == null)
+			throw new IllegalArgumentException("file cannot be null");
+
+		FileChannel channel = null;
+
+		try {
+			channel = FileChannel.open(file, StandardOpenOption.READ);
+
+			/* Mapping is lazy, only the pages that are parsed are read */
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					Math.min(channel.size(), Integer.MAX_VALUE));
+
+			return read(buffer);
+		} catch (IOException e) {
+			RuntimeException re = new RuntimeException(e);
+			logger.error("Unable to read the EXIF data of " + file, re);
+			throw re;
+		} finally {
+			IOUtils.closeQuietly(channel);
+		}
+	}
+
+	/**
+	 * Used to read the EXIF data from the contents of a JPEG or TIFF file.
+	 * Malformed EXIF headers are logged and treated as missing.
+	 *
+	 * @param buffer
+	 *            The contents of the file, starting at its first byte.
+	 *
+	 * @return the EXIF data, or <code>null</code> if the contents are not a
+	 *         JPEG or TIFF or have no EXIF header.
+	 */
+	public static EXIFData read(ByteBuffer buffer) {
+		try {
+			int tiffOffset = findTIFFHeader(buffer);
+
+			if (tiffOffset < 0)
+				return null;
+
+			buffer.position(tiffOffset);
+			ByteBuffer tiff = buffer.slice();
+
+			return readTIFF(tiff);
+		} catch (RuntimeException e) {
+			/* Bad offsets surface as buffer index or underflow exceptions */
+			logger.warn("Ignoring a malformed EXIF header", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Used to find the offset of the TIFF header holding the EXIF data: the
+	 * start of the file for a TIFF, or the start of the APP1 Exif segment for
+	 * a JPEG.
+	 */
+	private static int findTIFFHeader(ByteBuffer buffer) {
+		if (buffer.limit() < 8)
+			return -1;
+
+		int b0 = buffer.get(0) & 0xFF;
+		int b1 = buffer.get(1) & 0xFF;
+
+		if ((b0 == 'I' && b1 == 'I') || (b0 == 'M' && b1 == 'M'))
+			return 0;
+
+		if (b0 != 0xFF || b1 != 0xD8)
+			return -1;
+
+		int offset = 2;
+
+		while (offset + 4 <= buffer.limit()) {
+			if ((buffer.get(offset) & 0xFF) != 0xFF)
+				return -1;
+
+			int marker = buffer.get(offset + 1) & 0xFF;
+
+			/* Padding between segments */
+			if (marker == 0xFF) {
+				offset++;
+				continue;
+			}
+
+			/* Start of scan or end of image, no EXIF in the header */
+			if (marker == 0xDA || marker == 0xD9)
+				return -1;
+
+			int length = ((buffer.get(offset + 2) & 0xFF) << 8)
+					| (buffer.get(offset + 3) & 0xFF);
+
+			if (marker == 0xE1 && length >= 8 && offset + 10 <= buffer.limit()
+					&& buffer.get(offset + 4) == 'E'
+					&& buffer.get(offset + 5) == 'x'
+					&& buffer.get(offset + 6) == 'i'
+					&& buffer.get(offset + 7) == 'f')
+				return offset + 10;
+
+			offset += 2 + length;
+		}
+
+		return -1;
+	}
+
+	private static EXIFData readTIFF(ByteBuffer tiff) {
+		tiff.order(tiff.get(0) == 'I' ? ByteOrder.LITTLE_ENDIAN
+				: ByteOrder.BIG_ENDIAN);
+
+		if (tiff.getShort(2) != 42)
+			return null;
+
+		EXIFData data = new EXIFData();
+		int ifd0 = tiff.getInt(4);
+		int exifIFD = 0;
+		int gpsIFD = 0;
+
+		for (int entry = ifd0 + 2, end = entry + 12 * count(tiff, ifd0); entry < end; entry += 12) {
+			switch (tag(tiff, entry)) {
+			case TAG_MAKE:
+				data.setMake(readString(tiff, entry));
+				break;
+			case TAG_MODEL:
+				data.setModel(readString(tiff, entry));
+				break;
+			case TAG_DATE_TIME:
+				data.setDateTime(readString(tiff, entry));
+				break;
+			case TAG_EXIF_IFD:
+				exifIFD = (int) readLong(tiff, entry);
+				break;
+			case TAG_GPS_IFD:
+				gpsIFD = (int) readLong(tiff, entry);
+				break;
+			}
+		}
+
+		if (exifIFD > 0)
+			readEXIFIFD(tiff, exifIFD, data);
+
+		if (gpsIFD > 0)
+			readGPSIFD(tiff, gpsIFD, data);
+
+		return data;
+	}
+
+	private static void readEXIFIFD(ByteBuffer tiff, int ifd, EXIFData data) {
+		for (int entry = ifd + 2, end = entry + 12 * count(tiff, ifd); entry < end; entry += 12) {
+			switch (tag(tiff, entry)) {
+			case 0x829A:
+				data.setExposureTime(formatExposureTime(tiff, entry));
+				break;
+			case 0x829D:
+				String aperture = formatRational(tiff, entry, 0);
+
+				if (aperture != null)
+					data.setAperture("f/" + aperture);
+				break;
+			case 0x8822:
+				data.setExposureProgram(readInteger(tiff, entry));
+				break;
+			case 0x8827:
+				data.setISO(readInteger(tiff, entry));
+				break;
+			case 0x9003:
+				data.setDateTimeOriginal(readString(tiff, entry));
+				break;
+			case 0x9004:
+				data.setDateTimeDigitized(readString(tiff, entry));
+				break;
+			case 0x9102:
+				data.setCompressedBitsPerPixel(formatRational(tiff, entry, 0));
+				break;
+			case 0x9203:
+				data.setBrightness(formatRational(tiff, entry, 0));
+				break;
+			case 0x9204:
+				data.setExposureBiasValue(formatRational(tiff, entry, 0));
+				break;
+			case 0x9206:
+				data.setSubjectDistance(formatRational(tiff, entry, 0));
+				break;
+			case 0x9207:
+				data.setMetering(readInteger(tiff, entry));
+				break;
+			case 0x9208:
+				data.setLightSource(readInteger(tiff, entry));
+				break;
+			case 0x9209:
+				data.setFlash(readInteger(tiff, entry));
+				break;
+			case 0x920A:
+				String focalLength = formatRational(tiff, entry, 0);
+
+				if (focalLength != null)
+					data.setFocalLength(focalLength + " mm");
+				break;
+			case 0xA001:
+				Integer colorSpace = readInteger(tiff, entry);
+
+				if (colorSpace != null)
+					data.setColorSpace((colorSpace.intValue() == 1 ? "sRGB"
+							: colorSpace.intValue() == 0xFFFF ? "Uncalibrated"
+									: colorSpace.toString()));
+				break;
+			case 0xA217:
+				data.setSensingMethod(readInteger(tiff, entry));
+				break;
+			case 0xA402:
+				data.setExposureMode(readInteger(tiff, entry));
+				break;
+			case 0xA403:
+				data.setWhiteBalance(readInteger(tiff, entry));
+				break;
+			case 0xA404:
+				data.setDigitalZoomRatio(formatRational(tiff, entry, 0));
+				break;
+			case 0xA405:
+				data.setFocalLengthIn35mmFilm(readInteger(tiff, entry));
+				break;
+			case 0xA408:
+				data.setContrast(readInteger(tiff, entry));
+				break;
+			case 0xA409:
+				data.setSaturation(readInteger(tiff, entry));
+				break;
+			case 0xA40A:
+				data.setSharpness(readInteger(tiff, entry));
+				break;
+			case 0xA40C:
+				data.setSubjectDistanceRange(readInteger(tiff, entry));
+				break;
+			}
+		}
+	}
+
+	private static void readGPSIFD(ByteBuffer tiff, int ifd, EXIFData data) {
+		String latitudeRef = null;
+		String longitudeRef = null;
+		Integer altitudeRef = null;
+		Double latitude = null;
+		Double longitude = null;
+		Double altitude = null;
+
+		for (int entry = ifd + 2, end = entry + 12 * count(tiff, ifd); entry < end; entry += 12) {
+			switch (tag(tiff, entry)) {
+			case TAG_GPS_LATITUDE_REF:
+				latitudeRef = readString(tiff, entry);
+				break;
+			case TAG_GPS_LATITUDE:
+				latitude = readDegrees(tiff, entry);
+				break;
+			case TAG_GPS_LONGITUDE_REF:
+				longitudeRef = readString(tiff, entry);
+				break;
+			case TAG_GPS_LONGITUDE:
+				longitude = readDegrees(tiff, entry);
+				break;
+			case TAG_GPS_ALTITUDE_REF:
+				altitudeRef = readInteger(tiff, entry);
+				break;
+			case TAG_GPS_ALTITUDE:
+				altitude = readDouble(tiff, entry, 0);
+				break;
+			}
+		}
+
+		if (latitude != null && "S".equals(latitudeRef))
+			latitude = Double.valueOf(-latitude.doubleValue());
+
+		if (longitude != null && "W".equals(longitudeRef))
+			longitude = Double.valueOf(-longitude.doubleValue());
+
+		if (altitude != null && altitudeRef != null
+				&& altitudeRef.intValue() == 1)
+			altitude = Double.valueOf(-altitude.doubleValue());
+
+		data.setLatitude(latitude);
+		data.setLongitude(longitude);
+		data.setAltitude(altitude);
+	}
+
+	private static int count(ByteBuffer tiff, int ifd) {
+		return tiff.getShort(ifd) & 0xFFFF;
+	}
+
+	private static int tag(ByteBuffer tiff, int entry) {
+		return tiff.getShort(entry) & 0xFFFF;
+	}
+
+	private static int type(ByteBuffer tiff, int entry) {
+		return tiff.getShort(entry + 2) & 0xFFFF;
+	}
+
+	/**
+	 * Used to get the offset of the value of an entry, which is stored in the
+	 * entry itself if it fits in 4 bytes.
+	 */
+	private static int valueOffset(ByteBuffer tiff, int entry) {
+		int type = type(tiff, entry);
+		long size = (type < TYPE_SIZES.length ? TYPE_SIZES[type] : 1)
+				* (tiff.getInt(entry + 4) & 0xFFFFFFFFL);
+
+		return (size <= 4 ? entry + 8 : tiff.getInt(entry + 8));
+	}
+
+	private static String readString(ByteBuffer tiff, int entry) {
+		if (type(tiff, entry) != TYPE_ASCII)
+			return null;
+
+		int offset = valueOffset(tiff, entry);
+		int count = tiff.getInt(entry + 4);
+		StringBuilder builder = new StringBuilder(count);
+
+		for (int i = 0; i < count; i++) {
+			byte b = tiff.get(offset + i);
+
+			if (b == 0)
+				break;
+
+			builder.append((char) (b & 0xFF));
+		}
+
+		String value = builder.toString().trim();
+		return (value.length() == 0 ? null : value);
+	}
+
+	private static long readLong(ByteBuffer tiff, int entry) {
+		int offset = valueOffset(tiff, entry);
+
+		switch (type(tiff, entry)) {
+		case TYPE_BYTE:
+			return tiff.get(offset) & 0xFF;
+		case TYPE_SHORT:
+			return tiff.getShort(offset) & 0xFFFF;
+		case TYPE_LONG:
+			return tiff.getInt(offset) & 0xFFFFFFFFL;
+		case TYPE_SLONG:
+			return tiff.getInt(offset);
+		default:
+			return -1;
+		}
+	}
+
+	private static Integer readInteger(ByteBuffer tiff, int entry) {
+		int type = type(tiff, entry);
+
+		if (type != TYPE_BYTE && type != TYPE_SHORT && type != TYPE_LONG
+				&& type != TYPE_SLONG)
+			return null;
+
+		return Integer.valueOf((int) readLong(tiff, entry));
+	}
+
+	/**
+	 * Used to read the given component of a rational value as a
+	 * <code>Double</code>, or <code>null</code> if the entry is not rational
+	 * or the denominator is 0.
+	 */
+	private static Double readDouble(ByteBuffer tiff, int entry, int index) {
+		int type = type(tiff, entry);
+
+		if (type != TYPE_RATIONAL && type != TYPE_SRATIONAL)
+			return null;
+
+		int offset = valueOffset(tiff, entry) + 8 * index;
+		long numerator = tiff.getInt(offset);
+		long denominator = tiff.getInt(offset + 4);
+
+		if (type == TYPE_RATIONAL) {
+			numerator &= 0xFFFFFFFFL;
+			denominator &= 0xFFFFFFFFL;
+		}
+
+		if (denominator == 0)
+			return null;
+
+		return Double.valueOf((double) numerator / denominator);
+	}
+
+	private static Double readDegrees(ByteBuffer tiff, int entry) {
+		if (tiff.getInt(entry + 4) < 3)
+			return null;
+
+		Double degrees = readDouble(tiff, entry, 0);
+		Double minutes = readDouble(tiff, entry, 1);
+		Double seconds = readDouble(tiff, entry, 2);
+
+		if (degrees == null || minutes == null || seconds == null)
+			return null;
+
+		return Double.valueOf(degrees.doubleValue() + minutes.doubleValue()
+				/ 60 + seconds.doubleValue() / 3600);
+	}
+
+	private static String formatRational(ByteBuffer tiff, int entry,
+			int index) {
+		Double value = readDouble(tiff, entry, index);
+
+		if (value == null)
+			return null;
+
+		double rounded = Math.round(value.doubleValue() * 100) / 100.0;
+
+		return (rounded == Math.rint(rounded) ? Long.toString((long) rounded)
+				: Double.toString(rounded));
+	}
+
+	/**
+	 * Used to format an exposure time the way cameras show it, e.g. "1/250"
+	 * for short exposures and "2.5" for long ones.
+	 */
+	private static String formatExposureTime(ByteBuffer tiff, int entry) {
+		Double value = readDouble(tiff, entry, 0);
+
+		if (value == null || value.doubleValue() <= 0)
+			return null;
+
+		if (value.doubleValue() >= 1)
+			return formatRational(tiff, entry, 0);
+
+		return "1/" + Math.round(1 / value.doubleValue());
+	}
+}
@@ -0,0 +1,178 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.util;
+
+import java.util.Arrays;
+
+/**
+ * Class used to map <code>long</code> keys (e.g. AlbumIDs) to non-negative
+ * <code>int</code> values (e.g. row numbers) without boxing either.
+ * <p>
+ * Keys and values are held in two flat arrays with open addressing, so a
+ * map of a hundred thousand IDs takes a couple of megabytes instead of the
+ * tens a <code>HashMap&lt;Long, Integer&gt;</code> would. Entries cannot be
+ * removed.
+ * <p>
+ * This class is not thread safe for writes. A map that is fully built before
+ * being handed to other threads (e.g. through a <code>volatile</code> field)
+ * can be read by all of them without locking.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class LongIntHashMap {
+	/**
+	 * Defines the value returned by {@link #get(long)} for a missing key.
+	 */
+	public static final int MISSING = -1;
+
+	private long[] keys;
+
+	/* The value plus one, so 0 marks an empty slot */
+	private int[] values;
+
+	private int size;
+
+	/**
+	 * Construct a new map sized for the given number of entries.
+	 *
+	 * @param expectedSize
+	 *            The number of entries the map will hold; it grows if more
+	 *            are put.
+	 */
+	public LongIntHashMap(int expectedSize) {
+		int capacity = 16;
+
+		while (capacity < expectedSize * 2)
+			capacity <<= 1;
+
+		keys = new long[capacity];
+		values = new int[capacity];
+	}
+
+	@Override
+	public String toString() {
+		return LongIntHashMap.class.getName() + "[size=" + size()
+				+ ", capacity=" + keys.length + "]";
+	}
+
+	/**
+	 * Used to map a key to a value, replacing any previous value.
+	 *
+	 * @param key
+	 *            The key.
+	 * @param value
+	 *            The value, which must not be negative.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if value is negative.
+	 */
+	public void put(long key, int value) throws IllegalArgumentException {
+		if (value < 0)
+			throw new IllegalArgumentException("value cannot be negative");
+
+		if ((size + 1) * 2 > keys.length)
+			grow();
+
+		int slot = find(keys, values, key);
+
+		if (values[slot] == 0) {
+			keys[slot] = key;
+			size++;
+		}
+
+		values[slot] = value + 1;
+	}
+
+	/**
+	 * Used to get the value of a key.
+	 *
+	 * @param key
+	 *            The key.
+	 *
+	 * @return the value, or {@link #MISSING} if the key is not in the map.
+	 */
+	public int get(long key) {
+		return values[find(keys, values, key)] - 1;
+	}
+
+	public boolean containsKey(long key) {
+		return (get(key) != MISSING);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Used to get every key in the map, in no particular order.
+	 *
+	 * @return a new array of the keys.
+	 */
+	public long[] keys() {
+		long[] result = new long[size];
+		int count = 0;
+
+		for (int i = 0; i < keys.length; i++) {
+			if (values[i] != 0)
+				result[count++] = keys[i];
+		}
+
+		return result;
+	}
+
+	private void grow() {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+
+		keys = new long[oldKeys.length * 2];
+		values = new int[oldValues.length * 2];
+
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldValues[i] != 0) {
+				int slot = find(keys, values, oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+
+	/**
+	 * Used to find the slot holding a key, or the empty slot it would go in.
+	 */
+	private static int find(long[] keys, int[] values, long key) {
+		int mask = keys.length - 1;
+		int slot = hash(key) & mask;
+
+		while (values[slot] != 0 && keys[slot] != key)
+			slot = (slot + 1) & mask;
+
+		return slot;
+	}
+
+	private static int hash(long key) {
+		/* IDs are often sequential, spread them over the table */
+		long h = key * 0x9E3779B97F4A7C15L;
+
+		return (int) (h ^ (h >>> 32));
+	}
+
+	/**
+	 * Used to remove every entry, keeping the capacity.
+	 */
+	public void clear() {
+		Arrays.fill(values, 0);
+		size = 0;
+	}
+}
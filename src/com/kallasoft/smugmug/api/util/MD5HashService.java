@@ -0,0 +1,390 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Class used to calculate the MD5 Sums of a large number of local files using
+ * every available processor, for comparison against the MD5 Sums SmugMug
+ * reports for uploaded images (e.g.
+ * {@link com.kallasoft.smugmug.api.json.entity.Image#getMD5Sum()}).
+ * <p>
+ * The files are hashed by a {@link ForkJoinPool}: the batch is split in half
+ * recursively down to single files, so idle threads steal work from busy
+ * ones and a few very large files do not hold the rest of the batch up. Every
+ * file is read through memory-mapped regions (see
+ * {@link APIUtils#calculateMD5Sum(Path)}) rather than copied onto the heap.
+ * <p>
+ * Results are cached by path, size and modification time. If a cache file is
+ * set, the cache is loaded from it when the service is created and written
+ * back by {@link #save()}, so files that have not changed since the last run
+ * are not read again. Entries for files that were not hashed by this service
+ * and no longer exist are dropped when the cache is saved, so the cache file
+ * does not grow with every file that was ever deleted or renamed.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class MD5HashService {
+	private static final Logger logger = LoggerFactory
+			.getLogger(MD5HashService.class);
+
+	private static final Charset CACHE_CHARSET = Charset.forName("UTF-8");
+
+	private ForkJoinPool pool;
+
+	private Path cacheFile;
+
+	private ConcurrentMap<Path, CacheEntry> cache = new ConcurrentHashMap<Path, CacheEntry>();
+
+	private Set<Path> touchedSet = Collections
+			.newSetFromMap(new ConcurrentHashMap<Path, Boolean>());
+
+	private volatile boolean cacheDirty;
+
+	private AtomicLong hashedCount = new AtomicLong();
+
+	private AtomicLong cacheHitCount = new AtomicLong();
+
+	/**
+	 * Construct a new service that does not persist its cache and uses one
+	 * thread per available processor.
+	 */
+	public MD5HashService() {
+		this(null);
+	}
+
+	/**
+	 * Construct a new service that uses one thread per available processor.
+	 *
+	 * @param cacheFile
+	 *            The file the cache is loaded from and saved to, or
+	 *            <code>null</code> to keep the cache in memory only.
+	 *
+	 * @throws RuntimeException
+	 *             if the cache file exists but cannot be read.
+	 */
+	public MD5HashService(Path cacheFile) throws RuntimeException {
+		this(cacheFile, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Construct a new service.
+	 *
+	 * @param cacheFile
+	 *            The file the cache is loaded from and saved to, or
+	 *            <code>null</code> to keep the cache in memory only.
+	 * @param parallelism
+	 *            The number of threads used to hash files.
+	 *
+	 * @throws RuntimeException
+	 *             if the cache file exists but cannot be read.
+	 */
+	public MD5HashService(Path cacheFile, int parallelism)
+			throws RuntimeException {
+		this.cacheFile = cacheFile;
+		this.pool = new ForkJoinPool(parallelism);
+
+		loadCache();
+	}
+
+	/**
+	 * Used to calculate the MD5 Sum of a single file, using the cache if the
+	 * file has not changed.
+	 *
+	 * @param file
+	 *            The file to hash.
+	 *
+	 * @return the MD5 Sum of the file.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if file is <code>null</code>.
+	 * @throws RuntimeException
+	 *             if the file cannot be read.
+	 */
+	public String hash(Path file) throws IllegalArgumentException,
+			RuntimeException {
+		if (file == null)
+			throw new IllegalArgumentException("file cannot be null");
+
+		BasicFileAttributes attributes;
+
+		try {
+			attributes = Files.readAttributes(file, BasicFileAttributes.class);
+		} catch (IOException e) {
+			RuntimeException re = new RuntimeException(e);
+			logger.error("Unable to read the attributes of " + file, re);
+			throw re;
+		}
+
+		Path key = file.toAbsolutePath().normalize();
+		long size = attributes.size();
+		long lastModified = attributes.lastModifiedTime().toMillis();
+		CacheEntry entry = cache.get(key);
+		touchedSet.add(key);
+
+		if (entry != null && entry.size == size
+				&& entry.lastModified == lastModified) {
+			cacheHitCount.incrementAndGet();
+			return entry.md5Sum;
+		}
+
+		String md5Sum = APIUtils.calculateMD5Sum(file);
+
+		cache.put(key, new CacheEntry(size, lastModified, md5Sum));
+		cacheDirty = true;
+		hashedCount.incrementAndGet();
+
+		return md5Sum;
+	}
+
+	/**
+	 * Used to calculate the MD5 Sums of all the given files in parallel and
+	 * wait for them to finish. Files that cannot be read are logged and left
+	 * out of the result.
+	 *
+	 * @param files
+	 *            The files to hash.
+	 *
+	 * @return a map of every file that could be read to its MD5 Sum.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if files is <code>null</code>.
+	 */
+	public Map<Path, String> hash(Collection<Path> files)
+			throws IllegalArgumentException {
+		if (files == null)
+			throw new IllegalArgumentException("files cannot be null");
+
+		List<Path> fileList = new ArrayList<Path>(files);
+		Map<Path, String> resultMap = new ConcurrentHashMap<Path, String>(
+				fileList.size());
+
+		pool.invoke(new HashAction(fileList, 0, fileList.size(), resultMap));
+
+		logger.debug("Hashed {} files, {} cache hits so far", Integer
+				.valueOf(resultMap.size()), Long.valueOf(cacheHitCount.get()));
+
+		return resultMap;
+	}
+
+	/**
+	 * Used to write the cache to the cache file if it has changed since it was
+	 * loaded or last saved. Entries for files that were not hashed by this
+	 * service and no longer exist are dropped first. The cache is written with
+	 * {@link APIUtils#writeLinesAtomically(Path, Iterable, Charset)}, so a
+	 * crash never leaves a partially written cache behind.
+	 *
+	 * @throws RuntimeException
+	 *             if the cache file cannot be written.
+	 */
+	public synchronized void save() throws RuntimeException {
+		if (cacheFile == null)
+			return;
+
+		pruneCache();
+
+		if (!cacheDirty)
+			return;
+
+		cacheDirty = false;
+		List<String> lineList = new ArrayList<String>(cache.size());
+
+		for (Map.Entry<Path, CacheEntry> entry : cache.entrySet()) {
+			CacheEntry value = entry.getValue();
+
+			lineList.add(value.size + "\t" + value.lastModified + "\t"
+					+ value.md5Sum + "\t" + entry.getKey());
+		}
+
+		try {
+			APIUtils.writeLinesAtomically(cacheFile, lineList, CACHE_CHARSET);
+		} catch (IOException e) {
+			cacheDirty = true;
+			RuntimeException re = new RuntimeException(e);
+			logger.error("Unable to save the cache file " + cacheFile, re);
+			throw re;
+		}
+	}
+
+	/**
+	 * Used to save the cache and stop the hashing threads.
+	 */
+	public void shutdown() {
+		try {
+			save();
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Used to get the number of files actually read and hashed.
+	 *
+	 * @return the number of files hashed.
+	 */
+	public long getHashedCount() {
+		return hashedCount.get();
+	}
+
+	/**
+	 * Used to get the number of files whose MD5 Sum came from the cache.
+	 *
+	 * @return the number of cache hits.
+	 */
+	public long getCacheHitCount() {
+		return cacheHitCount.get();
+	}
+
+	/**
+	 * Used to remove the entries of files that were not hashed by this service
+	 * and no longer exist. Files that were hashed are known to exist, so only
+	 * the others are checked.
+	 */
+	private void pruneCache() {
+		int prunedCount = 0;
+
+		for (Iterator<Path> i = cache.keySet().iterator(); i.hasNext();) {
+			Path key = i.next();
+
+			if (!touchedSet.contains(key) && !Files.exists(key)) {
+				i.remove();
+				prunedCount++;
+			}
+		}
+
+		if (prunedCount > 0) {
+			cacheDirty = true;
+			logger.debug("Pruned {} entries of missing files from the cache",
+					Integer.valueOf(prunedCount));
+		}
+	}
+
+	/**
+	 * Used to load the cache file, each line of which holds the size,
+	 * modification time, MD5 Sum and absolute path of a file, separated by
+	 * tabs.
+	 */
+	private void loadCache() throws RuntimeException {
+		if (cacheFile == null || !Files.exists(cacheFile))
+			return;
+
+		BufferedReader reader = null;
+
+		try {
+			reader = Files.newBufferedReader(cacheFile, CACHE_CHARSET);
+			String line = null;
+
+			while ((line = reader.readLine()) != null) {
+				String[] values = line.split("\t", 4);
+
+				if (values.length == 4)
+					cache.put(Paths.get(values[3]), new CacheEntry(Long
+							.parseLong(values[0]), Long.parseLong(values[1]),
+							values[2]));
+			}
+
+			logger.debug("Loaded {} entries from cache {}", Integer
+					.valueOf(cache.size()), cacheFile);
+		} catch (Exception e) {
+			RuntimeException re = new RuntimeException(
+					"Unable to load the cache file " + cacheFile, e);
+			logger.error("Unable to load the cache file", re);
+			throw re;
+		} finally {
+			IOUtils.closeQuietly(reader);
+		}
+	}
+
+	/**
+	 * Class used to hash a range of a list of files, splitting the range in
+	 * half until a single file is left.
+	 */
+	private class HashAction extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private List<Path> fileList;
+
+		private int start;
+
+		private int end;
+
+		private Map<Path, String> resultMap;
+
+		public HashAction(List<Path> fileList, int start, int end,
+				Map<Path, String> resultMap) {
+			this.fileList = fileList;
+			this.start = start;
+			this.end = end;
+			this.resultMap = resultMap;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - start > 1) {
+				int middle = (start + end) >>> 1;
+				invokeAll(new HashAction(fileList, start, middle, resultMap),
+						new HashAction(fileList, middle, end, resultMap));
+			} else if (end > start) {
+				Path file = fileList.get(start);
+
+				try {
+					resultMap.put(file, hash(file));
+				} catch (RuntimeException e) {
+					logger.warn("Unable to hash " + file, e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Class used to represent the cached MD5 Sum of a file.
+	 */
+	private static class CacheEntry {
+		private long size;
+
+		private long lastModified;
+
+		private String md5Sum;
+
+		public CacheEntry(long size, long lastModified, String md5Sum) {
+			this.size = size;
+			this.lastModified = lastModified;
+			this.md5Sum = md5Sum;
+		}
+	}
+}
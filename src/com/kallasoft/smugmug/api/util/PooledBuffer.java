@@ -0,0 +1,238 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class used to hold data of any size in a chain of buffers borrowed from a
+ * {@link BufferPool}, instead of in one array that has to be grown and copied
+ * as the data is written.
+ * <p>
+ * The data can be written to a stream, digested or copied out without ever
+ * being held in one contiguous array. {@link #release()} must be called when
+ * the data is no longer needed so the buffers go back to the pool; the
+ * instance cannot be used afterwards.
+ * <p>
+ * Instances are not thread-safe.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class PooledBuffer extends OutputStream {
+	private BufferPool bufferPool;
+
+	private List<byte[]> bufferList = new ArrayList<byte[]>();
+
+	/* Number of bytes used in the last buffer of the list */
+	private int position;
+
+	private long size;
+
+	/**
+	 * Construct a new, empty buffer that borrows from
+	 * {@link BufferPool#getDefault()}.
+	 */
+	public PooledBuffer() {
+		this(BufferPool.getDefault());
+	}
+
+	/**
+	 * Construct a new, empty buffer that borrows from the given pool.
+	 *
+	 * @param bufferPool
+	 *            The pool buffers are borrowed from.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if bufferPool is <code>null</code>.
+	 */
+	public PooledBuffer(BufferPool bufferPool) throws IllegalArgumentException {
+		if (bufferPool == null)
+			throw new IllegalArgumentException("bufferPool cannot be null");
+
+		this.bufferPool = bufferPool;
+		this.position = bufferPool.getBufferSize();
+	}
+
+	/**
+	 * Used to read the given stream until its end, or until
+	 * <code>maxLength</code> bytes have been read, whichever comes first.
+	 * The stream is not closed.
+	 *
+	 * @param inputStream
+	 *            The stream to read.
+	 * @param maxLength
+	 *            The largest number of bytes to read.
+	 *
+	 * @return the number of bytes read.
+	 *
+	 * @throws IOException
+	 *             if the stream cannot be read.
+	 */
+	public long readFrom(InputStream inputStream, long maxLength)
+			throws IOException {
+		long total = 0;
+
+		while (total < maxLength) {
+			byte[] buffer = currentBuffer();
+			int length = (int) Math.min(buffer.length - position, maxLength
+					- total);
+			int count = inputStream.read(buffer, position, length);
+
+			if (count == -1)
+				break;
+
+			position += count;
+			size += count;
+			total += count;
+		}
+
+		return total;
+	}
+
+	@Override
+	public void write(int b) {
+		byte[] buffer = currentBuffer();
+		buffer[position++] = (byte) b;
+		size++;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) {
+		while (len > 0) {
+			byte[] buffer = currentBuffer();
+			int count = Math.min(buffer.length - position, len);
+
+			System.arraycopy(b, off, buffer, position, count);
+			position += count;
+			size += count;
+			off += count;
+			len -= count;
+		}
+	}
+
+	/**
+	 * Used to get the number of bytes held.
+	 *
+	 * @return the number of bytes held.
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * Used to write all the bytes held to the given stream. The stream is not
+	 * closed.
+	 *
+	 * @param outputStream
+	 *            The stream to write to.
+	 *
+	 * @throws IOException
+	 *             if the stream cannot be written.
+	 */
+	public void writeTo(OutputStream outputStream) throws IOException {
+		for (int i = 0, count = bufferList.size(); i < count; i++)
+			outputStream.write(bufferList.get(i), 0, length(i));
+	}
+
+	/**
+	 * Used to feed all the bytes held to the given digest.
+	 *
+	 * @param digest
+	 *            The digest to update.
+	 */
+	public void update(MessageDigest digest) {
+		for (int i = 0, count = bufferList.size(); i < count; i++)
+			digest.update(bufferList.get(i), 0, length(i));
+	}
+
+	/**
+	 * Used to copy all the bytes held into a new array of exactly
+	 * {@link #size()} bytes.
+	 *
+	 * @return a copy of the bytes held.
+	 */
+	public byte[] toByteArray() {
+		byte[] data = new byte[(int) size];
+		int offset = 0;
+
+		for (int i = 0, count = bufferList.size(); i < count; i++) {
+			int length = length(i);
+			System.arraycopy(bufferList.get(i), 0, data, offset, length);
+			offset += length;
+		}
+
+		return data;
+	}
+
+	/**
+	 * Used to decode all the bytes held as a <code>String</code>. Data that
+	 * fits in a single buffer is decoded in place without being copied.
+	 *
+	 * @param charsetName
+	 *            The name of the charset used to decode the bytes.
+	 *
+	 * @return the decoded text.
+	 *
+	 * @throws UnsupportedEncodingException
+	 *             if the charset is not supported.
+	 */
+	public String toString(String charsetName)
+			throws UnsupportedEncodingException {
+		if (bufferList.size() == 1)
+			return new String(bufferList.get(0), 0, position, charsetName);
+
+		return new String(toByteArray(), charsetName);
+	}
+
+	/**
+	 * Used to return every buffer to the pool and empty this instance.
+	 */
+	public void release() {
+		for (int i = 0, count = bufferList.size(); i < count; i++)
+			bufferPool.release(bufferList.get(i));
+
+		bufferList.clear();
+		position = bufferPool.getBufferSize();
+		size = 0;
+	}
+
+	/**
+	 * Same as {@link #release()}.
+	 */
+	@Override
+	public void close() {
+		release();
+	}
+
+	private byte[] currentBuffer() {
+		if (position == bufferPool.getBufferSize()) {
+			bufferList.add(bufferPool.acquire());
+			position = 0;
+		}
+
+		return bufferList.get(bufferList.size() - 1);
+	}
+
+	private int length(int index) {
+		return (index == bufferList.size() - 1 ? position : bufferPool
+				.getBufferSize());
+	}
+}
@@ -0,0 +1,103 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class used to limit the rate at which calls are made to SmugMug, separately
+ * for each key (normally the API Key the calls are made with).
+ * <p>
+ * Calls made with the same key are spaced evenly so no more than the given
+ * number of calls per second are started; calls made with different keys do
+ * not wait for each other. One instance should be shared by every batch that
+ * uses the same API Key, otherwise each batch is limited on its own.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class RateLimiter {
+	private long intervalNanos;
+
+	private ConcurrentMap<String, AtomicLong> nextPermitMap = new ConcurrentHashMap<String, AtomicLong>();
+
+	/**
+	 * Construct a new rate limiter.
+	 *
+	 * @param permitsPerSecond
+	 *            The number of calls per second allowed for each key. A value
+	 *            of <code>0</code> or less means calls are not limited.
+	 */
+	public RateLimiter(double permitsPerSecond) {
+		this.intervalNanos = (permitsPerSecond <= 0 ? 0
+				: (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+	}
+
+	/**
+	 * Used to wait until a call can be made with the given key.
+	 *
+	 * @param key
+	 *            The key the call is made with, <code>null</code> is treated
+	 *            as a key of its own.
+	 *
+	 * @throws InterruptedException
+	 *             if the calling thread is interrupted while waiting.
+	 */
+	public void acquire(String key) throws InterruptedException {
+		if (intervalNanos == 0)
+			return;
+
+		if (key == null)
+			key = "";
+
+		AtomicLong nextPermit = nextPermitMap.get(key);
+
+		if (nextPermit == null) {
+			AtomicLong newPermit = new AtomicLong(System.nanoTime());
+			nextPermit = nextPermitMap.putIfAbsent(key, newPermit);
+
+			if (nextPermit == null)
+				nextPermit = newPermit;
+		}
+
+		long now = System.nanoTime();
+		long permit;
+
+		/* Reserve the next free slot, a slot in the past starts from now */
+		while (true) {
+			long next = nextPermit.get();
+			permit = (next - now > 0 ? next : now);
+
+			if (nextPermit.compareAndSet(next, permit + intervalNanos))
+				break;
+		}
+
+		if (permit - now > 0)
+			TimeUnit.NANOSECONDS.sleep(permit - now);
+	}
+
+	/**
+	 * Used to get the number of calls per second allowed for each key.
+	 *
+	 * @return the number of calls per second allowed for each key, or
+	 *         <code>0</code> if calls are not limited.
+	 */
+	public double getPermitsPerSecond() {
+		return (intervalNanos == 0 ? 0 : (double) TimeUnit.SECONDS.toNanos(1)
+				/ intervalNanos);
+	}
+}
@@ -0,0 +1,332 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.json.bulk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.kallasoft.smugmug.api.json.bulk.ReorderPlanner.Plan;
+import com.kallasoft.smugmug.api.json.entity.Image;
+import com.kallasoft.smugmug.api.json.v1_2_0.albums.ReSort;
+import com.kallasoft.smugmug.api.json.v1_2_0.images.ChangePosition;
+import com.kallasoft.smugmug.api.json.v1_2_0.images.Get;
+
+/**
+ * Tests for {@link ReorderPlanner}. Only plans are made, so nothing is sent
+ * to SmugMug.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class ReorderPlannerTest {
+	private static final Long ALBUM_ID = Long.valueOf(1);
+
+	private ReorderPlanner planner;
+
+	@Before
+	public void setUp() {
+		planner = new ReorderPlanner(new ChangePosition(), new ReSort(),
+				"apiKey", "sessionID");
+	}
+
+	@Test
+	public void testLongestIncreasingSubsequenceExample() {
+		int[] values = { 3, 1, 4, 1, 5, 9, 2, 6 };
+		int[] lis = ReorderPlanner.longestIncreasingSubsequence(values);
+
+		assertEquals(4, lis.length);
+		assertIncreasing(values, lis);
+	}
+
+	@Test
+	public void testLongestIncreasingSubsequenceEdgeCases() {
+		assertEquals(0, ReorderPlanner
+				.longestIncreasingSubsequence(new int[0]).length);
+		assertEquals(1, ReorderPlanner.longestIncreasingSubsequence(new int[] {
+				5, 4, 3, 2, 1 }).length);
+		assertTrue(Arrays.equals(new int[] { 0, 1, 2, 3 }, ReorderPlanner
+				.longestIncreasingSubsequence(new int[] { 0, 1, 2, 3 })));
+	}
+
+	@Test
+	public void testLongestIncreasingSubsequenceMatchesBruteForce() {
+		Random random = new Random(41);
+
+		for (int run = 0; run < 500; run++) {
+			int[] values = new int[random.nextInt(40)];
+
+			for (int i = 0; i < values.length; i++)
+				values[i] = random.nextInt(20);
+
+			int[] lis = ReorderPlanner.longestIncreasingSubsequence(values);
+
+			assertEquals(bruteForceLength(values), lis.length);
+			assertIncreasing(values, lis);
+		}
+	}
+
+	@Test
+	public void testMovesReproduceTargetOrder() throws JSONException {
+		Random random = new Random(42);
+
+		for (int run = 0; run < 200; run++) {
+			int size = random.nextInt(30);
+			List<Image> imageList = createImages(size);
+			List<Long> targetOrder = ids(imageList);
+			Collections.shuffle(targetOrder, random);
+
+			/* The order given must not matter, only the positions */
+			List<Image> shuffledList = new ArrayList<Image>(imageList);
+			Collections.shuffle(shuffledList, random);
+
+			Plan plan = planner.plan(ALBUM_ID, shuffledList, targetOrder);
+
+			assertFalse(plan.isReSort());
+			assertEquals(size - lisLength(imageList, targetOrder), plan
+					.getMoveCount());
+			assertEquals(targetOrder, applyMoves(ids(imageList), plan));
+		}
+	}
+
+	@Test
+	public void testSingleMove() throws JSONException {
+		List<Image> imageList = createImages(5);
+		/* Moving the last image to the front is a single move */
+		List<Long> targetOrder = Arrays.asList(Long.valueOf(5), Long
+				.valueOf(1), Long.valueOf(2), Long.valueOf(3), Long.valueOf(4));
+
+		Plan plan = planner.plan(ALBUM_ID, imageList, targetOrder);
+
+		assertEquals(1, plan.getMoveCount());
+		assertEquals(5, plan.getImageID(0));
+		assertEquals(1, plan.getPosition(0));
+	}
+
+	@Test
+	public void testAlreadyOrderedAlbumNeedsNoMoves() throws JSONException {
+		List<Image> imageList = createImages(10);
+		Plan plan = planner.plan(ALBUM_ID, imageList, ids(imageList));
+
+		assertFalse(plan.isReSort());
+		assertEquals(0, plan.getMoveCount());
+	}
+
+	@Test
+	public void testAlreadySortedAlbumNeedsNoReSort() throws JSONException {
+		planner.setGetMethod(new Get());
+		List<Image> imageList = createImages(10);
+		Plan plan = planner.plan(ALBUM_ID, imageList, ids(imageList));
+
+		assertFalse(plan.isReSort());
+		assertEquals(0, plan.getMoveCount());
+	}
+
+	@Test
+	public void testReSortByFileName() throws JSONException {
+		planner.setGetMethod(new Get());
+		List<Image> imageList = new ArrayList<Image>();
+		imageList.add(createImage(1, 1, "c.jpg", null));
+		imageList.add(createImage(2, 2, "a.jpg", null));
+		imageList.add(createImage(3, 3, "b.jpg", null));
+
+		Plan plan = planner.plan(ALBUM_ID, imageList, Arrays.asList(Long
+				.valueOf(2), Long.valueOf(3), Long.valueOf(1)));
+
+		assertTrue(plan.isReSort());
+		assertEquals(ReSort.BY_FILE_NAME, plan.getReSortBy());
+		assertEquals(ReSort.DIRECTION_ASCENDING, plan.getReSortDirection());
+		assertEquals(0, plan.getMoveCount());
+
+		plan = planner.plan(ALBUM_ID, imageList, Arrays.asList(Long
+				.valueOf(1), Long.valueOf(3), Long.valueOf(2)));
+
+		assertTrue(plan.isReSort());
+		assertEquals(ReSort.BY_FILE_NAME, plan.getReSortBy());
+		assertEquals(ReSort.DIRECTION_DESCENDING, plan.getReSortDirection());
+	}
+
+	@Test
+	public void testReSortByCaption() throws JSONException {
+		planner.setGetMethod(new Get());
+		List<Image> imageList = new ArrayList<Image>();
+		imageList.add(createImage(1, 1, "x.jpg", "beach"));
+		imageList.add(createImage(2, 2, "x.jpg", "dunes"));
+		imageList.add(createImage(3, 3, "x.jpg", "cliffs"));
+
+		Plan plan = planner.plan(ALBUM_ID, imageList, Arrays.asList(Long
+				.valueOf(2), Long.valueOf(3), Long.valueOf(1)));
+
+		assertTrue(plan.isReSort());
+		assertEquals(ReSort.BY_CAPTION, plan.getReSortBy());
+		assertEquals(ReSort.DIRECTION_DESCENDING, plan.getReSortDirection());
+	}
+
+	@Test
+	public void testNoReSortWithoutGetMethod() throws JSONException {
+		List<Image> imageList = new ArrayList<Image>();
+		imageList.add(createImage(1, 1, "b.jpg", null));
+		imageList.add(createImage(2, 2, "a.jpg", null));
+
+		Plan plan = planner.plan(ALBUM_ID, imageList, Arrays.asList(Long
+				.valueOf(2), Long.valueOf(1)));
+
+		assertFalse(plan.isReSort());
+		assertEquals(1, plan.getMoveCount());
+	}
+
+	@Test
+	public void testNoReSortForNamesEqualIgnoringCase() throws JSONException {
+		planner.setGetMethod(new Get());
+		List<Image> imageList = new ArrayList<Image>();
+		imageList.add(createImage(1, 1, "b.jpg", null));
+		imageList.add(createImage(2, 2, "A.jpg", null));
+		imageList.add(createImage(3, 3, "a.jpg", null));
+
+		/* Sorted by compareTo, but SmugMug could order A and a either way */
+		Plan plan = planner.plan(ALBUM_ID, imageList, Arrays.asList(Long
+				.valueOf(2), Long.valueOf(3), Long.valueOf(1)));
+
+		assertFalse(plan.isReSort());
+		assertNull(plan.getReSortBy());
+		assertEquals(1, plan.getMoveCount());
+	}
+
+	@Test
+	public void testNoReSortForMissingKeys() throws JSONException {
+		planner.setGetMethod(new Get());
+		List<Image> imageList = new ArrayList<Image>();
+		imageList.add(createImage(1, 1, null, "b"));
+		imageList.add(createImage(2, 2, null, null));
+
+		Plan plan = planner.plan(ALBUM_ID, imageList, Arrays.asList(Long
+				.valueOf(2), Long.valueOf(1)));
+
+		assertFalse(plan.isReSort());
+		assertEquals(1, plan.getMoveCount());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTargetOrderMissingImage() throws JSONException {
+		List<Image> imageList = createImages(3);
+		planner.plan(ALBUM_ID, imageList, Arrays.asList(Long.valueOf(1), Long
+				.valueOf(2), Long.valueOf(2)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTargetOrderWrongSize() throws JSONException {
+		List<Image> imageList = createImages(3);
+		planner.plan(ALBUM_ID, imageList, Arrays.asList(Long.valueOf(1)));
+	}
+
+	/**
+	 * Used to make the moves of the plan the way SmugMug would: each image is
+	 * taken out and put back at its new position (starting at 1).
+	 */
+	private static List<Long> applyMoves(List<Long> album, Plan plan) {
+		List<Long> result = new ArrayList<Long>(album);
+
+		for (int i = 0; i < plan.getMoveCount(); i++) {
+			Long imageID = Long.valueOf(plan.getImageID(i));
+			result.remove(imageID);
+			result.add(plan.getPosition(i) - 1, imageID);
+		}
+
+		return result;
+	}
+
+	private static int lisLength(List<Image> imageList, List<Long> targetOrder) {
+		int[] sequence = new int[imageList.size()];
+
+		for (int i = 0; i < sequence.length; i++)
+			sequence[i] = targetOrder.indexOf(imageList.get(i).getID());
+
+		return bruteForceLength(sequence);
+	}
+
+	private static int bruteForceLength(int[] values) {
+		int[] lengths = new int[values.length];
+		int best = 0;
+
+		for (int i = 0; i < values.length; i++) {
+			lengths[i] = 1;
+
+			for (int j = 0; j < i; j++) {
+				if (values[j] < values[i])
+					lengths[i] = Math.max(lengths[i], lengths[j] + 1);
+			}
+
+			best = Math.max(best, lengths[i]);
+		}
+
+		return best;
+	}
+
+	private static void assertIncreasing(int[] values, int[] indices) {
+		for (int i = 1; i < indices.length; i++) {
+			assertTrue(indices[i - 1] < indices[i]);
+			assertTrue(values[indices[i - 1]] < values[indices[i]]);
+		}
+	}
+
+	/**
+	 * Used to create images 1 to count at positions 1 to count, with file
+	 * names sorted in the same order.
+	 */
+	private static List<Image> createImages(int count) throws JSONException {
+		List<Image> imageList = new ArrayList<Image>(count);
+
+		for (int i = 1; i <= count; i++)
+			imageList.add(createImage(i, i, String.format("img%04d.jpg",
+					Integer.valueOf(i)), null));
+
+		return imageList;
+	}
+
+	private static Image createImage(long id, int position, String fileName,
+			String caption) throws JSONException {
+		JSONObject imageObject = new JSONObject();
+		imageObject.put("id", id);
+		imageObject.put("Position", position);
+
+		if (fileName != null)
+			imageObject.put("FileName", fileName);
+
+		if (caption != null)
+			imageObject.put("Caption", caption);
+
+		return new Image(imageObject);
+	}
+
+	private static List<Long> ids(List<Image> imageList) {
+		List<Long> idList = new ArrayList<Long>(imageList.size());
+
+		for (Image image : imageList)
+			idList.add(image.getID());
+
+		return idList;
+	}
+}
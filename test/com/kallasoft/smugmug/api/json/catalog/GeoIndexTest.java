@@ -0,0 +1,449 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.json.catalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.kallasoft.smugmug.api.json.catalog.GeoIndex.Hit;
+import com.kallasoft.smugmug.api.json.entity.Image;
+
+/**
+ * Tests for {@link GeoIndex}, comparing every query with a scan of every
+ * point. Locations are rounded to about a centimeter by the index, so points
+ * closer than {@link #EPSILON} degrees or {@link #DISTANCE_EPSILON} meters to
+ * the edge of a query may be found or not.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class GeoIndexTest {
+	private static final double EPSILON = 1e-6;
+
+	private static final double DISTANCE_EPSILON = 1;
+
+	private GeoIndex index;
+
+	private Map<Long, double[]> model;
+
+	private Random random;
+
+	private long nextID;
+
+	@Before
+	public void setUp() {
+		index = new GeoIndex();
+		model = new HashMap<Long, double[]>();
+		random = new Random(49);
+	}
+
+	@Test
+	public void testBoxes() throws JSONException {
+		addAll(createPoints(20000));
+
+		for (int i = 0; i < 200; i++) {
+			double[] box = randomBox();
+			checkBox(box[0], box[1], box[2], box[3]);
+		}
+	}
+
+	@Test
+	public void testSmallBoxesInsideClusters() throws JSONException {
+		/* Dense clusters make the quadtree split deep before scanning */
+		List<double[]> pointList = new ArrayList<double[]>();
+
+		for (int i = 0; i < 5000; i++)
+			pointList.add(new double[] { 48.8566 + random.nextGaussian() * 0.01,
+					2.3522 + random.nextGaussian() * 0.01 });
+
+		for (int i = 0; i < 5000; i++)
+			pointList.add(new double[] { -33.8688 + random.nextDouble() * 1e-4,
+					151.2093 + random.nextDouble() * 1e-4 });
+
+		addAll(pointList);
+
+		for (int i = 0; i < 100; i++) {
+			double latitude = 48.8566 + random.nextGaussian() * 0.01;
+			double longitude = 2.3522 + random.nextGaussian() * 0.01;
+			double size = random.nextDouble() * 0.01;
+			checkBox(latitude, longitude, latitude + size, longitude + size);
+
+			latitude = -33.8688 + random.nextDouble() * 1e-4;
+			longitude = 151.2093 + random.nextDouble() * 1e-4;
+			size = random.nextDouble() * 5e-5;
+			checkBox(latitude, longitude, latitude + size, longitude + size);
+		}
+
+		/* Boxes covering whole clusters, and the whole globe */
+		checkBox(48, 2, 49, 3);
+		checkBox(-34, 151, -33, 152);
+		assertEquals(10000, index.countInBox(-90, -180, 90, 180));
+	}
+
+	@Test
+	public void testBoxesAcrossAntimeridian() throws JSONException {
+		List<double[]> pointList = createPoints(5000);
+
+		for (int i = 0; i < 5000; i++)
+			pointList.add(new double[] { random.nextDouble() * 40 - 20,
+					(random.nextBoolean() ? 180 : -180)
+							- Math.signum(random.nextDouble() - 0.5)
+							* random.nextDouble() * 2 });
+
+		addAll(pointList);
+
+		checkBox(-10, 179, 10, -179);
+		checkBox(-90, 170, 90, -170);
+		checkBox(-5, 179.999, 5, -179.999);
+
+		for (int i = 0; i < 100; i++) {
+			double west = 180 - random.nextDouble() * 3;
+			double east = -180 + random.nextDouble() * 3;
+			checkBox(-20 + random.nextDouble() * 10, west,
+					random.nextDouble() * 20, east);
+		}
+	}
+
+	@Test
+	public void testWithin() throws JSONException {
+		addAll(createPoints(20000));
+
+		for (int i = 0; i < 100; i++) {
+			double[] point = randomPoint();
+			checkWithin(point[0], point[1], Math.pow(10, 2 + random
+					.nextDouble() * 5));
+		}
+	}
+
+	@Test
+	public void testWithinAcrossAntimeridian() throws JSONException {
+		List<double[]> pointList = new ArrayList<double[]>();
+
+		for (int i = 0; i < 5000; i++)
+			pointList.add(new double[] { random.nextDouble() * 10 - 5,
+					normalize(180 + random.nextGaussian()) });
+
+		addAll(pointList);
+
+		checkWithin(0, 179.9, 100000);
+		checkWithin(0, -179.9, 100000);
+		checkWithin(2, 180, 250000);
+		checkWithin(-2, -180, 50000);
+	}
+
+	@Test
+	public void testPoles() throws JSONException {
+		List<double[]> pointList = createPoints(5000);
+
+		for (int i = 0; i < 2000; i++) {
+			double latitude = 90 - Math.abs(random.nextGaussian());
+			pointList.add(new double[] {
+					(random.nextBoolean() ? latitude : -latitude),
+					random.nextDouble() * 360 - 180 });
+		}
+
+		pointList.add(new double[] { 90, 0 });
+		pointList.add(new double[] { -90, 0 });
+		addAll(pointList);
+
+		checkWithin(90, 0, 100000);
+		checkWithin(-90, 123, 100000);
+		checkWithin(89.5, 45, 200000);
+		checkWithin(-89.9, -170, 50000);
+		checkBox(89, -180, 90, 180);
+		checkBox(-90, 100, -89, -100);
+		checkNearest(90, 0, 50);
+		checkNearest(-89.99, 10, 50);
+	}
+
+	@Test
+	public void testNearest() throws JSONException {
+		addAll(createPoints(20000));
+
+		for (int i = 0; i < 100; i++) {
+			double[] point = randomPoint();
+			checkNearest(point[0], point[1], 1 + random.nextInt(100));
+		}
+
+		assertEquals(0, index.findNearest(0, 0, 0).size());
+	}
+
+	@Test
+	public void testNearestGrowsRadius() throws JSONException {
+		/* Every image is in Europe, the first circle around Hawaii is empty */
+		List<double[]> pointList = new ArrayList<double[]>();
+
+		for (int i = 0; i < 10000; i++)
+			pointList.add(new double[] { 45 + random.nextDouble() * 10,
+					random.nextDouble() * 20 });
+
+		addAll(pointList);
+
+		checkNearest(21.3, -157.8, 5);
+		checkNearest(-45, -170, 1);
+
+		/* Asking for more images than there are returns all of them */
+		assertEquals(10000, index.findNearest(-45, -170, 20000).size());
+	}
+
+	@Test
+	public void testNearestWithFewImages() throws JSONException {
+		assertEquals(0, index.findNearest(0, 0, 5).size());
+
+		/* Antipodes, the farthest apart two images can be */
+		addAll(Arrays.asList(new double[] { 10, 20 }, new double[] { -10,
+				-160 }));
+
+		List<Hit> hitList = index.findNearest(10, 20, 2);
+		assertEquals(2, hitList.size());
+		assertEquals(0, hitList.get(0).getDistance(), DISTANCE_EPSILON);
+		assertEquals(Math.PI * GeoIndex.EARTH_RADIUS, hitList.get(1)
+				.getDistance(), DISTANCE_EPSILON);
+	}
+
+	@Test
+	public void testUnsortedTail() throws JSONException {
+		addAll(createPoints(10000));
+
+		/* Fewer than merge at once, so they stay appended unsorted */
+		for (int i = 0; i < 500; i++) {
+			double[] point = randomPoint();
+			add(point[0], point[1]);
+		}
+
+		checkEverything();
+
+		/* Moving and removing images, sorted or not, hides the old entry */
+		List<Long> idList = new ArrayList<Long>(model.keySet());
+
+		for (int i = 0; i < 300; i++) {
+			Long imageID = idList.get(random.nextInt(idList.size()));
+
+			if (random.nextBoolean()) {
+				double[] point = randomPoint();
+				assertTrue(index.add(createImage(imageID.longValue(),
+						point[0], point[1])));
+				model.put(imageID, point);
+			} else {
+				index.remove(imageID.longValue());
+				model.remove(imageID);
+			}
+		}
+
+		assertEquals(model.size(), index.size());
+		checkEverything();
+
+		/* Enough single additions merge the tail into the sorted entries */
+		for (int i = 0; i < 3000; i++) {
+			double[] point = randomPoint();
+			add(point[0], point[1]);
+		}
+
+		assertEquals(model.size(), index.size());
+		checkEverything();
+	}
+
+	@Test
+	public void testImagesWithoutLocation() throws JSONException {
+		JSONObject imageObject = new JSONObject();
+		imageObject.put("id", 1);
+
+		assertFalse(index.add(new Image(imageObject)));
+		assertEquals(0, index.addAll(Arrays.asList(new Image(imageObject))));
+		assertEquals(0, index.size());
+	}
+
+	private void checkEverything() {
+		for (int i = 0; i < 30; i++) {
+			double[] box = randomBox();
+			checkBox(box[0], box[1], box[2], box[3]);
+
+			double[] point = randomPoint();
+			checkWithin(point[0], point[1], Math.pow(10, 3 + random
+					.nextDouble() * 4));
+			checkNearest(point[0], point[1], 1 + random.nextInt(20));
+		}
+	}
+
+	private void checkBox(double south, double west, double north,
+			double east) {
+		Set<Long> idSet = new HashSet<Long>();
+
+		for (long imageID : index.findInBox(south, west, north, east))
+			assertTrue("Image " + imageID + " found twice", idSet.add(Long
+					.valueOf(imageID)));
+
+		String box = "box " + south + ", " + west + ", " + north + ", "
+				+ east;
+
+		for (Map.Entry<Long, double[]> entry : model.entrySet()) {
+			double[] point = entry.getValue();
+
+			if (inBox(point, south + EPSILON, west + EPSILON, north - EPSILON,
+					east - EPSILON))
+				assertTrue(box + " missed " + entry.getKey(), idSet
+						.contains(entry.getKey()));
+			else if (!inBox(point, south - EPSILON, west - EPSILON, north
+					+ EPSILON, east + EPSILON))
+				assertFalse(box + " found " + entry.getKey(), idSet
+						.contains(entry.getKey()));
+		}
+
+		assertEquals(idSet.size(), index.countInBox(south, west, north, east));
+	}
+
+	private static boolean inBox(double[] point, double south, double west,
+			double north, double east) {
+		if (point[0] < south || point[0] > north)
+			return false;
+
+		/* A west edge east of the east edge crosses the 180th meridian */
+		if (west <= east)
+			return (point[1] >= west && point[1] <= east);
+
+		return (point[1] >= west || point[1] <= east);
+	}
+
+	private void checkWithin(double latitude, double longitude, double radius) {
+		List<Hit> hitList = index.findWithin(latitude, longitude, radius);
+		Set<Long> idSet = new HashSet<Long>();
+		String circle = "circle " + latitude + ", " + longitude + ", "
+				+ radius;
+
+		for (int i = 0; i < hitList.size(); i++) {
+			Hit hit = hitList.get(i);
+			double[] point = model.get(Long.valueOf(hit.getImageID()));
+
+			assertTrue(idSet.add(Long.valueOf(hit.getImageID())));
+			assertEquals(GeoIndex.distance(latitude, longitude, point[0],
+					point[1]), hit.getDistance(), DISTANCE_EPSILON);
+			assertTrue(hit.getDistance() <= radius);
+
+			if (i > 0)
+				assertTrue(hitList.get(i - 1).getDistance() <= hit
+						.getDistance());
+		}
+
+		for (Map.Entry<Long, double[]> entry : model.entrySet()) {
+			double[] point = entry.getValue();
+
+			if (GeoIndex.distance(latitude, longitude, point[0], point[1]) < radius
+					- DISTANCE_EPSILON)
+				assertTrue(circle + " missed " + entry.getKey(), idSet
+						.contains(entry.getKey()));
+		}
+	}
+
+	private void checkNearest(double latitude, double longitude, int k) {
+		List<Hit> hitList = index.findNearest(latitude, longitude, k);
+		double[] distances = new double[model.size()];
+		int count = 0;
+
+		for (double[] point : model.values())
+			distances[count++] = GeoIndex.distance(latitude, longitude,
+					point[0], point[1]);
+
+		Arrays.sort(distances);
+		assertEquals(Math.min(k, distances.length), hitList.size());
+
+		/* Ties may be broken either way, so compare the distances only */
+		for (int i = 0; i < hitList.size(); i++)
+			assertEquals("nearest " + i + " to " + latitude + ", "
+					+ longitude, distances[i], hitList.get(i).getDistance(),
+					DISTANCE_EPSILON);
+	}
+
+	private double[] randomBox() {
+		double latitude1 = random.nextDouble() * 180 - 90;
+		double latitude2 = random.nextDouble() * 180 - 90;
+		double west = random.nextDouble() * 360 - 180;
+		double width = random.nextDouble() * random.nextDouble() * 360;
+
+		return new double[] { Math.min(latitude1, latitude2), west,
+				Math.max(latitude1, latitude2), normalize(west + width) };
+	}
+
+	/**
+	 * Used to pick a point evenly over the sphere rather than the
+	 * latitude-longitude rectangle.
+	 */
+	private double[] randomPoint() {
+		return new double[] {
+				Math.toDegrees(Math.asin(random.nextDouble() * 2 - 1)),
+				random.nextDouble() * 360 - 180 };
+	}
+
+	private List<double[]> createPoints(int count) {
+		List<double[]> pointList = new ArrayList<double[]>(count);
+
+		for (int i = 0; i < count; i++)
+			pointList.add(randomPoint());
+
+		return pointList;
+	}
+
+	private void addAll(List<double[]> pointList) throws JSONException {
+		List<Image> imageList = new ArrayList<Image>(pointList.size());
+
+		for (double[] point : pointList) {
+			long imageID = nextID++;
+			imageList.add(createImage(imageID, point[0], point[1]));
+			model.put(Long.valueOf(imageID), point);
+		}
+
+		assertEquals(pointList.size(), index.addAll(imageList));
+		assertEquals(model.size(), index.size());
+	}
+
+	private void add(double latitude, double longitude) throws JSONException {
+		long imageID = nextID++;
+		assertTrue(index.add(createImage(imageID, latitude, longitude)));
+		model.put(Long.valueOf(imageID), new double[] { latitude, longitude });
+	}
+
+	private static double normalize(double longitude) {
+		if (longitude < -180)
+			return longitude + 360;
+
+		if (longitude > 180)
+			return longitude - 360;
+
+		return longitude;
+	}
+
+	private static Image createImage(long id, double latitude,
+			double longitude) throws JSONException {
+		JSONObject imageObject = new JSONObject();
+		imageObject.put("id", id);
+		imageObject.put("Latitude", latitude);
+		imageObject.put("Longitude", longitude);
+
+		return new Image(imageObject);
+	}
+}
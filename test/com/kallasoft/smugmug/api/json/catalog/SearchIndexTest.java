@@ -0,0 +1,382 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.json.catalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.kallasoft.smugmug.api.json.catalog.SearchIndex.Hit;
+import com.kallasoft.smugmug.api.json.catalog.SearchIndex.Kind;
+import com.kallasoft.smugmug.api.json.entity.Album;
+import com.kallasoft.smugmug.api.json.entity.Image;
+
+/**
+ * Tests for {@link SearchIndex}. The randomized tests check every search
+ * against a scan of a plain model of the indexed text.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class SearchIndexTest {
+	private static final String[] VOCABULARY = { "alpha", "alps", "al",
+			"beta", "bet", "better", "gamma", "delta", "sun", "sunset",
+			"sunrise", "x1", "x10", "x100" };
+
+	private SearchIndex index;
+
+	@Before
+	public void setUp() {
+		index = new SearchIndex();
+	}
+
+	@Test
+	public void testTokenize() {
+		assertEquals(new HashSet<String>(Arrays.asList("beach", "2009",
+				"img", "0001", "jpg")), SearchIndex
+				.tokenize("Beach, 2009 - IMG_0001.JPG beach"));
+		assertTrue(SearchIndex.tokenize(null).isEmpty());
+		assertTrue(SearchIndex.tokenize(" -- ").isEmpty());
+	}
+
+	@Test
+	public void testPostingsTakeTwoBytesForSmallDeltas() throws JSONException {
+		for (int i = 0; i < 1000; i++)
+			index.updateImage(1, createImage(i, null, "word", null));
+
+		/* One byte of delta and one of weight per document */
+		assertEquals(1, index.getTermCount());
+		assertEquals(2000, index.getPostingsBytes());
+		assertEquals(1000, index.search("word", Integer.MAX_VALUE).size());
+	}
+
+	@Test
+	public void testVarintDeltas() throws JSONException {
+		Set<Long> rareIDSet = new HashSet<Long>(Arrays.asList(Long
+				.valueOf(0), Long.valueOf(200), Long.valueOf(20000)));
+
+		for (long i = 0; i <= 20000; i++)
+			index.updateImage(1, createImage(i, null, (rareIDSet.contains(Long
+					.valueOf(i)) ? "rare" : "filler"), null));
+
+		/* rare: deltas 1, 200 and 19800 take 1, 2 and 3 bytes */
+		int rareBytes = (1 + 1) + (2 + 1) + (3 + 1);
+		int fillerBytes = 2 * (20001 - rareIDSet.size());
+		assertEquals(rareBytes + fillerBytes, index.getPostingsBytes());
+
+		assertEquals(rareIDSet, imageIDs(index.search("rare", 10)));
+		assertEquals(20001 - 3, index.search("filler", Integer.MAX_VALUE)
+				.size());
+	}
+
+	@Test
+	public void testEveryWordMustMatch() throws JSONException {
+		index.updateImage(1, createImage(1, "red", "car", null));
+		index.updateImage(1, createImage(2, "red", "bike", null));
+		index.updateImage(1, createImage(3, "blue", "car", null));
+
+		assertEquals(set(1), imageIDs(index.search("red car", 10)));
+		assertEquals(set(1, 3), imageIDs(index.search("car", 10)));
+		assertEquals(set(), imageIDs(index.search("red green", 10)));
+		assertEquals(0, index.search("", 10).size());
+		assertEquals(0, index.search("red", 0).size());
+	}
+
+	@Test
+	public void testFieldWeights() throws JSONException {
+		index.updateImage(1, createImage(1, null, "ocean", null));
+		index.updateImage(1, createImage(2, "ocean", null, null));
+		index.updateImage(1, createImage(3, null, null, "ocean.jpg"));
+
+		/* Keywords count more than captions, captions than file names */
+		List<Hit> hitList = index.search("ocean", 10);
+		assertEquals(3, hitList.size());
+		assertEquals(2, hitList.get(0).getID());
+		assertEquals(1, hitList.get(1).getID());
+		assertEquals(3, hitList.get(2).getID());
+
+		hitList = index.search("ocean", 2);
+		assertEquals(2, hitList.size());
+		assertEquals(2, hitList.get(0).getID());
+	}
+
+	@Test
+	public void testPrefixCountsLessThanExactWord() throws JSONException {
+		index.updateImage(1, createImage(1, "oceans", null, null));
+		index.updateImage(1, createImage(2, "ocean", null, null));
+
+		/* Both words are equally rare, so only the prefix factor differs */
+		List<Hit> hitList = index.search("ocean", 10);
+		assertEquals(2, hitList.size());
+		assertEquals(2, hitList.get(0).getID());
+		assertEquals(hitList.get(0).getScore() / 2, hitList.get(1).getScore(),
+				1e-6f);
+	}
+
+	@Test
+	public void testPrefixTermsOfOneDocumentAreMerged() throws JSONException {
+		index.updateImage(1, createImage(1, "sun sunset sunrise", null, null));
+		index.updateImage(1, createImage(2, "sunset", null, null));
+
+		/* "sun" matches three terms of image 1 but it is one result */
+		List<Hit> hitList = index.search("sun", 10);
+		assertEquals(2, hitList.size());
+		assertEquals(1, hitList.get(0).getID());
+		assertTrue(hitList.get(0).getScore() > hitList.get(1).getScore());
+
+		hitList = index.search("sun sunr", 10);
+		assertEquals(1, hitList.size());
+		assertEquals(1, hitList.get(0).getID());
+	}
+
+	@Test
+	public void testAlbumsAndImages() throws JSONException {
+		index.updateAlbum(createAlbum(10, "Summer holiday", "beach"), Arrays
+				.asList(createImage(1, "beach", null, null), createImage(2,
+						null, "holiday", null)));
+
+		List<Hit> hitList = index.search("holiday", 10);
+		assertEquals(2, hitList.size());
+
+		for (Hit hit : hitList) {
+			assertEquals(10, hit.getAlbumID());
+
+			if (hit.getKind() == Kind.ALBUM)
+				assertEquals(10, hit.getID());
+			else
+				assertEquals(2, hit.getID());
+		}
+
+		/* Images left out of the album are removed */
+		index.updateAlbum(createAlbum(10, "Summer holiday", "beach"), Arrays
+				.asList(createImage(1, "beach", null, null)));
+		assertEquals(2, index.getDocumentCount());
+		assertEquals(set(), imageIDs(index.search("holiday", 10)));
+
+		index.removeAlbum(10);
+		assertEquals(0, index.getDocumentCount());
+		assertEquals(0, index.search("beach", 10).size());
+	}
+
+	@Test
+	public void testUnchangedDocumentIsSkipped() throws JSONException {
+		index.updateImage(1, createImage(1, "tree", "forest", "a.jpg"));
+		long bytes = index.getPostingsBytes();
+
+		/* Same text, but a different object and unindexed fields */
+		index.updateImage(1, createImage(1, "tree", "forest", "a.jpg"));
+		assertEquals(bytes, index.getPostingsBytes());
+		assertEquals(1, index.getDocumentCount());
+
+		/* Moving the image to another album is a change */
+		index.updateImage(2, createImage(1, "tree", "forest", "a.jpg"));
+		assertTrue(index.getPostingsBytes() > bytes);
+		assertEquals(2, index.search("tree", 10).get(0).getAlbumID());
+
+		/* So is a field going from null to empty */
+		bytes = index.getPostingsBytes();
+		index.updateImage(2, createImage(1, "tree", "forest", ""));
+		assertTrue(index.getPostingsBytes() > bytes);
+		assertEquals(1, index.getDocumentCount());
+	}
+
+	@Test
+	public void testChangedDocumentReplacesOldText() throws JSONException {
+		index.updateImage(1, createImage(1, "tree", null, null));
+		index.updateImage(1, createImage(1, "river", null, null));
+
+		assertEquals(set(), imageIDs(index.search("tree", 10)));
+		assertEquals(set(1), imageIDs(index.search("river", 10)));
+		assertEquals(1, index.getDocumentCount());
+	}
+
+	@Test
+	public void testCompact() throws JSONException {
+		for (int i = 0; i < 100; i++)
+			index.updateImage(1, createImage(i, "common", (i % 2 == 0 ? "even"
+					: "odd"), null));
+
+		for (int i = 0; i < 100; i += 2)
+			index.removeImage(i);
+
+		assertEquals(50, index.getDocumentCount());
+		long bytes = index.getPostingsBytes();
+		Set<Long> commonIDSet = imageIDs(index.search("common", 1000));
+
+		index.compact();
+
+		/* Postings of removed images are dropped, along with "even" */
+		assertEquals(50, index.getDocumentCount());
+		assertEquals(2, index.getTermCount());
+		assertTrue(index.getPostingsBytes() < bytes);
+		assertEquals(commonIDSet, imageIDs(index.search("common", 1000)));
+		assertEquals(set(), imageIDs(index.search("even", 1000)));
+
+		/* Documents are renumbered, lookups by ID must follow them */
+		index.updateImage(1, createImage(1, "common", "changed", null));
+		index.removeImage(3);
+		assertEquals(set(1), imageIDs(index.search("changed", 10)));
+		assertEquals(48, imageIDs(index.search("odd", 1000)).size());
+		assertEquals(49, index.getDocumentCount());
+	}
+
+	@Test
+	public void testRandomUpdatesMatchModel() throws JSONException {
+		Random random = new Random(48);
+		Map<Long, Set<String>> model = new HashMap<Long, Set<String>>();
+		Map<Long, Long> albumModel = new HashMap<Long, Long>();
+
+		for (int step = 0; step < 5000; step++) {
+			long imageID = random.nextInt(300);
+			int action = random.nextInt(10);
+
+			if (action < 7) {
+				String keywords = randomText(random);
+				String caption = randomText(random);
+				long albumID = random.nextInt(5);
+				index.updateImage(albumID, createImage(imageID, keywords,
+						caption, null));
+
+				Set<String> tokenSet = new HashSet<String>();
+				tokenSet.addAll(SearchIndex.tokenize(keywords));
+				tokenSet.addAll(SearchIndex.tokenize(caption));
+				model.put(Long.valueOf(imageID), tokenSet);
+				albumModel.put(Long.valueOf(imageID), Long.valueOf(albumID));
+			} else if (action < 9) {
+				index.removeImage(imageID);
+				model.remove(Long.valueOf(imageID));
+			} else if (random.nextInt(20) == 0)
+				index.compact();
+
+			if (step % 10 == 0) {
+				String query = randomText(random);
+				List<Hit> hitList = index.search(query, Integer.MAX_VALUE);
+				Set<Long> idSet = imageIDs(hitList);
+
+				assertEquals("query \"" + query + "\"", bruteForce(model,
+						query), idSet);
+				assertEquals(hitList.size(), idSet.size());
+
+				for (Hit hit : hitList)
+					assertEquals(albumModel.get(Long.valueOf(hit.getID()))
+							.longValue(), hit.getAlbumID());
+			}
+		}
+
+		assertEquals(model.size(), index.getDocumentCount());
+	}
+
+	/**
+	 * Used to find the images containing, for every word of the query, a word
+	 * that starts with it.
+	 */
+	private static Set<Long> bruteForce(Map<Long, Set<String>> model,
+			String query) {
+		Set<String> querySet = SearchIndex.tokenize(query);
+		Set<Long> idSet = new HashSet<Long>();
+
+		if (querySet.isEmpty())
+			return idSet;
+
+		for (Map.Entry<Long, Set<String>> entry : model.entrySet()) {
+			boolean matches = true;
+
+			for (String word : querySet) {
+				boolean found = false;
+
+				for (String token : entry.getValue())
+					found |= token.startsWith(word);
+
+				matches &= found;
+			}
+
+			if (matches)
+				idSet.add(entry.getKey());
+		}
+
+		return idSet;
+	}
+
+	private static String randomText(Random random) {
+		StringBuilder text = new StringBuilder();
+		int count = random.nextInt(4);
+
+		for (int i = 0; i < count; i++)
+			text.append(VOCABULARY[random.nextInt(VOCABULARY.length)]).append(
+					' ');
+
+		return text.toString();
+	}
+
+	private static Set<Long> imageIDs(List<Hit> hitList) {
+		Set<Long> idSet = new HashSet<Long>();
+
+		for (Hit hit : hitList) {
+			if (hit.getKind() == Kind.IMAGE)
+				idSet.add(Long.valueOf(hit.getID()));
+		}
+
+		return idSet;
+	}
+
+	private static Set<Long> set(long... ids) {
+		Set<Long> idSet = new HashSet<Long>();
+
+		for (long id : ids)
+			idSet.add(Long.valueOf(id));
+
+		return idSet;
+	}
+
+	private static Image createImage(long id, String keywords,
+			String caption, String fileName) throws JSONException {
+		JSONObject imageObject = new JSONObject();
+		imageObject.put("id", id);
+		imageObject.put("Key", "key" + id);
+
+		if (keywords != null)
+			imageObject.put("Keywords", keywords);
+
+		if (caption != null)
+			imageObject.put("Caption", caption);
+
+		if (fileName != null)
+			imageObject.put("FileName", fileName);
+
+		return new Image(imageObject);
+	}
+
+	private static Album createAlbum(long id, String title, String keywords)
+			throws JSONException {
+		JSONObject albumObject = new JSONObject();
+		albumObject.put("id", id);
+		albumObject.put("Title", title);
+		albumObject.put("Keywords", keywords);
+
+		return new Album(albumObject);
+	}
+}
@@ -0,0 +1,185 @@
+/* Copyright 2026 smugmug-java-api contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kallasoft.smugmug.api.json.upload;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import org.apache.commons.httpclient.methods.ByteArrayRequestEntity;
+import org.apache.commons.httpclient.methods.RequestEntity;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+
+import com.kallasoft.smugmug.api.util.APIUtils;
+
+/**
+ * Class used to time the two ways an upload body can be written: reading the
+ * file into a <code>byte[]</code> and sending it with a
+ * {@link ByteArrayRequestEntity}, or streaming it with a
+ * {@link FileChannelRequestEntity}.
+ * <p>
+ * Both bodies are written to an {@link OutputStream} that discards them, so
+ * only the cost of producing the body is measured, not the network. For each
+ * path the average time per upload, the throughput and (when the JVM
+ * supports it) the bytes allocated per upload are printed.
+ * <p>
+ * Usage: <code>UploadBodyBenchmark [file [iterations]]</code>. Without a file
+ * a 64 MB temporary file of random data is used. The benchmark lives in the
+ * test sources so it is compiled by <code>mvn test-compile</code> but not
+ * shipped in the library jar; run it with the test classpath.
+ *
+ * @author smugmug-java-api contributors
+ */
+public class UploadBodyBenchmark {
+	/**
+	 * Defines the size of the temporary file used when no file is given.
+	 */
+	public static final int DEFAULT_FILE_SIZE = 64 * 1024 * 1024;
+
+	/**
+	 * Defines the number of timed iterations of each path.
+	 */
+	public static final int DEFAULT_ITERATIONS = 10;
+
+	/* Untimed iterations run first so both paths are compiled */
+	private static final int WARMUP_ITERATIONS = 3;
+
+	public static void main(String[] args) throws IOException {
+		Path file = null;
+		boolean temporary = false;
+		int iterations = DEFAULT_ITERATIONS;
+
+		if (args.length > 0)
+			file = Paths.get(args[0]);
+		else {
+			file = createTemporaryFile(DEFAULT_FILE_SIZE);
+			temporary = true;
+		}
+
+		if (args.length > 1)
+			iterations = Integer.parseInt(args[1]);
+
+		try {
+			long length = Files.size(file);
+			System.out.println("File: " + file + " (" + length + " bytes), "
+					+ iterations + " iterations");
+
+			run("byte[]", file, false, WARMUP_ITERATIONS, length, false);
+			run("FileChannel", file, true, WARMUP_ITERATIONS, length, false);
+
+			run("byte[]", file, false, iterations, length, true);
+			run("FileChannel", file, true, iterations, length, true);
+		} finally {
+			if (temporary)
+				Files.deleteIfExists(file);
+		}
+	}
+
+	private static void run(String name, Path file, boolean channel,
+			int iterations, long length, boolean print) throws IOException {
+		long allocatedBefore = getAllocatedBytes();
+		long start = System.nanoTime();
+
+		for (int i = 0; i < iterations; i++) {
+			CountingOutputStream out = new CountingOutputStream(
+					new NullOutputStream());
+			createEntity(file, channel).writeRequest(out);
+
+			if (out.getByteCount() != length)
+				throw new IOException(name + " wrote " + out.getByteCount()
+						+ " of " + length + " bytes");
+		}
+
+		long elapsed = System.nanoTime() - start;
+		long allocatedAfter = getAllocatedBytes();
+
+		if (!print)
+			return;
+
+		double millis = elapsed / 1000000D / iterations;
+		double mbPerSecond = (length / (1024D * 1024D)) / (millis / 1000D);
+		String allocated = "n/a";
+
+		if (allocatedBefore >= 0)
+			allocated = ((allocatedAfter - allocatedBefore) / iterations)
+					+ " bytes";
+
+		System.out.println(String.format(
+				"%-12s %10.2f ms/upload %10.1f MB/s  allocated %s/upload",
+				name, millis, mbPerSecond, allocated));
+	}
+
+	private static RequestEntity createEntity(Path file, boolean channel)
+			throws IOException {
+		if (channel)
+			return new FileChannelRequestEntity(file);
+
+		InputStream in = null;
+
+		try {
+			in = Files.newInputStream(file);
+			return new ByteArrayRequestEntity(APIUtils.readStream(in));
+		} finally {
+			IOUtils.closeQuietly(in);
+		}
+	}
+
+	private static Path createTemporaryFile(int size) throws IOException {
+		Path file = Files.createTempFile("smugmug-upload-benchmark", ".bin");
+		byte[] chunk = new byte[1024 * 1024];
+		Random random = new Random(0);
+		OutputStream out = null;
+
+		try {
+			out = Files.newOutputStream(file);
+
+			for (int written = 0; written < size; written += chunk.length) {
+				random.nextBytes(chunk);
+				out.write(chunk, 0, Math.min(chunk.length, size - written));
+			}
+		} finally {
+			IOUtils.closeQuietly(out);
+		}
+
+		return file;
+	}
+
+	/*
+	 * Returns the bytes allocated by this thread so far, or -1 if the JVM
+	 * does not track them.
+	 */
+	private static long getAllocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+
+			if (sunBean.isThreadAllocatedMemorySupported()
+					&& sunBean.isThreadAllocatedMemoryEnabled())
+				return sunBean.getThreadAllocatedBytes(Thread.currentThread()
+						.getId());
+		}
+
+		return -1;
+	}
+}